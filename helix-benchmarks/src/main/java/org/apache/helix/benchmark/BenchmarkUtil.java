@@ -0,0 +1,96 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.Map;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.HelixManager;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.pipeline.Stage;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.BestPossibleStateCalcStage;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.ClusterEventType;
+import org.apache.helix.controller.stages.CurrentStateComputationStage;
+import org.apache.helix.controller.stages.ResourceComputationStage;
+import org.apache.helix.model.Resource;
+
+/**
+ * Helpers to prepare the inputs of the controller stages.
+ */
+public class BenchmarkUtil {
+  private BenchmarkUtil() {
+  }
+
+  /**
+   * Create a cluster event with the attributes that the controller pipelines expect.
+   * @param manager the helix manager, could be null if the stages do not need it
+   */
+  public static ClusterEvent createClusterEvent(ResourceControllerDataProvider dataProvider,
+      HelixManager manager) {
+    ClusterEvent event =
+        new ClusterEvent(dataProvider.getClusterName(), ClusterEventType.Unknown);
+    event.addAttribute(AttributeName.ControllerDataProvider.name(), dataProvider);
+    if (manager != null) {
+      event.addAttribute(AttributeName.helixmanager.name(), manager);
+    }
+    return event;
+  }
+
+  /**
+   * Process the stages on the event, in order.
+   */
+  public static void processStages(ClusterEvent event, Stage... stages) {
+    for (Stage stage : stages) {
+      try {
+        stage.process(event);
+      } catch (Exception e) {
+        throw new HelixException("Failed to process stage " + stage.getStageName(), e);
+      }
+    }
+  }
+
+  /**
+   * Create a cluster event and process the resource pipeline stages up to (and including) the
+   * best possible state calculation on it. So the event holds the inputs of the following stages.
+   */
+  public static ClusterEvent createBestPossibleStateEvent(ClusterFixture fixture) {
+    HelixDataAccessor accessor = fixture.createDataAccessor();
+    ResourceControllerDataProvider dataProvider =
+        new ResourceControllerDataProvider(fixture.getClusterName());
+    dataProvider.refresh(accessor);
+    ClusterEvent event = createClusterEvent(dataProvider,
+        StubHelixManager.create(fixture.getClusterName(), "controller", accessor));
+    processStages(event, new ResourceComputationStage(), new CurrentStateComputationStage(),
+        new BestPossibleStateCalcStage());
+    return event;
+  }
+
+  /**
+   * @return the resources to rebalance, as computed by the {@link ResourceComputationStage}
+   */
+  public static Map<String, Resource> createResourceMap(
+      ResourceControllerDataProvider dataProvider) {
+    ClusterEvent event = createClusterEvent(dataProvider, null);
+    processStages(event, new ResourceComputationStage());
+    return event.getAttribute(AttributeName.RESOURCES_TO_REBALANCE.name());
+  }
+}
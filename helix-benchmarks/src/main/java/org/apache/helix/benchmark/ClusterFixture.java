@@ -0,0 +1,402 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.api.config.StateTransitionThrottleConfig;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.manager.zk.ZKHelixDataAccessor;
+import org.apache.helix.model.BuiltInStateModelDefinitions;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
+import org.apache.helix.model.MasterSlaveSMD;
+import org.apache.helix.model.StateModelDefinition;
+
+/**
+ * Generates a synthetic cluster of configurable size for the benchmarks.
+ *
+ * The instances are spread round-robin over the fault zones and the domain of every instance is
+ * "zone=zone_x,instance=instance_y". All the resources are FULL_AUTO MasterSlave resources. The
+ * current states (and the external views) place the replicas of every partition on consecutive
+ * instances, skipping the last {@code newInstanceCount} instances. So these instances are empty
+ * and the rebalancer has to move replicas to them, like after a cluster expansion.
+ *
+ * The generated records are kept in memory. Use {@link #writeTo(HelixDataAccessor)} to persist
+ * them, or {@link #createDataProvider()} to get a refreshed controller cache.
+ */
+public class ClusterFixture {
+  public static final String ZONE_PREFIX = "zone_";
+  public static final String INSTANCE_PREFIX = "instance_";
+  public static final String RESOURCE_PREFIX = "resource_";
+  public static final String CAPACITY_KEY = "CU";
+
+  private final String _clusterName;
+  private final int _instanceCount;
+  private final int _zoneCount;
+  private final int _resourceCount;
+  private final int _partitionCount;
+  private final int _replicaCount;
+  private final int _newInstanceCount;
+  private final String _rebalanceStrategy;
+  private final int _throttleLimit;
+
+  private final ClusterConfig _clusterConfig;
+  private final Map<String, InstanceConfig> _instanceConfigs = new LinkedHashMap<>();
+  private final Map<String, LiveInstance> _liveInstances = new LinkedHashMap<>();
+  private final Map<String, IdealState> _idealStates = new LinkedHashMap<>();
+  private final Map<String, ExternalView> _externalViews = new LinkedHashMap<>();
+  // instance -> resource -> current state
+  private final Map<String, Map<String, CurrentState>> _currentStates = new LinkedHashMap<>();
+
+  private ClusterFixture(Builder builder) {
+    _clusterName = builder._clusterName;
+    _instanceCount = builder._instanceCount;
+    _zoneCount = builder._zoneCount;
+    _resourceCount = builder._resourceCount;
+    _partitionCount = builder._partitionCount;
+    _replicaCount = builder._replicaCount;
+    _newInstanceCount = builder._newInstanceCount;
+    _rebalanceStrategy = builder._rebalanceStrategy;
+    _throttleLimit = builder._throttleLimit;
+
+    _clusterConfig = generateClusterConfig();
+    generateInstances();
+    generateResources();
+  }
+
+  private ClusterConfig generateClusterConfig() {
+    ClusterConfig clusterConfig = new ClusterConfig(_clusterName);
+    clusterConfig.setTopologyAwareEnabled(true);
+    clusterConfig.setTopology("/zone/instance");
+    clusterConfig.setFaultZoneType("zone");
+    clusterConfig.setInstanceCapacityKeys(Collections.singletonList(CAPACITY_KEY));
+    // Leave enough room on every instance for an even distribution of the replicas
+    int replicasPerInstance =
+        (_resourceCount * _partitionCount * _replicaCount + _instanceCount - 1) / _instanceCount;
+    clusterConfig.setDefaultInstanceCapacityMap(
+        Collections.singletonMap(CAPACITY_KEY, Math.max(1000, replicasPerInstance * 4)));
+    clusterConfig.setDefaultPartitionWeightMap(Collections.singletonMap(CAPACITY_KEY, 1));
+    if (_throttleLimit > 0) {
+      clusterConfig.setStateTransitionThrottleConfigs(Collections.singletonList(
+          new StateTransitionThrottleConfig(StateTransitionThrottleConfig.RebalanceType.ANY,
+              StateTransitionThrottleConfig.ThrottleScope.INSTANCE, _throttleLimit)));
+    }
+    return clusterConfig;
+  }
+
+  private void generateInstances() {
+    for (int i = 0; i < _instanceCount; i++) {
+      InstanceConfig instanceConfig = createInstanceConfig(i);
+      String instanceName = instanceConfig.getInstanceName();
+      _instanceConfigs.put(instanceName, instanceConfig);
+
+      LiveInstance liveInstance = new LiveInstance(instanceName);
+      liveInstance.setSessionId(getSessionId(instanceName));
+      liveInstance.setHelixVersion("benchmark");
+      _liveInstances.put(instanceName, liveInstance);
+      _currentStates.put(instanceName, new LinkedHashMap<>());
+    }
+  }
+
+  private void generateResources() {
+    List<String> instances = getInstanceNames();
+    int assignedInstanceCount = Math.max(_instanceCount - _newInstanceCount, 1);
+    String masterState = MasterSlaveSMD.States.MASTER.name();
+    String slaveState = MasterSlaveSMD.States.SLAVE.name();
+    int replicaIndex = 0;
+    for (int r = 0; r < _resourceCount; r++) {
+      String resourceName = RESOURCE_PREFIX + r;
+      IdealState idealState = createIdealState(resourceName, _partitionCount, _replicaCount);
+      ExternalView externalView = new ExternalView(resourceName);
+
+      for (int p = 0; p < _partitionCount; p++) {
+        String partitionName = getPartitionName(resourceName, p);
+        List<String> preferenceList = new ArrayList<>(_replicaCount);
+        for (int i = 0; i < _replicaCount; i++) {
+          String instanceName = instances.get(replicaIndex++ % assignedInstanceCount);
+          String state = i == 0 ? masterState : slaveState;
+          preferenceList.add(instanceName);
+          externalView.setState(partitionName, instanceName, state);
+          getOrCreateCurrentState(instanceName, resourceName).setState(partitionName, state);
+        }
+        idealState.setPreferenceList(partitionName, preferenceList);
+      }
+      _idealStates.put(resourceName, idealState);
+      _externalViews.put(resourceName, externalView);
+    }
+  }
+
+  /**
+   * Create the config of the instance with the given id, following the naming and the zone
+   * layout of the generated instances. Also used to add instances to the cluster later.
+   */
+  public InstanceConfig createInstanceConfig(int instanceId) {
+    String instanceName = INSTANCE_PREFIX + instanceId;
+    InstanceConfig instanceConfig = new InstanceConfig(instanceName);
+    instanceConfig.setHostName("host_" + instanceId);
+    instanceConfig.setPort(Integer.toString(12000 + instanceId));
+    instanceConfig.setDomain(String.format("zone=%s%d,instance=%s", ZONE_PREFIX,
+        instanceId % _zoneCount, instanceName));
+    instanceConfig.setInstanceEnabled(true);
+    return instanceConfig;
+  }
+
+  /**
+   * Create the ideal state of a FULL_AUTO MasterSlave resource with empty preference lists, as
+   * the admin tools do. Also used to add resources to the cluster later.
+   */
+  public IdealState createIdealState(String resourceName, int partitionCount, int replicaCount) {
+    IdealState idealState = new IdealState(resourceName);
+    idealState.setRebalanceMode(IdealState.RebalanceMode.FULL_AUTO);
+    idealState.setStateModelDefRef(MasterSlaveSMD.name);
+    idealState.setNumPartitions(partitionCount);
+    idealState.setReplicas(Integer.toString(replicaCount));
+    if (_rebalanceStrategy != null) {
+      idealState.setRebalanceStrategy(_rebalanceStrategy);
+    }
+    for (int p = 0; p < partitionCount; p++) {
+      idealState.setPreferenceList(getPartitionName(resourceName, p), new ArrayList<>());
+    }
+    return idealState;
+  }
+
+  private CurrentState getOrCreateCurrentState(String instanceName, String resourceName) {
+    return _currentStates.get(instanceName).computeIfAbsent(resourceName, name -> {
+      CurrentState currentState = new CurrentState(name);
+      currentState.setSessionId(getSessionId(instanceName));
+      currentState.setStateModelDefRef(MasterSlaveSMD.name);
+      return currentState;
+    });
+  }
+
+  /**
+   * Write all the generated records with the given accessor.
+   */
+  public void writeTo(HelixDataAccessor accessor) {
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    boolean success = accessor.setProperty(keyBuilder.clusterConfig(), _clusterConfig);
+    StateModelDefinition stateModelDef =
+        BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition();
+    success &= accessor.setProperty(keyBuilder.stateModelDef(stateModelDef.getId()),
+        stateModelDef);
+    for (InstanceConfig instanceConfig : _instanceConfigs.values()) {
+      success &= accessor
+          .setProperty(keyBuilder.instanceConfig(instanceConfig.getInstanceName()), instanceConfig);
+    }
+    for (LiveInstance liveInstance : _liveInstances.values()) {
+      success &= accessor
+          .setProperty(keyBuilder.liveInstance(liveInstance.getInstanceName()), liveInstance);
+    }
+    for (IdealState idealState : _idealStates.values()) {
+      success &=
+          accessor.setProperty(keyBuilder.idealStates(idealState.getResourceName()), idealState);
+    }
+    for (ExternalView externalView : _externalViews.values()) {
+      success &= accessor
+          .setProperty(keyBuilder.externalView(externalView.getResourceName()), externalView);
+    }
+    for (Map.Entry<String, Map<String, CurrentState>> entry : _currentStates.entrySet()) {
+      String instanceName = entry.getKey();
+      for (CurrentState currentState : entry.getValue().values()) {
+        success &= accessor.setProperty(keyBuilder
+            .currentState(instanceName, getSessionId(instanceName), currentState.getResourceName()),
+            currentState);
+      }
+    }
+    if (!success) {
+      throw new HelixException("Failed to write the cluster fixture of " + _clusterName);
+    }
+  }
+
+  /**
+   * @return a new in-memory data accessor that contains all the generated records
+   */
+  public HelixDataAccessor createDataAccessor() {
+    HelixDataAccessor accessor =
+        new ZKHelixDataAccessor(_clusterName, new InMemoryBaseDataAccessor());
+    writeTo(accessor);
+    return accessor;
+  }
+
+  /**
+   * @return a controller data provider refreshed with all the generated records
+   */
+  public ResourceControllerDataProvider createDataProvider() {
+    ResourceControllerDataProvider dataProvider =
+        new ResourceControllerDataProvider(_clusterName);
+    dataProvider.refresh(createDataAccessor());
+    return dataProvider;
+  }
+
+  public String getClusterName() {
+    return _clusterName;
+  }
+
+  public ClusterConfig getClusterConfig() {
+    return _clusterConfig;
+  }
+
+  public List<String> getInstanceNames() {
+    return new ArrayList<>(_instanceConfigs.keySet());
+  }
+
+  public Map<String, InstanceConfig> getInstanceConfigs() {
+    return _instanceConfigs;
+  }
+
+  public Map<String, LiveInstance> getLiveInstances() {
+    return _liveInstances;
+  }
+
+  public Map<String, IdealState> getIdealStates() {
+    return _idealStates;
+  }
+
+  public Map<String, ExternalView> getExternalViews() {
+    return _externalViews;
+  }
+
+  public Map<String, Map<String, CurrentState>> getCurrentStates() {
+    return _currentStates;
+  }
+
+  /**
+   * @return the partition -> instance -> state mapping of the resource in the current states
+   */
+  public Map<String, Map<String, String>> getCurrentStateMapping(String resourceName) {
+    Map<String, Map<String, String>> mapping = new TreeMap<>();
+    ExternalView externalView = _externalViews.get(resourceName);
+    for (String partition : externalView.getPartitionSet()) {
+      mapping.put(partition, new TreeMap<>(externalView.getStateMap(partition)));
+    }
+    return mapping;
+  }
+
+  public List<String> getPartitionNames(String resourceName) {
+    List<String> partitions = new ArrayList<>(_partitionCount);
+    for (int p = 0; p < _partitionCount; p++) {
+      partitions.add(getPartitionName(resourceName, p));
+    }
+    return partitions;
+  }
+
+  public int getReplicaCount() {
+    return _replicaCount;
+  }
+
+  public static String getSessionId(String instanceName) {
+    return "session_" + instanceName;
+  }
+
+  public static String getPartitionName(String resourceName, int partitionId) {
+    return resourceName + "_" + partitionId;
+  }
+
+  public static class Builder {
+    private String _clusterName = "BenchmarkCluster";
+    private int _instanceCount = 100;
+    private int _zoneCount = 10;
+    private int _resourceCount = 10;
+    private int _partitionCount = 100;
+    private int _replicaCount = 3;
+    private int _newInstanceCount = 0;
+    private String _rebalanceStrategy = null;
+    private int _throttleLimit = -1;
+
+    public Builder setClusterName(String clusterName) {
+      _clusterName = clusterName;
+      return this;
+    }
+
+    public Builder setInstanceCount(int instanceCount) {
+      _instanceCount = instanceCount;
+      return this;
+    }
+
+    public Builder setZoneCount(int zoneCount) {
+      _zoneCount = zoneCount;
+      return this;
+    }
+
+    public Builder setResourceCount(int resourceCount) {
+      _resourceCount = resourceCount;
+      return this;
+    }
+
+    public Builder setPartitionCount(int partitionCount) {
+      _partitionCount = partitionCount;
+      return this;
+    }
+
+    public Builder setReplicaCount(int replicaCount) {
+      _replicaCount = replicaCount;
+      return this;
+    }
+
+    /**
+     * Set the number of instances which do not have any replica in the current states.
+     */
+    public Builder setNewInstanceCount(int newInstanceCount) {
+      _newInstanceCount = newInstanceCount;
+      return this;
+    }
+
+    /**
+     * Set the rebalance strategy class of the ideal states. The default strategy is used if null.
+     */
+    public Builder setRebalanceStrategy(String rebalanceStrategy) {
+      _rebalanceStrategy = rebalanceStrategy;
+      return this;
+    }
+
+    /**
+     * Set the max number of pending state transitions per instance. No throttling if not positive.
+     */
+    public Builder setThrottleLimit(int throttleLimit) {
+      _throttleLimit = throttleLimit;
+      return this;
+    }
+
+    public ClusterFixture build() {
+      if (_instanceCount <= 0 || _zoneCount <= 0 || _resourceCount < 0 || _partitionCount <= 0
+          || _replicaCount <= 0 || _replicaCount > _zoneCount || _newInstanceCount < 0
+          || _newInstanceCount >= _instanceCount) {
+        throw new HelixException(String.format(
+            "Invalid cluster fixture: %d instances, %d zones, %d resources, %d partitions, "
+                + "%d replicas, %d new instances.", _instanceCount, _zoneCount, _resourceCount,
+            _partitionCount, _replicaCount, _newInstanceCount));
+      }
+      return new ClusterFixture(this);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.ExternalViewComputeStage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link ExternalViewComputeStage}, including the writes of the changed external
+ * views into an in-memory store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExternalViewComputeStageBenchmark {
+  @Param({ "100", "1000" })
+  public int instanceCount;
+
+  @Param({ "100" })
+  public int resourceCount;
+
+  @Param({ "100" })
+  public int partitionCount;
+
+  /**
+   * If true, every external view is recomputed and written. Otherwise, the external views are
+   * up to date and the stage only compares them.
+   */
+  @Param({ "false", "true" })
+  public boolean externalViewsChanged;
+
+  private ClusterEvent _event;
+  private ResourceControllerDataProvider _dataProvider;
+  private ExternalViewComputeStage _stage;
+
+  @Setup(Level.Trial)
+  public void setupTrial() throws Exception {
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(instanceCount)
+        .setZoneCount(10).setResourceCount(resourceCount).setPartitionCount(partitionCount)
+        .setReplicaCount(3).build();
+    _event = BenchmarkUtil.createBestPossibleStateEvent(fixture);
+    _dataProvider = _event.getAttribute(AttributeName.ControllerDataProvider.name());
+    _stage = new ExternalViewComputeStage();
+    // Bring the cached external views up to date
+    _stage.execute(_event);
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() {
+    if (externalViewsChanged) {
+      _dataProvider
+          .removeExternalViews(new ArrayList<>(_dataProvider.getExternalViews().keySet()));
+    }
+  }
+
+  @Benchmark
+  public void externalViewCompute() throws Exception {
+    // The stage is asynchronous in the pipeline, execute it on the benchmark thread instead
+    _stage.execute(_event);
+  }
+}
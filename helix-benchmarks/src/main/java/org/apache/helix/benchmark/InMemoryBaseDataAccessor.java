@@ -0,0 +1,506 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.helix.AccessOption;
+import org.apache.helix.BaseDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.zkclient.DataUpdater;
+import org.apache.helix.zookeeper.zkclient.IZkChildListener;
+import org.apache.helix.zookeeper.zkclient.IZkDataListener;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread-safe, in-memory implementation of {@link BaseDataAccessor} which mimics the ZooKeeper
+ * data model: nodes form a tree, parents are created on demand and every node keeps a
+ * {@link Stat} with its version and modification time. Records are copied on write and on read,
+ * so the callers never share instances with the store, as if the records were serialized.
+ *
+ * Listeners are notified synchronously on the writing thread.
+ */
+public class InMemoryBaseDataAccessor implements BaseDataAccessor<ZNRecord> {
+  private static final Logger LOG = LoggerFactory.getLogger(InMemoryBaseDataAccessor.class);
+
+  private final Map<String, Node> _nodes = new ConcurrentHashMap<>();
+  private final Map<String, Set<IZkDataListener>> _dataListeners = new ConcurrentHashMap<>();
+  private final Map<String, Set<IZkChildListener>> _childListeners = new ConcurrentHashMap<>();
+  private final AtomicLong _txnId = new AtomicLong(0L);
+  private final AtomicLong _readCount = new AtomicLong(0L);
+  private final AtomicLong _writeCount = new AtomicLong(0L);
+
+  public InMemoryBaseDataAccessor() {
+    _nodes.put("/", new Node(null, newStat(0L)));
+  }
+
+  private static class Node {
+    final ZNRecord _record;
+    final Stat _stat;
+    final Set<String> _children = ConcurrentHashMap.newKeySet();
+
+    Node(ZNRecord record, Stat stat) {
+      _record = record;
+      _stat = stat;
+    }
+  }
+
+  @Override
+  public boolean create(String path, ZNRecord record, int options) {
+    return createNode(path, record);
+  }
+
+  @Override
+  public boolean set(String path, ZNRecord record, int options) {
+    return set(path, record, -1, options);
+  }
+
+  @Override
+  public boolean set(String path, ZNRecord record, int expectVersion, int options) {
+    synchronized (this) {
+      Node node = _nodes.get(path);
+      if (node == null) {
+        if (expectVersion != -1) {
+          return false;
+        }
+        return createNode(path, record);
+      }
+      if (expectVersion != -1 && node._stat.getVersion() != expectVersion) {
+        return false;
+      }
+      replaceNode(path, node, record);
+    }
+    fireDataChange(path, record);
+    return true;
+  }
+
+  @Override
+  public boolean update(String path, DataUpdater<ZNRecord> updater, int options) {
+    ZNRecord newRecord;
+    synchronized (this) {
+      Node node = _nodes.get(path);
+      ZNRecord current = node == null || node._record == null ? null : copy(node._record);
+      newRecord = updater.update(current);
+      if (newRecord == null) {
+        return false;
+      }
+      if (node == null) {
+        return createNode(path, newRecord);
+      }
+      replaceNode(path, node, newRecord);
+    }
+    fireDataChange(path, newRecord);
+    return true;
+  }
+
+  @Override
+  public boolean remove(String path, int options) {
+    String parent;
+    synchronized (this) {
+      if (!_nodes.containsKey(path) || "/".equals(path)) {
+        return false;
+      }
+      removeRecursively(path);
+      parent = parentOf(path);
+      Node parentNode = _nodes.get(parent);
+      if (parentNode != null) {
+        parentNode._children.remove(nameOf(path));
+        parentNode._stat.setCversion(parentNode._stat.getCversion() + 1);
+      }
+      _writeCount.incrementAndGet();
+    }
+    fireDataDeleted(path);
+    fireChildChange(parent);
+    return true;
+  }
+
+  @Override
+  public boolean[] createChildren(List<String> paths, List<ZNRecord> records, int options) {
+    boolean[] success = new boolean[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      success[i] = create(paths.get(i), records.get(i), options);
+    }
+    return success;
+  }
+
+  @Override
+  public boolean[] setChildren(List<String> paths, List<ZNRecord> records, int options) {
+    boolean[] success = new boolean[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      success[i] = set(paths.get(i), records.get(i), options);
+    }
+    return success;
+  }
+
+  @Override
+  public boolean[] updateChildren(List<String> paths, List<DataUpdater<ZNRecord>> updaters,
+      int options) {
+    boolean[] success = new boolean[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      success[i] = update(paths.get(i), updaters.get(i), options);
+    }
+    return success;
+  }
+
+  @Override
+  public boolean[] remove(List<String> paths, int options) {
+    boolean[] success = new boolean[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      success[i] = remove(paths.get(i), options);
+    }
+    return success;
+  }
+
+  @Override
+  public ZNRecord get(String path, Stat stat, int options) {
+    _readCount.incrementAndGet();
+    Node node = _nodes.get(path);
+    if (node == null) {
+      if (AccessOption.isThrowExceptionIfNotExist(options)) {
+        throw new HelixException("Path does not exist: " + path);
+      }
+      return null;
+    }
+    if (stat != null) {
+      copyStat(node._stat, stat);
+    }
+    return node._record == null ? null : copy(node._record, node._stat);
+  }
+
+  @Override
+  public List<ZNRecord> get(List<String> paths, List<Stat> stats, int options) {
+    return get(paths, stats, options, false);
+  }
+
+  @Override
+  public List<ZNRecord> get(List<String> paths, List<Stat> stats, int options,
+      boolean throwException) throws HelixException {
+    List<ZNRecord> records = new ArrayList<>(paths.size());
+    for (String path : paths) {
+      Stat stat = new Stat();
+      ZNRecord record = get(path, stat, options);
+      if (record == null && throwException && !_nodes.containsKey(path)) {
+        throw new HelixException("Path does not exist: " + path);
+      }
+      records.add(record);
+      if (stats != null) {
+        stats.add(record == null ? null : stat);
+      }
+    }
+    return records;
+  }
+
+  @Override
+  public List<ZNRecord> getChildren(String parentPath, List<Stat> stats, int options) {
+    List<ZNRecord> children = new ArrayList<>();
+    List<String> childNames = getChildNames(parentPath, options);
+    if (childNames == null) {
+      return children;
+    }
+    for (String childName : childNames) {
+      Stat stat = new Stat();
+      ZNRecord record = get(childPath(parentPath, childName), stat, options);
+      if (record != null) {
+        children.add(record);
+        if (stats != null) {
+          stats.add(stat);
+        }
+      }
+    }
+    return children;
+  }
+
+  @Override
+  public List<ZNRecord> getChildren(String parentPath, List<Stat> stats, int options,
+      int retryCount, int retryInterval) throws HelixException {
+    return getChildren(parentPath, stats, options);
+  }
+
+  @Override
+  public List<String> getChildNames(String parentPath, int options) {
+    Node node = _nodes.get(parentPath);
+    if (node == null) {
+      return null;
+    }
+    List<String> childNames = new ArrayList<>(node._children);
+    Collections.sort(childNames);
+    return childNames;
+  }
+
+  @Override
+  public boolean exists(String path, int options) {
+    return _nodes.containsKey(path);
+  }
+
+  @Override
+  public boolean[] exists(List<String> paths, int options) {
+    boolean[] exists = new boolean[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      exists[i] = exists(paths.get(i), options);
+    }
+    return exists;
+  }
+
+  @Override
+  public Stat[] getStats(List<String> paths, int options) {
+    Stat[] stats = new Stat[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      stats[i] = getStat(paths.get(i), options);
+    }
+    return stats;
+  }
+
+  @Override
+  public Stat getStat(String path, int options) {
+    Node node = _nodes.get(path);
+    if (node == null) {
+      return null;
+    }
+    Stat stat = new Stat();
+    copyStat(node._stat, stat);
+    stat.setNumChildren(node._children.size());
+    return stat;
+  }
+
+  @Override
+  public void subscribeDataChanges(String path, IZkDataListener listener) {
+    _dataListeners.computeIfAbsent(path, k -> new CopyOnWriteArraySet<>()).add(listener);
+  }
+
+  @Override
+  public void unsubscribeDataChanges(String path, IZkDataListener listener) {
+    Set<IZkDataListener> listeners = _dataListeners.get(path);
+    if (listeners != null) {
+      listeners.remove(listener);
+    }
+  }
+
+  @Override
+  public List<String> subscribeChildChanges(String path, IZkChildListener listener) {
+    _childListeners.computeIfAbsent(path, k -> new CopyOnWriteArraySet<>()).add(listener);
+    return getChildNames(path, AccessOption.PERSISTENT);
+  }
+
+  @Override
+  public void unsubscribeChildChanges(String path, IZkChildListener listener) {
+    Set<IZkChildListener> listeners = _childListeners.get(path);
+    if (listeners != null) {
+      listeners.remove(listener);
+    }
+  }
+
+  @Override
+  public void reset() {
+    // Nothing is cached
+  }
+
+  @Override
+  public void close() {
+    _dataListeners.clear();
+    _childListeners.clear();
+  }
+
+  /**
+   * @return number of records read from the store
+   */
+  public long getReadCount() {
+    return _readCount.get();
+  }
+
+  /**
+   * @return number of records written to or removed from the store
+   */
+  public long getWriteCount() {
+    return _writeCount.get();
+  }
+
+  private boolean createNode(String path, ZNRecord record) {
+    List<String> createdParents = new ArrayList<>();
+    synchronized (this) {
+      if (_nodes.containsKey(path)) {
+        return false;
+      }
+      String parent = parentOf(path);
+      if (!_nodes.containsKey(parent)) {
+        createParents(parent, createdParents);
+      }
+      long txnId = _txnId.incrementAndGet();
+      _nodes.put(path, new Node(record == null ? null : copy(record), newStat(txnId)));
+      Node parentNode = _nodes.get(parent);
+      parentNode._children.add(nameOf(path));
+      parentNode._stat.setCversion(parentNode._stat.getCversion() + 1);
+      _writeCount.incrementAndGet();
+    }
+    for (String createdParent : createdParents) {
+      fireChildChange(parentOf(createdParent));
+    }
+    fireDataChange(path, record);
+    fireChildChange(parentOf(path));
+    return true;
+  }
+
+  private void createParents(String path, List<String> createdParents) {
+    String parent = parentOf(path);
+    if (!_nodes.containsKey(parent)) {
+      createParents(parent, createdParents);
+    }
+    _nodes.put(path, new Node(null, newStat(_txnId.incrementAndGet())));
+    _nodes.get(parent)._children.add(nameOf(path));
+    createdParents.add(path);
+  }
+
+  private void replaceNode(String path, Node node, ZNRecord record) {
+    Stat stat = new Stat();
+    copyStat(node._stat, stat);
+    stat.setVersion(stat.getVersion() + 1);
+    stat.setMzxid(_txnId.incrementAndGet());
+    stat.setMtime(System.currentTimeMillis());
+    Node newNode = new Node(copy(record), stat);
+    newNode._children.addAll(node._children);
+    _nodes.put(path, newNode);
+    _writeCount.incrementAndGet();
+  }
+
+  private void removeRecursively(String path) {
+    Node node = _nodes.remove(path);
+    if (node != null) {
+      for (String child : node._children) {
+        removeRecursively(childPath(path, child));
+      }
+    }
+  }
+
+  private void fireDataChange(String path, ZNRecord record) {
+    Set<IZkDataListener> listeners = _dataListeners.get(path);
+    if (listeners == null) {
+      return;
+    }
+    for (IZkDataListener listener : listeners) {
+      try {
+        listener.handleDataChange(path, record);
+      } catch (Exception e) {
+        LOG.warn("Data listener failed on path {}.", path, e);
+      }
+    }
+  }
+
+  private void fireDataDeleted(String path) {
+    Set<IZkDataListener> listeners = _dataListeners.get(path);
+    if (listeners == null) {
+      return;
+    }
+    for (IZkDataListener listener : listeners) {
+      try {
+        listener.handleDataDeleted(path);
+      } catch (Exception e) {
+        LOG.warn("Data listener failed on path {}.", path, e);
+      }
+    }
+  }
+
+  private void fireChildChange(String parentPath) {
+    Set<IZkChildListener> listeners = _childListeners.get(parentPath);
+    if (listeners == null) {
+      return;
+    }
+    List<String> children = getChildNames(parentPath, AccessOption.PERSISTENT);
+    for (IZkChildListener listener : listeners) {
+      try {
+        listener.handleChildChange(parentPath, children);
+      } catch (Exception e) {
+        LOG.warn("Child listener failed on path {}.", parentPath, e);
+      }
+    }
+  }
+
+  private static Stat newStat(long txnId) {
+    long now = System.currentTimeMillis();
+    Stat stat = new Stat();
+    stat.setCzxid(txnId);
+    stat.setMzxid(txnId);
+    stat.setCtime(now);
+    stat.setMtime(now);
+    return stat;
+  }
+
+  private static void copyStat(Stat from, Stat to) {
+    to.setAversion(from.getAversion());
+    to.setCtime(from.getCtime());
+    to.setCversion(from.getCversion());
+    to.setCzxid(from.getCzxid());
+    to.setMtime(from.getMtime());
+    to.setMzxid(from.getMzxid());
+    to.setPzxid(from.getPzxid());
+    to.setVersion(from.getVersion());
+    to.setEphemeralOwner(from.getEphemeralOwner());
+    to.setDataLength(from.getDataLength());
+    to.setNumChildren(from.getNumChildren());
+  }
+
+  private static ZNRecord copy(ZNRecord record) {
+    // The copy constructor of ZNRecord shares the inner maps and lists
+    ZNRecord copy = new ZNRecord(record.getId());
+    copy.getSimpleFields().putAll(record.getSimpleFields());
+    for (Map.Entry<String, Map<String, String>> entry : record.getMapFields().entrySet()) {
+      copy.setMapField(entry.getKey(),
+          entry.getValue() == null ? null : new TreeMap<>(entry.getValue()));
+    }
+    for (Map.Entry<String, List<String>> entry : record.getListFields().entrySet()) {
+      copy.setListField(entry.getKey(),
+          entry.getValue() == null ? null : new ArrayList<>(entry.getValue()));
+    }
+    if (record.getRawPayload() != null) {
+      copy.setRawPayload(record.getRawPayload().clone());
+    }
+    return copy;
+  }
+
+  private static ZNRecord copy(ZNRecord record, Stat stat) {
+    ZNRecord copy = copy(record);
+    copy.setVersion(stat.getVersion());
+    copy.setCreationTime(stat.getCtime());
+    copy.setModifiedTime(stat.getMtime());
+    return copy;
+  }
+
+  private static String parentOf(String path) {
+    int index = path.lastIndexOf('/');
+    return index <= 0 ? "/" : path.substring(0, index);
+  }
+
+  private static String nameOf(String path) {
+    return path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  private static String childPath(String parentPath, String childName) {
+    return "/".equals(parentPath) ? "/" + childName : parentPath + "/" + childName;
+  }
+}
@@ -0,0 +1,86 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.controller.rebalancer.strategy.CrushEdRebalanceStrategy;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.IntermediateStateCalcStage;
+import org.apache.helix.controller.stages.IntermediateStateOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link IntermediateStateCalcStage}. Its inputs are computed once by running the
+ * preceding stages of the resource pipeline on a cluster that has just been expanded, so a part
+ * of the replicas must be moved, possibly with throttling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntermediateStateCalcStageBenchmark {
+  @Param({ "100", "1000" })
+  public int instanceCount;
+
+  @Param({ "100" })
+  public int resourceCount;
+
+  @Param({ "100" })
+  public int partitionCount;
+
+  /**
+   * Max pending state transitions per instance, no throttling if not positive.
+   */
+  @Param({ "-1", "10" })
+  public int throttleLimit;
+
+  private ClusterEvent _event;
+  private IntermediateStateCalcStage _stage;
+
+  @Setup
+  public void setup() {
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(instanceCount)
+        .setZoneCount(10).setResourceCount(resourceCount).setPartitionCount(partitionCount)
+        .setReplicaCount(3).setNewInstanceCount(instanceCount / 10)
+        .setRebalanceStrategy(CrushEdRebalanceStrategy.class.getName())
+        .setThrottleLimit(throttleLimit).build();
+    _event = BenchmarkUtil.createBestPossibleStateEvent(fixture);
+    _stage = new IntermediateStateCalcStage();
+  }
+
+  @Benchmark
+  public IntermediateStateOutput intermediateStateCalc() throws Exception {
+    _stage.process(_event);
+    return _event.getAttribute(AttributeName.INTERMEDIATE_STATE.name());
+  }
+}
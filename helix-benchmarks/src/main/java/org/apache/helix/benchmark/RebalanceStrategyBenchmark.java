@@ -0,0 +1,113 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.rebalancer.strategy.AutoRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.strategy.CrushEdRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.strategy.CrushRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.strategy.RebalanceStrategy;
+import org.apache.helix.model.BuiltInStateModelDefinitions;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link RebalanceStrategy#computePartitionAssignment} of one resource, which the
+ * FULL_AUTO rebalancers call for every resource in every pipeline run. The placement cache is
+ * cleared before each invocation, so the CRUSH based strategies compute the placement every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RebalanceStrategyBenchmark {
+  @Param({ "AutoRebalanceStrategy", "CrushRebalanceStrategy", "CrushEdRebalanceStrategy" })
+  public String strategy;
+
+  @Param({ "100", "1000" })
+  public int instanceCount;
+
+  @Param({ "1024" })
+  public int partitionCount;
+
+  private ResourceControllerDataProvider _dataProvider;
+  private String _resourceName;
+  private List<String> _partitions;
+  private LinkedHashMap<String, Integer> _states;
+  private List<String> _instances;
+  private Map<String, Map<String, String>> _currentMapping;
+
+  @Setup(Level.Trial)
+  public void setupTrial() {
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(instanceCount)
+        .setZoneCount(10).setResourceCount(1).setPartitionCount(partitionCount)
+        .setReplicaCount(3).setNewInstanceCount(instanceCount / 10).build();
+    _dataProvider = fixture.createDataProvider();
+    _resourceName = ClusterFixture.RESOURCE_PREFIX + 0;
+    _partitions = fixture.getPartitionNames(_resourceName);
+    _instances = fixture.getInstanceNames();
+    _states = BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition()
+        .getStateCountMap(_instances.size(), fixture.getReplicaCount());
+    _currentMapping = fixture.getCurrentStateMapping(_resourceName);
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() {
+    _dataProvider.getPlacementCache().clear();
+  }
+
+  @Benchmark
+  public ZNRecord computePartitionAssignment() {
+    RebalanceStrategy<ResourceControllerDataProvider> rebalanceStrategy = createStrategy();
+    rebalanceStrategy.init(_resourceName, _partitions, _states, Integer.MAX_VALUE);
+    return rebalanceStrategy
+        .computePartitionAssignment(_instances, _instances, _currentMapping, _dataProvider);
+  }
+
+  private RebalanceStrategy<ResourceControllerDataProvider> createStrategy() {
+    switch (strategy) {
+    case "AutoRebalanceStrategy":
+      return new AutoRebalanceStrategy();
+    case "CrushRebalanceStrategy":
+      return new CrushRebalanceStrategy();
+    case "CrushEdRebalanceStrategy":
+      return new CrushEdRebalanceStrategy();
+    default:
+      throw new IllegalArgumentException("Unknown rebalance strategy " + strategy);
+    }
+  }
+}
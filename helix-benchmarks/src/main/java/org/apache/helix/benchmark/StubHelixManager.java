@@ -0,0 +1,100 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.Proxy;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixManager;
+import org.apache.helix.HelixManagerProperties;
+import org.apache.helix.InstanceType;
+import org.apache.helix.SystemPropertyKeys;
+
+/**
+ * Creates a {@link HelixManager} that is only good enough to run the controller stages outside
+ * of a real controller. It exposes the given data accessor and the manager properties of the
+ * classpath; all the other methods return the default value of their return type.
+ */
+public class StubHelixManager {
+  private StubHelixManager() {
+  }
+
+  public static HelixManager create(String clusterName, String instanceName,
+      HelixDataAccessor accessor) {
+    HelixManagerProperties properties =
+        new HelixManagerProperties(SystemPropertyKeys.CLUSTER_MANAGER_VERSION);
+    return (HelixManager) Proxy.newProxyInstance(HelixManager.class.getClassLoader(),
+        new Class<?>[] { HelixManager.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+          case "getClusterName":
+            return clusterName;
+          case "getInstanceName":
+            return instanceName;
+          case "getSessionId":
+            return "stub_session";
+          case "getHelixDataAccessor":
+            return accessor;
+          case "getProperties":
+            return properties;
+          case "getInstanceType":
+            return InstanceType.CONTROLLER;
+          case "isConnected":
+          case "isLeader":
+            return true;
+          case "toString":
+            return "StubHelixManager{" + clusterName + "}";
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          case "equals":
+            return proxy == args[0];
+          default:
+            return defaultValue(method.getReturnType());
+          }
+        });
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (!type.isPrimitive() || type == void.class) {
+      return null;
+    }
+    if (type == boolean.class) {
+      return false;
+    }
+    if (type == char.class) {
+      return '\0';
+    }
+    if (type == long.class) {
+      return 0L;
+    }
+    if (type == float.class) {
+      return 0f;
+    }
+    if (type == double.class) {
+      return 0d;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == short.class) {
+      return (short) 0;
+    }
+    return (byte) 0;
+  }
+}
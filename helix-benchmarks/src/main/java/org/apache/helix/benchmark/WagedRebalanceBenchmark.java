@@ -0,0 +1,99 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.HelixRebalanceException;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.rebalancer.waged.RebalanceAlgorithm;
+import org.apache.helix.controller.rebalancer.waged.constraints.ConstraintBasedAlgorithmFactory;
+import org.apache.helix.controller.rebalancer.waged.model.ClusterModel;
+import org.apache.helix.controller.rebalancer.waged.model.ClusterModelProvider;
+import org.apache.helix.controller.rebalancer.waged.model.OptimalAssignment;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the global baseline calculation of the WAGED rebalancer, i.e.
+ * ConstraintBasedAlgorithm.calculate() on a cluster model without any existing assignment.
+ *
+ * The algorithm assigns the replicas into the cluster model, so a new model is generated before
+ * every invocation. The generation is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WagedRebalanceBenchmark {
+  @Param({ "100", "500" })
+  public int instanceCount;
+
+  @Param({ "20" })
+  public int resourceCount;
+
+  @Param({ "100" })
+  public int partitionCount;
+
+  private ResourceControllerDataProvider _dataProvider;
+  private Map<String, Resource> _resourceMap;
+  private RebalanceAlgorithm _algorithm;
+  private ClusterModel _clusterModel;
+
+  @Setup(Level.Trial)
+  public void setupTrial() {
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(instanceCount)
+        .setZoneCount(10).setResourceCount(resourceCount).setPartitionCount(partitionCount)
+        .setReplicaCount(3).build();
+    _dataProvider = fixture.createDataProvider();
+    _resourceMap = BenchmarkUtil.createResourceMap(_dataProvider);
+    _algorithm = ConstraintBasedAlgorithmFactory
+        .getInstance(ClusterConfig.DEFAULT_GLOBAL_REBALANCE_PREFERENCE);
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() {
+    _clusterModel = ClusterModelProvider
+        .generateClusterModelForBaseline(_dataProvider, _resourceMap,
+            new HashSet<>(_dataProvider.getAllInstances()), Collections.emptyMap(),
+            Collections.emptyMap());
+  }
+
+  @Benchmark
+  public OptimalAssignment calculateBaseline() throws HelixRebalanceException {
+    return _algorithm.calculate(_clusterModel);
+  }
+}
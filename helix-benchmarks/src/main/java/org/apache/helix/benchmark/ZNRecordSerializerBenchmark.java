@@ -0,0 +1,90 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordSerializer;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordStreamingSerializer;
+import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link ZNRecordSerializer} and the {@link ZNRecordStreamingSerializer} on the
+ * ideal state of a resource, which has a list field and a map field per partition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZNRecordSerializerBenchmark {
+  @Param({ "ZNRecordSerializer", "ZNRecordStreamingSerializer" })
+  public String serializer;
+
+  @Param({ "100", "10000" })
+  public int partitionCount;
+
+  private ZkSerializer _serializer;
+  private ZNRecord _record;
+  private byte[] _bytes;
+
+  @Setup
+  public void setup() {
+    switch (serializer) {
+    case "ZNRecordSerializer":
+      _serializer = new ZNRecordSerializer();
+      break;
+    case "ZNRecordStreamingSerializer":
+      _serializer = new ZNRecordStreamingSerializer();
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown serializer " + serializer);
+    }
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(100)
+        .setResourceCount(1).setPartitionCount(partitionCount).build();
+    String resourceName = ClusterFixture.RESOURCE_PREFIX + 0;
+    _record = new ZNRecord(fixture.getIdealStates().get(resourceName).getRecord());
+    _record.getMapFields().putAll(fixture.getExternalViews().get(resourceName).getRecord()
+        .getMapFields());
+    _bytes = _serializer.serialize(_record);
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return _serializer.serialize(_record);
+  }
+
+  @Benchmark
+  public Object deserialize() {
+    return _serializer.deserialize(_bytes);
+  }
+}
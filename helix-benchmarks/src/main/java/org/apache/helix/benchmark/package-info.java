@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * JMH benchmarks of the controller and spectator hot paths, on synthetic clusters generated by
+ * {@link org.apache.helix.benchmark.ClusterFixture}.
+ *
+ * Build with "mvn package" in helix-benchmarks, then run all the benchmarks with
+ * "java -jar target/benchmarks.jar", or a subset with a regular expression on the benchmark names,
+ * e.g. "java -jar target/benchmarks.jar RebalanceStrategyBenchmark -p instanceCount=1000".
+ *
+ * The end-to-end controller load simulator is in the simulator sub-package, e.g.
+ * "java -cp target/benchmarks.jar org.apache.helix.benchmark.simulator.ControllerSimulator
+ * --instances 1000 --resources 100 --partitions 3334 --replicas 3 --scenario rolling-restart".
+ */
+package org.apache.helix.benchmark;
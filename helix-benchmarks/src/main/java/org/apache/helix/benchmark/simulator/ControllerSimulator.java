@@ -0,0 +1,471 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionBuilder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.helix.AccessOption;
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixDefinedState;
+import org.apache.helix.HelixException;
+import org.apache.helix.HelixManager;
+import org.apache.helix.NotificationContext;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.benchmark.ClusterFixture;
+import org.apache.helix.benchmark.InMemoryBaseDataAccessor;
+import org.apache.helix.benchmark.StubHelixManager;
+import org.apache.helix.controller.GenericHelixController;
+import org.apache.helix.controller.GenericHelixControllerAccessor;
+import org.apache.helix.controller.pipeline.Pipeline;
+import org.apache.helix.controller.pipeline.PipelineRegistry;
+import org.apache.helix.manager.zk.ZKHelixDataAccessor;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
+import org.apache.helix.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the resource pipelines of a real {@link GenericHelixController} against an in-memory
+ * metadata store, with simulated participants completing the state transitions. Scripted
+ * {@link Scenario}s change the cluster and wait for its convergence, and the latency of every
+ * controller stage is recorded into a {@link SimulationReport}.
+ *
+ * There is no ZooKeeper: the simulator plays the role of the callback handlers and notifies the
+ * controller of the live instance, instance config, ideal state and current state changes it
+ * makes. The controller writes the messages to the in-memory store, which notifies the
+ * participants synchronously.
+ *
+ * Usage: java -cp benchmarks.jar org.apache.helix.benchmark.simulator.ControllerSimulator --help
+ */
+public class ControllerSimulator {
+  private static final Logger LOG = LoggerFactory.getLogger(ControllerSimulator.class);
+  private static final String CONTROLLER_NAME = "simulated_controller";
+  private static final long CONVERGENCE_CHECK_INTERVAL_MS = 20L;
+
+  private final ClusterFixture _fixture;
+  private final SimulatorConfig _config;
+  private final InMemoryBaseDataAccessor _baseAccessor;
+  private final HelixDataAccessor _accessor;
+  private final PropertyKey.Builder _keyBuilder;
+  private final HelixManager _manager;
+  private final StageLatencyRecorder _recorder = new StageLatencyRecorder();
+  private final ScheduledExecutorService _participantExecutor;
+  private final Random _random;
+  // All the instances, including the stopped ones, in the order of creation
+  private final Map<String, SimulatedParticipant> _participants = new LinkedHashMap<>();
+  private final AtomicLong _completedTransitionCount = new AtomicLong(0L);
+  private final AtomicLong _failedTransitionCount = new AtomicLong(0L);
+  // Replicas dropped from an instance during the current step, as "instance/resource/partition"
+  private final Set<String> _droppedReplicas = ConcurrentHashMap.newKeySet();
+  private final AtomicLong _flappingReplicaCount = new AtomicLong(0L);
+  private GenericHelixController _controller;
+
+  public ControllerSimulator(ClusterFixture fixture, SimulatorConfig config) {
+    _fixture = fixture;
+    _config = config;
+    _baseAccessor = new InMemoryBaseDataAccessor();
+    _accessor = new ZKHelixDataAccessor(fixture.getClusterName(), _baseAccessor);
+    _keyBuilder = _accessor.keyBuilder();
+    _manager = StubHelixManager.create(fixture.getClusterName(), CONTROLLER_NAME, _accessor);
+    _random = new Random(config.getRandomSeed());
+    final AtomicInteger threadCount = new AtomicInteger(0);
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread =
+          new Thread(runnable, "SimulatedParticipant-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    _participantExecutor =
+        Executors.newScheduledThreadPool(config.getParticipantThreadCount(), threadFactory);
+  }
+
+  /**
+   * Write the cluster fixture to the store, connect all the participants with the sessions of
+   * the fixture and start the controller.
+   */
+  public synchronized void start() {
+    if (_controller != null) {
+      throw new IllegalStateException("The simulator has already started.");
+    }
+    _fixture.writeTo(_accessor);
+    for (String instanceName : _fixture.getInstanceNames()) {
+      createParticipant(instanceName).connect(ClusterFixture.getSessionId(instanceName));
+    }
+
+    PipelineRegistry registry = GenericHelixControllerAccessor.createDefaultRegistry();
+    PipelineRegistry taskRegistry = GenericHelixControllerAccessor.createTaskRegistry();
+    _recorder.instrument(registry);
+    _controller = GenericHelixControllerAccessor
+        .createController(registry, taskRegistry, _fixture.getClusterName(),
+            EnumSet.of(Pipeline.Type.DEFAULT));
+    _controller.onControllerChange(createChangeContext());
+    notifyLiveInstanceChange();
+  }
+
+  /**
+   * Stop the controller and the participants.
+   */
+  public synchronized void shutdown() throws InterruptedException {
+    if (_controller != null) {
+      _controller.shutdown();
+    }
+    _participantExecutor.shutdownNow();
+    _baseAccessor.close();
+  }
+
+  /**
+   * Run the scenario and report the latencies of the controller stages during the run.
+   */
+  public SimulationReport run(Scenario scenario) throws Exception {
+    if (_controller == null) {
+      throw new IllegalStateException("The simulator has not started.");
+    }
+    _recorder.reset();
+    long startCompletedCount = _completedTransitionCount.get();
+    long startFailedCount = _failedTransitionCount.get();
+    long startFlappingCount = _flappingReplicaCount.get();
+    SimulationReport report = new SimulationReport(scenario.getName());
+    for (Scenario.Step step : scenario.getSteps()) {
+      LOG.info("Running step {} of scenario {}", step, scenario.getName());
+      _droppedReplicas.clear();
+      long startTime = System.currentTimeMillis();
+      boolean converged = step.run(this);
+      long duration = System.currentTimeMillis() - startTime;
+      if (!converged) {
+        LOG.warn("Step {} of scenario {} did not converge in {} ms", step, scenario.getName(),
+            duration);
+      }
+      report.addStepResult(new SimulationReport.StepResult(step.getDescription(), duration,
+          converged));
+    }
+    report.setStageLatencies(_recorder.getStageLatencies());
+    report.setTransitionCounts(_completedTransitionCount.get() - startCompletedCount,
+        _failedTransitionCount.get() - startFailedCount);
+    report.setFlappingReplicaCount(_flappingReplicaCount.get() - startFlappingCount);
+    if (report.getFlappingReplicaCount() > 0) {
+      LOG.warn("{} replicas were moved back to an instance they had been dropped from in the same "
+          + "step of scenario {}", report.getFlappingReplicaCount(), scenario.getName());
+    }
+    return report;
+  }
+
+  /**
+   * Wait until there is no pending message, no running stage and no activity during the quiet
+   * period.
+   * @return true if the cluster converged before the timeout
+   */
+  public boolean waitForConvergence(long timeoutMs) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    while (System.currentTimeMillis() < deadline) {
+      if (isConverged()) {
+        return true;
+      }
+      Thread.sleep(CONVERGENCE_CHECK_INTERVAL_MS);
+    }
+    return isConverged();
+  }
+
+  private boolean isConverged() {
+    if (_recorder.getInFlightStageCount() > 0
+        || System.currentTimeMillis() - _recorder.getLastActivityTime() < _config
+        .getQuietPeriodMs()) {
+      return false;
+    }
+    for (SimulatedParticipant participant : getParticipants()) {
+      if (participant.getPendingTransitionCount() > 0) {
+        return false;
+      }
+      if (participant.isConnected()) {
+        List<String> messageIds = _baseAccessor
+            .getChildNames(_keyBuilder.messages(participant.getInstanceName()).getPath(),
+                AccessOption.PERSISTENT);
+        if (messageIds != null && !messageIds.isEmpty()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Expire the sessions of the given instances.
+   */
+  public void stopInstances(List<String> instanceNames) {
+    for (String instanceName : instanceNames) {
+      getParticipant(instanceName).disconnect();
+    }
+    notifyLiveInstanceChange();
+  }
+
+  /**
+   * Start new sessions of the given instances.
+   */
+  public void startInstances(List<String> instanceNames) {
+    for (String instanceName : instanceNames) {
+      getParticipant(instanceName).connect(null);
+    }
+    notifyLiveInstanceChange();
+  }
+
+  /**
+   * Add new instances to the cluster and start them.
+   */
+  public void addInstances(int instanceCount) {
+    List<String> instanceNames = new ArrayList<>(instanceCount);
+    synchronized (this) {
+      int nextInstanceId = _participants.size();
+      for (int i = 0; i < instanceCount; i++) {
+        InstanceConfig instanceConfig = _fixture.createInstanceConfig(nextInstanceId + i);
+        if (!_accessor
+            .setProperty(_keyBuilder.instanceConfig(instanceConfig.getInstanceName()),
+                instanceConfig)) {
+          throw new HelixException("Failed to add instance " + instanceConfig.getInstanceName());
+        }
+        instanceNames.add(instanceConfig.getInstanceName());
+        createParticipant(instanceConfig.getInstanceName());
+      }
+    }
+    List<InstanceConfig> instanceConfigs =
+        _accessor.getChildValues(_keyBuilder.instanceConfigs(), true);
+    _controller.onInstanceConfigChange(instanceConfigs, createChangeContext());
+    startInstances(instanceNames);
+  }
+
+  /**
+   * Add a resource with the state model and the rebalance strategy of the fixture.
+   */
+  public void addResource(String resourceName, int partitionCount, int replicaCount) {
+    IdealState idealState =
+        _fixture.createIdealState(resourceName, partitionCount, replicaCount);
+    if (!_accessor.setProperty(_keyBuilder.idealStates(resourceName), idealState)) {
+      throw new HelixException("Failed to add resource " + resourceName);
+    }
+    notifyIdealStateChange();
+  }
+
+  public void dropResource(String resourceName) {
+    if (!_accessor.removeProperty(_keyBuilder.idealStates(resourceName))) {
+      throw new HelixException("Failed to drop resource " + resourceName);
+    }
+    notifyIdealStateChange();
+  }
+
+  /**
+   * @return names of the instances that have a session, in the order of creation
+   */
+  public List<String> getLiveInstanceNames() {
+    List<String> instanceNames = new ArrayList<>();
+    for (SimulatedParticipant participant : getParticipants()) {
+      if (participant.isConnected()) {
+        instanceNames.add(participant.getInstanceName());
+      }
+    }
+    return instanceNames;
+  }
+
+  /**
+   * @return names of the instances that do not have a session, in the order of creation
+   */
+  public List<String> getStoppedInstanceNames() {
+    List<String> instanceNames = new ArrayList<>();
+    for (SimulatedParticipant participant : getParticipants()) {
+      if (!participant.isConnected()) {
+        instanceNames.add(participant.getInstanceName());
+      }
+    }
+    return instanceNames;
+  }
+
+  public HelixDataAccessor getDataAccessor() {
+    return _accessor;
+  }
+
+  void onTransitionCompleted(String instanceName, Message message, boolean failed) {
+    _completedTransitionCount.incrementAndGet();
+    if (failed) {
+      _failedTransitionCount.incrementAndGet();
+    } else if (Message.MessageType.STATE_TRANSITION.name().equals(message.getMsgType())) {
+      String replica = String
+          .format("%s/%s/%s", instanceName, message.getResourceName(),
+              message.getPartitionName());
+      if (HelixDefinedState.DROPPED.name().equals(message.getToState())) {
+        _droppedReplicas.add(replica);
+      } else if (_droppedReplicas.remove(replica)) {
+        // The rebalancer moved the replica back and forth within the step
+        _flappingReplicaCount.incrementAndGet();
+      }
+    }
+    _recorder.touch();
+    _controller.onStateChange(instanceName, Collections.emptyList(), createChangeContext());
+  }
+
+  private synchronized SimulatedParticipant createParticipant(String instanceName) {
+    SimulatedParticipant participant =
+        new SimulatedParticipant(instanceName, _baseAccessor, _keyBuilder, _participantExecutor,
+            _config, _random, this);
+    _participants.put(instanceName, participant);
+    return participant;
+  }
+
+  private synchronized SimulatedParticipant getParticipant(String instanceName) {
+    SimulatedParticipant participant = _participants.get(instanceName);
+    if (participant == null) {
+      throw new HelixException("Instance " + instanceName + " does not exist.");
+    }
+    return participant;
+  }
+
+  private synchronized List<SimulatedParticipant> getParticipants() {
+    return new ArrayList<>(_participants.values());
+  }
+
+  private void notifyLiveInstanceChange() {
+    _recorder.touch();
+    List<LiveInstance> liveInstances = _accessor.getChildValues(_keyBuilder.liveInstances(), true);
+    _controller.onLiveInstanceChange(liveInstances, createChangeContext());
+  }
+
+  private void notifyIdealStateChange() {
+    _recorder.touch();
+    List<IdealState> idealStates = _accessor.getChildValues(_keyBuilder.idealStates(), true);
+    _controller.onIdealStateChange(idealStates, createChangeContext());
+  }
+
+  private NotificationContext createChangeContext() {
+    NotificationContext changeContext = new NotificationContext(_manager);
+    changeContext.setType(NotificationContext.Type.CALLBACK);
+    return changeContext;
+  }
+
+  @SuppressWarnings("static-access")
+  private static Options constructCommandLineOptions() {
+    Options options = new Options();
+    options.addOption(OptionBuilder.withLongOpt("help")
+        .withDescription("Prints command-line options info").create());
+    options.addOption(createOption("instances", "Number of instances, default 100"));
+    options.addOption(createOption("zones", "Number of fault zones, default 10"));
+    options.addOption(createOption("resources", "Number of resources, default 10"));
+    options.addOption(createOption("partitions", "Number of partitions per resource, default 100"));
+    options.addOption(createOption("replicas", "Number of replicas per partition, default 3"));
+    options.addOption(createOption("strategy",
+        "Class name of the rebalance strategy, default AutoRebalanceStrategy"));
+    options.addOption(createOption("latency", "State transition latency in ms, default 10"));
+    options.addOption(createOption("jitter", "Max random state transition jitter in ms"));
+    options.addOption(createOption("failureRate", "Probability of a transition to fail"));
+    options.addOption(createOption("hangRate", "Probability of a transition to hang"));
+    options.addOption(createOption("threads", "Number of participant threads, default 8"));
+    options.addOption(createOption("scenario",
+        "node-loss, rolling-restart, resource-add or the path of a scenario script"));
+    return options;
+  }
+
+  @SuppressWarnings("static-access")
+  private static Option createOption(String name, String description) {
+    Option option = OptionBuilder.withLongOpt(name).withDescription(description).create();
+    option.setArgs(1);
+    option.setRequired(false);
+    return option;
+  }
+
+  private static Scenario createScenario(String scenario, int instanceCount, int partitionCount,
+      int replicaCount) throws Exception {
+    switch (scenario) {
+    case "node-loss":
+      return Scenario.nodeLoss(Math.max(1, instanceCount / 20));
+    case "rolling-restart":
+      return Scenario.rollingRestart(Math.max(1, instanceCount / 20));
+    case "resource-add":
+      return Scenario.resourceAdd("resource_added", partitionCount, replicaCount);
+    default:
+      try (Reader reader = new FileReader(scenario)) {
+        return Scenario.parse(scenario, reader);
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options = constructCommandLineOptions();
+    CommandLine cmd;
+    try {
+      CommandLineParser cliParser = new GnuParser();
+      cmd = cliParser.parse(options, args);
+    } catch (ParseException pe) {
+      System.err.println("Failed to parse command-line options: " + pe.toString());
+      cmd = null;
+    }
+    if (cmd == null || cmd.hasOption("help")) {
+      HelpFormatter helpFormatter = new HelpFormatter();
+      helpFormatter.setWidth(1000);
+      helpFormatter.printHelp("java " + ControllerSimulator.class.getName(), options);
+      System.exit(cmd == null ? 1 : 0);
+    }
+
+    int instanceCount = Integer.parseInt(cmd.getOptionValue("instances", "100"));
+    int partitionCount = Integer.parseInt(cmd.getOptionValue("partitions", "100"));
+    int replicaCount = Integer.parseInt(cmd.getOptionValue("replicas", "3"));
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(instanceCount)
+        .setZoneCount(Integer.parseInt(cmd.getOptionValue("zones", "10")))
+        .setResourceCount(Integer.parseInt(cmd.getOptionValue("resources", "10")))
+        .setPartitionCount(partitionCount).setReplicaCount(replicaCount)
+        .setRebalanceStrategy(cmd.getOptionValue("strategy")).build();
+    SimulatorConfig config = new SimulatorConfig.Builder()
+        .setTransitionLatencyMs(Long.parseLong(cmd.getOptionValue("latency", "10")))
+        .setTransitionLatencyJitterMs(Long.parseLong(cmd.getOptionValue("jitter", "0")))
+        .setTransitionFailureRate(Double.parseDouble(cmd.getOptionValue("failureRate", "0")))
+        .setTransitionHangRate(Double.parseDouble(cmd.getOptionValue("hangRate", "0")))
+        .setParticipantThreadCount(Integer.parseInt(cmd.getOptionValue("threads", "8"))).build();
+    Scenario scenario = createScenario(cmd.getOptionValue("scenario", "node-loss"), instanceCount,
+        partitionCount, replicaCount);
+
+    ControllerSimulator simulator = new ControllerSimulator(fixture, config);
+    try {
+      simulator.start();
+      System.out.println(simulator.run(scenario));
+    } finally {
+      simulator.shutdown();
+    }
+    System.exit(0);
+  }
+}
@@ -0,0 +1,279 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.helix.HelixException;
+
+/**
+ * A scripted sequence of cluster changes replayed by the {@link ControllerSimulator}.
+ *
+ * A script has one step per line; empty lines and lines starting with '#' are ignored:
+ * <pre>
+ * wait [timeoutMs]                          wait until the cluster converges
+ * kill &lt;count&gt;                              expire the sessions of the first live instances
+ * kill &lt;instance&gt; [instance...]              expire the sessions of the given instances
+ * start &lt;instance&gt;|all [instance...]        start new sessions of stopped instances
+ * restart &lt;batchSize&gt; [timeoutMs]          rolling restart of all the live instances
+ * addInstances &lt;count&gt;                      add and start new instances
+ * addResource &lt;name&gt; &lt;partitions&gt; &lt;replicas&gt; add a FULL_AUTO MasterSlave resource
+ * dropResource &lt;name&gt;                       drop a resource
+ * sleep &lt;ms&gt;                                sleep without waiting for the convergence
+ * </pre>
+ */
+public class Scenario {
+  public static final long DEFAULT_WAIT_TIMEOUT_MS = 10 * 60 * 1000L;
+
+  private final String _name;
+  private final List<Step> _steps;
+
+  public Scenario(String name, List<Step> steps) {
+    _name = name;
+    _steps = Collections.unmodifiableList(new ArrayList<>(steps));
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  public List<Step> getSteps() {
+    return _steps;
+  }
+
+  /**
+   * Lose some nodes of the converged cluster and wait until the replicas are moved.
+   */
+  public static Scenario nodeLoss(int instanceCount) {
+    return new Scenario("node-loss", Arrays
+        .asList(waitForConvergence(DEFAULT_WAIT_TIMEOUT_MS), kill(instanceCount),
+            waitForConvergence(DEFAULT_WAIT_TIMEOUT_MS)));
+  }
+
+  /**
+   * Restart all the nodes of the converged cluster, batch by batch.
+   */
+  public static Scenario rollingRestart(int batchSize) {
+    return new Scenario("rolling-restart", Arrays
+        .asList(waitForConvergence(DEFAULT_WAIT_TIMEOUT_MS),
+            rollingRestart(batchSize, DEFAULT_WAIT_TIMEOUT_MS)));
+  }
+
+  /**
+   * Add a resource to the converged cluster and wait until it is assigned.
+   */
+  public static Scenario resourceAdd(String resourceName, int partitionCount, int replicaCount) {
+    return new Scenario("resource-add", Arrays.asList(waitForConvergence(DEFAULT_WAIT_TIMEOUT_MS),
+        addResource(resourceName, partitionCount, replicaCount),
+        waitForConvergence(DEFAULT_WAIT_TIMEOUT_MS)));
+  }
+
+  /**
+   * Parse a scenario script.
+   */
+  public static Scenario parse(String name, Reader reader) throws IOException {
+    List<Step> steps = new ArrayList<>();
+    BufferedReader bufferedReader = new BufferedReader(reader);
+    String line;
+    int lineNumber = 0;
+    while ((line = bufferedReader.readLine()) != null) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      try {
+        steps.add(parseStep(line.split("\\s+")));
+      } catch (IllegalArgumentException e) {
+        throw new HelixException(
+            String.format("Invalid step at line %d of scenario %s: %s", lineNumber, name, line),
+            e);
+      }
+    }
+    return new Scenario(name, steps);
+  }
+
+  private static Step parseStep(String[] tokens) {
+    switch (tokens[0]) {
+    case "wait":
+      checkArgs(tokens, 1, 2);
+      return waitForConvergence(
+          tokens.length > 1 ? Long.parseLong(tokens[1]) : DEFAULT_WAIT_TIMEOUT_MS);
+    case "kill":
+      checkArgs(tokens, 2, Integer.MAX_VALUE);
+      if (tokens.length == 2 && tokens[1].matches("\\d+")) {
+        return kill(Integer.parseInt(tokens[1]));
+      }
+      return kill(Arrays.asList(tokens).subList(1, tokens.length));
+    case "start":
+      checkArgs(tokens, 2, Integer.MAX_VALUE);
+      if (tokens.length == 2 && tokens[1].equals("all")) {
+        return startAll();
+      }
+      return start(Arrays.asList(tokens).subList(1, tokens.length));
+    case "restart":
+      checkArgs(tokens, 2, 3);
+      return rollingRestart(Integer.parseInt(tokens[1]),
+          tokens.length > 2 ? Long.parseLong(tokens[2]) : DEFAULT_WAIT_TIMEOUT_MS);
+    case "addInstances":
+      checkArgs(tokens, 2, 2);
+      return addInstances(Integer.parseInt(tokens[1]));
+    case "addResource":
+      checkArgs(tokens, 4, 4);
+      return addResource(tokens[1], Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]));
+    case "dropResource":
+      checkArgs(tokens, 2, 2);
+      return dropResource(tokens[1]);
+    case "sleep":
+      checkArgs(tokens, 2, 2);
+      return sleep(Long.parseLong(tokens[1]));
+    default:
+      throw new IllegalArgumentException("Unknown step " + tokens[0]);
+    }
+  }
+
+  private static void checkArgs(String[] tokens, int min, int max) {
+    if (tokens.length < min || tokens.length > max) {
+      throw new IllegalArgumentException("Wrong number of arguments of step " + tokens[0]);
+    }
+  }
+
+  public static Step waitForConvergence(long timeoutMs) {
+    return new Step("wait " + timeoutMs, simulator -> simulator.waitForConvergence(timeoutMs));
+  }
+
+  public static Step kill(int instanceCount) {
+    return new Step("kill " + instanceCount, simulator -> {
+      List<String> liveInstances = simulator.getLiveInstanceNames();
+      simulator.stopInstances(
+          liveInstances.subList(0, Math.min(instanceCount, liveInstances.size())));
+      return true;
+    });
+  }
+
+  public static Step kill(List<String> instanceNames) {
+    return new Step("kill " + String.join(" ", instanceNames), simulator -> {
+      simulator.stopInstances(instanceNames);
+      return true;
+    });
+  }
+
+  public static Step start(List<String> instanceNames) {
+    return new Step("start " + String.join(" ", instanceNames), simulator -> {
+      simulator.startInstances(instanceNames);
+      return true;
+    });
+  }
+
+  public static Step startAll() {
+    return new Step("start all", simulator -> {
+      simulator.startInstances(simulator.getStoppedInstanceNames());
+      return true;
+    });
+  }
+
+  public static Step rollingRestart(int batchSize, long timeoutMs) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("The batch size must be positive.");
+    }
+    return new Step("restart " + batchSize, simulator -> {
+      List<String> liveInstances = simulator.getLiveInstanceNames();
+      boolean converged = true;
+      for (int i = 0; i < liveInstances.size(); i += batchSize) {
+        List<String> batch =
+            liveInstances.subList(i, Math.min(i + batchSize, liveInstances.size()));
+        simulator.stopInstances(batch);
+        converged &= simulator.waitForConvergence(timeoutMs);
+        simulator.startInstances(batch);
+        converged &= simulator.waitForConvergence(timeoutMs);
+      }
+      return converged;
+    });
+  }
+
+  public static Step addInstances(int instanceCount) {
+    return new Step("addInstances " + instanceCount, simulator -> {
+      simulator.addInstances(instanceCount);
+      return true;
+    });
+  }
+
+  public static Step addResource(String resourceName, int partitionCount, int replicaCount) {
+    return new Step(
+        String.format("addResource %s %d %d", resourceName, partitionCount, replicaCount),
+        simulator -> {
+          simulator.addResource(resourceName, partitionCount, replicaCount);
+          return true;
+        });
+  }
+
+  public static Step dropResource(String resourceName) {
+    return new Step("dropResource " + resourceName, simulator -> {
+      simulator.dropResource(resourceName);
+      return true;
+    });
+  }
+
+  public static Step sleep(long sleepMs) {
+    return new Step("sleep " + sleepMs, simulator -> {
+      Thread.sleep(sleepMs);
+      return true;
+    });
+  }
+
+  /**
+   * One step of a scenario.
+   */
+  public static class Step {
+    private final String _description;
+    private final Action _action;
+
+    Step(String description, Action action) {
+      _description = description;
+      _action = action;
+    }
+
+    public String getDescription() {
+      return _description;
+    }
+
+    /**
+     * @return false if the step timed out waiting for the convergence
+     */
+    boolean run(ControllerSimulator simulator) throws Exception {
+      return _action.run(simulator);
+    }
+
+    @Override
+    public String toString() {
+      return _description;
+    }
+  }
+
+  interface Action {
+    boolean run(ControllerSimulator simulator) throws Exception;
+  }
+}
@@ -0,0 +1,212 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.helix.AccessOption;
+import org.apache.helix.HelixDefinedState;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.benchmark.InMemoryBaseDataAccessor;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.model.LiveInstance;
+import org.apache.helix.model.Message;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.zkclient.IZkChildListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A participant that completes the state transition messages sent by the controller after a
+ * configurable latency, without running any state model. The transitions are completed on an
+ * executor shared by all the participants of the simulation.
+ */
+class SimulatedParticipant implements IZkChildListener {
+  private static final Logger LOG = LoggerFactory.getLogger(SimulatedParticipant.class);
+
+  private final String _instanceName;
+  private final InMemoryBaseDataAccessor _baseAccessor;
+  private final PropertyKey.Builder _keyBuilder;
+  private final ScheduledExecutorService _executor;
+  private final SimulatorConfig _config;
+  private final Random _random;
+  private final ControllerSimulator _simulator;
+  private final String _messagesPath;
+  // Ids of the messages that are scheduled or hanging
+  private final Set<String> _seenMessageIds = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger _pendingTransitions = new AtomicInteger(0);
+  private final AtomicInteger _sessionCount = new AtomicInteger(0);
+  private volatile String _sessionId;
+
+  SimulatedParticipant(String instanceName, InMemoryBaseDataAccessor baseAccessor,
+      PropertyKey.Builder keyBuilder, ScheduledExecutorService executor, SimulatorConfig config,
+      Random random, ControllerSimulator simulator) {
+    _instanceName = instanceName;
+    _baseAccessor = baseAccessor;
+    _keyBuilder = keyBuilder;
+    _executor = executor;
+    _config = config;
+    _random = random;
+    _simulator = simulator;
+    _messagesPath = keyBuilder.messages(instanceName).getPath();
+  }
+
+  /**
+   * Start a new session: register the live instance and start handling the messages. The
+   * messages left by the previous sessions are removed, as a real participant does.
+   * @param sessionId the session id, or null to generate a new one
+   */
+  synchronized void connect(String sessionId) {
+    if (_sessionId != null) {
+      return;
+    }
+    _sessionId = sessionId != null ? sessionId
+        : String.format("%s_session_%d", _instanceName, _sessionCount.incrementAndGet());
+    _seenMessageIds.clear();
+    List<String> messageIds = _baseAccessor.getChildNames(_messagesPath, AccessOption.PERSISTENT);
+    if (messageIds != null) {
+      for (String messageId : messageIds) {
+        _baseAccessor.remove(_messagesPath + "/" + messageId, AccessOption.PERSISTENT);
+      }
+    }
+    _baseAccessor.subscribeChildChanges(_messagesPath, this);
+
+    LiveInstance liveInstance = new LiveInstance(_instanceName);
+    liveInstance.setSessionId(_sessionId);
+    liveInstance.setHelixVersion("simulator");
+    _baseAccessor.set(_keyBuilder.liveInstance(_instanceName).getPath(), liveInstance.getRecord(),
+        AccessOption.EPHEMERAL);
+  }
+
+  /**
+   * Expire the session: remove the live instance and stop handling the messages. The pending
+   * transitions of the session are abandoned.
+   */
+  synchronized void disconnect() {
+    if (_sessionId == null) {
+      return;
+    }
+    _baseAccessor.unsubscribeChildChanges(_messagesPath, this);
+    _baseAccessor.remove(_keyBuilder.liveInstance(_instanceName).getPath(),
+        AccessOption.EPHEMERAL);
+    _sessionId = null;
+    _seenMessageIds.clear();
+  }
+
+  boolean isConnected() {
+    return _sessionId != null;
+  }
+
+  String getInstanceName() {
+    return _instanceName;
+  }
+
+  /**
+   * @return number of transitions that are scheduled but not completed yet, excluding the hanging
+   *         ones
+   */
+  int getPendingTransitionCount() {
+    return _pendingTransitions.get();
+  }
+
+  @Override
+  public void handleChildChange(String parentPath, List<String> currentChildren) {
+    // Called on the thread of the writer, which is usually the controller, so defer the reads
+    final String sessionId = _sessionId;
+    if (sessionId == null || currentChildren == null) {
+      return;
+    }
+    for (final String messageId : currentChildren) {
+      if (!_seenMessageIds.add(messageId)) {
+        continue;
+      }
+      _pendingTransitions.incrementAndGet();
+      _executor.execute(() -> scheduleMessage(messageId, sessionId));
+    }
+  }
+
+  private void scheduleMessage(String messageId, String sessionId) {
+    ZNRecord record =
+        _baseAccessor.get(_messagesPath + "/" + messageId, null, AccessOption.PERSISTENT);
+    if (record == null || !sessionId.equals(_sessionId)) {
+      _pendingTransitions.decrementAndGet();
+      return;
+    }
+    Message message = new Message(record);
+    double chance = _random.nextDouble();
+    if (chance < _config.getTransitionHangRate()) {
+      // Leave the message in place until the session expires
+      _pendingTransitions.decrementAndGet();
+      return;
+    }
+    boolean failed = chance < _config.getTransitionHangRate() + _config.getTransitionFailureRate();
+    long latency = _config.getTransitionLatencyMs();
+    if (_config.getTransitionLatencyJitterMs() > 0) {
+      latency += (long) (_random.nextDouble() * _config.getTransitionLatencyJitterMs());
+    }
+    _executor.schedule(() -> completeMessage(message, sessionId, failed), latency,
+        TimeUnit.MILLISECONDS);
+  }
+
+  private void completeMessage(Message message, String sessionId, boolean failed) {
+    try {
+      if (!sessionId.equals(_sessionId)) {
+        return;
+      }
+      if (message.getMsgType().equals(Message.MessageType.STATE_TRANSITION.name())
+          && sessionId.equals(message.getTgtSessionId())) {
+        updateCurrentState(message, sessionId,
+            failed ? HelixDefinedState.ERROR.name() : message.getToState());
+      }
+      _baseAccessor.remove(_messagesPath + "/" + message.getMsgId(), AccessOption.PERSISTENT);
+      _seenMessageIds.remove(message.getMsgId());
+      _simulator.onTransitionCompleted(_instanceName, message, failed);
+    } catch (Exception e) {
+      LOG.error("Failed to complete message {} on simulated participant {}", message.getMsgId(),
+          _instanceName, e);
+    } finally {
+      _pendingTransitions.decrementAndGet();
+    }
+  }
+
+  private void updateCurrentState(Message message, String sessionId, String toState) {
+    final String resourceName = message.getResourceName();
+    final String partitionName = message.getPartitionName();
+    String path = _keyBuilder.currentState(_instanceName, sessionId, resourceName).getPath();
+    _baseAccessor.update(path, currentData -> {
+      CurrentState currentState =
+          currentData == null ? new CurrentState(resourceName) : new CurrentState(currentData);
+      currentState.setSessionId(sessionId);
+      currentState.setStateModelDefRef(message.getStateModelDef());
+      if (HelixDefinedState.DROPPED.name().equals(toState)) {
+        currentState.getRecord().getMapFields().remove(partitionName);
+      } else {
+        currentState.setState(partitionName, toState);
+      }
+      return currentState.getRecord();
+    }, AccessOption.PERSISTENT);
+  }
+}
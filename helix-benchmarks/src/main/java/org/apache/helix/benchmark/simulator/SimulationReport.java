@@ -0,0 +1,155 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a scenario run by the {@link ControllerSimulator}.
+ */
+public class SimulationReport {
+  private final String _scenarioName;
+  private final List<StepResult> _stepResults = new ArrayList<>();
+  private Map<String, StageLatencyRecorder.StageLatency> _stageLatencies = Collections.emptyMap();
+  private long _completedTransitionCount;
+  private long _failedTransitionCount;
+  private long _flappingReplicaCount;
+
+  SimulationReport(String scenarioName) {
+    _scenarioName = scenarioName;
+  }
+
+  void addStepResult(StepResult stepResult) {
+    _stepResults.add(stepResult);
+  }
+
+  void setStageLatencies(Map<String, StageLatencyRecorder.StageLatency> stageLatencies) {
+    _stageLatencies = stageLatencies;
+  }
+
+  void setTransitionCounts(long completedTransitionCount, long failedTransitionCount) {
+    _completedTransitionCount = completedTransitionCount;
+    _failedTransitionCount = failedTransitionCount;
+  }
+
+  void setFlappingReplicaCount(long flappingReplicaCount) {
+    _flappingReplicaCount = flappingReplicaCount;
+  }
+
+  public String getScenarioName() {
+    return _scenarioName;
+  }
+
+  public List<StepResult> getStepResults() {
+    return Collections.unmodifiableList(_stepResults);
+  }
+
+  /**
+   * @return true if no step timed out waiting for the convergence
+   */
+  public boolean isConverged() {
+    for (StepResult stepResult : _stepResults) {
+      if (!stepResult.isConverged()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return latency statistics of the controller stages, keyed by stage name
+   */
+  public Map<String, StageLatencyRecorder.StageLatency> getStageLatencies() {
+    return _stageLatencies;
+  }
+
+  /**
+   * @return number of state transitions completed by the participants, including the failed ones
+   */
+  public long getCompletedTransitionCount() {
+    return _completedTransitionCount;
+  }
+
+  public long getFailedTransitionCount() {
+    return _failedTransitionCount;
+  }
+
+  /**
+   * @return number of times a replica was moved back to an instance it had been dropped from in
+   *         the same step, which means that the rebalancer kept changing its assignment
+   */
+  public long getFlappingReplicaCount() {
+    return _flappingReplicaCount;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String
+        .format("Scenario: %s, converged: %b, transitions: %d, failed transitions: %d, "
+                + "flapping replicas: %d%n", _scenarioName, isConverged(),
+            _completedTransitionCount, _failedTransitionCount, _flappingReplicaCount));
+    sb.append(String.format("%-40s %12s %10s%n", "Step", "Duration(ms)", "Converged"));
+    for (StepResult stepResult : _stepResults) {
+      sb.append(String.format("%-40s %12d %10b%n", stepResult.getDescription(),
+          stepResult.getDurationMs(), stepResult.isConverged()));
+    }
+    sb.append(String.format("%-40s %8s %12s %12s %12s %12s %12s%n", "Stage (latency in us)",
+        "Count", "Mean", "P50", "P95", "P99", "Max"));
+    for (Map.Entry<String, StageLatencyRecorder.StageLatency> entry : _stageLatencies
+        .entrySet()) {
+      StageLatencyRecorder.StageLatency latency = entry.getValue();
+      sb.append(String.format("%-40s %8d %12.0f %12.0f %12.0f %12.0f %12d%n", entry.getKey(),
+          latency.getCount(), latency.getMean(), latency.getP50(), latency.getP95(),
+          latency.getP99(), latency.getMax()));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Duration of one step of the scenario.
+   */
+  public static class StepResult {
+    private final String _description;
+    private final long _durationMs;
+    private final boolean _converged;
+
+    StepResult(String description, long durationMs, boolean converged) {
+      _description = description;
+      _durationMs = durationMs;
+      _converged = converged;
+    }
+
+    public String getDescription() {
+      return _description;
+    }
+
+    public long getDurationMs() {
+      return _durationMs;
+    }
+
+    public boolean isConverged() {
+      return _converged;
+    }
+  }
+}
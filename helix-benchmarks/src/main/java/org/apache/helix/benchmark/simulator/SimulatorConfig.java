@@ -0,0 +1,155 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.helix.HelixException;
+
+/**
+ * Behavior of the simulated participants and of the convergence detection of the
+ * {@link ControllerSimulator}.
+ */
+public class SimulatorConfig {
+  private final long _transitionLatencyMs;
+  private final long _transitionLatencyJitterMs;
+  private final double _transitionFailureRate;
+  private final double _transitionHangRate;
+  private final int _participantThreadCount;
+  private final long _quietPeriodMs;
+  private final long _randomSeed;
+
+  private SimulatorConfig(Builder builder) {
+    _transitionLatencyMs = builder._transitionLatencyMs;
+    _transitionLatencyJitterMs = builder._transitionLatencyJitterMs;
+    _transitionFailureRate = builder._transitionFailureRate;
+    _transitionHangRate = builder._transitionHangRate;
+    _participantThreadCount = builder._participantThreadCount;
+    _quietPeriodMs = builder._quietPeriodMs;
+    _randomSeed = builder._randomSeed;
+  }
+
+  /**
+   * @return base latency of a state transition in milliseconds
+   */
+  public long getTransitionLatencyMs() {
+    return _transitionLatencyMs;
+  }
+
+  /**
+   * @return max random latency in milliseconds added to the base latency of a state transition
+   */
+  public long getTransitionLatencyJitterMs() {
+    return _transitionLatencyJitterMs;
+  }
+
+  /**
+   * @return probability of a state transition to end in the ERROR state
+   */
+  public double getTransitionFailureRate() {
+    return _transitionFailureRate;
+  }
+
+  /**
+   * @return probability of a state transition to never complete, until the participant restarts
+   */
+  public double getTransitionHangRate() {
+    return _transitionHangRate;
+  }
+
+  /**
+   * @return number of threads shared by all the participants to complete the state transitions
+   */
+  public int getParticipantThreadCount() {
+    return _participantThreadCount;
+  }
+
+  /**
+   * @return time in milliseconds without any controller or participant activity after which the
+   *         cluster is considered converged
+   */
+  public long getQuietPeriodMs() {
+    return _quietPeriodMs;
+  }
+
+  public long getRandomSeed() {
+    return _randomSeed;
+  }
+
+  public static class Builder {
+    private long _transitionLatencyMs = 10L;
+    private long _transitionLatencyJitterMs = 0L;
+    private double _transitionFailureRate = 0d;
+    private double _transitionHangRate = 0d;
+    private int _participantThreadCount = 8;
+    private long _quietPeriodMs = 500L;
+    private long _randomSeed = 0L;
+
+    public Builder setTransitionLatencyMs(long transitionLatencyMs) {
+      _transitionLatencyMs = transitionLatencyMs;
+      return this;
+    }
+
+    public Builder setTransitionLatencyJitterMs(long transitionLatencyJitterMs) {
+      _transitionLatencyJitterMs = transitionLatencyJitterMs;
+      return this;
+    }
+
+    public Builder setTransitionFailureRate(double transitionFailureRate) {
+      _transitionFailureRate = transitionFailureRate;
+      return this;
+    }
+
+    public Builder setTransitionHangRate(double transitionHangRate) {
+      _transitionHangRate = transitionHangRate;
+      return this;
+    }
+
+    public Builder setParticipantThreadCount(int participantThreadCount) {
+      _participantThreadCount = participantThreadCount;
+      return this;
+    }
+
+    public Builder setQuietPeriodMs(long quietPeriodMs) {
+      _quietPeriodMs = quietPeriodMs;
+      return this;
+    }
+
+    public Builder setRandomSeed(long randomSeed) {
+      _randomSeed = randomSeed;
+      return this;
+    }
+
+    public SimulatorConfig build() {
+      if (_transitionLatencyMs < 0 || _transitionLatencyJitterMs < 0) {
+        throw new HelixException("The transition latency and jitter cannot be negative.");
+      }
+      if (_transitionFailureRate < 0 || _transitionHangRate < 0
+          || _transitionFailureRate + _transitionHangRate > 1) {
+        throw new HelixException(String
+            .format("Invalid transition failure rate %f and hang rate %f.",
+                _transitionFailureRate, _transitionHangRate));
+      }
+      if (_participantThreadCount <= 0 || _quietPeriodMs <= 0) {
+        throw new HelixException(
+            "The participant thread count and the quiet period must be positive.");
+      }
+      return new SimulatorConfig(this);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Snapshot;
+import org.apache.helix.controller.pipeline.AbstractAsyncBaseStage;
+import org.apache.helix.controller.pipeline.Pipeline;
+import org.apache.helix.controller.pipeline.PipelineRegistry;
+import org.apache.helix.controller.pipeline.Stage;
+import org.apache.helix.controller.stages.ClusterEventType;
+
+/**
+ * Records the latency distribution of every controller stage. The stages of a pipeline registry
+ * are instrumented in place by {@link #instrument(PipelineRegistry)}; the asynchronous stages are
+ * timed on their worker threads, so their latency does not include the time spent in the queue.
+ */
+public class StageLatencyRecorder {
+  // Number of most recent samples kept per stage
+  private static final int SAMPLE_WINDOW_SIZE = 100000;
+
+  private final Map<String, Histogram> _histograms = new ConcurrentHashMap<>();
+  private final AtomicInteger _inFlightStages = new AtomicInteger(0);
+  private volatile long _lastActivityTime = System.currentTimeMillis();
+
+  /**
+   * Replace every stage of the registry by a timed wrapper. The pipelines shared by several event
+   * types are only instrumented once.
+   */
+  public void instrument(PipelineRegistry registry) {
+    Set<Pipeline> instrumented = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (ClusterEventType eventType : ClusterEventType.values()) {
+      for (Pipeline pipeline : registry.getPipelinesForEvent(eventType)) {
+        if (!instrumented.add(pipeline)) {
+          continue;
+        }
+        List<Stage> stages = pipeline.getStages();
+        for (int i = 0; i < stages.size(); i++) {
+          Stage stage = stages.get(i);
+          if (stage instanceof AbstractAsyncBaseStage) {
+            stages.set(i, new TimedAsyncStage((AbstractAsyncBaseStage) stage, this));
+          } else {
+            stages.set(i, new TimedStage(stage, this));
+          }
+        }
+      }
+    }
+  }
+
+  void stageStarted() {
+    _inFlightStages.incrementAndGet();
+    touch();
+  }
+
+  void stageFinished(String stageName, long durationNs) {
+    _histograms.computeIfAbsent(stageName,
+        name -> new Histogram(new SlidingWindowReservoir(SAMPLE_WINDOW_SIZE)))
+        .update(TimeUnit.NANOSECONDS.toMicros(durationNs));
+    _inFlightStages.decrementAndGet();
+    touch();
+  }
+
+  /**
+   * Mark an activity of the simulated cluster, which postpones the convergence.
+   */
+  public void touch() {
+    _lastActivityTime = System.currentTimeMillis();
+  }
+
+  /**
+   * @return number of stages that are being processed
+   */
+  public int getInFlightStageCount() {
+    return _inFlightStages.get();
+  }
+
+  public long getLastActivityTime() {
+    return _lastActivityTime;
+  }
+
+  /**
+   * Drop all the recorded samples.
+   */
+  public void reset() {
+    _histograms.clear();
+  }
+
+  /**
+   * @return latency statistics of every stage that has run since the last reset, sorted by stage
+   *         name
+   */
+  public Map<String, StageLatency> getStageLatencies() {
+    Map<String, StageLatency> latencies = new TreeMap<>();
+    for (Map.Entry<String, Histogram> entry : _histograms.entrySet()) {
+      latencies.put(entry.getKey(), new StageLatency(entry.getValue()));
+    }
+    return latencies;
+  }
+
+  /**
+   * Latency statistics of one stage. All the latencies are in microseconds.
+   */
+  public static class StageLatency {
+    private final long _count;
+    private final double _mean;
+    private final double _p50;
+    private final double _p95;
+    private final double _p99;
+    private final long _max;
+
+    private StageLatency(Histogram histogram) {
+      Snapshot snapshot = histogram.getSnapshot();
+      _count = histogram.getCount();
+      _mean = snapshot.getMean();
+      _p50 = snapshot.getMedian();
+      _p95 = snapshot.get95thPercentile();
+      _p99 = snapshot.get99thPercentile();
+      _max = snapshot.getMax();
+    }
+
+    public long getCount() {
+      return _count;
+    }
+
+    public double getMean() {
+      return _mean;
+    }
+
+    public double getP50() {
+      return _p50;
+    }
+
+    public double getP95() {
+      return _p95;
+    }
+
+    public double getP99() {
+      return _p99;
+    }
+
+    public long getMax() {
+      return _max;
+    }
+  }
+}
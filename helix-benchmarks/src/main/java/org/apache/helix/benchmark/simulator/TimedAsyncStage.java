@@ -0,0 +1,106 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.helix.common.DedupEventProcessor;
+import org.apache.helix.controller.pipeline.AbstractAsyncBaseStage;
+import org.apache.helix.controller.pipeline.AsyncWorkerType;
+import org.apache.helix.controller.pipeline.StageContext;
+import org.apache.helix.controller.pipeline.StageException;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps an asynchronous stage to record the latency of its execution on the worker thread. The
+ * task is queued with the same dedup key as the wrapped stage would use.
+ */
+class TimedAsyncStage extends AbstractAsyncBaseStage {
+  private static final Logger LOG = LoggerFactory.getLogger(TimedAsyncStage.class);
+
+  private final AbstractAsyncBaseStage _stage;
+  private final StageLatencyRecorder _recorder;
+
+  TimedAsyncStage(AbstractAsyncBaseStage stage, StageLatencyRecorder recorder) {
+    _stage = stage;
+    _recorder = recorder;
+  }
+
+  @Override
+  public void init(StageContext context) {
+    _stage.init(context);
+  }
+
+  @Override
+  public void preProcess() {
+    _stage.preProcess();
+  }
+
+  @Override
+  public void process(final ClusterEvent event) throws Exception {
+    String pipelineType = event.getAttribute(AttributeName.PipelineType.name());
+    final String taskType =
+        String.format("%s::%s", pipelineType, _stage.getClass().getSimpleName());
+    DedupEventProcessor<String, Runnable> worker =
+        getAsyncWorkerFromClusterEvent(event, getAsyncWorkerType());
+    if (worker == null) {
+      throw new StageException("No async worker found for " + taskType);
+    }
+    worker.queueEvent(taskType, () -> {
+      try {
+        execute(event);
+      } catch (Exception e) {
+        LOG.error("Failed to process {} asynchronously", taskType, e);
+      }
+    });
+  }
+
+  @Override
+  public void postProcess() {
+    _stage.postProcess();
+  }
+
+  @Override
+  public void release() {
+    _stage.release();
+  }
+
+  @Override
+  public String getStageName() {
+    return _stage.getStageName();
+  }
+
+  @Override
+  public AsyncWorkerType getAsyncWorkerType() {
+    return _stage.getAsyncWorkerType();
+  }
+
+  @Override
+  public void execute(ClusterEvent event) throws Exception {
+    _recorder.stageStarted();
+    long startTime = System.nanoTime();
+    try {
+      _stage.execute(event);
+    } finally {
+      _recorder.stageFinished(getStageName(), System.nanoTime() - startTime);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.helix.controller.pipeline.Stage;
+import org.apache.helix.controller.pipeline.StageContext;
+import org.apache.helix.controller.stages.ClusterEvent;
+
+/**
+ * Wraps a synchronous stage to record the latency of its processing.
+ */
+class TimedStage implements Stage {
+  private final Stage _stage;
+  private final StageLatencyRecorder _recorder;
+
+  TimedStage(Stage stage, StageLatencyRecorder recorder) {
+    _stage = stage;
+    _recorder = recorder;
+  }
+
+  @Override
+  public void init(StageContext context) {
+    _stage.init(context);
+  }
+
+  @Override
+  public void preProcess() {
+    _stage.preProcess();
+  }
+
+  @Override
+  public void process(ClusterEvent event) throws Exception {
+    _recorder.stageStarted();
+    long startTime = System.nanoTime();
+    try {
+      _stage.process(event);
+    } finally {
+      _recorder.stageFinished(getStageName(), System.nanoTime() - startTime);
+    }
+  }
+
+  @Override
+  public void postProcess() {
+    _stage.postProcess();
+  }
+
+  @Override
+  public void release() {
+    _stage.release();
+  }
+
+  @Override
+  public String getStageName() {
+    return _stage.getStageName();
+  }
+}
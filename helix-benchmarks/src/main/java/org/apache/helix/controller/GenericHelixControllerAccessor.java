@@ -0,0 +1,54 @@
+package org.apache.helix.controller;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Set;
+
+import org.apache.helix.controller.pipeline.Pipeline;
+import org.apache.helix.controller.pipeline.PipelineRegistry;
+
+/**
+ * Gives the benchmarks access to the pipeline registries and the registry-based constructor of
+ * the {@link GenericHelixController}, which are package private. It is in the package of the
+ * controller for this reason.
+ */
+public class GenericHelixControllerAccessor {
+  private GenericHelixControllerAccessor() {
+  }
+
+  /**
+   * @return a new registry of the DEFAULT (resource) pipelines, with new stage instances
+   */
+  public static PipelineRegistry createDefaultRegistry() {
+    return GenericHelixController.createDefaultRegistry(Pipeline.Type.DEFAULT.name());
+  }
+
+  /**
+   * @return a new registry of the TASK pipelines, with new stage instances
+   */
+  public static PipelineRegistry createTaskRegistry() {
+    return GenericHelixController.createTaskRegistry(Pipeline.Type.TASK.name());
+  }
+
+  public static GenericHelixController createController(PipelineRegistry registry,
+      PipelineRegistry taskRegistry, String clusterName, Set<Pipeline.Type> enabledPipelineTypes) {
+    return new GenericHelixController(registry, taskRegistry, clusterName, enabledPipelineTypes);
+  }
+}
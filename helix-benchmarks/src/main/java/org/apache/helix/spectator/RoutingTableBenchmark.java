@@ -0,0 +1,104 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.benchmark.ClusterFixture;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.MasterSlaveSMD;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the construction of a {@link RoutingTable} from the external views and the lookups
+ * that the routing clients do on every request. It is in the package of the RoutingTable, which
+ * is package private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingTableBenchmark {
+  private static final String MASTER = MasterSlaveSMD.States.MASTER.name();
+
+  @Param({ "100", "1000" })
+  public int instanceCount;
+
+  @Param({ "100" })
+  public int resourceCount;
+
+  @Param({ "100" })
+  public int partitionCount;
+
+  private ClusterFixture _fixture;
+  private RoutingTable _routingTable;
+
+  @Setup
+  public void setup() {
+    _fixture = new ClusterFixture.Builder().setInstanceCount(instanceCount).setZoneCount(10)
+        .setResourceCount(resourceCount).setPartitionCount(partitionCount).setReplicaCount(3)
+        .build();
+    _routingTable = buildRoutingTable();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public RoutingTable createRoutingTable() {
+    return buildRoutingTable();
+  }
+
+  private RoutingTable buildRoutingTable() {
+    return new RoutingTable(_fixture.getExternalViews().values(),
+        _fixture.getInstanceConfigs().values(), _fixture.getLiveInstances().values());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public List<InstanceConfig> getInstancesForPartition() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String resourceName = ClusterFixture.RESOURCE_PREFIX + random.nextInt(resourceCount);
+    String partitionName =
+        ClusterFixture.getPartitionName(resourceName, random.nextInt(partitionCount));
+    return _routingTable.getInstancesForResource(resourceName, partitionName, MASTER);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Set<InstanceConfig> getInstancesForResource() {
+    String resourceName =
+        ClusterFixture.RESOURCE_PREFIX + ThreadLocalRandom.current().nextInt(resourceCount);
+    return _routingTable.getInstancesForResource(resourceName, MASTER);
+  }
+}
@@ -0,0 +1,102 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.helix.AccessOption;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.BestPossibleStateOutput;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.model.Resource;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.zookeeper.data.Stat;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestClusterFixture {
+
+  @Test
+  public void testInMemoryBaseDataAccessor() {
+    InMemoryBaseDataAccessor accessor = new InMemoryBaseDataAccessor();
+    ZNRecord record = new ZNRecord("node");
+    record.setMapField("partition", new HashMap<>(Collections.singletonMap("instance", "MASTER")));
+    Assert.assertTrue(accessor.create("/a/b/node", record, AccessOption.PERSISTENT));
+    Assert.assertFalse(accessor.create("/a/b/node", record, AccessOption.PERSISTENT));
+    Assert.assertEquals(accessor.getChildNames("/a", AccessOption.PERSISTENT),
+        Collections.singletonList("b"));
+
+    // The store keeps a copy of the record
+    record.getMapField("partition").put("instance", "SLAVE");
+    Stat stat = new Stat();
+    ZNRecord stored = accessor.get("/a/b/node", stat, AccessOption.PERSISTENT);
+    Assert.assertEquals(stored.getMapField("partition").get("instance"), "MASTER");
+    Assert.assertEquals(stat.getVersion(), 0);
+
+    Assert.assertTrue(accessor.set("/a/b/node", record, 0, AccessOption.PERSISTENT));
+    Assert.assertFalse(accessor.set("/a/b/node", record, 0, AccessOption.PERSISTENT));
+    Assert.assertEquals(accessor.getStat("/a/b/node", AccessOption.PERSISTENT).getVersion(), 1);
+
+    Assert.assertTrue(accessor.remove("/a", AccessOption.PERSISTENT));
+    Assert.assertFalse(accessor.exists("/a/b/node", AccessOption.PERSISTENT));
+  }
+
+  @Test
+  public void testFixture() {
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(20).setZoneCount(5)
+        .setResourceCount(3).setPartitionCount(10).setReplicaCount(3).setNewInstanceCount(2)
+        .build();
+    ResourceControllerDataProvider dataProvider = fixture.createDataProvider();
+    Assert.assertEquals(dataProvider.getAllInstances().size(), 20);
+    Assert.assertEquals(dataProvider.getLiveInstances().size(), 20);
+    Assert.assertEquals(dataProvider.getIdealStates().size(), 3);
+    Assert.assertEquals(dataProvider.getExternalViews().size(), 3);
+    Assert.assertTrue(dataProvider.getClusterConfig().isTopologyAwareEnabled());
+
+    // The new instances have no replica
+    Assert.assertTrue(fixture.getCurrentStates().get("instance_18").isEmpty());
+    Assert.assertTrue(fixture.getCurrentStates().get("instance_19").isEmpty());
+    Map<String, Map<String, String>> mapping = fixture.getCurrentStateMapping("resource_0");
+    Assert.assertEquals(mapping.size(), 10);
+    for (Map<String, String> stateMap : mapping.values()) {
+      Assert.assertEquals(stateMap.size(), 3);
+    }
+  }
+
+  @Test
+  public void testBestPossibleStateEvent() {
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(20).setZoneCount(5)
+        .setResourceCount(3).setPartitionCount(10).setReplicaCount(3).setNewInstanceCount(2)
+        .build();
+    ClusterEvent event = BenchmarkUtil.createBestPossibleStateEvent(fixture);
+    Map<String, Resource> resourceMap =
+        event.getAttribute(AttributeName.RESOURCES_TO_REBALANCE.name());
+    Assert.assertEquals(resourceMap.keySet(), fixture.getIdealStates().keySet());
+    BestPossibleStateOutput bestPossibleStateOutput =
+        event.getAttribute(AttributeName.BEST_POSSIBLE_STATE.name());
+    for (Resource resource : resourceMap.values()) {
+      Assert.assertEquals(
+          bestPossibleStateOutput.getPartitionStateMap(resource.getResourceName()).partitionSet()
+              .size(), 10);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package org.apache.helix.benchmark.simulator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.benchmark.ClusterFixture;
+import org.apache.helix.controller.rebalancer.strategy.CrushEdRebalanceStrategy;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.model.LiveInstance;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestControllerSimulator {
+
+  @Test
+  public void testScenario() throws Exception {
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(6).setZoneCount(3)
+        .setResourceCount(2).setPartitionCount(6).setReplicaCount(3).setNewInstanceCount(1)
+        .setRebalanceStrategy(CrushEdRebalanceStrategy.class.getName()).build();
+    SimulatorConfig config = new SimulatorConfig.Builder().setTransitionLatencyMs(1L)
+        .setTransitionLatencyJitterMs(2L).setQuietPeriodMs(300L).build();
+    Scenario scenario = Scenario.parse("test", new StringReader(
+        "# converge, lose a node, bring it back and add a resource\n" + "wait 30000\n"
+            + "kill instance_0\n" + "wait 30000\n" + "start all\n" + "wait 30000\n"
+            + "addResource resource_new 4 3\n" + "wait 30000\n"));
+    Assert.assertEquals(scenario.getSteps().size(), 7);
+
+    ControllerSimulator simulator = new ControllerSimulator(fixture, config);
+    try {
+      simulator.start();
+      SimulationReport report = simulator.run(scenario);
+      Assert.assertTrue(report.isConverged(), report.toString());
+      Assert.assertEquals(report.getStepResults().size(), 7);
+      Assert.assertTrue(report.getCompletedTransitionCount() > 0);
+      Assert.assertEquals(report.getFailedTransitionCount(), 0L);
+      Assert.assertEquals(report.getFlappingReplicaCount(), 0L);
+      Assert.assertTrue(report.getStageLatencies().containsKey("BestPossibleStateCalcStage"));
+      Assert.assertTrue(
+          report.getStageLatencies().get("BestPossibleStateCalcStage").getCount() > 0);
+      Assert.assertEquals(simulator.getLiveInstanceNames().size(), 6);
+
+      // Every partition of the new resource has one master and two slaves
+      Map<String, Map<String, Integer>> stateCounts =
+          getStateCounts(simulator.getDataAccessor(), "resource_new");
+      Assert.assertEquals(stateCounts.size(), 4);
+      for (Map<String, Integer> counts : stateCounts.values()) {
+        Assert.assertEquals(counts.get("MASTER"), Integer.valueOf(1));
+        Assert.assertEquals(counts.get("SLAVE"), Integer.valueOf(2));
+      }
+    } finally {
+      simulator.shutdown();
+    }
+  }
+
+  @Test
+  public void testDefaultRebalanceStrategy() throws Exception {
+    // No rebalance strategy in the ideal states, so the default one is used
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(6).setZoneCount(3)
+        .setResourceCount(2).setPartitionCount(6).setReplicaCount(3).setNewInstanceCount(1)
+        .build();
+    SimulatorConfig config = new SimulatorConfig.Builder().setTransitionLatencyMs(1L)
+        .setQuietPeriodMs(300L).build();
+    ControllerSimulator simulator = new ControllerSimulator(fixture, config);
+    try {
+      simulator.start();
+      SimulationReport report = simulator.run(
+          new Scenario("default", Collections.singletonList(Scenario.waitForConvergence(3000L))));
+      Assert.assertTrue(report.getCompletedTransitionCount() > 0);
+      // The replicas the rebalancer moved back and forth are reported, converged or not
+      Assert.assertTrue(report.toString()
+          .contains(String.format("flapping replicas: %d", report.getFlappingReplicaCount())));
+    } finally {
+      simulator.shutdown();
+    }
+  }
+
+  @Test
+  public void testHangingTransitions() throws Exception {
+    // The new instance needs replicas, but none of the transitions completes
+    ClusterFixture fixture = new ClusterFixture.Builder().setInstanceCount(4).setZoneCount(2)
+        .setResourceCount(1).setPartitionCount(4).setReplicaCount(2).setNewInstanceCount(1)
+        .setRebalanceStrategy(CrushEdRebalanceStrategy.class.getName()).build();
+    SimulatorConfig config = new SimulatorConfig.Builder().setTransitionHangRate(1.0)
+        .setQuietPeriodMs(100L).build();
+    ControllerSimulator simulator = new ControllerSimulator(fixture, config);
+    try {
+      simulator.start();
+      SimulationReport report = simulator
+          .run(new Scenario("hang", Collections.singletonList(Scenario.waitForConvergence(1000L))));
+      Assert.assertFalse(report.isConverged());
+      Assert.assertEquals(report.getCompletedTransitionCount(), 0L);
+    } finally {
+      simulator.shutdown();
+    }
+  }
+
+  @Test(expectedExceptions = HelixException.class)
+  public void testInvalidScript() throws Exception {
+    Scenario.parse("invalid", new StringReader("wait\nunknown 1\n"));
+  }
+
+  private static Map<String, Map<String, Integer>> getStateCounts(HelixDataAccessor accessor,
+      String resourceName) {
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    Map<String, Map<String, Integer>> stateCounts = new HashMap<>();
+    List<LiveInstance> liveInstances = accessor.getChildValues(keyBuilder.liveInstances(), true);
+    for (LiveInstance liveInstance : liveInstances) {
+      CurrentState currentState = accessor.getProperty(keyBuilder
+          .currentState(liveInstance.getInstanceName(), liveInstance.getEphemeralOwner(),
+              resourceName));
+      if (currentState == null) {
+        continue;
+      }
+      for (Map.Entry<String, String> entry : currentState.getPartitionStateMap().entrySet()) {
+        stateCounts.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+            .merge(entry.getValue(), 1, Integer::sum);
+      }
+    }
+    return stateCounts;
+  }
+}
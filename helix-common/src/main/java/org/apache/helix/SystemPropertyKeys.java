@@ -69,6 +69,27 @@ public class SystemPropertyKeys {
   // Controller
   public static final String CONTROLLER_MESSAGE_PURGE_DELAY = "helix.controller.stages.MessageGenerationPhase.messagePurgeDelay";
 
+  // Max number of jobs and workflows purged by one run of the task garbage collection stage
+  public static final String TASK_PURGE_BATCH_SIZE =
+      "helix.controller.stages.TaskGarbageCollectionStage.purgeBatchSize";
+
+  // Delay before the next purge when the task garbage collection has a backlog
+  public static final String TASK_PURGE_BACKLOG_DELAY =
+      "helix.controller.stages.TaskGarbageCollectionStage.purgeBacklogDelay";
+
+  // Number of threads computing the best possible states of the non-WAGED resources and
+  // classifying the partitions of the throttled resources, 1 computes them on the pipeline thread
+  public static final String BEST_POSSIBLE_CALC_PARALLELISM =
+      "helix.controller.stages.BestPossibleStateCalcStage.parallelism";
+
+  // Max number of replicas in the assignments cached for the CRUSH based rebalance strategies
+  public static final String PLACEMENT_CACHE_MAX_REPLICAS =
+      "helix.controller.rebalancer.placementCache.maxReplicas";
+
+  // Persist only the resources changed since the last full snapshot of the WAGED assignments
+  public static final String WAGED_ASSIGNMENT_DELTA_PERSISTENCE_ENABLED =
+      "helix.controller.rebalancer.waged.assignmentDeltaPersistence.enabled";
+
   // Message
   public static final String MESSAGE_EXPECTED_COMPLETION_PERIOD = "helix.controller.message.ExpectMessageCompletionPeriod";
 
@@ -32,18 +32,21 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixManager;
 import org.apache.helix.NotificationContext;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.PropertyKey.Builder;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.api.exceptions.HelixMetaDataAccessException;
 import org.apache.helix.api.listeners.ClusterConfigChangeListener;
 import org.apache.helix.api.listeners.ControllerChangeListener;
@@ -106,6 +109,7 @@ import org.apache.helix.model.PauseSignal;
 import org.apache.helix.model.ResourceConfig;
 import org.apache.helix.monitoring.mbeans.ClusterEventMonitor;
 import org.apache.helix.monitoring.mbeans.ClusterStatusMonitor;
+import org.apache.helix.util.HelixUtil;
 import org.apache.helix.zookeeper.zkclient.exception.ZkInterruptedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -191,6 +195,8 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
   private final ResourceControllerDataProvider _resourceControlDataProvider;
   private final WorkflowControllerDataProvider _workflowControlDataProvider;
   private final ScheduledExecutorService _asyncTasksThreadPool;
+  // Null if the best possible states are computed on the pipeline thread
+  private final ExecutorService _rebalanceThreadPool;
 
   /**
    * A record of last pipeline finish duration
@@ -446,7 +452,14 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     }
   }
 
-  private static PipelineRegistry createDefaultRegistry(String pipelineName) {
+  /**
+   * Create the registry of the pipelines of the DEFAULT (resource) controller pipeline type.
+   * Every call returns new pipeline and stage instances.
+   * @param pipelineName the pipeline type name
+   * @return the pipeline registry
+   */
+  @VisibleForTesting
+  static PipelineRegistry createDefaultRegistry(String pipelineName) {
     logger.info("createDefaultRegistry");
     synchronized (GenericHelixController.class) {
       PipelineRegistry registry = new PipelineRegistry();
@@ -529,7 +542,14 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     }
   }
 
-  private static PipelineRegistry createTaskRegistry(String pipelineName) {
+  /**
+   * Create the registry of the pipelines of the TASK controller pipeline type.
+   * Every call returns new pipeline and stage instances.
+   * @param pipelineName the pipeline type name
+   * @return the pipeline registry
+   */
+  @VisibleForTesting
+  static PipelineRegistry createTaskRegistry(String pipelineName) {
     logger.info("createTaskRegistry");
     synchronized (GenericHelixController.class) {
       PipelineRegistry registry = new PipelineRegistry();
@@ -585,7 +605,8 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
         Pipeline.Type.TASK, Pipeline.Type.DEFAULT));
   }
 
-  private GenericHelixController(PipelineRegistry registry, PipelineRegistry taskRegistry,
+  @VisibleForTesting
+  GenericHelixController(PipelineRegistry registry, PipelineRegistry taskRegistry,
       final String clusterName, Set<Pipeline.Type> enabledPipelineTypes) {
     _paused = false;
     _enabledPipelineTypes = enabledPipelineTypes;
@@ -604,6 +625,7 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
             return new Thread(r, "HelixController-async_tasks-" + _clusterName);
           }
         });
+    _rebalanceThreadPool = createRebalanceThreadPool(_clusterName);
     _asyncFIFOWorkerPool = new HashMap<>();
     initializeAsyncFIFOWorkers();
 
@@ -1295,6 +1317,10 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
       logger.warn("Timeout when terminating async tasks. Some async tasks are still executing.");
     }
 
+    if (_rebalanceThreadPool != null) {
+      _rebalanceThreadPool.shutdownNow();
+    }
+
     // shutdown async workers
     shutdownAsyncFIFOWorkers();
 
@@ -1424,12 +1450,29 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     }
   }
 
+  private static ExecutorService createRebalanceThreadPool(final String clusterName) {
+    int parallelism =
+        HelixUtil.getSystemPropertyAsInt(SystemPropertyKeys.BEST_POSSIBLE_CALC_PARALLELISM, 1);
+    if (parallelism <= 1) {
+      return null;
+    }
+    return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "HelixController-rebalance-" + clusterName);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
   private void initPipeline(Thread eventThread, BaseControllerDataProvider cache) {
     if (eventThread == null || cache == null) {
       logger.warn("pipeline cannot be initialized");
       return;
     }
     cache.setAsyncTasksThreadPool(_asyncTasksThreadPool);
+    cache.setRebalanceThreadPool(_rebalanceThreadPool);
 
     eventThread.setDaemon(true);
     eventThread.start();
@@ -0,0 +1,465 @@
+package org.apache.helix.controller.common;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.helix.model.Partition;
+
+/**
+ * Columnar store of the replica fields of a resource: the current state, the requested state, the
+ * info and the end time of each (partition, instance) replica.
+ *
+ * The partitions, instances and states are interned into int ids, and every replica is a row of
+ * dense arrays, one array per field. The rows are indexed by (partition id, instance id) in an open
+ * addressing hash table, and the rows of a partition are chained in the order they are added. So a
+ * resource is held in a few arrays instead of a map per partition and field.
+ *
+ * The maps returned by the accessors are views over the rows, they only support removing a current
+ * state. The table is not thread safe for writes, it is filled once and then read.
+ */
+public class ResourceReplicaTable {
+  private static final int UNSET = -1;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final Interner _instances;
+  private final Interner _states;
+
+  private final Map<Partition, Integer> _partitionIds = new HashMap<>();
+  private final List<Partition> _partitions = new ArrayList<>();
+  // partition id -> first and last row of the partition, and the number of current states
+  private int[] _partitionHeads = new int[INITIAL_CAPACITY];
+  private int[] _partitionTails = new int[INITIAL_CAPACITY];
+  private int[] _partitionStateCounts = new int[INITIAL_CAPACITY];
+  private int _partitionsWithState = 0;
+
+  // row -> field columns
+  private int _rowCount = 0;
+  private int[] _rowPartitions = new int[INITIAL_CAPACITY];
+  private int[] _rowInstances = new int[INITIAL_CAPACITY];
+  private int[] _rowNext = new int[INITIAL_CAPACITY];
+  private int[] _currentStates = new int[INITIAL_CAPACITY];
+  private int[] _requestedStates = new int[INITIAL_CAPACITY];
+  private long[] _endTimes = new long[INITIAL_CAPACITY];
+  // Info is rarely set, so the column is only allocated once it is used
+  private String[] _infos;
+
+  // (partition id, instance id) -> row + 1, 0 for an empty slot
+  private int[] _rowIndex = new int[INITIAL_CAPACITY * 2];
+
+  public ResourceReplicaTable(Interner instances, Interner states) {
+    _instances = instances;
+    _states = states;
+  }
+
+  public void setCurrentState(Partition partition, String instance, String state) {
+    int row = getOrAddRow(partition, instance);
+    if (_currentStates[row] == UNSET) {
+      int partitionId = _rowPartitions[row];
+      if (_partitionStateCounts[partitionId]++ == 0) {
+        _partitionsWithState++;
+      }
+    }
+    _currentStates[row] = _states.intern(state);
+  }
+
+  public void setRequestedState(Partition partition, String instance, String state) {
+    // The row is added first, since adding it may replace the arrays
+    int row = getOrAddRow(partition, instance);
+    _requestedStates[row] = _states.intern(state);
+  }
+
+  public void setEndTime(Partition partition, String instance, Long endTime) {
+    int row = getOrAddRow(partition, instance);
+    _endTimes[row] = endTime == null ? -1L : endTime;
+  }
+
+  public void setInfo(Partition partition, String instance, String info) {
+    int row = getOrAddRow(partition, instance);
+    if (_infos == null) {
+      _infos = new String[_currentStates.length];
+    }
+    _infos[row] = info;
+  }
+
+  /**
+   * Remove the current state of a replica, the other fields of the replica are kept.
+   * @return the removed state
+   */
+  public String removeCurrentState(Partition partition, String instance) {
+    int row = findRow(partition, instance);
+    if (row == UNSET || _currentStates[row] == UNSET) {
+      return null;
+    }
+    String state = getState(_currentStates[row]);
+    _currentStates[row] = UNSET;
+    if (--_partitionStateCounts[_rowPartitions[row]] == 0) {
+      _partitionsWithState--;
+    }
+    return state;
+  }
+
+  public String getCurrentState(Partition partition, String instance) {
+    int row = findRow(partition, instance);
+    return row == UNSET ? null : getState(_currentStates[row]);
+  }
+
+  public String getRequestedState(Partition partition, String instance) {
+    int row = findRow(partition, instance);
+    return row == UNSET ? null : getState(_requestedStates[row]);
+  }
+
+  /**
+   * @return the end time of the replica, or -1 if it is not set
+   */
+  public long getEndTime(Partition partition, String instance) {
+    int row = findRow(partition, instance);
+    return row == UNSET ? -1L : _endTimes[row];
+  }
+
+  public String getInfo(Partition partition, String instance) {
+    int row = findRow(partition, instance);
+    return row == UNSET || _infos == null ? null : _infos[row];
+  }
+
+  /**
+   * @return a view of the instance -> current state map of the partition
+   */
+  public Map<String, String> getCurrentStateMap(Partition partition) {
+    Integer partitionId = _partitionIds.get(partition);
+    if (partitionId == null || _partitionStateCounts[partitionId] == 0) {
+      return Collections.emptyMap();
+    }
+    return new PartitionCurrentStateView(partitionId);
+  }
+
+  /**
+   * @return a view of the partition -> instance -> current state map
+   */
+  public Map<Partition, Map<String, String>> getCurrentStateMap() {
+    if (_partitionsWithState == 0) {
+      return Collections.emptyMap();
+    }
+    return new CurrentStateView();
+  }
+
+  private String getState(int stateId) {
+    return stateId == UNSET ? null : _states.get(stateId);
+  }
+
+  private int findRow(Partition partition, String instance) {
+    Integer partitionId = _partitionIds.get(partition);
+    int instanceId = _instances.getId(instance);
+    if (partitionId == null || instanceId == UNSET) {
+      return UNSET;
+    }
+    return findRow(partitionId, instanceId);
+  }
+
+  private int findRow(int partitionId, int instanceId) {
+    int mask = _rowIndex.length - 1;
+    for (int slot = hash(partitionId, instanceId) & mask; ; slot = (slot + 1) & mask) {
+      int row = _rowIndex[slot] - 1;
+      if (row == UNSET) {
+        return UNSET;
+      }
+      if (_rowPartitions[row] == partitionId && _rowInstances[row] == instanceId) {
+        return row;
+      }
+    }
+  }
+
+  private int getOrAddRow(Partition partition, String instance) {
+    int partitionId = getOrAddPartition(partition);
+    int instanceId = _instances.intern(instance);
+    int row = findRow(partitionId, instanceId);
+    if (row != UNSET) {
+      return row;
+    }
+
+    row = _rowCount++;
+    if (row == _rowPartitions.length) {
+      growRows();
+    }
+    _rowPartitions[row] = partitionId;
+    _rowInstances[row] = instanceId;
+    _rowNext[row] = UNSET;
+    _currentStates[row] = UNSET;
+    _requestedStates[row] = UNSET;
+    _endTimes[row] = -1L;
+    if (_partitionTails[partitionId] == UNSET) {
+      _partitionHeads[partitionId] = row;
+    } else {
+      _rowNext[_partitionTails[partitionId]] = row;
+    }
+    _partitionTails[partitionId] = row;
+
+    // Keep the index at most half full
+    if (_rowCount * 2 > _rowIndex.length) {
+      _rowIndex = new int[_rowIndex.length * 2];
+      for (int i = 0; i < _rowCount; i++) {
+        addToIndex(i);
+      }
+    } else {
+      addToIndex(row);
+    }
+    return row;
+  }
+
+  private void addToIndex(int row) {
+    int mask = _rowIndex.length - 1;
+    int slot = hash(_rowPartitions[row], _rowInstances[row]) & mask;
+    while (_rowIndex[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    _rowIndex[slot] = row + 1;
+  }
+
+  private int getOrAddPartition(Partition partition) {
+    Integer partitionId = _partitionIds.get(partition);
+    if (partitionId != null) {
+      return partitionId;
+    }
+    int newId = _partitions.size();
+    _partitions.add(partition);
+    _partitionIds.put(partition, newId);
+    if (newId == _partitionHeads.length) {
+      int capacity = newId * 2;
+      _partitionHeads = Arrays.copyOf(_partitionHeads, capacity);
+      _partitionTails = Arrays.copyOf(_partitionTails, capacity);
+      _partitionStateCounts = Arrays.copyOf(_partitionStateCounts, capacity);
+    }
+    _partitionHeads[newId] = UNSET;
+    _partitionTails[newId] = UNSET;
+    _partitionStateCounts[newId] = 0;
+    return newId;
+  }
+
+  private void growRows() {
+    int capacity = _rowPartitions.length * 2;
+    _rowPartitions = Arrays.copyOf(_rowPartitions, capacity);
+    _rowInstances = Arrays.copyOf(_rowInstances, capacity);
+    _rowNext = Arrays.copyOf(_rowNext, capacity);
+    _currentStates = Arrays.copyOf(_currentStates, capacity);
+    _requestedStates = Arrays.copyOf(_requestedStates, capacity);
+    _endTimes = Arrays.copyOf(_endTimes, capacity);
+    if (_infos != null) {
+      _infos = Arrays.copyOf(_infos, capacity);
+    }
+  }
+
+  private static int hash(int partitionId, int instanceId) {
+    int h = partitionId * 0x9E3779B9 + instanceId;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * View of the current states of a partition, in the order the replicas were added.
+   */
+  private class PartitionCurrentStateView extends AbstractMap<String, String> {
+    private final int _partitionId;
+
+    PartitionCurrentStateView(int partitionId) {
+      _partitionId = partitionId;
+    }
+
+    @Override
+    public String get(Object key) {
+      int row = findCurrentStateRow(key);
+      return row == UNSET ? null : _states.get(_currentStates[row]);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return findCurrentStateRow(key) != UNSET;
+    }
+
+    @Override
+    public String remove(Object key) {
+      int row = findCurrentStateRow(key);
+      return row == UNSET ? null
+          : removeCurrentState(_partitions.get(_partitionId), _instances.get(_rowInstances[row]));
+    }
+
+    @Override
+    public int size() {
+      return _partitionStateCounts[_partitionId];
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      return new AbstractSet<Entry<String, String>>() {
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+          return new Iterator<Entry<String, String>>() {
+            private int _row = nextCurrentStateRow(_partitionHeads[_partitionId]);
+
+            @Override
+            public boolean hasNext() {
+              return _row != UNSET;
+            }
+
+            @Override
+            public Entry<String, String> next() {
+              if (_row == UNSET) {
+                throw new NoSuchElementException();
+              }
+              Entry<String, String> entry =
+                  new SimpleImmutableEntry<>(_instances.get(_rowInstances[_row]),
+                      _states.get(_currentStates[_row]));
+              _row = nextCurrentStateRow(_rowNext[_row]);
+              return entry;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return _partitionStateCounts[_partitionId];
+        }
+      };
+    }
+
+    private int findCurrentStateRow(Object key) {
+      if (key != null && !(key instanceof String)) {
+        return UNSET;
+      }
+      int instanceId = _instances.getId((String) key);
+      if (instanceId == UNSET) {
+        return UNSET;
+      }
+      int row = findRow(_partitionId, instanceId);
+      return row == UNSET || _currentStates[row] == UNSET ? UNSET : row;
+    }
+
+    private int nextCurrentStateRow(int row) {
+      while (row != UNSET && _currentStates[row] == UNSET) {
+        row = _rowNext[row];
+      }
+      return row;
+    }
+  }
+
+  /**
+   * View of the current states of all the partitions that have one.
+   */
+  private class CurrentStateView extends AbstractMap<Partition, Map<String, String>> {
+    @Override
+    public Map<String, String> get(Object key) {
+      Integer partitionId = _partitionIds.get(key);
+      if (partitionId == null || _partitionStateCounts[partitionId] == 0) {
+        return null;
+      }
+      return new PartitionCurrentStateView(partitionId);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      Integer partitionId = _partitionIds.get(key);
+      return partitionId != null && _partitionStateCounts[partitionId] > 0;
+    }
+
+    @Override
+    public int size() {
+      return _partitionsWithState;
+    }
+
+    @Override
+    public Set<Entry<Partition, Map<String, String>>> entrySet() {
+      return new AbstractSet<Entry<Partition, Map<String, String>>>() {
+        @Override
+        public Iterator<Entry<Partition, Map<String, String>>> iterator() {
+          return new Iterator<Entry<Partition, Map<String, String>>>() {
+            private int _partitionId = nextPartition(0);
+
+            @Override
+            public boolean hasNext() {
+              return _partitionId < _partitions.size();
+            }
+
+            @Override
+            public Entry<Partition, Map<String, String>> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              Entry<Partition, Map<String, String>> entry =
+                  new SimpleImmutableEntry<Partition, Map<String, String>>(
+                      _partitions.get(_partitionId), new PartitionCurrentStateView(_partitionId));
+              _partitionId = nextPartition(_partitionId + 1);
+              return entry;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return _partitionsWithState;
+        }
+      };
+    }
+
+    private int nextPartition(int partitionId) {
+      while (partitionId < _partitions.size() && _partitionStateCounts[partitionId] == 0) {
+        partitionId++;
+      }
+      return partitionId;
+    }
+  }
+
+  /**
+   * Interns strings into dense int ids, so they can be shared by the tables of all the resources.
+   */
+  public static class Interner {
+    private final Map<String, Integer> _ids = new HashMap<>();
+    private final List<String> _values = new ArrayList<>();
+
+    public int intern(String value) {
+      Integer id = _ids.get(value);
+      if (id == null) {
+        id = _values.size();
+        _values.add(value);
+        _ids.put(value, id);
+      }
+      return id;
+    }
+
+    /**
+     * @return the id of the value, or -1 if the value has not been interned
+     */
+    public int getId(String value) {
+      Integer id = _ids.get(value);
+      return id == null ? UNSET : id;
+    }
+
+    public String get(int id) {
+      return _values.get(id);
+    }
+  }
+}
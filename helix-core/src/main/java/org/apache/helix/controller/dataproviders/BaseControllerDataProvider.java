@@ -87,6 +87,7 @@ public class BaseControllerDataProvider implements ControlContextProvider {
   private boolean _isMaintenanceModeEnabled;
   private boolean _hasMaintenanceSignalChanged;
   private ExecutorService _asyncTasksThreadPool;
+  private ExecutorService _rebalanceThreadPool;
 
   // A map recording what data has changed
   protected Map<HelixConstants.ChangeType, AtomicBoolean> _propertyDataChangedMap;
@@ -755,6 +756,24 @@ public class BaseControllerDataProvider implements ControlContextProvider {
     _asyncTasksThreadPool = asyncTasksThreadPool;
   }
 
+  /**
+   * Get the thread pool that computes the best possible states and the intermediate state
+   * partition classification of the resources in parallel
+   * @return the thread pool, or null if the resources are computed one by one
+   */
+  public ExecutorService getRebalanceThreadPool() {
+    return _rebalanceThreadPool;
+  }
+
+  /**
+   * Set the thread pool that computes the best possible states and the intermediate state
+   * partition classification of the resources in parallel
+   * @param rebalanceThreadPool
+   */
+  public void setRebalanceThreadPool(ExecutorService rebalanceThreadPool) {
+    _rebalanceThreadPool = rebalanceThreadPool;
+  }
+
   public MonitoredAbnormalResolver getAbnormalStateResolver(String stateModel) {
     return _abnormalStateResolverMap
         .getOrDefault(stateModel, MonitoredAbnormalResolver.DUMMY_STATE_RESOLVER);
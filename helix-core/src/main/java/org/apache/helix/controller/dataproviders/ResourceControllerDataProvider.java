@@ -37,6 +37,9 @@ import org.apache.helix.common.caches.CustomizedViewCache;
 import org.apache.helix.common.caches.PropertyCache;
 import org.apache.helix.controller.LogUtil;
 import org.apache.helix.controller.pipeline.Pipeline;
+import org.apache.helix.controller.rebalancer.strategy.PlacementCache;
+import org.apache.helix.controller.rebalancer.topology.Topology;
+import org.apache.helix.controller.rebalancer.topology.TopologyCache;
 import org.apache.helix.controller.stages.MissingTopStateRecord;
 import org.apache.helix.model.CustomizedState;
 import org.apache.helix.model.CustomizedStateConfig;
@@ -89,6 +92,12 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
   // TODO: cause shuffling. So it is not backward compatible.
   private final Map<String, List<String>> _stablePartitionListCache = new HashMap<>();
 
+  // Assignments of the CRUSH based strategies, keyed on the fingerprint of their inputs. They stay
+  // valid across the refreshes, so the cache is not cleared with the other cached assignments.
+  private final PlacementCache _placementCache = new PlacementCache();
+  // Memoized topology trees keyed on the fingerprint of their inputs, shared by the strategies.
+  private final TopologyCache _topologyCache = new TopologyCache();
+
   public ResourceControllerDataProvider() {
     this(AbstractDataCache.UNKNOWN_CLUSTER);
   }
@@ -127,8 +136,9 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
         return obj.getResourceName();
       }
     }, true);
-    _resourceAssignmentCache = new HashMap<>();
-    _idealMappingCache = new HashMap<>();
+    // Written by the rebalancers, which may compute the resources in parallel
+    _resourceAssignmentCache = new ConcurrentHashMap<>();
+    _idealMappingCache = new ConcurrentHashMap<>();
     _missingTopStateMap = new HashMap<>();
     _lastTopStateLocationMap = new HashMap<>();
     _refreshedChangeTypes = ConcurrentHashMap.newKeySet();
@@ -429,6 +439,26 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
     _refreshedChangeTypes.clear();
   }
 
+  /**
+   * @return the cache of the assignments computed by the CRUSH based rebalance strategies
+   */
+  public PlacementCache getPlacementCache() {
+    return _placementCache;
+  }
+
+  /**
+   * Get the memoized topology of the given nodes. The whole topology is built again if any of the
+   * nodes or their configs have changed since it was built. It is shared, so it must not be
+   * modified by the caller.
+   * @param allNodes all the nodes of the topology
+   * @param liveNodes the nodes that are alive
+   * @return the topology built from the current instance configs and cluster config
+   */
+  public Topology getTopology(List<String> allNodes, List<String> liveNodes) {
+    return _topologyCache.getTopology(allNodes, liveNodes, getInstanceConfigMap(),
+        getClusterConfig());
+  }
+
   public void clearCachedResourceAssignments() {
     _resourceAssignmentCache.clear();
     _idealMappingCache.clear();
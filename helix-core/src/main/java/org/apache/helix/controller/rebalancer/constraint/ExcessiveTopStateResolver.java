@@ -79,7 +79,7 @@ public class ExcessiveTopStateResolver implements AbnormalStateResolver {
       // Log the warning for debug purposes.
       LOG.warn("The input current state map {} is valid, return the original current state.",
           currentStateMap);
-      return currentStateMap;
+      return new HashMap<>(currentStateMap);
     }
 
     Map<String, String> recoverMap = new HashMap<>(currentStateMap);
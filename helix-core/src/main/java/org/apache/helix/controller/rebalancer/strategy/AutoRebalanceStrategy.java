@@ -56,6 +56,8 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
   private Map<Replica, Node> _existingPreferredAssignment;
   private Map<Replica, Node> _existingNonPreferredAssignment;
   private Set<Replica> _orphaned;
+  // Indexes in the live node list of the nodes that have spare capacity
+  private TreeSet<Integer> _nodesWithCapacity;
 
   public AutoRebalanceStrategy(String resourceName, final List<String> partitions,
       final LinkedHashMap<String, Integer> states, int maximumPerNode) {
@@ -120,6 +122,7 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
       node.isAlive = true;
       node.capacity = targetSize;
       node.hasCeilingCapacity = usingCeiling;
+      node.liveIndex = i;
       _liveNodesList.add(node);
     }
 
@@ -143,6 +146,11 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
       logger.info("orphan = " + _orphaned);
     }
 
+    _nodesWithCapacity = new TreeSet<Integer>();
+    for (Node node : _liveNodesList) {
+      updateCapacityIndex(node);
+    }
+
     assignOrphans();
     moveNonPreferredReplicasToPreferred();
 
@@ -174,10 +182,12 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
           && receiver.capacity > receiver.currentlyAssigned && receiver.canAdd(replica)) {
         donor.currentlyAssigned = donor.currentlyAssigned - 1;
         receiver.currentlyAssigned = receiver.currentlyAssigned + 1;
-        donor.nonPreferred.remove(replica);
-        receiver.preferred.add(replica);
+        donor.removeNonPreferred(replica);
+        receiver.addPreferred(replica);
         donor.newReplicas.remove(replica);
         receiver.newReplicas.add(replica);
+        updateCapacityIndex(donor);
+        updateCapacityIndex(receiver);
         iterator.remove();
       }
     }
@@ -199,21 +209,19 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
       Node preferred = _preferredAssignment.get(replica);
       if (preferred.capacity > preferred.currentlyAssigned && preferred.canAdd(replica)) {
         preferred.currentlyAssigned ++;
-        preferred.preferred.add(replica);
+        preferred.addPreferred(replica);
         preferred.newReplicas.add(replica);
+        updateCapacityIndex(preferred);
         added = true;
       } else {
         // if preferred node has no capacity, search all nodes and find one that has capacity.
-        int startIndex = computeRandomStartIndex(replica);
-        for (int index = startIndex; index < startIndex + _liveNodesList.size(); index++) {
-          Node receiver = _liveNodesList.get(index % _liveNodesList.size());
-          if (receiver.capacity > receiver.currentlyAssigned && receiver.canAdd(replica)) {
-            receiver.currentlyAssigned = receiver.currentlyAssigned + 1;
-            receiver.nonPreferred.add(replica);
-            receiver.newReplicas.add(replica);
-            added = true;
-            break;
-          }
+        Node receiver = findReceiver(replica);
+        if (receiver != null) {
+          receiver.currentlyAssigned = receiver.currentlyAssigned + 1;
+          receiver.addNonPreferred(replica);
+          receiver.newReplicas.add(replica);
+          updateCapacityIndex(receiver);
+          added = true;
         }
       }
       if (!added) {
@@ -256,6 +264,8 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
     if (capacityDonor != null && capacityAcceptor != null) {
       // transfer ceiling capacity and add the node
       capacityAcceptor.steal(capacityDonor, replica);
+      updateCapacityIndex(capacityDonor);
+      updateCapacityIndex(capacityAcceptor);
       return true;
     }
     return false;
@@ -273,16 +283,15 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
         it = donor.nonPreferred.iterator();
         while (it.hasNext()) {
           Replica replica = it.next();
-          int startIndex = computeRandomStartIndex(replica);
-          for (int index = startIndex; index < startIndex + _liveNodesList.size(); index++) {
-            Node receiver = _liveNodesList.get(index % _liveNodesList.size());
-            if (receiver.canAdd(replica)) {
-              receiver.currentlyAssigned ++;
-              receiver.nonPreferred.add(replica);
-              donor.currentlyAssigned --;
-              it.remove();
-              break;
-            }
+          Node receiver = findReceiver(replica);
+          if (receiver != null) {
+            receiver.currentlyAssigned ++;
+            receiver.addNonPreferred(replica);
+            donor.currentlyAssigned --;
+            it.remove();
+            donor.removePartition(replica.partition);
+            updateCapacityIndex(receiver);
+            updateCapacityIndex(donor);
           }
           if (donor.capacity >= donor.currentlyAssigned) {
             break;
@@ -364,7 +373,7 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
 
       if (nodeToAssign != null) {
         nodeToAssign.currentlyAssigned = nodeToAssign.currentlyAssigned + 1;
-        nodeToAssign.nonPreferred.add(replica);
+        nodeToAssign.addNonPreferred(replica);
         nodeToAssign.newReplicas.add(replica);
       }
     }
@@ -476,14 +485,8 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
       nodeStateMap.keySet().retainAll(_nodeMap.keySet());
       for (String nodeId : nodeStateMap.keySet()) {
         Node node = _nodeMap.get(nodeId);
-        boolean skip = false;
-        for (Replica replica : node.preferred) {
-          if (replica.partition.equals(partition)) {
-            skip = true;
-            break;
-          }
-        }
-        if (skip) {
+        // Only the preferred replicas have been placed on the node so far
+        if (node.hasPartition(partition)) {
           continue;
         }
         // check if its in one of the preferred position
@@ -500,7 +503,7 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
               && !_existingPreferredAssignment.containsKey(replica)
               && !existingNonPreferredAssignment.containsKey(replica)) {
             existingNonPreferredAssignment.put(replica, node);
-            node.nonPreferred.add(replica);
+            node.addNonPreferred(replica);
 
             break;
           }
@@ -510,6 +513,47 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
     return existingNonPreferredAssignment;
   }
 
+  /**
+   * Find the first live node, starting from the random start index of the replica, that has spare
+   * capacity and does not host the partition yet.
+   * @param replica The replica to assign
+   * @return the node that can accept the replica, or null if there is no such node
+   */
+  private Node findReceiver(final Replica replica) {
+    if (_nodesWithCapacity.isEmpty()) {
+      return null;
+    }
+    int startIndex = computeRandomStartIndex(replica);
+    for (Integer index : _nodesWithCapacity.tailSet(startIndex)) {
+      Node receiver = _liveNodesList.get(index);
+      if (receiver.canAddIfCapacity(replica)) {
+        return receiver;
+      }
+    }
+    for (Integer index : _nodesWithCapacity.headSet(startIndex)) {
+      Node receiver = _liveNodesList.get(index);
+      if (receiver.canAddIfCapacity(replica)) {
+        return receiver;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Keep the index of the nodes with spare capacity up to date after the capacity or the number
+   * of assigned replicas of a node has changed.
+   */
+  private void updateCapacityIndex(Node node) {
+    if (node.liveIndex < 0) {
+      return;
+    }
+    if (node.capacity > node.currentlyAssigned) {
+      _nodesWithCapacity.add(node.liveIndex);
+    } else {
+      _nodesWithCapacity.remove(node.liveIndex);
+    }
+  }
+
   /**
    * Get a live node index to try first for a replica so that each possible start index is
    * roughly uniformly assigned.
@@ -562,7 +606,7 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
               && !existingPreferredAssignment.containsKey(replica)
               && _preferredAssignment.get(replica).id == node.id) {
             existingPreferredAssignment.put(replica, node);
-            node.preferred.add(replica);
+            node.addPreferred(replica);
             break;
           }
         }
@@ -636,19 +680,62 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
     public boolean hasCeilingCapacity;
     private final String id;
     boolean isAlive;
+    // index in the live node list, or -1 if the node is not alive
+    int liveIndex;
     private final List<Replica> preferred;
     private final List<Replica> nonPreferred;
     private final Set<Replica> newReplicas;
+    // number of the preferred and non-preferred replicas of each partition on this node
+    private final Map<String, Integer> partitionCounts;
 
     public Node(String id) {
       preferred = new ArrayList<Replica>();
       nonPreferred = new ArrayList<Replica>();
       newReplicas = new TreeSet<Replica>();
+      partitionCounts = new HashMap<String, Integer>();
       currentlyAssigned = 0;
       isAlive = false;
+      liveIndex = -1;
       this.id = id;
     }
 
+    void addPreferred(Replica replica) {
+      preferred.add(replica);
+      addPartition(replica.partition);
+    }
+
+    void addNonPreferred(Replica replica) {
+      nonPreferred.add(replica);
+      addPartition(replica.partition);
+    }
+
+    void removeNonPreferred(Replica replica) {
+      if (nonPreferred.remove(replica)) {
+        removePartition(replica.partition);
+      }
+    }
+
+    boolean hasPartition(String partition) {
+      return partitionCounts.containsKey(partition);
+    }
+
+    private void addPartition(String partition) {
+      Integer count = partitionCounts.get(partition);
+      partitionCounts.put(partition, count == null ? 1 : count + 1);
+    }
+
+    void removePartition(String partition) {
+      Integer count = partitionCounts.get(partition);
+      if (count == null) {
+        return;
+      }
+      if (count == 1) {
+        partitionCounts.remove(partition);
+      } else {
+        partitionCounts.put(partition, count - 1);
+      }
+    }
+
     /**
      * Check if this replica can be legally added to this node
      * @param replica The replica to test
@@ -671,17 +758,7 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
       if (!isAlive) {
         return false;
       }
-      for (Replica r : preferred) {
-        if (r.partition.equals(replica.partition)) {
-          return false;
-        }
-      }
-      for (Replica r : nonPreferred) {
-        if (r.partition.equals(replica.partition)) {
-          return false;
-        }
-      }
-      return true;
+      return !hasPartition(replica.partition);
     }
 
     /**
@@ -695,7 +772,7 @@ public class AutoRebalanceStrategy implements RebalanceStrategy<ResourceControll
       hasCeilingCapacity = true;
       capacity++;
       currentlyAssigned++;
-      nonPreferred.add(replica);
+      addNonPreferred(replica);
       newReplicas.add(replica);
     }
 
@@ -19,7 +19,13 @@ package org.apache.helix.controller.rebalancer.strategy;
  * under the License.
  */
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.hash.HashCode;
 import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
 
 /**
  * CRUSH-ed, CRUSH with even distribution. This is an Auto rebalance strategy based on CRUSH algorithm.
@@ -28,8 +34,41 @@ import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
 public class CrushEdRebalanceStrategy extends AbstractEvenDistributionRebalanceStrategy {
   private final RebalanceStrategy<ResourceControllerDataProvider> _baseStrategy =
       new CrushRebalanceStrategy();
+  private List<String> _partitions;
+  private LinkedHashMap<String, Integer> _stateCountMap;
 
   protected RebalanceStrategy<ResourceControllerDataProvider> getBaseRebalanceStrategy() {
     return _baseStrategy;
   }
+
+  @Override
+  public void init(String resourceName, final List<String> partitions,
+      final LinkedHashMap<String, Integer> states, int maximumPerNode) {
+    super.init(resourceName, partitions, states, maximumPerNode);
+    _partitions = partitions;
+    _stateCountMap = states;
+  }
+
+  /**
+   * The evenness adjustment does not depend on the current mapping either, so the adjusted
+   * assignment is cached on the same fingerprint as the CRUSH assignment.
+   */
+  @Override
+  public ZNRecord computePartitionAssignment(final List<String> allNodes,
+      final List<String> liveNodes, final Map<String, Map<String, String>> currentMapping,
+      ResourceControllerDataProvider clusterData) {
+    PlacementCache placementCache = clusterData.getPlacementCache();
+    if (placementCache == null) {
+      return super.computePartitionAssignment(allNodes, liveNodes, currentMapping, clusterData);
+    }
+    HashCode fingerprint = PlacementCache
+        .fingerprint(getClass().getName(), _resourceName, _partitions, _stateCountMap, allNodes,
+            liveNodes, clusterData.getInstanceConfigMap(), clusterData.getClusterConfig());
+    ZNRecord result = placementCache.get(fingerprint);
+    if (result == null) {
+      result = super.computePartitionAssignment(allNodes, liveNodes, currentMapping, clusterData);
+      placementCache.put(fingerprint, result);
+    }
+    return result;
+  }
 }
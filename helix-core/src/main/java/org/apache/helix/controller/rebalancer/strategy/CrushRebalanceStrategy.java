@@ -29,6 +29,7 @@ import java.util.Set;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.hash.HashCode;
 import org.apache.helix.HelixException;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.controller.LogUtil;
@@ -52,6 +53,7 @@ public class CrushRebalanceStrategy implements RebalanceStrategy<ResourceControl
   private List<String> _partitions;
   private Topology _clusterTopo;
   private int _replicas;
+  private LinkedHashMap<String, Integer> _stateCountMap;
 
   @Override
   public void init(String resourceName, final List<String> partitions,
@@ -59,6 +61,7 @@ public class CrushRebalanceStrategy implements RebalanceStrategy<ResourceControl
     _resourceName = resourceName;
     _partitions = partitions;
     _replicas = countStateReplicas(states);
+    _stateCountMap = states;
   }
 
   /**
@@ -76,8 +79,19 @@ public class CrushRebalanceStrategy implements RebalanceStrategy<ResourceControl
       final List<String> liveNodes, final Map<String, Map<String, String>> currentMapping,
       ResourceControllerDataProvider clusterData) throws HelixException {
     Map<String, InstanceConfig> instanceConfigMap = clusterData.getInstanceConfigMap();
-    _clusterTopo =
-        new Topology(allNodes, liveNodes, instanceConfigMap, clusterData.getClusterConfig());
+    PlacementCache placementCache = clusterData.getPlacementCache();
+    HashCode fingerprint = null;
+    if (placementCache != null) {
+      fingerprint = PlacementCache
+          .fingerprint(getClass().getName(), _resourceName, _partitions, _stateCountMap, allNodes,
+              liveNodes, instanceConfigMap, clusterData.getClusterConfig());
+      ZNRecord cachedAssignment = placementCache.get(fingerprint);
+      if (cachedAssignment != null) {
+        return cachedAssignment;
+      }
+    }
+
+    _clusterTopo = clusterData.getTopology(allNodes, liveNodes);
     Node topNode = _clusterTopo.getRootNode();
 
     // for log only
@@ -122,6 +136,9 @@ public class CrushRebalanceStrategy implements RebalanceStrategy<ResourceControl
     ZNRecord result = new ZNRecord(_resourceName);
     result.setListFields(newPreferences);
 
+    if (placementCache != null) {
+      placementCache.put(fingerprint, result);
+    }
     return result;
   }
 
@@ -30,6 +30,7 @@ import java.util.Set;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.hash.HashCode;
 import org.apache.helix.HelixException;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.controller.LogUtil;
@@ -83,8 +84,19 @@ public class MultiRoundCrushRebalanceStrategy implements RebalanceStrategy<Resou
       final List<String> liveNodes, final Map<String, Map<String, String>> currentMapping,
       ResourceControllerDataProvider clusterData) throws HelixException {
     Map<String, InstanceConfig> instanceConfigMap = clusterData.getInstanceConfigMap();
-    _clusterTopo =
-        new Topology(allNodes, liveNodes, instanceConfigMap, clusterData.getClusterConfig());
+    PlacementCache placementCache = clusterData.getPlacementCache();
+    HashCode fingerprint = null;
+    if (placementCache != null) {
+      fingerprint = PlacementCache
+          .fingerprint(getClass().getName(), _resourceName, _partitions, _stateCountMap, allNodes,
+              liveNodes, instanceConfigMap, clusterData.getClusterConfig());
+      ZNRecord cachedAssignment = placementCache.get(fingerprint);
+      if (cachedAssignment != null) {
+        return cachedAssignment;
+      }
+    }
+
+    _clusterTopo = clusterData.getTopology(allNodes, liveNodes);
     Node root = _clusterTopo.getRootNode();
 
     Map<String, List<Node>> zoneMapping = new HashMap<>();
@@ -149,8 +161,12 @@ public class MultiRoundCrushRebalanceStrategy implements RebalanceStrategy<Resou
       }
     }
 
-    return generateZNRecord(_resourceName, _partitions, partitionStateMapping,
+    ZNRecord result = generateZNRecord(_resourceName, _partitions, partitionStateMapping,
         clusterData.getClusterEventId());
+    if (placementCache != null) {
+      placementCache.put(fingerprint, result);
+    }
+    return result;
   }
 
   private ZNRecord generateZNRecord(String resource, List<String> partitions,
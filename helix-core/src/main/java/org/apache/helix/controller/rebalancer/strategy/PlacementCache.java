@@ -0,0 +1,177 @@
+package org.apache.helix.controller.rebalancer.strategy;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.helix.SystemPropertyKeys;
+import org.apache.helix.controller.rebalancer.topology.TopologyCache;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.util.HelixUtil;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+
+/**
+ * Cache of the partition assignments computed by the CRUSH based rebalance strategies.
+ *
+ * The CRUSH based strategies do not depend on the current states, so an assignment is a function
+ * of the resource, the topology and the node lists only. The assignments are keyed on a
+ * fingerprint of those inputs, so a resource is only recomputed if one of its inputs has changed.
+ * The least recently used assignments are evicted once the cached replicas exceed the limit.
+ */
+public class PlacementCache {
+  private static final int DEFAULT_MAX_CACHED_REPLICAS = 1000000;
+
+  private final int _maxCachedReplicas;
+  // Guarded by this. The snapshots are immutable and copied outside of the lock.
+  private final LinkedHashMap<HashCode, Snapshot> _assignments =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long _cachedReplicas = 0;
+
+  public PlacementCache() {
+    this(HelixUtil.getSystemPropertyAsInt(SystemPropertyKeys.PLACEMENT_CACHE_MAX_REPLICAS,
+        DEFAULT_MAX_CACHED_REPLICAS));
+  }
+
+  public PlacementCache(int maxCachedReplicas) {
+    _maxCachedReplicas = maxCachedReplicas;
+  }
+
+  /**
+   * Compute the fingerprint of the inputs of a CRUSH based strategy.
+   * Only the instance and cluster config fields that are used to build the topology are included.
+   */
+  public static HashCode fingerprint(String strategyName, String resourceName,
+      List<String> partitions, Map<String, Integer> stateCountMap, List<String> allNodes,
+      List<String> liveNodes, Map<String, InstanceConfig> instanceConfigMap,
+      ClusterConfig clusterConfig) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    putString(hasher, strategyName);
+    putString(hasher, resourceName);
+    hasher.putInt(partitions.size());
+    for (String partition : partitions) {
+      putString(hasher, partition);
+    }
+    hasher.putInt(stateCountMap.size());
+    for (Map.Entry<String, Integer> entry : stateCountMap.entrySet()) {
+      putString(hasher, entry.getKey());
+      hasher.putInt(entry.getValue());
+    }
+    TopologyCache.putTopologyInputs(hasher, allNodes, liveNodes, instanceConfigMap, clusterConfig);
+    return hasher.hash();
+  }
+
+  private static void putString(Hasher hasher, String value) {
+    if (value == null) {
+      hasher.putInt(-1);
+    } else {
+      hasher.putInt(value.length());
+      hasher.putString(value, Charsets.UTF_8);
+    }
+  }
+
+  /**
+   * @return a copy of the cached assignment, or null if there is no assignment for the fingerprint
+   */
+  public ZNRecord get(HashCode fingerprint) {
+    Snapshot snapshot;
+    synchronized (this) {
+      snapshot = _assignments.get(fingerprint);
+    }
+    // The snapshot is immutable, so it is copied outside of the lock
+    return snapshot == null ? null : snapshot.toRecord();
+  }
+
+  /**
+   * Cache a copy of the assignment, and evict the least recently used assignments if the cached
+   * replicas exceed the limit.
+   */
+  public void put(HashCode fingerprint, ZNRecord assignment) {
+    Snapshot snapshot = new Snapshot(assignment);
+    if (snapshot._replicas > _maxCachedReplicas) {
+      return;
+    }
+    synchronized (this) {
+      Snapshot prevSnapshot = _assignments.put(fingerprint, snapshot);
+      if (prevSnapshot != null) {
+        _cachedReplicas -= prevSnapshot._replicas;
+      }
+      _cachedReplicas += snapshot._replicas;
+      while (_cachedReplicas > _maxCachedReplicas) {
+        Map.Entry<HashCode, Snapshot> eldest = _assignments.entrySet().iterator().next();
+        _cachedReplicas -= eldest.getValue()._replicas;
+        _assignments.remove(eldest.getKey());
+      }
+    }
+  }
+
+  public synchronized int size() {
+    return _assignments.size();
+  }
+
+  public synchronized void clear() {
+    _assignments.clear();
+    _cachedReplicas = 0;
+  }
+
+  /**
+   * Immutable copy of the preference lists of an assignment. Only the id and the list fields are
+   * kept, so the assignments returned from the cache do not carry the simple or map fields, such
+   * as an event id, of the run which computed them.
+   */
+  private static final class Snapshot {
+    private final String _id;
+    private final Map<String, List<String>> _listFields;
+    private final int _replicas;
+
+    // The iteration order of the computed assignment is kept, since the evenness adjustment of
+    // CrushEd depends on the order in which the partitions are visited.
+    Snapshot(ZNRecord assignment) {
+      Map<String, List<String>> listFields = new LinkedHashMap<>();
+      int replicas = 0;
+      for (Map.Entry<String, List<String>> entry : assignment.getListFields().entrySet()) {
+        listFields.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        replicas += entry.getValue().size();
+      }
+      _id = assignment.getId();
+      _listFields = Collections.unmodifiableMap(listFields);
+      _replicas = replicas;
+    }
+
+    // The callers modify the returned list fields, so the lists are copied as well
+    ZNRecord toRecord() {
+      Map<String, List<String>> listFields = new LinkedHashMap<>();
+      for (Map.Entry<String, List<String>> entry : _listFields.entrySet()) {
+        listFields.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+      }
+      ZNRecord record = new ZNRecord(_id);
+      record.setListFields(listFields);
+      return record;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -53,6 +54,10 @@ public class CRUSHPlacementAlgorithm {
 
   private final boolean keepOffset;
   private final Map<Long,Integer> roundOffset;
+  // The straw buckets of the nodes of the trees this object has selected from. A tree is not
+  // modified once it is built, so the buckets are computed once for all the selections.
+  private final Map<Node, StrawBucket> strawBuckets = new IdentityHashMap<Node, StrawBucket>();
+  private final JenkinsHash hashFunction = new JenkinsHash();
 
   /**
    * Creates the crush placement object.
@@ -83,7 +88,7 @@ public class CRUSHPlacementAlgorithm {
 
   public List<Node> select(Node parent, long input, int count, String type,
       Predicate<Node> nodePredicate) {
-    int childCount = parent.getChildrenCount(type);
+    int childCount = getStrawBucket(parent).getChildrenCount(type);
     if (childCount < count) {
       logger.error(count + " nodes of type " + type +
           " were requested but the tree has only " + childCount + " nodes!");
@@ -113,17 +118,20 @@ public class CRUSHPlacementAlgorithm {
       do {
         retryOrigin = false; // initialize at the outset
         Node in = parent;
-        Set<Node> rejected = new HashSet<Node>();
+        Set<Node> rejected = null;
         boolean retryNode;
         do {
           retryNode = false; // initialize at the outset
           rPrime = r + offset + failure;
-          logger.trace("{}.select({}, {})", new Object[] {in, input, rPrime});
-          Selector selector = new Selector(in);
-          out = selector.select(input, rPrime);
+          if (logger.isTraceEnabled()) {
+            logger.trace("{}.select({}, {})", new Object[] {in, input, rPrime});
+          }
+          out = getStrawBucket(in).select(input, rPrime);
           if (!out.getType().equalsIgnoreCase(type)) {
-            logger.trace("selected output {} for data {} didn't match the type {}: walking down " +
-                "the hierarchy...", new Object[] {out, input, type});
+            if (logger.isTraceEnabled()) {
+              logger.trace("selected output {} for data {} didn't match the type {}: walking down "
+                  + "the hierarchy...", new Object[] {out, input, type});
+            }
             in = out; // walk down the hierarchy
             retryNode = true; // stay within the node and walk down the tree
           } else { // type matches
@@ -132,6 +140,9 @@ public class CRUSHPlacementAlgorithm {
               if (predicateRejected) {
                 logger.trace("{} was rejected by the node predicate for data {}: rejecting and " +
                     "increasing rPrime", out, input);
+                if (rejected == null) {
+                  rejected = new HashSet<Node>();
+                }
                 rejected.add(out);
               } else { // already selected
                 logger.trace("{} was already selected for data {}: rejecting and increasing rPrime",
@@ -211,7 +222,8 @@ public class CRUSHPlacementAlgorithm {
     List<Node> children = parent.getChildren();
     if (children != null) {
       for (Node child: children) {
-        if (!nodeIsOut(child) && !selected.contains(child) && !rejected.contains(child)) {
+        if (!nodeIsOut(child) && !selected.contains(child) && (rejected == null || !rejected
+            .contains(child))) {
           return false;
         }
       }
@@ -219,14 +231,49 @@ public class CRUSHPlacementAlgorithm {
     return true;
   }
 
+  private StrawBucket getStrawBucket(Node node) {
+    StrawBucket bucket = strawBuckets.get(node);
+    if (bucket == null) {
+      bucket = new StrawBucket(node, hashFunction);
+      strawBuckets.put(node, bucket);
+    }
+    return bucket;
+  }
+
   /**
    * Selection algorithm based on the "straw" bucket type as described in the CRUSH algorithm.
+   * The straws of the children are computed once per node, and kept in arrays in the iteration
+   * order of the straw map the selection used to be computed with, so the ties are broken the same
+   * way.
    */
-  private class Selector {
-    private final Map<Node,Long> straws = new HashMap<Node,Long>();
+  static class StrawBucket {
+    private final Node node;
+    // type -> number of the nodes of the type in the subtree
+    private final Map<String, Integer> childrenCounts = new HashMap<String, Integer>();
+    private final Node[] children;
+    private final long[] ids;
+    private final long[] straws;
     private final JenkinsHash hashFunction;
 
-    public Selector(Node node) {
+    StrawBucket(Node node, JenkinsHash hashFunction) {
+      this.node = node;
+      Map<Node, Long> strawMap = computeStraws(node);
+      int size = strawMap.size();
+      children = new Node[size];
+      ids = new long[size];
+      straws = new long[size];
+      int i = 0;
+      for (Map.Entry<Node, Long> e : strawMap.entrySet()) {
+        children[i] = e.getKey();
+        ids[i] = e.getKey().getId();
+        straws[i] = e.getValue();
+        i++;
+      }
+      this.hashFunction = hashFunction;
+    }
+
+    private static Map<Node, Long> computeStraws(Node node) {
+      Map<Node, Long> straws = new HashMap<Node, Long>();
       if (!node.isLeaf()) {
         // create a map from the nodes to their values
         List<Node> sortedNodes = sortNodes(node.getChildren()); // do a reverse sort by weight
@@ -269,23 +316,15 @@ public class CRUSHPlacementAlgorithm {
           lastw = previous.getWeight();
         }
       }
-      hashFunction = new JenkinsHash();
+      return straws;
     }
 
     /**
      * Returns a new list that's sorted in the reverse order of the weight.
      */
-    private List<Node> sortNodes(List<Node> nodes) {
+    private static List<Node> sortNodes(List<Node> nodes) {
       List<Node> ret = new ArrayList<Node>(nodes);
-      sortNodesInPlace(ret);
-      return ret;
-    }
-
-    /**
-     * Sorts the list in place in the reverse order of the weight.
-     */
-    private void sortNodesInPlace(List<Node> nodes) {
-      Collections.sort(nodes, new Comparator<Node>() {
+      Collections.sort(ret, new Comparator<Node>() {
         public int compare(Node n1, Node n2) {
           if (n2.getWeight() == n1.getWeight()) {
             return 0;
@@ -294,31 +333,33 @@ public class CRUSHPlacementAlgorithm {
           // sort by weight only in the reverse order
         }
       });
+      return ret;
+    }
+
+    int getChildrenCount(String type) {
+      Integer count = childrenCounts.get(type);
+      if (count == null) {
+        count = node.getChildrenCount(type);
+        childrenCounts.put(type, count);
+      }
+      return count;
     }
 
     public Node select(long input, long round) {
-      Node selected = null;
+      int selected = -1;
       long hiScore = -1;
-      for (Map.Entry<Node,Long> e: straws.entrySet()) {
-        Node child = e.getKey();
-        long straw = e.getValue();
-        long score = weightedScore(child, straw, input, round);
+      for (int i = 0; i < children.length; i++) {
+        long hash = hashFunction.hash(input, ids[i], round) & 0xffff;
+        long score = hash * straws[i];
         if (score > hiScore) {
-          selected = child;
+          selected = i;
           hiScore = score;
         }
       }
-      if (selected == null) {
+      if (selected < 0) {
         throw new IllegalStateException();
       }
-      return selected;
-    }
-
-    private long weightedScore(Node child, long straw, long input, long round) {
-      long hash = hashFunction.hash(input, child.getId(), round);
-      hash = hash&0xffff;
-      long weightedScore = hash*straw;
-      return weightedScore;
+      return children[selected];
     }
   }
 }
@@ -23,6 +23,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,7 +52,7 @@ public class Topology {
   private final MessageDigest _md;
   private final Node _root; // root of the tree structure of all nodes;
   private final List<String> _allInstances;
-  private final List<String> _liveInstances;
+  private final Set<String> _liveInstances;
   private final Map<String, InstanceConfig> _instanceConfigMap;
   private final ClusterConfig _clusterConfig;
   private static final String DEFAULT_DOMAIN_PREFIX = "Helix_default_";
@@ -72,7 +73,7 @@ public class Topology {
     }
 
     _allInstances = allNodes;
-    _liveInstances = liveNodes;
+    _liveInstances = new HashSet<>(liveNodes);
     _instanceConfigMap = instanceConfigMap;
     if (_instanceConfigMap == null || !_instanceConfigMap.keySet().containsAll(allNodes)) {
       throw new HelixException(String.format("Config for instances %s is not found!",
@@ -338,7 +339,7 @@ public class Topology {
    * Add an end node to the tree, create all the paths to the leaf node if not present.
    */
   private void addEndNode(Node root, String instanceName, LinkedHashMap<String, String> pathNameMap,
-      int instanceWeight, List<String> liveInstances) {
+      int instanceWeight, Set<String> liveInstances) {
     Node current = root;
     List<Node> pathNodes = new ArrayList<>();
     for (Map.Entry<String, String> entry : pathNameMap.entrySet()) {
@@ -0,0 +1,150 @@
+package org.apache.helix.controller.rebalancer.topology;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.InstanceConfig;
+
+/**
+ * Memoizes the topology trees built by the rebalance strategies.
+ *
+ * A topology is keyed on a fingerprint of the node lists and of the instance and cluster config
+ * fields it is built from, so it is reused across the pipeline runs until one of those inputs
+ * changes. The topologies are not updated incrementally: a change to any of the inputs, such as a
+ * single InstanceConfig, builds the whole tree again. The cached topologies are shared, so the
+ * callers must not modify them.
+ */
+public class TopologyCache {
+  private static final int DEFAULT_MAX_CACHED_TOPOLOGIES = 64;
+
+  private final Map<HashCode, Topology> _topologies;
+
+  public TopologyCache() {
+    this(DEFAULT_MAX_CACHED_TOPOLOGIES);
+  }
+
+  public TopologyCache(final int maxCachedTopologies) {
+    _topologies = new LinkedHashMap<HashCode, Topology>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<HashCode, Topology> eldest) {
+        return size() > maxCachedTopologies;
+      }
+    };
+  }
+
+  /**
+   * Get the topology of the given nodes, and build it if it is not cached.
+   */
+  public Topology getTopology(List<String> allNodes, List<String> liveNodes,
+      Map<String, InstanceConfig> instanceConfigMap, ClusterConfig clusterConfig) {
+    HashCode fingerprint = fingerprint(allNodes, liveNodes, instanceConfigMap, clusterConfig);
+    synchronized (this) {
+      Topology topology = _topologies.get(fingerprint);
+      if (topology != null) {
+        return topology;
+      }
+    }
+    // Built outside of the lock, so the resources rebalanced in parallel are not serialized. The
+    // lists are copied since the topology keeps them.
+    Topology topology =
+        new Topology(new ArrayList<>(allNodes), new ArrayList<>(liveNodes), instanceConfigMap,
+            clusterConfig);
+    synchronized (this) {
+      _topologies.put(fingerprint, topology);
+    }
+    return topology;
+  }
+
+  /**
+   * Compute the fingerprint of the inputs of a topology.
+   * Only the instance and cluster config fields that are used to build the topology are included.
+   */
+  public static HashCode fingerprint(List<String> allNodes, List<String> liveNodes,
+      Map<String, InstanceConfig> instanceConfigMap, ClusterConfig clusterConfig) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    putTopologyInputs(hasher, allNodes, liveNodes, instanceConfigMap, clusterConfig);
+    return hasher.hash();
+  }
+
+  /**
+   * Add the inputs of a topology to the hasher.
+   */
+  public static void putTopologyInputs(Hasher hasher, List<String> allNodes,
+      List<String> liveNodes, Map<String, InstanceConfig> instanceConfigMap,
+      ClusterConfig clusterConfig) {
+    hasher.putInt(allNodes.size());
+    for (String node : allNodes) {
+      putString(hasher, node);
+      InstanceConfig instanceConfig =
+          instanceConfigMap == null ? null : instanceConfigMap.get(node);
+      if (instanceConfig == null) {
+        hasher.putBoolean(false);
+      } else {
+        hasher.putBoolean(true);
+        putString(hasher, instanceConfig.getDomainAsString());
+        putString(hasher, instanceConfig.getZoneId());
+        hasher.putInt(instanceConfig.getWeight());
+        hasher.putBoolean(instanceConfig.getInstanceEnabled());
+      }
+    }
+    hasher.putInt(liveNodes.size());
+    for (String node : liveNodes) {
+      putString(hasher, node);
+    }
+    if (clusterConfig != null) {
+      hasher.putBoolean(clusterConfig.isTopologyAwareEnabled());
+      putString(hasher, clusterConfig.getTopology());
+      putString(hasher, clusterConfig.getFaultZoneType());
+      Map<String, String> disabledInstances = clusterConfig.getDisabledInstances();
+      if (disabledInstances != null) {
+        for (String instance : new TreeSet<>(disabledInstances.keySet())) {
+          putString(hasher, instance);
+        }
+      }
+    }
+  }
+
+  private static void putString(Hasher hasher, String value) {
+    if (value == null) {
+      hasher.putInt(-1);
+    } else {
+      hasher.putInt(value.length());
+      hasher.putString(value, Charsets.UTF_8);
+    }
+  }
+
+  public synchronized int size() {
+    return _topologies.size();
+  }
+
+  public synchronized void clear() {
+    _topologies.clear();
+  }
+}
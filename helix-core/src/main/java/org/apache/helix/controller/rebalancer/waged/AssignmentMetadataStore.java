@@ -20,13 +20,17 @@ package org.apache.helix.controller.rebalancer.waged;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import org.apache.helix.BucketDataAccessor;
 import org.apache.helix.HelixException;
 import org.apache.helix.HelixProperty;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.manager.zk.ZkBucketDataAccessor;
 import org.apache.helix.model.ResourceAssignment;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
@@ -36,18 +40,34 @@ import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
 
 /**
  * A placeholder before we have the real assignment metadata store.
+ *
+ * Each assignment is persisted as a full snapshot. If the delta persistence is enabled, an update
+ * only writes the resources that changed since the last snapshot to a separate delta record, and
+ * a new snapshot is written once most of the resources have changed. The delta record refers to
+ * the id of its snapshot, so a delta left over from a previous snapshot is never applied.
  */
 public class AssignmentMetadataStore {
   private static final String ASSIGNMENT_METADATA_KEY = "ASSIGNMENT_METADATA";
   private static final String BASELINE_TEMPLATE = "/%s/%s/BASELINE";
   private static final String BEST_POSSIBLE_TEMPLATE = "/%s/%s/BEST_POSSIBLE";
+  private static final String DELTA_SUFFIX = "_DELTA";
   private static final String BASELINE_KEY = "BASELINE";
   private static final String BEST_POSSIBLE_KEY = "BEST_POSSIBLE";
+  // The resource assignments are the simple fields of a record, the snapshot id and the removed
+  // resources are kept in a map field and a list field.
+  private static final String SNAPSHOT_METADATA_KEY = "SNAPSHOT_METADATA";
+  private static final String SNAPSHOT_ID_KEY = "SNAPSHOT_ID";
+  private static final String REMOVED_RESOURCES_KEY = "REMOVED_RESOURCES";
+  // A new snapshot is written instead of a delta once this ratio of the resources has changed
+  private static final double SNAPSHOT_COMPACTION_RATIO = 0.5;
   private static final ZkSerializer SERIALIZER = new ZNRecordJacksonSerializer();
 
   private BucketDataAccessor _dataAccessor;
   private String _baselinePath;
   private String _bestPossiblePath;
+  private final boolean _deltaPersistenceEnabled;
+  private final AssignmentSnapshot _baselineSnapshot = new AssignmentSnapshot();
+  private final AssignmentSnapshot _bestPossibleSnapshot = new AssignmentSnapshot();
   protected Map<String, ResourceAssignment> _globalBaseline;
   protected Map<String, ResourceAssignment> _bestPossibleAssignment;
 
@@ -56,22 +76,22 @@ public class AssignmentMetadataStore {
   }
 
   protected AssignmentMetadataStore(BucketDataAccessor bucketDataAccessor, String clusterName) {
+    this(bucketDataAccessor, clusterName,
+        Boolean.getBoolean(SystemPropertyKeys.WAGED_ASSIGNMENT_DELTA_PERSISTENCE_ENABLED));
+  }
+
+  protected AssignmentMetadataStore(BucketDataAccessor bucketDataAccessor, String clusterName,
+      boolean deltaPersistenceEnabled) {
     _dataAccessor = bucketDataAccessor;
     _baselinePath = String.format(BASELINE_TEMPLATE, clusterName, ASSIGNMENT_METADATA_KEY);
     _bestPossiblePath = String.format(BEST_POSSIBLE_TEMPLATE, clusterName, ASSIGNMENT_METADATA_KEY);
+    _deltaPersistenceEnabled = deltaPersistenceEnabled;
   }
 
   public synchronized Map<String, ResourceAssignment> getBaseline() {
     // Return the in-memory baseline. If null, read from ZK. This is to minimize reads from ZK
     if (_globalBaseline == null) {
-      try {
-        HelixProperty baseline =
-            _dataAccessor.compressedBucketRead(_baselinePath, HelixProperty.class);
-        _globalBaseline = splitAssignments(baseline);
-      } catch (ZkNoNodeException ex) {
-        // Metadata does not exist, so return an empty map
-        _globalBaseline = new HashMap<>();
-      }
+      _globalBaseline = readAssignment(_baselinePath, _baselineSnapshot);
     }
     return _globalBaseline;
   }
@@ -79,14 +99,7 @@ public class AssignmentMetadataStore {
   public synchronized Map<String, ResourceAssignment> getBestPossibleAssignment() {
     // Return the in-memory baseline. If null, read from ZK. This is to minimize reads from ZK
     if (_bestPossibleAssignment == null) {
-      try {
-        HelixProperty baseline =
-            _dataAccessor.compressedBucketRead(_bestPossiblePath, HelixProperty.class);
-        _bestPossibleAssignment = splitAssignments(baseline);
-      } catch (ZkNoNodeException ex) {
-        // Metadata does not exist, so return an empty map
-        _bestPossibleAssignment = new HashMap<>();
-      }
+      _bestPossibleAssignment = readAssignment(_bestPossiblePath, _bestPossibleSnapshot);
     }
     return _bestPossibleAssignment;
   }
@@ -96,7 +109,8 @@ public class AssignmentMetadataStore {
    * @throws HelixException if the method failed to persist the baseline.
    */
   public synchronized boolean persistBaseline(Map<String, ResourceAssignment> globalBaseline) {
-    return persistAssignment(globalBaseline, getBaseline(), _baselinePath, BASELINE_KEY);
+    return persistAssignment(globalBaseline, getBaseline(), _baselinePath, BASELINE_KEY,
+        _baselineSnapshot);
   }
 
   /**
@@ -106,13 +120,54 @@ public class AssignmentMetadataStore {
   public synchronized boolean persistBestPossibleAssignment(
       Map<String, ResourceAssignment> bestPossibleAssignment) {
     return persistAssignment(bestPossibleAssignment, getBestPossibleAssignment(), _bestPossiblePath,
-        BEST_POSSIBLE_KEY);
+        BEST_POSSIBLE_KEY, _bestPossibleSnapshot);
   }
 
   public synchronized void clearAssignmentMetadata() {
-    persistAssignment(Collections.emptyMap(), getBaseline(), _baselinePath, BASELINE_KEY);
+    persistAssignment(Collections.emptyMap(), getBaseline(), _baselinePath, BASELINE_KEY,
+        _baselineSnapshot);
     persistAssignment(Collections.emptyMap(), getBestPossibleAssignment(), _bestPossiblePath,
-        BEST_POSSIBLE_KEY);
+        BEST_POSSIBLE_KEY, _bestPossibleSnapshot);
+  }
+
+  /**
+   * Read the snapshot of an assignment, and apply its delta if there is one.
+   * @param path the path of the assignment snapshot
+   * @param snapshot the in-memory copy of the snapshot to update
+   * @return the persisted assignment, or an empty map if it does not exist
+   */
+  private Map<String, ResourceAssignment> readAssignment(String path,
+      AssignmentSnapshot snapshot) {
+    HelixProperty snapshotRecord;
+    try {
+      snapshotRecord = _dataAccessor.compressedBucketRead(path, HelixProperty.class);
+    } catch (ZkNoNodeException ex) {
+      // Metadata does not exist, so return an empty map
+      snapshot.clear();
+      return new HashMap<>();
+    }
+    Map<String, ResourceAssignment> assignment = splitAssignments(snapshotRecord);
+    String snapshotId = getSnapshotId(snapshotRecord);
+    snapshot.update(snapshotId, assignment);
+    if (snapshotId != null) {
+      // The delta is read even if the delta persistence is disabled, since it may have been
+      // written by the previous leader.
+      try {
+        HelixProperty deltaRecord =
+            _dataAccessor.compressedBucketRead(path + DELTA_SUFFIX, HelixProperty.class);
+        if (snapshotId.equals(getSnapshotId(deltaRecord))) {
+          assignment.putAll(splitAssignments(deltaRecord));
+          List<String> removedResources =
+              deltaRecord.getRecord().getListField(REMOVED_RESOURCES_KEY);
+          if (removedResources != null) {
+            assignment.keySet().removeAll(removedResources);
+          }
+        }
+      } catch (ZkNoNodeException ex) {
+        // No delta has been written since the snapshot
+      }
+    }
+    return assignment;
   }
 
   /**
@@ -120,22 +175,33 @@ public class AssignmentMetadataStore {
    * @param cachedAssignment
    * @param path the path of the assignment record
    * @param key  the key of the assignment in the record
+   * @param snapshot the in-memory copy of the last persisted snapshot of the assignment
    * @return true if a new assignment was persisted.
    */
   // TODO: Enhance the return value so it is more intuitive to understand when the persist fails and
   // TODO: when it is skipped.
   private boolean persistAssignment(Map<String, ResourceAssignment> newAssignment,
       Map<String, ResourceAssignment> cachedAssignment, String path,
-      String key) {
+      String key, AssignmentSnapshot snapshot) {
     // TODO: Make the write async?
     // If the assignment hasn't changed, skip writing to metadata store
     if (compareAssignments(cachedAssignment, newAssignment)) {
       return false;
     }
     // Persist to ZK
-    HelixProperty combinedAssignments = combineAssignments(key, newAssignment);
+    HelixProperty deltaRecord =
+        _deltaPersistenceEnabled ? computeDelta(key, snapshot, newAssignment) : null;
     try {
-      _dataAccessor.compressedBucketWrite(path, combinedAssignments);
+      if (deltaRecord != null) {
+        _dataAccessor.compressedBucketWrite(path + DELTA_SUFFIX, deltaRecord);
+      } else {
+        String snapshotId = UUID.randomUUID().toString();
+        HelixProperty combinedAssignments = combineAssignments(key, newAssignment);
+        combinedAssignments.getRecord().setMapField(SNAPSHOT_METADATA_KEY,
+            Collections.singletonMap(SNAPSHOT_ID_KEY, snapshotId));
+        _dataAccessor.compressedBucketWrite(path, combinedAssignments);
+        snapshot.update(snapshotId, newAssignment);
+      }
     } catch (IOException e) {
       // TODO: Improve failure handling
       throw new HelixException(
@@ -148,7 +214,48 @@ public class AssignmentMetadataStore {
     return true;
   }
 
+  /**
+   * Compute the delta between the last persisted snapshot and the new assignment.
+   * @return the delta record, or null if a new snapshot should be written instead
+   */
+  private HelixProperty computeDelta(String key, AssignmentSnapshot snapshot,
+      Map<String, ResourceAssignment> newAssignment) {
+    if (snapshot.getId() == null) {
+      return null;
+    }
+    Map<String, ResourceAssignment> snapshotAssignment = snapshot.getAssignment();
+    Map<String, ResourceAssignment> changedAssignment = new HashMap<>();
+    for (Map.Entry<String, ResourceAssignment> entry : newAssignment.entrySet()) {
+      if (!entry.getValue().equals(snapshotAssignment.get(entry.getKey()))) {
+        changedAssignment.put(entry.getKey(), entry.getValue());
+      }
+    }
+    List<String> removedResources = new ArrayList<>();
+    for (String resource : snapshotAssignment.keySet()) {
+      if (!newAssignment.containsKey(resource)) {
+        removedResources.add(resource);
+      }
+    }
+    if (changedAssignment.size() + removedResources.size()
+        > snapshotAssignment.size() * SNAPSHOT_COMPACTION_RATIO) {
+      return null;
+    }
+    HelixProperty deltaRecord = combineAssignments(key + DELTA_SUFFIX, changedAssignment);
+    deltaRecord.getRecord().setListField(REMOVED_RESOURCES_KEY, removedResources);
+    deltaRecord.getRecord().setMapField(SNAPSHOT_METADATA_KEY,
+        Collections.singletonMap(SNAPSHOT_ID_KEY, snapshot.getId()));
+    return deltaRecord;
+  }
+
+  private static String getSnapshotId(HelixProperty property) {
+    Map<String, String> snapshotMetadata =
+        property.getRecord().getMapField(SNAPSHOT_METADATA_KEY);
+    return snapshotMetadata == null ? null : snapshotMetadata.get(SNAPSHOT_ID_KEY);
+  }
+
   protected synchronized void reset() {
+    _baselineSnapshot.clear();
+    _bestPossibleSnapshot.clear();
     if (_bestPossibleAssignment != null) {
       _bestPossibleAssignment.clear();
       _bestPossibleAssignment = null;
@@ -212,4 +319,30 @@ public class AssignmentMetadataStore {
     // the metadata store yet. In that case, we return false so that we write to metadata store.
     return oldAssignment != null && oldAssignment.equals(newAssignment);
   }
+
+  /**
+   * The id and the content of the last persisted snapshot of an assignment.
+   */
+  private static class AssignmentSnapshot {
+    private String _id;
+    private Map<String, ResourceAssignment> _assignment = Collections.emptyMap();
+
+    String getId() {
+      return _id;
+    }
+
+    Map<String, ResourceAssignment> getAssignment() {
+      return _assignment;
+    }
+
+    void update(String id, Map<String, ResourceAssignment> assignment) {
+      _id = id;
+      _assignment = new HashMap<>(assignment);
+    }
+
+    void clear() {
+      _id = null;
+      _assignment = Collections.emptyMap();
+    }
+  }
 }
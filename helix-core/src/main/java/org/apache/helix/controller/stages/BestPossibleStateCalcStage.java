@@ -20,12 +20,18 @@ package org.apache.helix.controller.stages;
  */
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import org.apache.helix.HelixException;
@@ -132,23 +138,18 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
     // Fallback to the original single resource rebalancer calculation.
     // This is required because we support mixed cluster that uses both WAGED rebalancer and the
     // older rebalancers.
-    Iterator<Resource> itr = remainingResourceMap.values().iterator();
-    while (itr.hasNext()) {
-      Resource resource = itr.next();
-      boolean result = false;
-      try {
-        result = computeSingleResourceBestPossibleState(event, cache, currentStateOutput, resource,
-            output);
-      } catch (HelixException ex) {
-        LogUtil.logError(logger, _eventId, String
-            .format("Exception when calculating best possible states for %s",
-                resource.getResourceName()), ex);
-
-      }
-      if (!result) {
-        failureResources.add(resource.getResourceName());
-        LogUtil.logWarn(logger, _eventId, String
-            .format("Failed to calculate best possible states for %s", resource.getResourceName()));
+    ExecutorService rebalanceThreadPool = cache.getRebalanceThreadPool();
+    if (rebalanceThreadPool != null && remainingResourceMap.size() > 1) {
+      computeResourcesInParallel(rebalanceThreadPool, event, cache, currentStateOutput,
+          remainingResourceMap.values(), output, failureResources);
+    } else {
+      Iterator<Resource> itr = remainingResourceMap.values().iterator();
+      while (itr.hasNext()) {
+        Resource resource = itr.next();
+        if (!computeSingleResourceBestPossibleStateSafely(event, cache, currentStateOutput,
+            resource, output)) {
+          failureResources.add(resource.getResourceName());
+        }
       }
     }
 
@@ -161,6 +162,85 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
     return output;
   }
 
+  /**
+   * Compute the resources on the rebalance thread pool. Every resource is computed into its own
+   * output, and the outputs are merged on the pipeline thread in the order of the given resources,
+   * so the result and the failure records are the same as the sequential calculation.
+   */
+  private void computeResourcesInParallel(ExecutorService rebalanceThreadPool,
+      final ClusterEvent event, final ResourceControllerDataProvider cache,
+      final CurrentStateOutput currentStateOutput, Collection<Resource> resources,
+      BestPossibleStateOutput output, List<String> failureResources) {
+    List<Future<BestPossibleStateOutput>> futures = new ArrayList<>(resources.size());
+    for (final Resource resource : resources) {
+      Callable<BestPossibleStateOutput> task = new Callable<BestPossibleStateOutput>() {
+        @Override
+        public BestPossibleStateOutput call() {
+          BestPossibleStateOutput resourceOutput = new BestPossibleStateOutput();
+          return computeSingleResourceBestPossibleStateSafely(event, cache, currentStateOutput,
+              resource, resourceOutput) ? resourceOutput : null;
+        }
+      };
+      try {
+        futures.add(rebalanceThreadPool.submit(task));
+      } catch (RejectedExecutionException e) {
+        // The pool is shutting down, compute on the pipeline thread instead.
+        BestPossibleStateOutput resourceOutput = new BestPossibleStateOutput();
+        futures.add(CompletableFuture.completedFuture(
+            computeSingleResourceBestPossibleStateSafely(event, cache, currentStateOutput,
+                resource, resourceOutput) ? resourceOutput : null));
+      }
+    }
+
+    int index = 0;
+    for (Resource resource : resources) {
+      String resourceName = resource.getResourceName();
+      BestPossibleStateOutput resourceOutput = null;
+      try {
+        resourceOutput = futures.get(index++).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new HelixException(
+            "Interrupted while calculating best possible states for " + resourceName, e);
+      } catch (ExecutionException e) {
+        LogUtil.logError(logger, _eventId, String
+            .format("Exception when calculating best possible states for %s", resourceName), e);
+      }
+      if (resourceOutput == null) {
+        failureResources.add(resourceName);
+        continue;
+      }
+      if (resourceOutput.containsResource(resourceName)) {
+        output.setPreferenceLists(resourceName, resourceOutput.getPreferenceLists(resourceName));
+      }
+      if (resourceOutput.getResourceStatesMap().containsKey(resourceName)) {
+        output.setState(resourceName, resourceOutput.getPartitionStateMap(resourceName));
+      }
+    }
+  }
+
+  /**
+   * @return true if the best possible states of the resource are calculated successfully
+   */
+  private boolean computeSingleResourceBestPossibleStateSafely(ClusterEvent event,
+      ResourceControllerDataProvider cache, CurrentStateOutput currentStateOutput,
+      Resource resource, BestPossibleStateOutput output) {
+    boolean result = false;
+    try {
+      result =
+          computeSingleResourceBestPossibleState(event, cache, currentStateOutput, resource, output);
+    } catch (HelixException ex) {
+      LogUtil.logError(logger, _eventId, String
+          .format("Exception when calculating best possible states for %s",
+              resource.getResourceName()), ex);
+    }
+    if (!result) {
+      LogUtil.logWarn(logger, _eventId, String
+          .format("Failed to calculate best possible states for %s", resource.getResourceName()));
+    }
+    return result;
+  }
+
   private void updateRebalanceStatus(final boolean hasFailure, final List<String> failedResources,
       final HelixManager helixManager, final ResourceControllerDataProvider cache,
       final ClusterStatusMonitor clusterStatusMonitor, final String errorMessage) {
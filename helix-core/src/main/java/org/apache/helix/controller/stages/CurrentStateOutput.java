@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.Sets;
+import org.apache.helix.controller.common.ResourceReplicaTable;
 import org.apache.helix.model.CurrentState;
 import org.apache.helix.model.Message;
 import org.apache.helix.model.Partition;
@@ -37,40 +38,35 @@ import org.apache.helix.model.ResourceAssignment;
  * constraints @see HELIX-541
  */
 public class CurrentStateOutput {
-  private final Map<String, Map<Partition, Map<String, String>>> _currentStateMap;
+  // resourceName -> (Partition, instanceName) -> (current state, end time, requested state, info)
+  // Every CURRENTSTATES replica is a row of the resource table, the instance names and the states
+  // are interned once for all the resources.
+  // Note that startTime / endTime in CurrentState marks that of state transition
+  // and therefore endTime is the starting timestamp of the partition being in the
+  // current state
+  // The requested state corresponds to the REQUESTED_STATE field in the CURRENTSTATES node, and the
+  // info to the INFO field. This is information returned by state transition methods on the
+  // participants. It may be used by the rebalancer.
+  private final Map<String, ResourceReplicaTable> _replicaTables;
+  private final ResourceReplicaTable.Interner _instances;
+  private final ResourceReplicaTable.Interner _states;
+
   private final Map<String, Map<Partition, Map<String, Message>>> _pendingMessageMap;
   private final Map<String, Map<Partition, Map<String, Message>>> _cancellationMessageMap;
   private final Map<String, Map<Partition, Map<String, Message>>> _pendingRelayMessageMap;
 
-  // resourceName -> (Partition -> (instanceName -> endTime))
-  // Note that startTime / endTime in CurrentState marks that of state transition
-  // and therefore endTime is the starting timestamp of the partition being in the
-  // current state
-  private final Map<String, Map<Partition, Map<String, Long>>> _currentStateEndTimeMap;
-
-  // Contains per-resource maps of partition -> (instance, requested_state). This corresponds to the
-  // REQUESTED_STATE
-  // field in the CURRENTSTATES node.
-  private final Map<String, Map<Partition, Map<String, String>>> _requestedStateMap;
-  // Contains per-resource maps of partition -> (instance, info). This corresponds to the INFO field
-  // in the
-  // CURRENTSTATES node. This is information returned by state transition methods on the
-  // participants. It may be used
-  // by the rebalancer.
-  private final Map<String, Map<Partition, Map<String, String>>> _infoMap;
   private final Map<String, String> _resourceStateModelMap;
   private final Map<String, CurrentState> _curStateMetaMap;
 
   public CurrentStateOutput() {
-    _currentStateMap = new HashMap<>();
+    _replicaTables = new HashMap<>();
+    _instances = new ResourceReplicaTable.Interner();
+    _states = new ResourceReplicaTable.Interner();
     _pendingMessageMap = new HashMap<>();
     _pendingRelayMessageMap = new HashMap<>();
     _cancellationMessageMap = new HashMap<>();
-    _currentStateEndTimeMap = new HashMap<>();
     _resourceStateModelMap = new HashMap<>();
     _curStateMetaMap = new HashMap<>();
-    _requestedStateMap = new HashMap<>();
-    _infoMap = new HashMap<>();
   }
 
   public void setResourceStateModelDef(String resourceName, String stateModelDefName) {
@@ -100,47 +96,32 @@ public class CurrentStateOutput {
     return bucketSize;
   }
 
+  private ResourceReplicaTable getOrCreateReplicaTable(String resourceName) {
+    ResourceReplicaTable replicaTable = _replicaTables.get(resourceName);
+    if (replicaTable == null) {
+      replicaTable = new ResourceReplicaTable(_instances, _states);
+      _replicaTables.put(resourceName, replicaTable);
+    }
+    return replicaTable;
+  }
+
   public void setCurrentState(String resourceName, Partition partition, String instanceName,
       String state) {
-    if (!_currentStateMap.containsKey(resourceName)) {
-      _currentStateMap.put(resourceName, new HashMap<Partition, Map<String, String>>());
-    }
-    if (!_currentStateMap.get(resourceName).containsKey(partition)) {
-      _currentStateMap.get(resourceName).put(partition, new HashMap<String, String>());
-    }
-    _currentStateMap.get(resourceName).get(partition).put(instanceName, state);
+    getOrCreateReplicaTable(resourceName).setCurrentState(partition, instanceName, state);
   }
 
   public void setEndTime(String resourceName, Partition partition, String instanceName,
       Long timestamp) {
-    if (!_currentStateEndTimeMap.containsKey(resourceName)) {
-      _currentStateEndTimeMap.put(resourceName, new HashMap<Partition, Map<String, Long>>());
-    }
-    if (!_currentStateEndTimeMap.get(resourceName).containsKey(partition)) {
-      _currentStateEndTimeMap.get(resourceName).put(partition, new HashMap<String, Long>());
-    }
-    _currentStateEndTimeMap.get(resourceName).get(partition).put(instanceName, timestamp);
+    getOrCreateReplicaTable(resourceName).setEndTime(partition, instanceName, timestamp);
   }
 
   public void setRequestedState(String resourceName, Partition partition, String instanceName,
       String state) {
-    if (!_requestedStateMap.containsKey(resourceName)) {
-      _requestedStateMap.put(resourceName, new HashMap<Partition, Map<String, String>>());
-    }
-    if (!_requestedStateMap.get(resourceName).containsKey(partition)) {
-      _requestedStateMap.get(resourceName).put(partition, new HashMap<String, String>());
-    }
-    _requestedStateMap.get(resourceName).get(partition).put(instanceName, state);
+    getOrCreateReplicaTable(resourceName).setRequestedState(partition, instanceName, state);
   }
 
   public void setInfo(String resourceName, Partition partition, String instanceName, String state) {
-    if (!_infoMap.containsKey(resourceName)) {
-      _infoMap.put(resourceName, new HashMap<Partition, Map<String, String>>());
-    }
-    if (!_infoMap.get(resourceName).containsKey(partition)) {
-      _infoMap.get(resourceName).put(partition, new HashMap<String, String>());
-    }
-    _infoMap.get(resourceName).get(partition).put(instanceName, state);
+    getOrCreateReplicaTable(resourceName).setInfo(partition, instanceName, state);
   }
 
   public void setPendingMessage(String resourceName, Partition partition, String instanceName,
@@ -184,47 +165,23 @@ public class CurrentStateOutput {
    * @return
    */
   public String getCurrentState(String resourceName, Partition partition, String instanceName) {
-    Map<Partition, Map<String, String>> map = _currentStateMap.get(resourceName);
-    if (map != null) {
-      Map<String, String> instanceStateMap = map.get(partition);
-      if (instanceStateMap != null) {
-        return instanceStateMap.get(instanceName);
-      }
-    }
-    return null;
+    ResourceReplicaTable replicaTable = _replicaTables.get(resourceName);
+    return replicaTable == null ? null : replicaTable.getCurrentState(partition, instanceName);
   }
 
   public Long getEndTime(String resourceName, Partition partition, String instanceName) {
-    Map<Partition, Map<String, Long>> partitionInfo = _currentStateEndTimeMap.get(resourceName);
-    if (partitionInfo != null) {
-      Map<String, Long> instanceInfo = partitionInfo.get(partition);
-      if (instanceInfo != null && instanceInfo.get(instanceName) != null) {
-        return instanceInfo.get(instanceName);
-      }
-    }
-    return -1L;
+    ResourceReplicaTable replicaTable = _replicaTables.get(resourceName);
+    return replicaTable == null ? -1L : replicaTable.getEndTime(partition, instanceName);
   }
 
   public String getRequestedState(String resourceName, Partition partition, String instanceName) {
-    Map<Partition, Map<String, String>> map = _requestedStateMap.get(resourceName);
-    if (map != null) {
-      Map<String, String> instanceStateMap = map.get(partition);
-      if (instanceStateMap != null) {
-        return instanceStateMap.get(instanceName);
-      }
-    }
-    return null;
+    ResourceReplicaTable replicaTable = _replicaTables.get(resourceName);
+    return replicaTable == null ? null : replicaTable.getRequestedState(partition, instanceName);
   }
 
   public String getInfo(String resourceName, Partition partition, String instanceName) {
-    Map<Partition, Map<String, String>> map = _infoMap.get(resourceName);
-    if (map != null) {
-      Map<String, String> instanceStateMap = map.get(partition);
-      if (instanceStateMap != null) {
-        return instanceStateMap.get(instanceName);
-      }
-    }
-    return null;
+    ResourceReplicaTable replicaTable = _replicaTables.get(resourceName);
+    return replicaTable == null ? null : replicaTable.getInfo(partition, instanceName);
   }
 
   /**
@@ -275,11 +232,12 @@ public class CurrentStateOutput {
   /**
    * Given resource, returns current state map (partition -> instance -> currentState)
    * @param resourceName
-   * @return
+   * @return a view of the current states
    */
   public Map<Partition, Map<String, String>> getCurrentStateMap(String resourceName) {
-    if (_currentStateMap.containsKey(resourceName)) {
-      return _currentStateMap.get(resourceName);
+    ResourceReplicaTable replicaTable = _replicaTables.get(resourceName);
+    if (replicaTable != null) {
+      return replicaTable.getCurrentStateMap();
     }
     return Collections.emptyMap();
   }
@@ -288,14 +246,12 @@ public class CurrentStateOutput {
    * given (resource, partition), returns (instance->currentState) map
    * @param resourceName
    * @param partition
-   * @return
+   * @return a view of the current states
    */
   public Map<String, String> getCurrentStateMap(String resourceName, Partition partition) {
-    if (_currentStateMap.containsKey(resourceName)) {
-      Map<Partition, Map<String, String>> map = _currentStateMap.get(resourceName);
-      if (map.containsKey(partition)) {
-        return map.get(partition);
-      }
+    ResourceReplicaTable replicaTable = _replicaTables.get(resourceName);
+    if (replicaTable != null) {
+      return replicaTable.getCurrentStateMap(partition);
     }
     return Collections.emptyMap();
   }
@@ -355,12 +311,10 @@ public class CurrentStateOutput {
    * @return set of mapped partitions, or empty set if there are none
    */
   public Set<Partition> getCurrentStateMappedPartitions(String resourceId) {
-    Map<Partition, Map<String, String>> currentStateMap = _currentStateMap.get(resourceId);
+    Map<Partition, Map<String, String>> currentStateMap = getCurrentStateMap(resourceId);
     Map<Partition, Map<String, Message>> pendingStateMap = _pendingMessageMap.get(resourceId);
     Set<Partition> partitionSet = Sets.newHashSet();
-    if (currentStateMap != null) {
-      partitionSet.addAll(currentStateMap.keySet());
-    }
+    partitionSet.addAll(currentStateMap.keySet());
     if (pendingStateMap != null) {
       partitionSet.addAll(pendingStateMap.keySet());
     }
@@ -388,7 +342,11 @@ public class CurrentStateOutput {
    */
   public Map<String, Integer> getPartitionCountWithCurrentState(String resourceStateModel,
       String state) {
-    return getPartitionCountWithState(resourceStateModel, state, (Map) _currentStateMap);
+    Map<String, Map<Partition, Map<String, String>>> currentStateMap = new HashMap<>();
+    for (String resource : _replicaTables.keySet()) {
+      currentStateMap.put(resource, getCurrentStateMap(resource));
+    }
+    return getPartitionCountWithState(resourceStateModel, state, (Map) currentStateMap);
   }
 
   /**
@@ -436,7 +394,14 @@ public class CurrentStateOutput {
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
-    sb.append("current state= ").append(_currentStateMap);
+    Map<String, Map<Partition, Map<String, String>>> currentStateMap = new HashMap<>();
+    for (String resource : _replicaTables.keySet()) {
+      Map<Partition, Map<String, String>> resourceCurrentStateMap = getCurrentStateMap(resource);
+      if (!resourceCurrentStateMap.isEmpty()) {
+        currentStateMap.put(resource, resourceCurrentStateMap);
+      }
+    }
+    sb.append("current state= ").append(currentStateMap);
     sb.append(", pending state= ").append(_pendingMessageMap);
     return sb.toString();
   }
@@ -455,7 +420,7 @@ public class CurrentStateOutput {
         ResourceAssignment newResourceAssignment = new ResourceAssignment(resourceName);
         currentStateMap.entrySet().stream().forEach(currentStateEntry -> {
           newResourceAssignment.addReplicaMap(currentStateEntry.getKey(),
-              currentStateEntry.getValue());
+              new HashMap<>(currentStateEntry.getValue()));
         });
         currentStateAssignment.put(resourceName, newResourceAssignment);
       }
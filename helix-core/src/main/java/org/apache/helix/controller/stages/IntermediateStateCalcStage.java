@@ -28,6 +28,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.helix.HelixDefinedState;
 import org.apache.helix.HelixException;
@@ -145,8 +151,7 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
         event.getAttribute(AttributeName.clusterStatusMonitor.name());
     List<String> failedResources = new ArrayList<>();
 
-    // Priority is applied in assignment computation because higher priority by looping in order of
-    // decreasing priority
+    Map<String, IdealState> idealStates = new LinkedHashMap<>();
     for (ResourcePriority resourcePriority : prioritizedResourceList) {
       String resourceName = resourcePriority.getResourceName();
 
@@ -157,7 +162,6 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
         continue;
       }
 
-      Resource resource = resourceMap.get(resourceName);
       IdealState idealState = dataCache.getIdealState(resourceName);
       if (idealState == null) {
         // If IdealState is null, use an empty one
@@ -166,15 +170,27 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
                 "IdealState for resource %s does not exist; resource may not exist anymore",
                 resourceName));
         idealState = new IdealState(resourceName);
-        idealState.setStateModelDefRef(resource.getStateModelDefRef());
+        idealState.setStateModelDefRef(resourceMap.get(resourceName).getStateModelDefRef());
       }
+      idealStates.put(resourceName, idealState);
+    }
+
+    // The partitions of the throttled resources are classified first, possibly in parallel, since
+    // the classification does not charge the throttle controller.
+    Map<String, Future<PartitionRebalanceNeeds>> rebalanceNeeds =
+        classifyPartitions(dataCache, idealStates, resourceMap, currentStateOutput,
+            bestPossibleStateOutput, throttleController);
 
+    // Priority is applied in assignment computation because higher priority by looping in order of
+    // decreasing priority
+    for (Map.Entry<String, IdealState> idealStateEntry : idealStates.entrySet()) {
+      String resourceName = idealStateEntry.getKey();
       try {
         output.setState(resourceName,
-            computeIntermediatePartitionState(dataCache, clusterStatusMonitor, idealState,
-                resourceMap.get(resourceName), currentStateOutput,
+            computeIntermediatePartitionState(dataCache, clusterStatusMonitor,
+                idealStateEntry.getValue(), resourceMap.get(resourceName), currentStateOutput,
                 bestPossibleStateOutput.getPartitionStateMap(resourceName),
-                bestPossibleStateOutput.getPreferenceLists(resourceName), throttleController));
+                getRebalanceNeeds(rebalanceNeeds.get(resourceName)), throttleController));
       } catch (HelixException ex) {
         LogUtil.logInfo(logger, _eventId,
             "Failed to calculate intermediate partition states for resource " + resourceName, ex);
@@ -275,6 +291,87 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
     }
   }
 
+  /**
+   * Classify the partitions of the throttled resources. The resources are classified on the
+   * rebalance thread pool if there is one, otherwise they are classified when the result is read.
+   * @return resource name -> the classified partitions, the resources that are not throttled are
+   *         not included
+   */
+  private Map<String, Future<PartitionRebalanceNeeds>> classifyPartitions(
+      final ResourceControllerDataProvider cache, Map<String, IdealState> idealStates,
+      Map<String, Resource> resourceMap, final CurrentStateOutput currentStateOutput,
+      BestPossibleStateOutput bestPossibleStateOutput,
+      StateTransitionThrottleController throttleController) {
+    Map<String, Future<PartitionRebalanceNeeds>> rebalanceNeeds = new HashMap<>();
+    if (!throttleController.isThrottleEnabled()) {
+      return rebalanceNeeds;
+    }
+    List<FutureTask<PartitionRebalanceNeeds>> tasks = new ArrayList<>();
+    for (Map.Entry<String, IdealState> idealStateEntry : idealStates.entrySet()) {
+      final String resourceName = idealStateEntry.getKey();
+      final IdealState idealState = idealStateEntry.getValue();
+      // Throttling is applied only on FULL-AUTO mode
+      if (!IdealState.RebalanceMode.FULL_AUTO.equals(idealState.getRebalanceMode())) {
+        continue;
+      }
+      final Resource resource = resourceMap.get(resourceName);
+      final PartitionStateMap bestPossiblePartitionStateMap =
+          bestPossibleStateOutput.getPartitionStateMap(resourceName);
+      final Map<String, List<String>> preferenceLists =
+          bestPossibleStateOutput.getPreferenceLists(resourceName);
+      FutureTask<PartitionRebalanceNeeds> task =
+          new FutureTask<>(new Callable<PartitionRebalanceNeeds>() {
+            @Override
+            public PartitionRebalanceNeeds call() {
+              return classifyPartitions(cache, idealState, resource, currentStateOutput,
+                  bestPossiblePartitionStateMap, preferenceLists);
+            }
+          });
+      tasks.add(task);
+      rebalanceNeeds.put(resourceName, task);
+    }
+
+    ExecutorService rebalanceThreadPool = cache.getRebalanceThreadPool();
+    if (rebalanceThreadPool != null && tasks.size() > 1) {
+      for (FutureTask<PartitionRebalanceNeeds> task : tasks) {
+        try {
+          rebalanceThreadPool.execute(task);
+        } catch (RejectedExecutionException e) {
+          // The pool is shutting down, the task is run on the pipeline thread instead.
+          break;
+        }
+      }
+    }
+    return rebalanceNeeds;
+  }
+
+  /**
+   * Wait for the classification of a resource, and run it on the pipeline thread if it has not
+   * been started yet.
+   * @return the classified partitions, or null if the resource is not throttled
+   */
+  private PartitionRebalanceNeeds getRebalanceNeeds(Future<PartitionRebalanceNeeds> future) {
+    if (future == null) {
+      return null;
+    }
+    // A no-op if the task has been run or is running on the rebalance thread pool
+    ((FutureTask<PartitionRebalanceNeeds>) future).run();
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HelixException("Interrupted while classifying the partitions", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new HelixException(e.getCause());
+    }
+  }
+
   /**
    * Compute intermediate partition states for a prioritized resource.
    * @param cache
@@ -283,70 +380,30 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
    * @param resource
    * @param currentStateOutput
    * @param bestPossiblePartitionStateMap
-   * @param preferenceLists
+   * @param rebalanceNeeds the classified partitions, null if the resource is not throttled
    * @param throttleController
    * @return
    */
   private PartitionStateMap computeIntermediatePartitionState(ResourceControllerDataProvider cache,
       ClusterStatusMonitor clusterStatusMonitor, IdealState idealState, Resource resource,
       CurrentStateOutput currentStateOutput, PartitionStateMap bestPossiblePartitionStateMap,
-      Map<String, List<String>> preferenceLists,
+      PartitionRebalanceNeeds rebalanceNeeds,
       StateTransitionThrottleController throttleController) {
     String resourceName = resource.getResourceName();
     LogUtil.logDebug(logger, _eventId, String.format("Processing resource: %s", resourceName));
 
-    // Throttling is applied only on FULL-AUTO mode
-    if (!throttleController.isThrottleEnabled()
-        || !IdealState.RebalanceMode.FULL_AUTO.equals(idealState.getRebalanceMode())) {
+    // Throttling is applied only on FULL-AUTO mode, the other resources are not classified
+    if (rebalanceNeeds == null) {
       return bestPossiblePartitionStateMap;
     }
 
-    String stateModelDefName = idealState.getStateModelDefRef();
-    StateModelDefinition stateModelDef = cache.getStateModelDef(stateModelDefName);
-    PartitionStateMap intermediatePartitionStateMap = new PartitionStateMap(resourceName);
-
-    Set<Partition> partitionsNeedRecovery = new HashSet<>();
-    Set<Partition> partitionsNeedLoadBalance = new HashSet<>();
-    Set<Partition> partitionsWithErrorStateReplica = new HashSet<>();
-    for (Partition partition : resource.getPartitions()) {
-      Map<String, String> currentStateMap =
-          currentStateOutput.getCurrentStateMap(resourceName, partition);
-      Map<String, String> bestPossibleMap =
-          bestPossiblePartitionStateMap.getPartitionMap(partition);
-      List<String> preferenceList = preferenceLists.get(partition.getPartitionName());
-
-      RebalanceType rebalanceType = getRebalanceType(cache, bestPossibleMap, preferenceList,
-          stateModelDef, currentStateMap, idealState, partition.getPartitionName());
-
-      // TODO: refine getRebalanceType to return more accurate rebalance types. So the following
-      // logic doesn't need to check for more details.
-      boolean isRebalanceNeeded = false;
-
-      // Check whether partition has any ERROR state replicas
-      if (currentStateMap.values().contains(HelixDefinedState.ERROR.name())) {
-        partitionsWithErrorStateReplica.add(partition);
-      }
-
-      // Number of states required by StateModelDefinition are not satisfied, need recovery
-      if (rebalanceType.equals(RebalanceType.RECOVERY_BALANCE)) {
-        // Check if recovery is needed for this partition
-        if (!currentStateMap.equals(bestPossibleMap)) {
-          partitionsNeedRecovery.add(partition);
-          isRebalanceNeeded = true;
-        }
-      } else if (rebalanceType.equals(RebalanceType.LOAD_BALANCE)) {
-        // Number of states required by StateModelDefinition are satisfied, but to achieve
-        // BestPossibleState, need load balance
-        partitionsNeedLoadBalance.add(partition);
-        isRebalanceNeeded = true;
-      }
-
-      // Currently at BestPossibleState, no further action necessary
-      if (!isRebalanceNeeded) {
-        Map<String, String> intermediateMap = new HashMap<>(bestPossibleMap);
-        intermediatePartitionStateMap.setState(partition, intermediateMap);
-      }
-    }
+    StateModelDefinition stateModelDef = cache.getStateModelDef(idealState.getStateModelDefRef());
+    PartitionStateMap intermediatePartitionStateMap =
+        rebalanceNeeds._intermediatePartitionStateMap;
+    Set<Partition> partitionsNeedRecovery = rebalanceNeeds._partitionsNeedRecovery;
+    Set<Partition> partitionsNeedLoadBalance = rebalanceNeeds._partitionsNeedLoadBalance;
+    Set<Partition> partitionsWithErrorStateReplica =
+        rebalanceNeeds._partitionsWithErrorStateReplica;
 
     if (!partitionsNeedRecovery.isEmpty()) {
       LogUtil.logInfo(logger, _eventId, String.format(
@@ -419,6 +476,64 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
     return intermediatePartitionStateMap;
   }
 
+  /**
+   * Classify the partitions of a throttled resource by the rebalance they need, and set the
+   * intermediate states of the partitions that are already in the best possible states.
+   */
+  private PartitionRebalanceNeeds classifyPartitions(ResourceControllerDataProvider cache,
+      IdealState idealState, Resource resource, CurrentStateOutput currentStateOutput,
+      PartitionStateMap bestPossiblePartitionStateMap, Map<String, List<String>> preferenceLists) {
+    String resourceName = resource.getResourceName();
+    StateModelDefinition stateModelDef = cache.getStateModelDef(idealState.getStateModelDefRef());
+    PartitionRebalanceNeeds rebalanceNeeds = new PartitionRebalanceNeeds(resourceName);
+    Set<Partition> partitionsNeedRecovery = rebalanceNeeds._partitionsNeedRecovery;
+    Set<Partition> partitionsNeedLoadBalance = rebalanceNeeds._partitionsNeedLoadBalance;
+    Set<Partition> partitionsWithErrorStateReplica =
+        rebalanceNeeds._partitionsWithErrorStateReplica;
+    PartitionStateMap intermediatePartitionStateMap =
+        rebalanceNeeds._intermediatePartitionStateMap;
+    for (Partition partition : resource.getPartitions()) {
+      Map<String, String> currentStateMap =
+          currentStateOutput.getCurrentStateMap(resourceName, partition);
+      Map<String, String> bestPossibleMap =
+          bestPossiblePartitionStateMap.getPartitionMap(partition);
+      List<String> preferenceList = preferenceLists.get(partition.getPartitionName());
+
+      RebalanceType rebalanceType = getRebalanceType(cache, bestPossibleMap, preferenceList,
+          stateModelDef, currentStateMap, idealState, partition.getPartitionName());
+
+      // TODO: refine getRebalanceType to return more accurate rebalance types. So the following
+      // logic doesn't need to check for more details.
+      boolean isRebalanceNeeded = false;
+
+      // Check whether partition has any ERROR state replicas
+      if (currentStateMap.values().contains(HelixDefinedState.ERROR.name())) {
+        partitionsWithErrorStateReplica.add(partition);
+      }
+
+      // Number of states required by StateModelDefinition are not satisfied, need recovery
+      if (rebalanceType.equals(RebalanceType.RECOVERY_BALANCE)) {
+        // Check if recovery is needed for this partition
+        if (!currentStateMap.equals(bestPossibleMap)) {
+          partitionsNeedRecovery.add(partition);
+          isRebalanceNeeded = true;
+        }
+      } else if (rebalanceType.equals(RebalanceType.LOAD_BALANCE)) {
+        // Number of states required by StateModelDefinition are satisfied, but to achieve
+        // BestPossibleState, need load balance
+        partitionsNeedLoadBalance.add(partition);
+        isRebalanceNeeded = true;
+      }
+
+      // Currently at BestPossibleState, no further action necessary
+      if (!isRebalanceNeeded) {
+        Map<String, String> intermediateMap = new HashMap<>(bestPossibleMap);
+        intermediatePartitionStateMap.setState(partition, intermediateMap);
+      }
+    }
+    return rebalanceNeeds;
+  }
+
   /**
    * Check for a partition, whether all transitions for its replicas are downward transitions. Note
    * that this function does NOT check for ERROR states.
@@ -443,13 +558,14 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
       if (bestPossibleState != null) {
         // Compare priority values and return if an upward transition is found
         // Note that lower integer value implies higher priority
-        if (!statePriorityMap.containsKey(currentState)
-            || !statePriorityMap.containsKey(bestPossibleState)) {
+        Integer currentStatePriority = statePriorityMap.get(currentState);
+        Integer bestPossibleStatePriority = statePriorityMap.get(bestPossibleState);
+        if (currentStatePriority == null || bestPossibleStatePriority == null) {
           // If the state is not found in statePriorityMap, consider it not strictly downward by
           // default because we can't determine whether it is downward
           return false;
         }
-        if (statePriorityMap.get(currentState) > statePriorityMap.get(bestPossibleState)) {
+        if (currentStatePriority > bestPossibleStatePriority) {
           return false;
         }
       }
@@ -466,6 +582,9 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
       PartitionStateMap bestPossiblePartitionStateMap,
       PartitionStateMap intermediatePartitionStateMap) {
     String resourceName = resource.getResourceName();
+    if (currentStateOutput.getPendingMessageMap(resourceName).isEmpty()) {
+      return;
+    }
 
     // check and charge pending transitions
     for (Partition partition : resource.getPartitions()) {
@@ -837,6 +956,20 @@ public class IntermediateStateCalcStage extends AbstractBaseStage {
     }
   }
 
+  /**
+   * The partitions of a resource classified by the rebalance they need.
+   */
+  private static class PartitionRebalanceNeeds {
+    private final Set<Partition> _partitionsNeedRecovery = new HashSet<>();
+    private final Set<Partition> _partitionsNeedLoadBalance = new HashSet<>();
+    private final Set<Partition> _partitionsWithErrorStateReplica = new HashSet<>();
+    private final PartitionStateMap _intermediatePartitionStateMap;
+
+    PartitionRebalanceNeeds(String resourceName) {
+      _intermediatePartitionStateMap = new PartitionStateMap(resourceName);
+    }
+  }
+
   /**
    * POJO that maps resource name to its priority represented by an integer.
    */
@@ -163,14 +163,15 @@ public abstract class MessageGenerationPhase extends AbstractBaseStage {
         boolean isCancellationEnabled = cache.getClusterConfig().isStateTransitionCancelEnabled();
         Message cancellationMessage =
             currentStateOutput.getCancellationMessage(resourceName, partition, instanceName);
+        boolean hasCurrentState = currentState != null;
+        if (!hasCurrentState) {
+          currentState = stateModelDef.getInitialState();
+        }
         String nextState = stateModelDef.getNextStateForTransition(currentState, desiredState);
 
         Message message = null;
 
-        if (currentState == null) {
-          currentState = stateModelDef.getInitialState();
-          nextState = stateModelDef.getNextStateForTransition(currentState, desiredState);
-
+        if (!hasCurrentState) {
           if (desiredState.equals(HelixDefinedState.DROPPED.name())) {
             LogUtil.logDebug(logger, _eventId,
                 String.format(
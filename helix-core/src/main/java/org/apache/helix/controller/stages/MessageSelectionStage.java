@@ -81,7 +81,6 @@ public class MessageSelectionStage extends AbstractBaseStage {
       Resource resource = resourceMap.get(resourceName);
       try {
         StateModelDefinition stateModelDef = cache.getStateModelDef(resource.getStateModelDefRef());
-        Map<String, Integer> stateTransitionPriorities = getStateTransitionPriorityMap(stateModelDef);
         IdealState idealState = cache.getIdealState(resourceName);
         Map<String, Bounds> stateConstraints =
             computeStateConstraints(stateModelDef, idealState, cache);
@@ -91,7 +90,7 @@ public class MessageSelectionStage extends AbstractBaseStage {
               currentStateOutput.getCurrentStateMap(resourceName, partition),
               currentStateOutput.getPendingMessageMap(resourceName, partition), messages,
               currentStateOutput.getPendingRelayMessageMap(resourceName, partition).values(),
-              stateConstraints, stateTransitionPriorities, stateModelDef,
+              stateConstraints, stateModelDef,
               resource.isP2PMessageEnabled());
           output.addMessages(resourceName, partition, selectedMessages);
         }
@@ -103,16 +102,12 @@ public class MessageSelectionStage extends AbstractBaseStage {
     event.addAttribute(AttributeName.MESSAGES_SELECTED.name(), output);
   }
 
-  private void increaseStateCnt(Map<String, Bounds> stateConstraints, String state,
-      Map<String, Integer> stateCnts) {
-    if (!stateConstraints.containsKey(state)) {
+  private void increaseStateCnt(Bounds[] stateBounds, int stateIndex, int[] stateCnts) {
+    if (stateIndex < 0 || stateBounds[stateIndex] == null) {
       // skip state that doesn't have constraint
       return;
     }
-    if (!stateCnts.containsKey(state)) {
-      stateCnts.put(state, 0);
-    }
-    stateCnts.put(state, stateCnts.get(state) + 1);
+    stateCnts[stateIndex]++;
   }
 
   // TODO: This method deserves its own class. The class should not understand helix but
@@ -130,37 +125,48 @@ public class MessageSelectionStage extends AbstractBaseStage {
    * @param pendingMessages
    * @param messages
    * @param stateConstraints
-   * @param stateTransitionPriorities
    * @param stateModelDef
    * @return
    */
   List<Message> selectMessages(Map<String, LiveInstance> liveInstances,
       Map<String, String> currentStates, Map<String, Message> pendingMessages,
       List<Message> messages, Collection<Message> pendingRelayMessages,
-      Map<String, Bounds> stateConstraints, final Map<String, Integer> stateTransitionPriorities,
-      StateModelDefinition stateModelDef, boolean p2pMessageEnabled) {
+      Map<String, Bounds> stateConstraints, StateModelDefinition stateModelDef,
+      boolean p2pMessageEnabled) {
     if (messages == null || messages.isEmpty()) {
       return Collections.emptyList();
     }
     List<Message> selectedMessages = new ArrayList<>();
-    Map<String, Integer> stateCnts = new HashMap<>();
 
-    String initialState = stateModelDef.getInitialState();
+    // Resolve the states to the indexes of the state model once, so the counts and the bounds
+    // below are looked up in arrays
+    Bounds[] stateBounds = new Bounds[stateModelDef.getStateCount()];
+    for (Map.Entry<String, Bounds> entry : stateConstraints.entrySet()) {
+      int stateIndex = stateModelDef.getStateIndex(entry.getKey());
+      if (stateIndex >= 0) {
+        stateBounds[stateIndex] = entry.getValue();
+      }
+    }
+    int[] stateCnts = new int[stateBounds.length];
+    int topState = stateModelDef.getStateIndex(stateModelDef.getTopState());
+
+    int initialState = stateModelDef.getStateIndex(stateModelDef.getInitialState());
     // count currentState, if no currentState, count as in initialState
     for (String instance : liveInstances.keySet()) {
-      String state = initialState;
+      int state = initialState;
       if (currentStates.containsKey(instance)) {
-        state = currentStates.get(instance);
+        state = stateModelDef.getStateIndex(currentStates.get(instance));
       }
 
-      increaseStateCnt(stateConstraints, state, stateCnts);
+      increaseStateCnt(stateBounds, state, stateCnts);
     }
 
     // count pendingStates
     for (String instance : pendingMessages.keySet()) {
       Message message = pendingMessages.get(instance);
-      increaseStateCnt(stateConstraints, message.getToState(), stateCnts);
-      increaseStateCnt(stateConstraints, message.getFromState(), stateCnts);
+      increaseStateCnt(stateBounds, stateModelDef.getStateIndex(message.getToState()), stateCnts);
+      increaseStateCnt(stateBounds, stateModelDef.getStateIndex(message.getFromState()),
+          stateCnts);
     }
 
     // group messages based on state transition priority
@@ -174,21 +180,16 @@ public class MessageSelectionStage extends AbstractBaseStage {
         selectedMessages.add(message);
         continue;
       }
-      String fromState = message.getFromState();
-      String toState = message.getToState();
-      String transition = fromState + "-" + toState;
-      int priority = Integer.MAX_VALUE;
-
-      if (stateTransitionPriorities.containsKey(transition)) {
-        priority = stateTransitionPriorities.get(transition);
-      }
+      int fromState = stateModelDef.getStateIndex(message.getFromState());
+      int toState = stateModelDef.getStateIndex(message.getToState());
+      int priority = stateModelDef.getTransitionPriority(fromState, toState);
 
       if (!messagesGroupByStateTransitPriority.containsKey(priority)) {
         messagesGroupByStateTransitPriority.put(priority, new ArrayList<>());
       }
       messagesGroupByStateTransitPriority.get(priority).add(message);
 
-      if (fromState.equals(stateModelDef.getTopState())) {
+      if (fromState >= 0 && fromState == topState) {
         fromTopStateMessages.add(message);
       }
     }
@@ -199,8 +200,10 @@ public class MessageSelectionStage extends AbstractBaseStage {
       for (Message message : messageList) {
         String toState = message.getToState();
         String fromState = message.getFromState();
+        int toStateIndex = stateModelDef.getStateIndex(toState);
+        boolean isToTopState = toStateIndex >= 0 && toStateIndex == topState;
 
-        if (toState.equals(stateModelDef.getTopState())) {
+        if (isToTopState) {
           // find if there are any pending relay messages match this message.
           // if the pending relay message targets the same host, we are fine to continue send the message,
           // if it targets to different host, we should not send the message now (should send after the relay message gets expired).
@@ -220,11 +223,11 @@ public class MessageSelectionStage extends AbstractBaseStage {
           }
         }
 
-        if (stateConstraints.containsKey(toState)) {
-          int newCnt = (stateCnts.containsKey(toState) ? stateCnts.get(toState) + 1 : 1);
-          if (newCnt > stateConstraints.get(toState).getUpperBound()) {
-            if (p2pMessageEnabled && toState.equals(stateModelDef.getTopState())
-                && stateModelDef.isSingleTopStateModel()) {
+        Bounds bounds = toStateIndex < 0 ? null : stateBounds[toStateIndex];
+        if (bounds != null) {
+          int newCnt = stateCnts[toStateIndex] + 1;
+          if (newCnt > bounds.getUpperBound()) {
+            if (p2pMessageEnabled && isToTopState && stateModelDef.isSingleTopStateModel()) {
               // attach this message as a relay message to the message to transition off current top-state replica
               if (fromTopStateMessages.size() > 0) {
                 Message fromTopStateMsg = fromTopStateMessages.get(0);
@@ -234,14 +237,14 @@ public class MessageSelectionStage extends AbstractBaseStage {
             } else {
               // reach upper-bound of message for the topState, will not send the message
               LogUtil.logInfo(LOG, _eventId,
-                  "Reach upper_bound: " + stateConstraints.get(toState).getUpperBound()
+                  "Reach upper_bound: " + bounds.getUpperBound()
                       + ", not send message: " + message);
             }
             continue;
           }
         }
 
-        increaseStateCnt(stateConstraints, message.getToState(), stateCnts);
+        increaseStateCnt(stateBounds, toStateIndex, stateCnts);
         selectedMessages.add(message);
       }
     }
@@ -286,16 +289,4 @@ public class MessageSelectionStage extends AbstractBaseStage {
 
     return stateConstraints;
   }
-
-  // TODO: if state transition priority is not provided then use lexicographical sorting
-  // so that behavior is consistent
-  private Map<String, Integer> getStateTransitionPriorityMap(StateModelDefinition stateModelDef) {
-    Map<String, Integer> stateTransitionPriorities = new HashMap<String, Integer>();
-    List<String> stateTransitionPriorityList = stateModelDef.getStateTransitionPriorityList();
-    for (int i = 0; i < stateTransitionPriorityList.size(); i++) {
-      stateTransitionPriorities.put(stateTransitionPriorityList.get(i), i);
-    }
-
-    return stateTransitionPriorities;
-  }
 }
@@ -23,16 +23,22 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import org.apache.helix.HelixManager;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.controller.dataproviders.WorkflowControllerDataProvider;
 import org.apache.helix.controller.pipeline.AbstractAsyncBaseStage;
 import org.apache.helix.controller.pipeline.AsyncWorkerType;
 import org.apache.helix.controller.rebalancer.util.RebalanceScheduler;
+import org.apache.helix.monitoring.mbeans.ClusterStatusMonitor;
+import org.apache.helix.task.JobConfig;
+import org.apache.helix.task.JobContext;
 import org.apache.helix.task.TaskUtil;
 import org.apache.helix.task.WorkflowConfig;
 import org.apache.helix.task.WorkflowContext;
+import org.apache.helix.util.HelixUtil;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +47,27 @@ import org.slf4j.LoggerFactory;
 public class TaskGarbageCollectionStage extends AbstractAsyncBaseStage {
   private static Logger LOG = LoggerFactory.getLogger(TaskGarbageCollectionStage.class);
   private static RebalanceScheduler _rebalanceScheduler = new RebalanceScheduler();
+  // The scheduler is shared by the controllers of all the clusters, so the key is per cluster
+  private static final String PURGE_BACKLOG_SCHEDULE_KEY_PREFIX = "TaskPurgeBacklog-";
+  private static final int DEFAULT_PURGE_BATCH_SIZE =
+      HelixUtil.getSystemPropertyAsInt(SystemPropertyKeys.TASK_PURGE_BATCH_SIZE, 1000);
+  private static final long PURGE_BACKLOG_DELAY =
+      HelixUtil.getSystemPropertyAsLong(SystemPropertyKeys.TASK_PURGE_BACKLOG_DELAY, 1000L);
+
+  private final int _purgeBatchSize;
+  // Workflows whose expired jobs were not all purged in the last run
+  private final Set<String> _workflowsWithPurgeBacklog = new HashSet<>();
+
+  public TaskGarbageCollectionStage() {
+    this(DEFAULT_PURGE_BATCH_SIZE);
+  }
+
+  /**
+   * @param purgeBatchSize max number of jobs and workflows purged in one run
+   */
+  TaskGarbageCollectionStage(int purgeBatchSize) {
+    _purgeBatchSize = purgeBatchSize;
+  }
 
   @Override
   public AsyncWorkerType getAsyncWorkerType() {
@@ -60,10 +87,12 @@ public class TaskGarbageCollectionStage extends AbstractAsyncBaseStage {
       return;
     }
 
-    Map<String, Set<String>> expiredJobsMap = new HashMap<>();
-    Set<String> workflowsToBePurged = new HashSet<>();
     WorkflowControllerDataProvider dataProvider =
         event.getAttribute(AttributeName.ControllerDataProvider.name());
+    long currentTime = System.currentTimeMillis();
+    // Expired jobs and workflows ordered by their expiry time, so the oldest ones are purged first
+    PriorityQueue<PurgeCandidate> expiryIndex = new PriorityQueue<>();
+    Map<String, Set<String>> expiredJobsMap = new HashMap<>();
     for (Map.Entry<String, ZNRecord> entry : dataProvider.getContexts().entrySet()) {
       WorkflowConfig workflowConfig = dataProvider.getWorkflowConfig(entry.getKey());
       if (workflowConfig != null && (!workflowConfig.isTerminable() || workflowConfig
@@ -73,15 +102,26 @@ public class TaskGarbageCollectionStage extends AbstractAsyncBaseStage {
           continue;
         }
         long purgeInterval = workflowConfig.getJobPurgeInterval();
-        long currentTime = System.currentTimeMillis();
         long nextPurgeTime = workflowContext.getLastJobPurgeTime() + purgeInterval;
-        if (purgeInterval > 0 && nextPurgeTime <= currentTime) {
+        // A workflow with a purge backlog is purged again regardless of its purge interval
+        if (purgeInterval > 0 && (nextPurgeTime <= currentTime || _workflowsWithPurgeBacklog
+            .contains(workflowConfig.getWorkflowId()))) {
           nextPurgeTime = currentTime + purgeInterval;
           // Find jobs that are ready to be purged
           Set<String> expiredJobs =
               TaskUtil.getExpiredJobsFromCache(dataProvider, workflowConfig, workflowContext);
-          if (!expiredJobs.isEmpty()) {
-            expiredJobsMap.put(workflowConfig.getWorkflowId(), expiredJobs);
+          for (String job : expiredJobs) {
+            JobConfig jobConfig = dataProvider.getJobConfig(job);
+            JobContext jobContext = dataProvider.getJobContext(job);
+            if (jobConfig == null || jobContext == null) {
+              // Jobs left in the DAG without config or context have no expiry time, so they are
+              // purged right away and kept out of the purge lag
+              expiredJobsMap.computeIfAbsent(workflowConfig.getWorkflowId(), k -> new HashSet<>())
+                  .add(job);
+            } else {
+              expiryIndex.add(new PurgeCandidate(workflowConfig.getWorkflowId(), job,
+                  jobContext.getFinishTime() + jobConfig.getExpiry()));
+            }
           }
         }
         scheduleNextJobPurge(workflowConfig.getWorkflowId(), nextPurgeTime, _rebalanceScheduler,
@@ -89,9 +129,49 @@ public class TaskGarbageCollectionStage extends AbstractAsyncBaseStage {
       } else if (workflowConfig == null && entry.getValue() != null && entry.getValue().getId()
           .equals(TaskUtil.WORKFLOW_CONTEXT_KW)) {
         // Find workflows that need to be purged
-        workflowsToBePurged.add(entry.getKey());
+        WorkflowContext workflowContext = dataProvider.getWorkflowContext(entry.getKey());
+        long finishTime = workflowContext == null ? WorkflowContext.UNFINISHED
+            : workflowContext.getFinishTime();
+        expiryIndex.add(new PurgeCandidate(entry.getKey(), null,
+            finishTime == WorkflowContext.UNFINISHED ? currentTime : finishTime));
+      }
+    }
+
+    // Only purge a bounded batch in this run, the rest is deferred to the following runs.
+    Set<String> workflowsToBePurged = new HashSet<>();
+    for (int i = 0; i < _purgeBatchSize && !expiryIndex.isEmpty(); i++) {
+      PurgeCandidate candidate = expiryIndex.poll();
+      if (candidate._job == null) {
+        workflowsToBePurged.add(candidate._workflow);
+      } else {
+        expiredJobsMap.computeIfAbsent(candidate._workflow, k -> new HashSet<>())
+            .add(candidate._job);
       }
     }
+
+    _workflowsWithPurgeBacklog.clear();
+    long purgeLag = 0L;
+    if (!expiryIndex.isEmpty()) {
+      purgeLag = Math.max(0L, currentTime - expiryIndex.peek()._expiryTime);
+      for (PurgeCandidate candidate : expiryIndex) {
+        if (candidate._job != null) {
+          _workflowsWithPurgeBacklog.add(candidate._workflow);
+        }
+      }
+      LOG.info(
+          "Task purge backlog in cluster {}: {} jobs/workflows are deferred, purge lag is {} ms.",
+          event.getClusterName(), expiryIndex.size(), purgeLag);
+      // Make sure the backlog is picked up by a following pipeline run
+      _rebalanceScheduler.scheduleRebalance(manager,
+          PURGE_BACKLOG_SCHEDULE_KEY_PREFIX + event.getClusterName(),
+          currentTime + PURGE_BACKLOG_DELAY);
+    }
+    ClusterStatusMonitor clusterStatusMonitor =
+        event.getAttribute(AttributeName.clusterStatusMonitor.name());
+    if (clusterStatusMonitor != null) {
+      clusterStatusMonitor.updateTaskPurgeStatus(expiryIndex.size(), purgeLag);
+    }
+
     event.addAttribute(AttributeName.TO_BE_PURGED_JOBS_MAP.name(),
         Collections.unmodifiableMap(expiredJobsMap));
     event.addAttribute(AttributeName.TO_BE_PURGED_WORKFLOWS.name(),
@@ -133,4 +213,22 @@ public class TaskGarbageCollectionStage extends AbstractAsyncBaseStage {
       rebalanceScheduler.scheduleRebalance(manager, workflow, nextPurgeTime);
     }
   }
+
+  private static class PurgeCandidate implements Comparable<PurgeCandidate> {
+    private final String _workflow;
+    // null if the whole workflow is to be purged
+    private final String _job;
+    private final long _expiryTime;
+
+    PurgeCandidate(String workflow, String job, long expiryTime) {
+      _workflow = workflow;
+      _job = job;
+      _expiryTime = expiryTime;
+    }
+
+    @Override
+    public int compareTo(PurgeCandidate o) {
+      return Long.compare(_expiryTime, o._expiryTime);
+    }
+  }
 }
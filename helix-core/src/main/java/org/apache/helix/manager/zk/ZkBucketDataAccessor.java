@@ -19,16 +19,21 @@ package org.apache.helix.manager.zk;
  * under the License.
  */
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import com.google.common.collect.ImmutableMap;
 import org.apache.helix.AccessOption;
@@ -42,7 +47,6 @@ import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.impl.client.FederatedZkClient;
 import org.apache.helix.zookeeper.impl.factory.DedicatedZkClientFactory;
-import org.apache.helix.zookeeper.util.GZipCompressionUtil;
 import org.apache.helix.zookeeper.zkclient.DataUpdater;
 import org.apache.helix.zookeeper.zkclient.exception.ZkMarshallingError;
 import org.apache.helix.zookeeper.zkclient.exception.ZkNoNodeException;
@@ -61,6 +65,8 @@ public class ZkBucketDataAccessor implements BucketDataAccessor, AutoCloseable {
   private static final String METADATA_KEY = "METADATA";
   private static final String LAST_SUCCESSFUL_WRITE_KEY = "LAST_SUCCESSFUL_WRITE";
   private static final String LAST_WRITE_KEY = "LAST_WRITE";
+  // Max number of buckets held in memory and written or read in parallel
+  private static final int MAX_BUCKETS_PER_BATCH = 32;
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
   // Thread pool for deleting stale versions
   // Note that newScheduledThreadPool(1) may not work. newSingleThreadScheduledExecutor guarantees
@@ -70,10 +76,10 @@ public class ZkBucketDataAccessor implements BucketDataAccessor, AutoCloseable {
 
   private final int _bucketSize;
   private final long _versionTTLms;
-  private ZkSerializer _zkSerializer;
   private RealmAwareZkClient _zkClient;
   private ZkBaseDataAccessor<byte[]> _zkBaseDataAccessor;
-  private ScheduledFuture _gcTaskFuture = null;
+  // The pending gc task of each root path, so a write to one path does not cancel the gc of another
+  private final Map<String, ScheduledFuture> _gcTaskFutures = new HashMap<>();
 
   /**
    * Constructor that allows a custom bucket size.
@@ -113,7 +119,6 @@ public class ZkBucketDataAccessor implements BucketDataAccessor, AutoCloseable {
       }
     });
     _zkBaseDataAccessor = new ZkBaseDataAccessor<>(_zkClient);
-    _zkSerializer = new ZNRecordJacksonSerializer();
     _bucketSize = bucketSize;
     _versionTTLms = versionTTLms;
   }
@@ -158,49 +163,25 @@ public class ZkBucketDataAccessor implements BucketDataAccessor, AutoCloseable {
     // 2. Write to the incremented last write version
     String versionedDataPath = rootPath + "/" + versionStr;
 
-    // Take the ZNRecord and serialize it (get byte[])
-    byte[] serializedRecord = _zkSerializer.serialize(value.getRecord());
-    // Compress the byte[]
-    byte[] compressedRecord = GZipCompressionUtil.compress(serializedRecord);
-    // Compute N - number of buckets
-    int numBuckets = (compressedRecord.length + _bucketSize - 1) / _bucketSize;
-
-    List<String> paths = new ArrayList<>();
-    List<byte[]> buckets = new ArrayList<>();
-
-    int ptr = 0;
-    int counter = 0;
-    while (counter < numBuckets) {
-      paths.add(versionedDataPath + "/" + counter);
-      if (counter == numBuckets - 1) {
-        // Special treatment for the last bucket
-        buckets.add(
-            Arrays.copyOfRange(compressedRecord, ptr, ptr + compressedRecord.length % _bucketSize));
-      } else {
-        buckets.add(Arrays.copyOfRange(compressedRecord, ptr, ptr + _bucketSize));
-      }
-      ptr += _bucketSize;
-      counter++;
+    // Serialize and compress the ZNRecord as a stream, so only a batch of buckets is held in
+    // memory. Each batch of buckets is written in parallel.
+    BucketOutputStream bucketOutputStream = new BucketOutputStream(versionedDataPath);
+    try (OutputStream compressedOutputStream = new GZIPOutputStream(bucketOutputStream)) {
+      OBJECT_MAPPER.writeValue(compressedOutputStream, value.getRecord());
     }
 
-    // 3. Include the metadata in the batch write
+    // 3. Write the metadata once all the data buckets have been written
     Map<String, String> metadata = ImmutableMap.of(BUCKET_SIZE_KEY, Integer.toString(_bucketSize),
-        DATA_SIZE_KEY, Integer.toString(compressedRecord.length));
+        DATA_SIZE_KEY, Integer.toString(bucketOutputStream.getDataSize()));
     byte[] binaryMetadata = OBJECT_MAPPER.writeValueAsBytes(metadata);
-    paths.add(versionedDataPath + "/" + METADATA_KEY);
-    buckets.add(binaryMetadata);
-
-    // Do an async set to ZK
-    boolean[] success = _zkBaseDataAccessor.setChildren(paths, buckets, AccessOption.PERSISTENT);
-    // Exception and fail the write if any failed
-    for (boolean s : success) {
-      if (!s) {
-        throw new HelixException(
-            String.format("Failed to write the data buckets for path: %s", rootPath));
-      }
+    if (!_zkBaseDataAccessor.set(versionedDataPath + "/" + METADATA_KEY, binaryMetadata,
+        AccessOption.PERSISTENT)) {
+      throw new HelixException(
+          String.format("Failed to write the metadata for path: %s", rootPath));
     }
 
-    // 4. Update lastSuccessfulWriteVersion using Updater
+    // 4. Update lastSuccessfulWriteVersion using Updater. This is the single update that makes the
+    // new version visible to the readers.
     DataUpdater<byte[]> lastSuccessfulWriteVersionUpdater = dataInZk -> {
       if (dataInZk == null || dataInZk.length == 0) {
         // No last write version exists, so write version from this write
@@ -286,43 +267,19 @@ public class ZkBucketDataAccessor implements BucketDataAccessor, AutoCloseable {
     int bucketSize = Integer.parseInt((String) bucketSizeObj);
     int dataSize = Integer.parseInt((String) dataSizeObj);
 
-    // Compute N - number of buckets
-    int numBuckets = (dataSize + _bucketSize - 1) / _bucketSize;
-    byte[] compressedRecord = new byte[dataSize];
+    // Compute N - number of buckets. The bucket size of the writer is used since it may differ
+    // from the bucket size of this accessor.
+    int numBuckets = (dataSize + bucketSize - 1) / bucketSize;
     String dataPath = path + "/" + versionToRead;
 
-    List<String> paths = new ArrayList<>();
-    for (int i = 0; i < numBuckets; i++) {
-      paths.add(dataPath + "/" + i);
-    }
-
-    // Async get
-    List<byte[]> buckets = _zkBaseDataAccessor.get(paths, null, AccessOption.PERSISTENT, true);
-
-    // Combine buckets into one byte array
-    int copyPtr = 0;
-    for (int i = 0; i < numBuckets; i++) {
-      if (i == numBuckets - 1) {
-        // Special treatment for the last bucket
-        System.arraycopy(buckets.get(i), 0, compressedRecord, copyPtr, dataSize % bucketSize);
-      } else {
-        System.arraycopy(buckets.get(i), 0, compressedRecord, copyPtr, bucketSize);
-        copyPtr += bucketSize;
-      }
-    }
-
-    // Decompress the byte array
-    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(compressedRecord);
-    byte[] serializedRecord;
-    try {
-      serializedRecord = GZipCompressionUtil.uncompress(byteArrayInputStream);
+    // Decompress and deserialize the buckets as a stream, reading them in parallel batches
+    try (InputStream compressedInputStream = new GZIPInputStream(
+        new BucketInputStream(dataPath, numBuckets))) {
+      ZNRecord originalRecord = OBJECT_MAPPER.readValue(compressedInputStream, ZNRecord.class);
+      return new HelixProperty(originalRecord);
     } catch (IOException e) {
       throw new HelixException(String.format("Failed to decompress path: %s!", path), e);
     }
-
-    // Deserialize the record to retrieve the original
-    ZNRecord originalRecord = (ZNRecord) _zkSerializer.deserialize(serializedRecord);
-    return new HelixProperty(originalRecord);
   }
 
   @Override
@@ -337,17 +294,18 @@ public class ZkBucketDataAccessor implements BucketDataAccessor, AutoCloseable {
   }
 
   private synchronized void updateGCTimer(String rootPath, long currentVersion) {
-    if (_gcTaskFuture != null) {
-      _gcTaskFuture.cancel(false);
+    ScheduledFuture gcTaskFuture = _gcTaskFutures.get(rootPath);
+    if (gcTaskFuture != null) {
+      gcTaskFuture.cancel(false);
     }
     // Schedule the gc task with TTL
-    _gcTaskFuture = GC_THREAD.schedule(() -> {
+    _gcTaskFutures.put(rootPath, GC_THREAD.schedule(() -> {
       try {
         deleteStaleVersions(rootPath, currentVersion);
       } catch (Exception ex) {
         LOG.error("Failed to delete the stale versions.", ex);
       }
-    }, _versionTTLms, TimeUnit.MILLISECONDS);
+    }, _versionTTLms, TimeUnit.MILLISECONDS));
   }
 
   /**
@@ -411,4 +369,157 @@ public class ZkBucketDataAccessor implements BucketDataAccessor, AutoCloseable {
     staleVersions.forEach(ver -> pathsToDelete.add(path + "/" + ver));
     return pathsToDelete;
   }
+
+  /**
+   * Splits the written data into buckets, and writes them to ZK in parallel batches.
+   */
+  private class BucketOutputStream extends OutputStream {
+    private final String _dataPath;
+    private final List<String> _paths = new ArrayList<>();
+    private final List<byte[]> _buckets = new ArrayList<>();
+    private byte[] _bucket;
+    private int _bucketPosition = 0;
+    private int _bucketCount = 0;
+    private int _dataSize = 0;
+    private boolean _closed = false;
+
+    BucketOutputStream(String dataPath) {
+      _dataPath = dataPath;
+    }
+
+    int getDataSize() {
+      return _dataSize;
+    }
+
+    @Override
+    public void write(int b) {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      while (len > 0) {
+        if (_bucket == null) {
+          _bucket = new byte[_bucketSize];
+          _bucketPosition = 0;
+        }
+        int length = Math.min(len, _bucketSize - _bucketPosition);
+        System.arraycopy(b, off, _bucket, _bucketPosition, length);
+        _bucketPosition += length;
+        off += length;
+        len -= length;
+        if (_bucketPosition == _bucketSize) {
+          addBucket(_bucket);
+          _bucket = null;
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      if (_closed) {
+        return;
+      }
+      _closed = true;
+      if (_bucket != null && _bucketPosition > 0) {
+        addBucket(Arrays.copyOf(_bucket, _bucketPosition));
+        _bucket = null;
+      }
+      writeBuckets();
+    }
+
+    private void addBucket(byte[] bucket) {
+      _paths.add(_dataPath + "/" + _bucketCount++);
+      _buckets.add(bucket);
+      _dataSize += bucket.length;
+      if (_buckets.size() >= MAX_BUCKETS_PER_BATCH) {
+        writeBuckets();
+      }
+    }
+
+    private void writeBuckets() {
+      if (_buckets.isEmpty()) {
+        return;
+      }
+      // Do an async set to ZK
+      boolean[] success = _zkBaseDataAccessor.setChildren(_paths, _buckets,
+          AccessOption.PERSISTENT);
+      // Exception and fail the write if any failed
+      for (boolean s : success) {
+        if (!s) {
+          throw new HelixException(
+              String.format("Failed to write the data buckets for path: %s", _dataPath));
+        }
+      }
+      _paths.clear();
+      _buckets.clear();
+    }
+  }
+
+  /**
+   * Reads the buckets from ZK in parallel batches, and returns their content in order.
+   */
+  private class BucketInputStream extends InputStream {
+    private final String _dataPath;
+    private final int _numBuckets;
+    private List<byte[]> _buckets = Collections.emptyList();
+    private int _nextBucketToRead = 0;
+    private int _bucketIndex = 0;
+    private int _bucketPosition = 0;
+
+    BucketInputStream(String dataPath, int numBuckets) {
+      _dataPath = dataPath;
+      _numBuckets = numBuckets;
+    }
+
+    @Override
+    public int read() {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      while (_bucketIndex >= _buckets.size()
+          || _bucketPosition >= _buckets.get(_bucketIndex).length) {
+        if (_bucketIndex < _buckets.size()) {
+          _bucketIndex++;
+          _bucketPosition = 0;
+        } else if (!readBuckets()) {
+          return -1;
+        }
+      }
+      byte[] bucket = _buckets.get(_bucketIndex);
+      int length = Math.min(len, bucket.length - _bucketPosition);
+      System.arraycopy(bucket, _bucketPosition, b, off, length);
+      _bucketPosition += length;
+      return length;
+    }
+
+    private boolean readBuckets() {
+      if (_nextBucketToRead >= _numBuckets) {
+        return false;
+      }
+      int end = Math.min(_nextBucketToRead + MAX_BUCKETS_PER_BATCH, _numBuckets);
+      List<String> paths = new ArrayList<>();
+      for (int i = _nextBucketToRead; i < end; i++) {
+        paths.add(_dataPath + "/" + i);
+      }
+      // Async get
+      _buckets = _zkBaseDataAccessor.get(paths, null, AccessOption.PERSISTENT, true);
+      for (int i = 0; i < _buckets.size(); i++) {
+        if (_buckets.get(i) == null) {
+          throw new HelixException(
+              String.format("Failed to read the data bucket: %s", paths.get(i)));
+        }
+      }
+      _nextBucketToRead = end;
+      _bucketIndex = 0;
+      _bucketPosition = 0;
+      return true;
+    }
+  }
 }
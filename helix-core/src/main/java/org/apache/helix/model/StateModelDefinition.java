@@ -20,6 +20,7 @@ package org.apache.helix.model;
  */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -81,6 +82,20 @@ public class StateModelDefinition extends HelixProperty {
    */
   private final Map<String, Map<String, String>> _stateTransitionTable;
 
+  /**
+   * The state model compiled into integer-indexed tables, so the controller stages can resolve the
+   * next states and the transition priorities without building or looking up string keys.
+   * Every state of the model, including the helix-defined states, has an index.
+   */
+  private final Map<String, Integer> _stateIndexMap = new HashMap<>();
+  private String[] _states;
+  // from-state index -> to-state index -> next-state index, -1 if there is no transition
+  private int[][] _nextStateTable;
+  // from-state index -> to-state index -> position in the transition priority list
+  private int[][] _transitionPriorityTable;
+  private boolean _singleTopStateModel;
+  private Set<String> _secondTopStates;
+
   /**
    * Instantiate from a pre-populated record
    * @param record ZNRecord representing a state model definition
@@ -135,6 +150,91 @@ public class StateModelDefinition extends HelixProperty {
     addDefaultTransition(HelixDefinedState.ERROR.toString(), _initialState, _initialState);
     addDefaultTransition(_initialState, HelixDefinedState.DROPPED.toString(),
         HelixDefinedState.DROPPED.toString());
+
+    compileTransitionTables();
+  }
+
+  private void compileTransitionTables() {
+    if (_statesPriorityList != null) {
+      for (String state : _statesPriorityList) {
+        addStateIndex(state);
+      }
+    }
+    for (HelixDefinedState state : HelixDefinedState.values()) {
+      addStateIndex(state.name());
+    }
+    addStateIndex(_initialState);
+    for (Map.Entry<String, Map<String, String>> entry : _stateTransitionTable.entrySet()) {
+      addStateIndex(entry.getKey());
+      if (entry.getValue() != null) {
+        for (Map.Entry<String, String> transition : entry.getValue().entrySet()) {
+          addStateIndex(transition.getKey());
+          addStateIndex(transition.getValue());
+        }
+      }
+    }
+
+    int stateCount = _stateIndexMap.size();
+    _states = new String[stateCount];
+    for (Map.Entry<String, Integer> entry : _stateIndexMap.entrySet()) {
+      _states[entry.getValue()] = entry.getKey();
+    }
+
+    _nextStateTable = new int[stateCount][stateCount];
+    _transitionPriorityTable = new int[stateCount][stateCount];
+    for (int i = 0; i < stateCount; i++) {
+      Arrays.fill(_nextStateTable[i], -1);
+      Arrays.fill(_transitionPriorityTable[i], Integer.MAX_VALUE);
+    }
+    for (Map.Entry<String, Map<String, String>> entry : _stateTransitionTable.entrySet()) {
+      if (entry.getKey() == null || entry.getValue() == null) {
+        continue;
+      }
+      int from = _stateIndexMap.get(entry.getKey());
+      for (Map.Entry<String, String> transition : entry.getValue().entrySet()) {
+        if (transition.getKey() != null && transition.getValue() != null) {
+          _nextStateTable[from][_stateIndexMap.get(transition.getKey())] =
+              _stateIndexMap.get(transition.getValue());
+        }
+      }
+    }
+    if (_stateTransitionPriorityList != null) {
+      Map<String, Integer> transitionPriorities = new HashMap<>();
+      for (int i = 0; i < _stateTransitionPriorityList.size(); i++) {
+        transitionPriorities.put(_stateTransitionPriorityList.get(i), i);
+      }
+      for (int from = 0; from < stateCount; from++) {
+        for (int to = 0; to < stateCount; to++) {
+          Integer priority = transitionPriorities.get(_states[from] + "-" + _states[to]);
+          if (priority != null) {
+            _transitionPriorityTable[from][to] = priority;
+          }
+        }
+      }
+    }
+
+    Set<String> secondTopStates = new HashSet<>();
+    if (_statesPriorityList != null && !_statesPriorityList.isEmpty()) {
+      int topState = _stateIndexMap.get(_statesPriorityList.get(0));
+      for (String state : _stateTransitionTable.keySet()) {
+        if (state != null && _nextStateTable[_stateIndexMap.get(state)][topState] == topState) {
+          secondTopStates.add(state);
+        }
+      }
+      try {
+        _singleTopStateModel =
+            Integer.parseInt(_statesCountMap.get(_statesPriorityList.get(0))) == 1;
+      } catch (NumberFormatException ex) {
+        _singleTopStateModel = false;
+      }
+    }
+    _secondTopStates = Collections.unmodifiableSet(secondTopStates);
+  }
+
+  private void addStateIndex(String state) {
+    if (state != null && !_stateIndexMap.containsKey(state)) {
+      _stateIndexMap.put(state, _stateIndexMap.size());
+    }
   }
 
   /**
@@ -181,11 +281,59 @@ public class StateModelDefinition extends HelixProperty {
    * @return the intermediate state
    */
   public String getNextStateForTransition(String fromState, String toState) {
-    Map<String, String> map = _stateTransitionTable.get(fromState);
-    if (map != null) {
-      return map.get(toState);
+    int next = getNextStateIndex(getStateIndex(fromState), getStateIndex(toState));
+    return next < 0 ? null : _states[next];
+  }
+
+  /**
+   * Get the index of a state in the compiled transition tables
+   * @param state the state name
+   * @return the index of the state, or -1 if the state is not in this state model
+   */
+  public int getStateIndex(String state) {
+    Integer index = _stateIndexMap.get(state);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Get the number of states in the compiled transition tables, so the callers can size arrays
+   * indexed by {@link #getStateIndex(String)}
+   * @return the number of states, including the helix-defined states
+   */
+  public int getStateCount() {
+    return _states.length;
+  }
+
+  private int getNextStateIndex(int fromStateIndex, int toStateIndex) {
+    if (fromStateIndex < 0 || toStateIndex < 0) {
+      return -1;
+    }
+    return _nextStateTable[fromStateIndex][toStateIndex];
+  }
+
+  /**
+   * Get the priority of a transition, as its position in the transition priority list
+   * @param fromState the source
+   * @param toState the destination
+   * @return the priority, lower is higher priority, or Integer.MAX_VALUE if the transition is not
+   *         in the transition priority list
+   */
+  public int getTransitionPriority(String fromState, String toState) {
+    return getTransitionPriority(getStateIndex(fromState), getStateIndex(toState));
+  }
+
+  /**
+   * Get the priority of a transition, as its position in the transition priority list
+   * @param fromStateIndex index of the source
+   * @param toStateIndex index of the destination
+   * @return the priority, lower is higher priority, or Integer.MAX_VALUE if the transition is not
+   *         in the transition priority list
+   */
+  public int getTransitionPriority(int fromStateIndex, int toStateIndex) {
+    if (fromStateIndex < 0 || toStateIndex < 0) {
+      return Integer.MAX_VALUE;
     }
-    return null;
+    return _transitionPriorityTable[fromStateIndex][toStateIndex];
   }
 
   /**
@@ -219,14 +367,7 @@ public class StateModelDefinition extends HelixProperty {
    * @return
    */
   public boolean isSingleTopStateModel() {
-    int topStateCount = 0;
-    try {
-      topStateCount = Integer.valueOf(_statesCountMap.get(getTopState()));
-    } catch (NumberFormatException ex) {
-
-    }
-
-    return topStateCount == 1;
+    return _singleTopStateModel;
   }
 
   /**
@@ -234,19 +375,7 @@ public class StateModelDefinition extends HelixProperty {
    * @return a set of second top states
    */
   public Set<String> getSecondTopStates() {
-    Set<String> secondTopStates = new HashSet<String>();
-    if (_statesPriorityList == null || _statesPriorityList.isEmpty()) {
-      return secondTopStates;
-    }
-    String topState = _statesPriorityList.get(0);
-    for (String state : _stateTransitionTable.keySet()) {
-      Map<String, String> transitionMap = _stateTransitionTable.get(state);
-      if (transitionMap != null && transitionMap.containsKey(topState) && transitionMap
-          .get(topState).equals(topState)) {
-        secondTopStates.add(state);
-      }
-    }
-    return secondTopStates;
+    return _secondTopStates;
   }
 
   @Override
@@ -84,6 +84,8 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
   private AtomicLong _totalMsgQueueSize = new AtomicLong(0L);
   private AtomicLong _maxInstanceMsgQueueSize = new AtomicLong(0L);
   private AtomicLong _totalPastDueMsgSize = new AtomicLong(0L);
+  private AtomicLong _taskPurgeBacklog = new AtomicLong(0L);
+  private AtomicLong _taskPurgeLag = new AtomicLong(0L);
   private boolean _rebalanceFailure = false;
   private AtomicLong _rebalanceFailureCount = new AtomicLong(0L);
 
@@ -189,6 +191,26 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
     return _totalPastDueMsgSize.get();
   }
 
+  @Override
+  public long getTaskPurgeBacklogGauge() {
+    return _taskPurgeBacklog.get();
+  }
+
+  @Override
+  public long getTaskPurgeLagGauge() {
+    return _taskPurgeLag.get();
+  }
+
+  /**
+   * Update the status of the task garbage collection.
+   * @param backlog number of expired jobs and workflows deferred to later purge runs
+   * @param lag time in milliseconds since the oldest deferred job or workflow expired
+   */
+  public void updateTaskPurgeStatus(long backlog, long lag) {
+    _taskPurgeBacklog.set(backlog);
+    _taskPurgeLag.set(lag);
+  }
+
   private void register(Object bean, ObjectName name) {
     try {
       if (_beanServer.isRegistered(name)) {
@@ -67,6 +67,16 @@ public interface ClusterStatusMonitorMBean extends SensorNameProvider {
    */
   long getTotalPastDueMessageGauge();
 
+  /**
+   * @return number of expired jobs and workflows that are deferred to later task purge runs
+   */
+  long getTaskPurgeBacklogGauge();
+
+  /**
+   * @return time in milliseconds since the oldest deferred job or workflow expired
+   */
+  long getTaskPurgeLagGauge();
+
   /**
    * @return 1 if cluster is enabled, otherwise 0
    */
@@ -0,0 +1,77 @@
+package org.apache.helix.monitoring.mbeans;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.helix.task.TaskTimerWheel;
+
+/**
+ * Exports the timeout counts and the expiration lag of a {@link TaskTimerWheel}.
+ */
+public class TaskTimerWheelMonitor implements TaskTimerWheelMonitorMBean {
+  public static final String TYPE = "Type";
+  public static final String TIMER_WHEEL_TYPE_SUFFIX = "TimeoutWheel";
+
+  private ObjectName _objectName;
+  private TaskTimerWheel _timerWheel;
+  private String _type;
+
+  public TaskTimerWheelMonitor(String type, TaskTimerWheel timerWheel) throws JMException {
+    _type = String.format("%s.%s", type, TIMER_WHEEL_TYPE_SUFFIX);
+    _timerWheel = timerWheel;
+    _objectName = MBeanRegistrar
+        .register(this, MonitorDomainNames.HelixThreadPoolExecutor.name(), TYPE, _type);
+  }
+
+  public ObjectName getObjectName() {
+    return _objectName;
+  }
+
+  public void unregister() {
+    MBeanRegistrar.unregister(_objectName);
+  }
+
+  @Override
+  public String getSensorName() {
+    return String.format("%s.%s", MonitorDomainNames.HelixThreadPoolExecutor.name(), _type);
+  }
+
+  @Override
+  public long getPendingTimeoutGauge() {
+    return _timerWheel.getPendingTimeoutCount();
+  }
+
+  @Override
+  public long getExpiredTimeoutCounter() {
+    return _timerWheel.getExpiredTimeoutCount();
+  }
+
+  @Override
+  public long getLastExpirationLagGauge() {
+    return _timerWheel.getLastExpirationLagMs();
+  }
+
+  @Override
+  public long getMaxExpirationLagGauge() {
+    return _timerWheel.getMaxExpirationLagMs();
+  }
+}
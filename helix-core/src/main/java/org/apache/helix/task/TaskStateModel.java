@@ -20,7 +20,6 @@ package org.apache.helix.task;
  */
 
 import java.util.Map;
-import java.util.TimerTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -41,8 +40,10 @@ public class TaskStateModel extends StateModel {
   private final ScheduledExecutorService _taskExecutor;
   private final Map<String, TaskFactory> _taskFactoryRegistry;
   private ScheduledFuture timeout_task;
+  private TaskTimerWheel.Timeout _timeoutWheelTask;
   private TaskRunner _taskRunner;
   private final ScheduledExecutorService _timeoutTaskExecutor;
+  private final TaskTimerWheel _timeoutWheel;
 
   public TaskStateModel(HelixManager manager, Map<String, TaskFactory> taskFactoryRegistry,
       ScheduledExecutorService taskExecutor) {
@@ -55,6 +56,22 @@ public class TaskStateModel extends StateModel {
     _taskFactoryRegistry = taskFactoryRegistry;
     _taskExecutor = taskExecutor;
     _timeoutTaskExecutor = timerTaskExecutor;
+    _timeoutWheel = null;
+  }
+
+  /**
+   * @param manager
+   * @param taskFactoryRegistry
+   * @param taskExecutor the executor running the tasks
+   * @param timeoutWheel the timer wheel, shared across the state models, to schedule task timeouts
+   */
+  public TaskStateModel(HelixManager manager, Map<String, TaskFactory> taskFactoryRegistry,
+      ScheduledExecutorService taskExecutor, TaskTimerWheel timeoutWheel) {
+    _manager = manager;
+    _taskFactoryRegistry = taskFactoryRegistry;
+    _taskExecutor = taskExecutor;
+    _timeoutTaskExecutor = null;
+    _timeoutWheel = timeoutWheel;
   }
 
   public boolean isShutdown() {
@@ -91,7 +108,7 @@ public class TaskStateModel extends StateModel {
     TaskResult r = _taskRunner.waitTillDone();
     LOG.info(String.format("Task %s completed with result %s.", msg.getPartitionName(), r));
 
-    timeout_task.cancel(false);
+    cancelTimeoutTask(false);
 
     return r.getInfo();
   }
@@ -111,7 +128,7 @@ public class TaskStateModel extends StateModel {
           msg.getPartitionName(), msg.getToState(), r.getStatus()));
     }
 
-    timeout_task.cancel(false);
+    cancelTimeoutTask(false);
 
     return r.getInfo();
   }
@@ -131,7 +148,7 @@ public class TaskStateModel extends StateModel {
           msg.getPartitionName(), msg.getToState(), r.getStatus()));
     }
 
-    timeout_task.cancel(false);
+    cancelTimeoutTask(false);
 
     return r.getInfo();
   }
@@ -151,7 +168,7 @@ public class TaskStateModel extends StateModel {
           msg.getPartitionName(), msg.getToState(), r.getStatus()));
     }
 
-    timeout_task.cancel(false);
+    cancelTimeoutTask(false);
 
     return r.getInfo();
   }
@@ -172,7 +189,7 @@ public class TaskStateModel extends StateModel {
           msg.getPartitionName(), msg.getToState(), r.getStatus()));
     }
 
-    timeout_task.cancel(false);
+    cancelTimeoutTask(false);
 
     return r.getInfo();
   }
@@ -191,9 +208,7 @@ public class TaskStateModel extends StateModel {
   public void onBecomeDroppedFromRunning(Message msg, NotificationContext context) {
     String taskPartition = msg.getPartitionName();
     if (_taskRunner == null) {
-      if (timeout_task != null) {
-        timeout_task.cancel(true);
-      }
+      cancelTimeoutTask(true);
       LOG.error(
           "Participant {}'s thread for task partition {} not found while attempting to cancel the task; Manual cleanup may be required.",
           _manager.getInstanceName(), taskPartition);
@@ -204,7 +219,7 @@ public class TaskStateModel extends StateModel {
     TaskResult r = _taskRunner.waitTillDone();
     LOG.info(String.format("Task partition %s returned result %s.", msg.getPartitionName(), r));
     _taskRunner = null;
-    timeout_task.cancel(false);
+    cancelTimeoutTask(false);
   }
 
   @Transition(to = "DROPPED", from = "COMPLETED")
@@ -277,10 +292,7 @@ public class TaskStateModel extends StateModel {
       _taskRunner.cancel();
       _taskRunner = null;
     }
-    if (timeout_task != null) {
-      timeout_task.cancel(false);
-      timeout_task = null;
-    }
+    cancelTimeoutTask(false);
   }
 
   private void startTask(Message msg, String taskPartition) {
@@ -332,14 +344,31 @@ public class TaskStateModel extends StateModel {
     _taskRunner.waitTillStarted();
 
     // Set up a timer to cancel the task when its time out expires.
-
-    timeout_task = _timeoutTaskExecutor.schedule(new TimerTask() {
+    Runnable timeoutTask = new Runnable() {
       @Override
       public void run() {
         if (_taskRunner != null) {
           _taskRunner.timeout();
         }
       }
-    }, cfg.getTimeoutPerTask(), TimeUnit.MILLISECONDS);
+    };
+    if (_timeoutWheel != null) {
+      _timeoutWheelTask =
+          _timeoutWheel.schedule(timeoutTask, cfg.getTimeoutPerTask(), TimeUnit.MILLISECONDS);
+    } else {
+      timeout_task = _timeoutTaskExecutor
+          .schedule(timeoutTask, cfg.getTimeoutPerTask(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void cancelTimeoutTask(boolean mayInterruptIfRunning) {
+    if (timeout_task != null) {
+      timeout_task.cancel(mayInterruptIfRunning);
+      timeout_task = null;
+    }
+    if (_timeoutWheelTask != null) {
+      _timeoutWheelTask.cancel();
+      _timeoutWheelTask = null;
+    }
   }
 }
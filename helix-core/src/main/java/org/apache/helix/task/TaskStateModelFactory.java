@@ -29,6 +29,7 @@ import javax.management.JMException;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.helix.HelixManager;
+import org.apache.helix.monitoring.mbeans.TaskTimerWheelMonitor;
 import org.apache.helix.monitoring.mbeans.ThreadPoolExecutorMonitor;
 import org.apache.helix.participant.statemachine.StateModelFactory;
 import org.slf4j.Logger;
@@ -43,8 +44,9 @@ public class TaskStateModelFactory extends StateModelFactory<TaskStateModel> {
   private final HelixManager _manager;
   private final Map<String, TaskFactory> _taskFactoryRegistry;
   private final ScheduledExecutorService _taskExecutor;
-  private final ScheduledExecutorService _timerTaskExecutor;
+  private final TaskTimerWheel _timeoutWheel;
   private ThreadPoolExecutorMonitor _monitor;
+  private TaskTimerWheelMonitor _timeoutWheelMonitor;
   public final static int TASK_THREADPOOL_SIZE = 40;
 
   public TaskStateModelFactory(HelixManager manager, Map<String, TaskFactory> taskFactoryRegistry) {
@@ -64,12 +66,7 @@ public class TaskStateModelFactory extends StateModelFactory<TaskStateModel> {
     _manager = manager;
     _taskFactoryRegistry = taskFactoryRegistry;
     _taskExecutor = taskExecutor;
-    _timerTaskExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-      @Override
-      public Thread newThread(Runnable r) {
-        return new Thread(r, "TaskStateModelFactory-timeTask_thread");
-      }
-    });
+    _timeoutWheel = new TaskTimerWheel("TaskStateModelFactory-timeTask_thread");
     if (_taskExecutor instanceof ThreadPoolExecutor) {
       try {
         _monitor = new ThreadPoolExecutorMonitor(TaskConstants.STATE_MODEL_NAME,
@@ -78,11 +75,17 @@ public class TaskStateModelFactory extends StateModelFactory<TaskStateModel> {
         LOG.warn("Error in creating ThreadPoolExecutorMonitor for TaskStateModelFactory.");
       }
     }
+    try {
+      _timeoutWheelMonitor =
+          new TaskTimerWheelMonitor(TaskConstants.STATE_MODEL_NAME, _timeoutWheel);
+    } catch (JMException e) {
+      LOG.warn("Error in creating TaskTimerWheelMonitor for TaskStateModelFactory.");
+    }
   }
 
   @Override
   public TaskStateModel createNewStateModel(String resourceName, String partitionKey) {
-    return new TaskStateModel(_manager, _taskFactoryRegistry, _taskExecutor, _timerTaskExecutor);
+    return new TaskStateModel(_manager, _taskFactoryRegistry, _taskExecutor, _timeoutWheel);
   }
 
   public void shutdown() {
@@ -90,19 +93,32 @@ public class TaskStateModelFactory extends StateModelFactory<TaskStateModel> {
       _monitor.unregister();
     }
     _taskExecutor.shutdown();
-    _timerTaskExecutor.shutdown();
+    _timeoutWheel.shutdown();
     if (_monitor != null) {
       _monitor.unregister();
     }
+    if (_timeoutWheelMonitor != null) {
+      _timeoutWheelMonitor.unregister();
+    }
   }
 
   @VisibleForTesting
   void shutdownNow() {
     _taskExecutor.shutdownNow();
-    _timerTaskExecutor.shutdownNow();
+    _timeoutWheel.shutdown();
     if (_monitor != null) {
       _monitor.unregister();
     }
+    if (_timeoutWheelMonitor != null) {
+      _timeoutWheelMonitor.unregister();
+    }
+  }
+
+  /**
+   * @return the timer wheel scheduling the timeouts of the tasks created by this factory
+   */
+  public TaskTimerWheel getTimeoutWheel() {
+    return _timeoutWheel;
   }
 
   public boolean isShutdown() {
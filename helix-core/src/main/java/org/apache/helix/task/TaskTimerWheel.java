@@ -0,0 +1,357 @@
+package org.apache.helix.task;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.helix.HelixException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hashed timing wheel used by the participant to schedule task timeouts. All the
+ * {@link TaskStateModel}s created by one {@link TaskStateModelFactory} share a wheel, which has a
+ * single worker thread advancing one bucket per tick.
+ *
+ * Scheduling and cancelling a timeout are O(1): new and cancelled timeouts are queued lock-free
+ * and moved into (or unlinked from) the buckets by the worker thread on the next tick. Timeouts
+ * longer than one wheel revolution are kept in their bucket with a count of remaining rounds.
+ * The expiration precision is one tick.
+ */
+public class TaskTimerWheel {
+  private static final Logger LOG = LoggerFactory.getLogger(TaskTimerWheel.class);
+
+  public static final long DEFAULT_TICK_DURATION_MS = 20L;
+  public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+  // Max number of new timeouts moved into the wheel in one tick, to bound the tick latency
+  private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+  private static final int STATE_INIT = 0;
+  private static final int STATE_STARTED = 1;
+  private static final int STATE_SHUTDOWN = 2;
+
+  private final long _tickDurationMs;
+  private final Bucket[] _wheel;
+  private final int _mask;
+  private final Thread _workerThread;
+  private final AtomicInteger _state = new AtomicInteger(STATE_INIT);
+  private final Queue<Timeout> _newTimeouts = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> _cancelledTimeouts = new ConcurrentLinkedQueue<>();
+  private final AtomicLong _pendingTimeouts = new AtomicLong(0L);
+  private final AtomicLong _expiredTimeouts = new AtomicLong(0L);
+  private volatile long _lastExpirationLagMs = 0L;
+  private volatile long _maxExpirationLagMs = 0L;
+  private final CountDownLatch _startTimeInitialized = new CountDownLatch(1);
+  private volatile long _startTime;
+  private long _tick = 0L;
+
+  public TaskTimerWheel(String name) {
+    this(name, DEFAULT_TICK_DURATION_MS, DEFAULT_TICKS_PER_WHEEL);
+  }
+
+  /**
+   * @param name name of the worker thread
+   * @param tickDurationMs duration of one tick in milliseconds
+   * @param ticksPerWheel number of buckets of the wheel, rounded up to a power of 2
+   */
+  public TaskTimerWheel(String name, long tickDurationMs, int ticksPerWheel) {
+    if (tickDurationMs <= 0 || ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+      throw new HelixException(String
+          .format("Invalid timer wheel tick duration %d ms or ticks per wheel %d.", tickDurationMs,
+              ticksPerWheel));
+    }
+    int wheelSize = 1;
+    while (wheelSize < ticksPerWheel) {
+      wheelSize <<= 1;
+    }
+    _wheel = new Bucket[wheelSize];
+    for (int i = 0; i < wheelSize; i++) {
+      _wheel[i] = new Bucket();
+    }
+    _mask = wheelSize - 1;
+    _tickDurationMs = tickDurationMs;
+    _workerThread = new Thread(new Worker(), name);
+    _workerThread.setDaemon(true);
+  }
+
+  /**
+   * Schedule the task to run after the given delay. The task runs on the worker thread of the
+   * wheel, so it is expected to be short.
+   * @param task the task to run
+   * @param delay the delay
+   * @param unit unit of the delay
+   * @return a handle to cancel the timeout
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    start();
+    long deadline = System.currentTimeMillis() + Math.max(0L, unit.toMillis(delay)) - _startTime;
+    if (deadline < 0) {
+      // Guard against overflow of very long delays
+      deadline = Long.MAX_VALUE;
+    }
+    Timeout timeout = new Timeout(this, task, deadline);
+    _pendingTimeouts.incrementAndGet();
+    _newTimeouts.add(timeout);
+    return timeout;
+  }
+
+  private void start() {
+    if (_state.get() == STATE_INIT && _state.compareAndSet(STATE_INIT, STATE_STARTED)) {
+      _startTime = System.currentTimeMillis();
+      _workerThread.start();
+      _startTimeInitialized.countDown();
+    }
+    if (_state.get() == STATE_SHUTDOWN) {
+      throw new IllegalStateException("Cannot schedule a timeout after the timer wheel shutdown.");
+    }
+    // Wait until the start time is initialized by the thread which started the worker
+    boolean interrupted = false;
+    while (_startTimeInitialized.getCount() > 0) {
+      try {
+        _startTimeInitialized.await();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Stop the wheel. The pending timeouts will not be run.
+   */
+  public void shutdown() {
+    if (_state.getAndSet(STATE_SHUTDOWN) == STATE_STARTED) {
+      _workerThread.interrupt();
+    }
+  }
+
+  public boolean isShutdown() {
+    return _state.get() == STATE_SHUTDOWN;
+  }
+
+  /**
+   * @return number of timeouts that are scheduled and neither expired nor cancelled
+   */
+  public long getPendingTimeoutCount() {
+    return _pendingTimeouts.get();
+  }
+
+  /**
+   * @return number of timeouts that have expired
+   */
+  public long getExpiredTimeoutCount() {
+    return _expiredTimeouts.get();
+  }
+
+  /**
+   * @return lag in milliseconds between the deadline and the actual run of the last expired
+   *         timeout
+   */
+  public long getLastExpirationLagMs() {
+    return _lastExpirationLagMs;
+  }
+
+  /**
+   * @return max lag in milliseconds between the deadline and the actual run of expired timeouts
+   */
+  public long getMaxExpirationLagMs() {
+    return _maxExpirationLagMs;
+  }
+
+  private final class Worker implements Runnable {
+    @Override
+    public void run() {
+      while (_state.get() == STATE_STARTED) {
+        long deadline = _tickDurationMs * (_tick + 1);
+        long sleepTime = deadline - (System.currentTimeMillis() - _startTime);
+        if (sleepTime > 0) {
+          try {
+            Thread.sleep(sleepTime);
+          } catch (InterruptedException e) {
+            if (_state.get() != STATE_STARTED) {
+              break;
+            }
+            continue;
+          }
+        }
+        removeCancelledTimeouts();
+        transferNewTimeouts();
+        Bucket bucket = _wheel[(int) (_tick & _mask)];
+        bucket.expireTimeouts();
+        _tick++;
+      }
+      LOG.info("Timer wheel {} is shutdown with {} pending timeouts.",
+          Thread.currentThread().getName(), _pendingTimeouts.get());
+    }
+
+    private void transferNewTimeouts() {
+      for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+        Timeout timeout = _newTimeouts.poll();
+        if (timeout == null) {
+          break;
+        }
+        if (timeout._state.get() != Timeout.ST_INIT) {
+          continue;
+        }
+        long calculatedTick = timeout._deadline / _tickDurationMs;
+        timeout._remainingRounds = (calculatedTick - _tick) / _wheel.length;
+        // Do not schedule into the past
+        long ticks = Math.max(calculatedTick, _tick);
+        _wheel[(int) (ticks & _mask)].add(timeout);
+      }
+    }
+
+    private void removeCancelledTimeouts() {
+      Timeout timeout;
+      while ((timeout = _cancelledTimeouts.poll()) != null) {
+        if (timeout._bucket != null) {
+          timeout._bucket.remove(timeout);
+        }
+      }
+    }
+  }
+
+  private final class Bucket {
+    // Only accessed by the worker thread
+    private Timeout _head;
+    private Timeout _tail;
+
+    void add(Timeout timeout) {
+      timeout._bucket = this;
+      if (_head == null) {
+        _head = _tail = timeout;
+      } else {
+        _tail._next = timeout;
+        timeout._prev = _tail;
+        _tail = timeout;
+      }
+    }
+
+    void expireTimeouts() {
+      Timeout timeout = _head;
+      while (timeout != null) {
+        Timeout next = timeout._next;
+        if (timeout._remainingRounds <= 0) {
+          remove(timeout);
+          timeout.expire();
+        } else if (timeout.isCancelled()) {
+          remove(timeout);
+        } else {
+          timeout._remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout._bucket != this) {
+        return;
+      }
+      if (timeout._prev != null) {
+        timeout._prev._next = timeout._next;
+      }
+      if (timeout._next != null) {
+        timeout._next._prev = timeout._prev;
+      }
+      if (timeout == _head) {
+        _head = timeout._next;
+      }
+      if (timeout == _tail) {
+        _tail = timeout._prev;
+      }
+      timeout._prev = null;
+      timeout._next = null;
+      timeout._bucket = null;
+    }
+  }
+
+  /**
+   * Handle of a scheduled timeout.
+   */
+  public static final class Timeout {
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final TaskTimerWheel _timerWheel;
+    private final Runnable _task;
+    // Deadline relative to the start time of the wheel
+    private final long _deadline;
+    private final AtomicInteger _state = new AtomicInteger(ST_INIT);
+
+    // Only accessed by the worker thread
+    private long _remainingRounds;
+    private Timeout _prev;
+    private Timeout _next;
+    private Bucket _bucket;
+
+    private Timeout(TaskTimerWheel timerWheel, Runnable task, long deadline) {
+      _timerWheel = timerWheel;
+      _task = task;
+      _deadline = deadline;
+    }
+
+    /**
+     * Cancel the timeout so that its task will not run.
+     * @return true if the timeout is cancelled, false if it has already expired or been cancelled
+     */
+    public boolean cancel() {
+      if (!_state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+        return false;
+      }
+      _timerWheel._pendingTimeouts.decrementAndGet();
+      _timerWheel._cancelledTimeouts.add(this);
+      return true;
+    }
+
+    public boolean isCancelled() {
+      return _state.get() == ST_CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return _state.get() == ST_EXPIRED;
+    }
+
+    private void expire() {
+      if (!_state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+        return;
+      }
+      _timerWheel._pendingTimeouts.decrementAndGet();
+      _timerWheel._expiredTimeouts.incrementAndGet();
+      long lag = System.currentTimeMillis() - _timerWheel._startTime - _deadline;
+      _timerWheel._lastExpirationLagMs = lag;
+      if (lag > _timerWheel._maxExpirationLagMs) {
+        _timerWheel._maxExpirationLagMs = lag;
+      }
+      try {
+        _task.run();
+      } catch (Throwable t) {
+        LOG.warn("Exception thrown while running a timeout task.", t);
+      }
+    }
+  }
+}
@@ -866,4 +866,91 @@ public class TestAutoRebalanceStrategy {
     // finally, make sure we haven't moved it.
     Assert.assertEquals(finalPreferredNode, otherNode);
   }
+
+  /**
+   * Compare the assignments of the strategy with the ones of the reference implementation over
+   * random clusters, node losses and additions, and random current states.
+   */
+  @Test
+  public void testDifferentialWithReferenceStrategy() {
+    final String resourceName = "resource";
+    Random random = new Random(7);
+    for (int iteration = 0; iteration < 300; iteration++) {
+      int nodeCount = 1 + random.nextInt(30);
+      int partitionCount = 1 + random.nextInt(200);
+      int maxPerNode = random.nextBoolean() ? Integer.MAX_VALUE : 1 + random.nextInt(50);
+      LinkedHashMap<String, Integer> states = new LinkedHashMap<String, Integer>();
+      if (random.nextBoolean()) {
+        states.put("MASTER", 1);
+        states.put("SLAVE", random.nextInt(3));
+      } else {
+        states.put("ONLINE", 1 + random.nextInt(3));
+      }
+      List<String> partitions = new ArrayList<String>();
+      for (int i = 0; i < partitionCount; i++) {
+        partitions.add(resourceName + "_" + i);
+      }
+      List<String> allNodes = new ArrayList<String>();
+      int nextNodeId = 0;
+      while (nextNodeId < nodeCount) {
+        allNodes.add("node_" + nextNodeId++);
+      }
+
+      Map<String, Map<String, String>> currentMapping =
+          new HashMap<String, Map<String, String>>();
+      for (int round = 0; round < 4; round++) {
+        List<String> liveNodes = new ArrayList<String>();
+        for (String node : allNodes) {
+          if (random.nextInt(4) != 0) {
+            liveNodes.add(node);
+          }
+        }
+        if (liveNodes.isEmpty()) {
+          liveNodes.add(allNodes.get(0));
+        }
+        // move some replicas to random nodes
+        for (String partition : partitions) {
+          if (random.nextInt(5) == 0) {
+            if (!currentMapping.containsKey(partition)) {
+              currentMapping.put(partition, new TreeMap<String, String>());
+            }
+            currentMapping.get(partition)
+                .put(allNodes.get(random.nextInt(allNodes.size())), states.keySet().iterator().next());
+          }
+        }
+
+        ZNRecord expected =
+            new ReferenceAutoRebalanceStrategy(resourceName, partitions, states, maxPerNode)
+                .computePartitionAssignment(allNodes, liveNodes, copyMapping(currentMapping),
+                    null);
+        ZNRecord actual =
+            new AutoRebalanceStrategy(resourceName, partitions, states, maxPerNode)
+                .computePartitionAssignment(allNodes, liveNodes, copyMapping(currentMapping),
+                    null);
+        String description = String
+            .format("iteration %d, round %d, nodes %s, live nodes %s, states %s, max %d",
+                iteration, round, allNodes, liveNodes, states, maxPerNode);
+        Assert.assertEquals(actual.getListFields(), expected.getListFields(), description);
+        Assert.assertEquals(actual.getMapFields(), expected.getMapFields(), description);
+
+        currentMapping = copyMapping(actual.getMapFields());
+        // lose some nodes and add new ones for the next round
+        if (random.nextBoolean() && allNodes.size() > 1) {
+          allNodes.remove(random.nextInt(allNodes.size()));
+        }
+        if (random.nextBoolean()) {
+          allNodes.add("node_" + nextNodeId++);
+        }
+      }
+    }
+  }
+
+  private static Map<String, Map<String, String>> copyMapping(
+      Map<String, Map<String, String>> mapping) {
+    Map<String, Map<String, String>> copy = new HashMap<String, Map<String, String>>();
+    for (Map.Entry<String, Map<String, String>> entry : mapping.entrySet()) {
+      copy.put(entry.getKey(), new TreeMap<String, String>(entry.getValue()));
+    }
+    return copy;
+  }
 }
@@ -0,0 +1,190 @@
+package org.apache.helix.controller.rebalancer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.hash.HashCode;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.rebalancer.strategy.CrushEdRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.strategy.CrushRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.strategy.MultiRoundCrushRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.strategy.PlacementCache;
+import org.apache.helix.controller.rebalancer.strategy.RebalanceStrategy;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestPlacementCache {
+  private static final String RESOURCE_NAME = "resource";
+  private static final int INSTANCE_COUNT = 9;
+  private static final int PARTITION_COUNT = 30;
+
+  @Test
+  public void testCachedAssignments() {
+    for (Class<? extends RebalanceStrategy<ResourceControllerDataProvider>> strategyClass : Arrays
+        .asList(CrushRebalanceStrategy.class, CrushEdRebalanceStrategy.class,
+            MultiRoundCrushRebalanceStrategy.class)) {
+      List<String> instances = getInstances();
+      ResourceControllerDataProvider cache = createCache(instances);
+
+      ZNRecord assignment = computeAssignment(strategyClass, instances, instances, cache);
+      int cachedCount = cache.getPlacementCache().size();
+      Assert.assertTrue(cachedCount > 0, strategyClass.getSimpleName());
+
+      // The same inputs are served from the cache, and the cached copy is not modified by callers
+      assignment.getListFields().clear();
+      ZNRecord cachedAssignment = computeAssignment(strategyClass, instances, instances, cache);
+      Assert.assertEquals(cache.getPlacementCache().size(), cachedCount);
+      Assert.assertEquals(cachedAssignment.getListFields().size(), PARTITION_COUNT);
+      // The partitions are iterated in the same order as the computed assignment
+      ZNRecord computedAssignment =
+          computeAssignment(strategyClass, instances, instances, createCache(instances));
+      Assert.assertEquals(cachedAssignment.getListFields(), computedAssignment.getListFields());
+      Assert.assertEquals(new ArrayList<>(cachedAssignment.getListFields().keySet()),
+          new ArrayList<>(computedAssignment.getListFields().keySet()));
+
+      // A weight change invalidates the assignment
+      cache.getInstanceConfigMap().get(instances.get(0)).setWeight(500);
+      ZNRecord newAssignment = computeAssignment(strategyClass, instances, instances, cache);
+      Assert.assertTrue(cache.getPlacementCache().size() > cachedCount);
+      ResourceControllerDataProvider newCache = createCache(instances);
+      newCache.getInstanceConfigMap().get(instances.get(0)).setWeight(500);
+      Assert.assertEquals(newAssignment.getListFields(),
+          computeAssignment(strategyClass, instances, instances, newCache).getListFields());
+
+      // So does a live node change
+      List<String> liveInstances = new ArrayList<>(instances.subList(1, instances.size()));
+      Assert.assertEquals(computeAssignment(strategyClass, instances, liveInstances, cache)
+              .getListFields(),
+          computeAssignment(strategyClass, instances, liveInstances, newCache).getListFields());
+    }
+  }
+
+  @Test
+  public void testEviction() {
+    PlacementCache placementCache = new PlacementCache(10);
+    List<HashCode> fingerprints = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      HashCode fingerprint = PlacementCache
+          .fingerprint("strategy", RESOURCE_NAME + i, Collections.singletonList("p"),
+              new LinkedHashMap<String, Integer>(), Collections.<String>emptyList(),
+              Collections.<String>emptyList(), Collections.<String, InstanceConfig>emptyMap(),
+              null);
+      ZNRecord assignment = new ZNRecord(RESOURCE_NAME + i);
+      assignment.setListField("p0", Arrays.asList("a", "b"));
+      assignment.setListField("p1", Arrays.asList("a", "b"));
+      placementCache.put(fingerprint, assignment);
+      fingerprints.add(fingerprint);
+    }
+    // 4 replicas per assignment, so only the 2 most recent assignments fit
+    Assert.assertEquals(placementCache.size(), 2);
+    Assert.assertNull(placementCache.get(fingerprints.get(2)));
+    Assert.assertNotNull(placementCache.get(fingerprints.get(3)));
+    Assert.assertNotNull(placementCache.get(fingerprints.get(4)));
+
+    // An assignment larger than the limit is not cached
+    ZNRecord largeAssignment = new ZNRecord("large");
+    largeAssignment.setListField("p", Collections.nCopies(11, "a"));
+    placementCache.put(fingerprints.get(0), largeAssignment);
+    Assert.assertNull(placementCache.get(fingerprints.get(0)));
+    Assert.assertEquals(placementCache.size(), 2);
+  }
+
+  @Test
+  public void testRunSpecificFieldsNotCached() {
+    PlacementCache placementCache = new PlacementCache();
+    HashCode fingerprint = PlacementCache
+        .fingerprint("strategy", RESOURCE_NAME, Collections.singletonList("p"),
+            new LinkedHashMap<String, Integer>(), Collections.<String>emptyList(),
+            Collections.<String>emptyList(), Collections.<String, InstanceConfig>emptyMap(), null);
+    ZNRecord assignment = new ZNRecord(RESOURCE_NAME);
+    assignment.setListField("p0", Arrays.asList("a", "b"));
+    assignment.setSimpleField("eventId", "event_0");
+    assignment.setMapField("p0", Collections.singletonMap("a", "MASTER"));
+    placementCache.put(fingerprint, assignment);
+    // Changes to the computed assignment after it is cached are not visible
+    assignment.getListField("p0").set(0, "c");
+
+    ZNRecord cachedAssignment = placementCache.get(fingerprint);
+    Assert.assertEquals(cachedAssignment.getId(), RESOURCE_NAME);
+    Assert.assertEquals(cachedAssignment.getListField("p0"), Arrays.asList("a", "b"));
+    Assert.assertTrue(cachedAssignment.getSimpleFields().isEmpty());
+    Assert.assertTrue(cachedAssignment.getMapFields().isEmpty());
+    cachedAssignment.getListField("p0").clear();
+    Assert.assertEquals(placementCache.get(fingerprint).getListField("p0"),
+        Arrays.asList("a", "b"));
+  }
+
+  private static ZNRecord computeAssignment(
+      Class<? extends RebalanceStrategy<ResourceControllerDataProvider>> strategyClass,
+      List<String> allNodes, List<String> liveNodes, ResourceControllerDataProvider cache) {
+    RebalanceStrategy<ResourceControllerDataProvider> strategy;
+    try {
+      strategy = strategyClass.newInstance();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+    List<String> partitions = new ArrayList<>();
+    for (int i = 0; i < PARTITION_COUNT; i++) {
+      partitions.add(RESOURCE_NAME + "_" + i);
+    }
+    LinkedHashMap<String, Integer> states = new LinkedHashMap<>();
+    states.put("MASTER", 1);
+    states.put("SLAVE", 2);
+    strategy.init(RESOURCE_NAME, partitions, states, Integer.MAX_VALUE);
+    return strategy.computePartitionAssignment(new ArrayList<>(allNodes),
+        new ArrayList<>(liveNodes), new HashMap<String, Map<String, String>>(), cache);
+  }
+
+  private static List<String> getInstances() {
+    List<String> instances = new ArrayList<>();
+    for (int i = 0; i < INSTANCE_COUNT; i++) {
+      instances.add("localhost_" + i);
+    }
+    return instances;
+  }
+
+  private static ResourceControllerDataProvider createCache(List<String> instances) {
+    Map<String, InstanceConfig> instanceConfigs = new HashMap<>();
+    for (int i = 0; i < instances.size(); i++) {
+      InstanceConfig config = new InstanceConfig(instances.get(i));
+      config.setDomain(String.format("zone=zone_%d,instance=%s", i % 3, instances.get(i)));
+      config.setWeight(100);
+      instanceConfigs.put(instances.get(i), config);
+    }
+    ClusterConfig clusterConfig = new ClusterConfig("test");
+    clusterConfig.setTopologyAwareEnabled(true);
+    clusterConfig.setTopology("/zone/instance");
+    clusterConfig.setFaultZoneType("zone");
+    ResourceControllerDataProvider cache = new ResourceControllerDataProvider();
+    cache.setInstanceConfigMap(instanceConfigs);
+    cache.setClusterConfig(clusterConfig);
+    return cache;
+  }
+}
@@ -0,0 +1,172 @@
+package org.apache.helix.controller.rebalancer.strategy.crushMapping;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.helix.controller.rebalancer.topology.Node;
+import org.apache.helix.util.JenkinsHash;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestCRUSHPlacementAlgorithm {
+  private final JenkinsHash _hashFunction = new JenkinsHash();
+
+  @Test
+  public void testStrawBucketMatchesStrawMap() {
+    Random random = new Random(1);
+    // Equal, distinct and zero weights
+    long[][] weightChoices = {{100}, {100, 200, 300}, {0, 100, 100, 50}};
+    for (long[] weights : weightChoices) {
+      for (int childCount : new int[] {1, 2, 7, 40}) {
+        Node parent = createNode("root", "ROOT", 0);
+        for (int i = 0; i < childCount; i++) {
+          parent.addChild(
+              createNode("node_" + i, "INSTANCE", weights[random.nextInt(weights.length)]));
+        }
+        CRUSHPlacementAlgorithm.StrawBucket bucket =
+            new CRUSHPlacementAlgorithm.StrawBucket(parent, _hashFunction);
+        Map<Node, Long> straws = computeStraws(parent);
+        for (int input = 0; input < 500; input++) {
+          long data = ("partition_" + input).hashCode();
+          for (int round = 1; round <= 5; round++) {
+            Assert.assertSame(bucket.select(data, round), select(straws, data, round));
+          }
+        }
+      }
+    }
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testSelectFromLeaf() {
+    new CRUSHPlacementAlgorithm.StrawBucket(createNode("leaf", "INSTANCE", 100), _hashFunction)
+        .select(1L, 1L);
+  }
+
+  @Test
+  public void testSelectFromTree() {
+    Node root = createNode("root", "ROOT", 0);
+    for (int z = 0; z < 3; z++) {
+      Node zone = createNode("zone_" + z, "ZONE", 0);
+      for (int i = 0; i < 4; i++) {
+        Node instance = createNode("zone_" + z + "_instance_" + i, "INSTANCE", 100);
+        instance.setParent(zone);
+        zone.addChild(instance);
+        zone.addWeight(instance.getWeight());
+      }
+      zone.setParent(root);
+      root.addChild(zone);
+      root.addWeight(zone.getWeight());
+    }
+    CRUSHPlacementAlgorithm algorithm = new CRUSHPlacementAlgorithm();
+    for (int input = 0; input < 100; input++) {
+      long data = ("partition_" + input).hashCode();
+      List<Node> zones = algorithm.select(root, data, 3, "ZONE");
+      Assert.assertEquals(zones.size(), 3);
+      Assert.assertEquals(new CRUSHPlacementAlgorithm().select(root, data, 3, "ZONE"), zones);
+      for (Node zone : zones) {
+        List<Node> instances = algorithm.select(zone, data, 1, "INSTANCE");
+        Assert.assertEquals(instances.size(), 1);
+        Assert.assertSame(instances.get(0).getParent(), zone);
+      }
+    }
+  }
+
+  private static Node createNode(String name, String type, long weight) {
+    Node node = new Node();
+    node.setName(name);
+    node.setType(type);
+    node.setId(name.hashCode());
+    node.setWeight(weight);
+    return node;
+  }
+
+  /**
+   * The straw map the selection was computed with before the straws were kept in arrays.
+   */
+  private static Map<Node, Long> computeStraws(Node node) {
+    Map<Node, Long> straws = new HashMap<>();
+    List<Node> sortedNodes = new ArrayList<>(node.getChildren());
+    Collections.sort(sortedNodes, new Comparator<Node>() {
+      public int compare(Node n1, Node n2) {
+        if (n2.getWeight() == n1.getWeight()) {
+          return 0;
+        }
+        return (n2.getWeight() - n1.getWeight() > 0) ? 1 : -1;
+      }
+    });
+    int numLeft = sortedNodes.size();
+    float straw = 1.0f;
+    float wbelow = 0.0f;
+    float lastw = 0.0f;
+    int i = 0;
+    final int length = sortedNodes.size();
+    while (i < length) {
+      Node current = sortedNodes.get(i);
+      if (current.getWeight() == 0) {
+        straws.put(current, 0L);
+        i++;
+        continue;
+      }
+      straws.put(current, (long) (straw * 0x10000));
+      i++;
+      if (i == length) {
+        break;
+      }
+      current = sortedNodes.get(i);
+      Node previous = sortedNodes.get(i - 1);
+      if (current.getWeight() == previous.getWeight()) {
+        continue;
+      }
+      wbelow += (float) (previous.getWeight() - lastw) * numLeft;
+      for (int j = i; j < length; j++) {
+        if (sortedNodes.get(j).getWeight() == current.getWeight()) {
+          numLeft--;
+        } else {
+          break;
+        }
+      }
+      float wnext = (float) (numLeft * (current.getWeight() - previous.getWeight()));
+      float pbelow = wbelow / (wbelow + wnext);
+      straw *= Math.pow(1.0 / pbelow, 1.0 / numLeft);
+      lastw = previous.getWeight();
+    }
+    return straws;
+  }
+
+  private Node select(Map<Node, Long> straws, long input, long round) {
+    Node selected = null;
+    long hiScore = -1;
+    for (Map.Entry<Node, Long> e : straws.entrySet()) {
+      long score = (_hashFunction.hash(input, e.getKey().getId(), round) & 0xffff) * e.getValue();
+      if (score > hiScore) {
+        selected = e.getKey();
+        hiScore = score;
+      }
+    }
+    return selected;
+  }
+}
@@ -41,6 +41,7 @@ public class TestAssignmentMetadataStore extends ZkTestBase {
   private static final int DEFAULT_BUCKET_SIZE = 50 * 1024; // 50KB
   private static final String BASELINE_KEY = "BASELINE";
   private static final String BEST_POSSIBLE_KEY = "BEST_POSSIBLE";
+  private static final String BEST_POSSIBLE_DELTA_KEY = "BEST_POSSIBLE_DELTA";
 
   protected static final String TEST_DB = "TestDB";
   protected HelixManager _manager;
@@ -186,6 +187,85 @@ public class TestAssignmentMetadataStore extends ZkTestBase {
     Assert.assertEquals(getExistingVersionNumbers(BEST_POSSIBLE_KEY).size(), bestPossibleVersionCount + 1);
   }
 
+  @Test
+  public void testDeltaPersistence() {
+    String clusterName = CLUSTER_NAME + "_delta";
+    AssignmentMetadataStore store = new AssignmentMetadataStore(
+        new ZkBucketDataAccessor(ZK_ADDR, DEFAULT_BUCKET_SIZE, Integer.MAX_VALUE), clusterName,
+        true);
+    try {
+      Map<String, ResourceAssignment> assignment = new HashMap<>();
+      for (int i = 0; i < 10; i++) {
+        assignment.put(TEST_DB + i, createAssignment(TEST_DB + i, "instance_0"));
+      }
+      // The first write is a snapshot
+      Assert.assertTrue(store.persistBestPossibleAssignment(assignment));
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_KEY).size(), 1);
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_DELTA_KEY).size(),
+          0);
+
+      // A few changed or removed resources are written as a delta of the snapshot
+      assignment = new HashMap<>(assignment);
+      assignment.put(TEST_DB + 0, createAssignment(TEST_DB + 0, "instance_1"));
+      assignment.remove(TEST_DB + 1);
+      Assert.assertTrue(store.persistBestPossibleAssignment(assignment));
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_KEY).size(), 1);
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_DELTA_KEY).size(),
+          1);
+      Assert.assertEquals(readBestPossibleAssignment(clusterName), assignment);
+
+      // Once most of the resources have changed, a new snapshot is written, and the delta of the
+      // previous snapshot is not applied anymore
+      assignment = new HashMap<>(assignment);
+      for (int i = 2; i < 8; i++) {
+        assignment.put(TEST_DB + i, createAssignment(TEST_DB + i, "instance_2"));
+      }
+      Assert.assertTrue(store.persistBestPossibleAssignment(assignment));
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_KEY).size(), 2);
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_DELTA_KEY).size(),
+          1);
+      Assert.assertEquals(readBestPossibleAssignment(clusterName), assignment);
+
+      assignment = new HashMap<>(assignment);
+      assignment.put(TEST_DB + 1, createAssignment(TEST_DB + 1, "instance_3"));
+      Assert.assertTrue(store.persistBestPossibleAssignment(assignment));
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_KEY).size(), 2);
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_DELTA_KEY).size(),
+          2);
+      Assert.assertEquals(readBestPossibleAssignment(clusterName), assignment);
+
+      // The store keeps writing deltas of the snapshot it has read back
+      store.reset();
+      Assert.assertEquals(store.getBestPossibleAssignment(), assignment);
+      assignment = new HashMap<>(assignment);
+      assignment.remove(TEST_DB + 9);
+      Assert.assertTrue(store.persistBestPossibleAssignment(assignment));
+      Assert.assertEquals(getExistingVersionNumbers(clusterName, BEST_POSSIBLE_KEY).size(), 2);
+      Assert.assertEquals(readBestPossibleAssignment(clusterName), assignment);
+    } finally {
+      store.close();
+      _baseAccessor.remove("/" + clusterName, AccessOption.PERSISTENT);
+    }
+  }
+
+  private Map<String, ResourceAssignment> readBestPossibleAssignment(String clusterName) {
+    AssignmentMetadataStore store = new AssignmentMetadataStore(
+        new ZkBucketDataAccessor(ZK_ADDR, DEFAULT_BUCKET_SIZE, Integer.MAX_VALUE), clusterName,
+        false);
+    try {
+      return store.getBestPossibleAssignment();
+    } finally {
+      store.close();
+    }
+  }
+
+  private ResourceAssignment createAssignment(String resource, String instance) {
+    ResourceAssignment assignment = new ResourceAssignment(resource);
+    assignment.addReplicaMap(new Partition(resource + "_0"),
+        Collections.singletonMap(instance, "MASTER"));
+    return assignment;
+  }
+
   private Map<String, ResourceAssignment> getDummyAssignment() {
     // Generate a dummy assignment
     Map<String, ResourceAssignment> dummyAssignment = new HashMap<>();
@@ -205,8 +285,12 @@ public class TestAssignmentMetadataStore extends ZkTestBase {
    * @return
    */
   private List<String> getExistingVersionNumbers(String metadataType) {
+    return getExistingVersionNumbers(CLUSTER_NAME, metadataType);
+  }
+
+  private List<String> getExistingVersionNumbers(String clusterName, String metadataType) {
     List<String> children = _baseAccessor
-        .getChildNames("/" + CLUSTER_NAME + "/ASSIGNMENT_METADATA/" + metadataType,
+        .getChildNames("/" + clusterName + "/ASSIGNMENT_METADATA/" + metadataType,
             AccessOption.PERSISTENT);
     if (children == null) {
       children = Collections.EMPTY_LIST;
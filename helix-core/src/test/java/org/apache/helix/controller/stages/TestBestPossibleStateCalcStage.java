@@ -21,12 +21,15 @@ package org.apache.helix.controller.stages;
 
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
 import org.apache.helix.model.BuiltInStateModelDefinitions;
 import org.apache.helix.model.IdealState.RebalanceMode;
 import org.apache.helix.model.Partition;
 import org.apache.helix.model.Resource;
+import org.testng.Assert;
 import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
 
@@ -72,4 +75,57 @@ public class TestBestPossibleStateCalcStage extends BaseStageTest {
     System.out.println("END TestBestPossibleStateCalcStage at "
         + new Date(System.currentTimeMillis()));
   }
+
+  @Test
+  public void testParallelComputation() {
+    String[] resources = new String[10];
+    for (int i = 0; i < resources.length; i++) {
+      resources[i] = "testResourceName_" + i;
+    }
+    int numPartition = 8;
+    int numReplica = 3;
+
+    setupIdealState(6, resources, numPartition, numReplica, RebalanceMode.FULL_AUTO,
+        BuiltInStateModelDefinitions.MasterSlave.name());
+    setupInstances(6);
+    setupLiveInstances(6);
+    setupStateModel();
+    Map<String, Resource> resourceMap =
+        getResourceMap(resources, numPartition, BuiltInStateModelDefinitions.MasterSlave.name());
+
+    BestPossibleStateOutput sequentialOutput = computeBestPossibleStates(resourceMap, null);
+    ExecutorService rebalanceThreadPool = Executors.newFixedThreadPool(4);
+    try {
+      BestPossibleStateOutput parallelOutput =
+          computeBestPossibleStates(resourceMap, rebalanceThreadPool);
+      Assert.assertEquals(parallelOutput.resourceSet(), resourceMap.keySet());
+      Assert.assertEquals(parallelOutput.getPreferenceLists(),
+          sequentialOutput.getPreferenceLists());
+      for (Resource resource : resourceMap.values()) {
+        for (Partition partition : resource.getPartitions()) {
+          Map<String, String> stateMap =
+              parallelOutput.getInstanceStateMap(resource.getResourceName(), partition);
+          Assert.assertEquals(stateMap.size(), numReplica);
+          Assert.assertEquals(stateMap,
+              sequentialOutput.getInstanceStateMap(resource.getResourceName(), partition));
+        }
+      }
+    } finally {
+      rebalanceThreadPool.shutdownNow();
+    }
+  }
+
+  private BestPossibleStateOutput computeBestPossibleStates(Map<String, Resource> resourceMap,
+      ExecutorService rebalanceThreadPool) {
+    ClusterEvent event = new ClusterEvent(ClusterEventType.Unknown);
+    ResourceControllerDataProvider cache = new ResourceControllerDataProvider();
+    cache.setRebalanceThreadPool(rebalanceThreadPool);
+    event.addAttribute(AttributeName.RESOURCES.name(), resourceMap);
+    event.addAttribute(AttributeName.RESOURCES_TO_REBALANCE.name(), resourceMap);
+    event.addAttribute(AttributeName.CURRENT_STATE.name(), new CurrentStateOutput());
+    event.addAttribute(AttributeName.ControllerDataProvider.name(), cache);
+    runStage(event, new ReadClusterDataStage());
+    runStage(event, new BestPossibleStateCalcStage());
+    return event.getAttribute(AttributeName.BEST_POSSIBLE_STATE.name());
+  }
 }
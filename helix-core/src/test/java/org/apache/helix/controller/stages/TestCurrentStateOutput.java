@@ -0,0 +1,150 @@
+package org.apache.helix.controller.stages;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.helix.model.Partition;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestCurrentStateOutput {
+  private static final String[] STATES = {"MASTER", "SLAVE", "OFFLINE", "ERROR"};
+
+  /**
+   * Compare the replica table backed current states with nested maps filled the same way.
+   */
+  @Test
+  public void testReplicaFields() {
+    Random random = new Random(42);
+    CurrentStateOutput output = new CurrentStateOutput();
+    // resource -> partition -> instance -> value
+    Map<String, Map<Partition, Map<String, String>>> currentStates = new HashMap<>();
+    Map<String, Map<Partition, Map<String, String>>> requestedStates = new HashMap<>();
+    Map<String, Map<Partition, Map<String, String>>> infos = new HashMap<>();
+    Map<String, Map<Partition, Map<String, Long>>> endTimes = new HashMap<>();
+
+    for (int i = 0; i < 5000; i++) {
+      String resource = "resource_" + random.nextInt(3);
+      Partition partition = new Partition(resource + "_" + random.nextInt(50));
+      String instance = "localhost_" + random.nextInt(20);
+      String state = STATES[random.nextInt(STATES.length)];
+      switch (random.nextInt(4)) {
+      case 0:
+        output.setCurrentState(resource, partition, instance, state);
+        put(currentStates, resource, partition, instance, state);
+        break;
+      case 1:
+        output.setRequestedState(resource, partition, instance, state);
+        put(requestedStates, resource, partition, instance, state);
+        break;
+      case 2:
+        output.setInfo(resource, partition, instance, "info_" + i);
+        put(infos, resource, partition, instance, "info_" + i);
+        break;
+      default:
+        output.setEndTime(resource, partition, instance, (long) i);
+        put(endTimes, resource, partition, instance, (long) i);
+      }
+    }
+
+    for (int r = 0; r < 4; r++) {
+      String resource = "resource_" + r;
+      Map<Partition, Map<String, String>> expectedCurrentStates =
+          currentStates.containsKey(resource) ? currentStates.get(resource)
+              : Collections.<Partition, Map<String, String>>emptyMap();
+      Assert.assertEquals(output.getCurrentStateMap(resource), expectedCurrentStates);
+      for (int p = 0; p < 51; p++) {
+        Partition partition = new Partition(resource + "_" + p);
+        Map<String, String> expectedPartitionStates = expectedCurrentStates.get(partition);
+        Assert.assertEquals(output.getCurrentStateMap(resource, partition),
+            expectedPartitionStates == null ? Collections.emptyMap() : expectedPartitionStates);
+        for (int n = 0; n < 21; n++) {
+          String instance = "localhost_" + n;
+          Assert.assertEquals(output.getCurrentState(resource, partition, instance),
+              get(currentStates, resource, partition, instance));
+          Assert.assertEquals(output.getRequestedState(resource, partition, instance),
+              get(requestedStates, resource, partition, instance));
+          Assert.assertEquals(output.getInfo(resource, partition, instance),
+              get(infos, resource, partition, instance));
+          Long endTime = get(endTimes, resource, partition, instance);
+          Assert.assertEquals(output.getEndTime(resource, partition, instance),
+              endTime == null ? Long.valueOf(-1L) : endTime);
+        }
+      }
+    }
+
+    Map<String, Integer> expectedCounts = new HashMap<>();
+    for (Map<Partition, Map<String, String>> partitionMap : currentStates.values()) {
+      for (Map<String, String> instanceStates : partitionMap.values()) {
+        for (Map.Entry<String, String> entry : instanceStates.entrySet()) {
+          int count = expectedCounts.containsKey(entry.getKey()) ? expectedCounts
+              .get(entry.getKey()) : 0;
+          expectedCounts.put(entry.getKey(), entry.getValue().equals("MASTER") ? count + 1 : count);
+        }
+      }
+    }
+    Assert.assertEquals(output.getPartitionCountWithCurrentState(null, "MASTER"), expectedCounts);
+  }
+
+  @Test
+  public void testRemoveCurrentState() {
+    CurrentStateOutput output = new CurrentStateOutput();
+    Partition partition = new Partition("resource_0");
+    output.setCurrentState("resource", partition, "localhost_0", "MASTER");
+    output.setCurrentState("resource", partition, "localhost_1", "SLAVE");
+    output.setEndTime("resource", partition, "localhost_2", 10L);
+    Assert.assertEquals(output.getCurrentStateMap("resource", partition).size(), 2);
+    Assert.assertFalse(output.getCurrentStateMap("resource", partition).containsKey("localhost_2"));
+
+    Assert.assertEquals(output.getCurrentStateMap("resource", partition).remove("localhost_0"),
+        "MASTER");
+    Assert.assertNull(output.getCurrentState("resource", partition, "localhost_0"));
+    Assert.assertEquals(output.getCurrentStateMap("resource", partition),
+        Collections.singletonMap("localhost_1", "SLAVE"));
+
+    output.getCurrentStateMap("resource", partition).remove("localhost_1");
+    Assert.assertTrue(output.getCurrentStateMap("resource").isEmpty());
+    Assert.assertEquals(output.getEndTime("resource", partition, "localhost_2"),
+        Long.valueOf(10L));
+  }
+
+  private static <T> void put(Map<String, Map<Partition, Map<String, T>>> map, String resource,
+      Partition partition, String instance, T value) {
+    if (!map.containsKey(resource)) {
+      map.put(resource, new HashMap<Partition, Map<String, T>>());
+    }
+    if (!map.get(resource).containsKey(partition)) {
+      map.get(resource).put(partition, new HashMap<String, T>());
+    }
+    map.get(resource).get(partition).put(instance, value);
+  }
+
+  private static <T> T get(Map<String, Map<Partition, Map<String, T>>> map, String resource,
+      Partition partition, String instance) {
+    if (!map.containsKey(resource) || !map.get(resource).containsKey(partition)) {
+      return null;
+    }
+    return map.get(resource).get(partition).get(instance);
+  }
+}
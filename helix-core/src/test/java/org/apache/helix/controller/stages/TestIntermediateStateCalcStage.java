@@ -23,6 +23,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.helix.api.config.StateTransitionThrottleConfig;
@@ -32,14 +34,24 @@ import org.apache.helix.model.IdealState;
 import org.apache.helix.model.Message;
 import org.apache.helix.model.Partition;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 
 public class TestIntermediateStateCalcStage extends BaseStageTest {
   private ClusterConfig _clusterConfig;
 
-  @Test
-  public void testNoStateMissing() {
+  @DataProvider(name = "parallelism")
+  public Object[][] parallelism() {
+    return new Object[][] { { false }, { true } };
+  }
+
+  /**
+   * The resources are classified on a rebalance thread pool if parallel is true, the result must
+   * be the same.
+   */
+  @Test(dataProvider = "parallelism")
+  public void testNoStateMissing(boolean parallel) {
     String resourcePrefix = "resource";
     int nResource = 4;
     int nPartition = 2;
@@ -167,10 +179,18 @@ public class TestIntermediateStateCalcStage extends BaseStageTest {
 
     event.addAttribute(AttributeName.BEST_POSSIBLE_STATE.name(), bestPossibleStateOutput);
     event.addAttribute(AttributeName.CURRENT_STATE.name(), currentStateOutput);
-    event.addAttribute(AttributeName.ControllerDataProvider.name(),
-        new ResourceControllerDataProvider());
-    runStage(event, new ReadClusterDataStage());
-    runStage(event, new IntermediateStateCalcStage());
+    ResourceControllerDataProvider cache = new ResourceControllerDataProvider();
+    ExecutorService rebalanceThreadPool = parallel ? Executors.newFixedThreadPool(2) : null;
+    cache.setRebalanceThreadPool(rebalanceThreadPool);
+    event.addAttribute(AttributeName.ControllerDataProvider.name(), cache);
+    try {
+      runStage(event, new ReadClusterDataStage());
+      runStage(event, new IntermediateStateCalcStage());
+    } finally {
+      if (rebalanceThreadPool != null) {
+        rebalanceThreadPool.shutdown();
+      }
+    }
 
     IntermediateStateOutput output = event.getAttribute(AttributeName.INTERMEDIATE_STATE.name());
 
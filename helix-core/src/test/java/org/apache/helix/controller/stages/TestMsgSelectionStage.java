@@ -81,13 +81,9 @@ public class TestMsgSelectionStage {
     stateConstraints.put("MASTER", new Bounds(0, 1));
     stateConstraints.put("SLAVE", new Bounds(0, 2));
 
-    Map<String, Integer> stateTransitionPriorities = new HashMap<String, Integer>();
-    stateTransitionPriorities.put("MASTER-SLAVE", 0);
-    stateTransitionPriorities.put("SLAVE-MASTER", 1);
-
     List<Message> selectedMsg =
         new MessageSelectionStage().selectMessages(liveInstances, currentStates, pendingMessages,
-            messages, Collections.<Message>emptyList(), stateConstraints, stateTransitionPriorities,
+            messages, Collections.<Message>emptyList(), stateConstraints,
             BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition(), false);
 
     Assert.assertEquals(selectedMsg.size(), 1);
@@ -119,13 +115,9 @@ public class TestMsgSelectionStage {
     stateConstraints.put("MASTER", new Bounds(0, 1));
     stateConstraints.put("SLAVE", new Bounds(0, 2));
 
-    Map<String, Integer> stateTransitionPriorities = new HashMap<String, Integer>();
-    stateTransitionPriorities.put("MASTER-SLAVE", 0);
-    stateTransitionPriorities.put("SLAVE-MASTER", 1);
-
     List<Message> selectedMsg =
         new MessageSelectionStage().selectMessages(liveInstances, currentStates, pendingMessages,
-            messages, Collections.<Message>emptyList(), stateConstraints, stateTransitionPriorities,
+            messages, Collections.<Message>emptyList(), stateConstraints,
             BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition(), false);
 
     Assert.assertEquals(selectedMsg.size(), 0);
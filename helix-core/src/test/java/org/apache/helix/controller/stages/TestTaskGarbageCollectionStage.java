@@ -0,0 +1,180 @@
+package org.apache.helix.controller.stages;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.helix.HelixManager;
+import org.apache.helix.common.DedupEventProcessor;
+import org.apache.helix.controller.dataproviders.WorkflowControllerDataProvider;
+import org.apache.helix.controller.pipeline.AsyncWorkerType;
+import org.apache.helix.monitoring.mbeans.ClusterStatusMonitor;
+import org.apache.helix.task.JobConfig;
+import org.apache.helix.task.JobContext;
+import org.apache.helix.task.JobDag;
+import org.apache.helix.task.TaskState;
+import org.apache.helix.task.TaskUtil;
+import org.apache.helix.task.WorkflowConfig;
+import org.apache.helix.task.WorkflowContext;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestTaskGarbageCollectionStage {
+  private static final String WORKFLOW = "TestWorkflow";
+  private static final int JOB_COUNT = 5;
+
+  @Test
+  public void testBoundedPurgeBatch() throws Exception {
+    long now = System.currentTimeMillis();
+    JobDag jobDag = new JobDag();
+    Map<String, TaskState> jobStates = new HashMap<>();
+    WorkflowControllerDataProvider dataProvider = mock(WorkflowControllerDataProvider.class);
+    for (int i = 0; i < JOB_COUNT; i++) {
+      // The job with the smaller index expired earlier
+      String job = WORKFLOW + "_job" + i;
+      jobDag.addNode(job);
+      jobStates.put(job, TaskState.COMPLETED);
+      JobConfig jobConfig = mock(JobConfig.class);
+      when(jobConfig.getExpiry()).thenReturn(0L);
+      JobContext jobContext = mock(JobContext.class);
+      when(jobContext.getFinishTime()).thenReturn(now - 10000L + i);
+      when(dataProvider.getJobConfig(job)).thenReturn(jobConfig);
+      when(dataProvider.getJobContext(job)).thenReturn(jobContext);
+    }
+
+    WorkflowConfig workflowConfig = mock(WorkflowConfig.class);
+    when(workflowConfig.getWorkflowId()).thenReturn(WORKFLOW);
+    when(workflowConfig.isTerminable()).thenReturn(false);
+    when(workflowConfig.isJobQueue()).thenReturn(true);
+    when(workflowConfig.getJobPurgeInterval()).thenReturn(3600000L);
+    when(workflowConfig.getJobDag()).thenReturn(jobDag);
+    WorkflowContext workflowContext = mock(WorkflowContext.class);
+    when(workflowContext.getLastJobPurgeTime()).thenReturn(0L);
+    when(workflowContext.getJobStates()).thenReturn(jobStates);
+
+    when(dataProvider.getContexts()).thenReturn(
+        Collections.singletonMap(WORKFLOW, new ZNRecord(TaskUtil.WORKFLOW_CONTEXT_KW)));
+    when(dataProvider.getWorkflowConfig(WORKFLOW)).thenReturn(workflowConfig);
+    when(dataProvider.getWorkflowContext(WORKFLOW)).thenReturn(workflowContext);
+
+    ClusterStatusMonitor monitor = new ClusterStatusMonitor("TestCluster");
+    TaskGarbageCollectionStage stage = new TaskGarbageCollectionStage(2);
+
+    ClusterEvent event = createEvent(dataProvider, monitor);
+    stage.process(event);
+    Map<String, Set<String>> expiredJobsMap =
+        event.getAttribute(AttributeName.TO_BE_PURGED_JOBS_MAP.name());
+    Assert.assertEquals(expiredJobsMap.get(WORKFLOW),
+        ImmutableSet.of(WORKFLOW + "_job0", WORKFLOW + "_job1"));
+    Assert.assertEquals(monitor.getTaskPurgeBacklogGauge(), 3L);
+    Assert.assertTrue(monitor.getTaskPurgeLagGauge() >= 10000L - 2);
+
+    // Assume the first batch is purged, the backlog is processed in the next run even though the
+    // purge interval has not passed yet.
+    jobDag.removeNode(WORKFLOW + "_job0", false);
+    jobDag.removeNode(WORKFLOW + "_job1", false);
+    when(workflowContext.getLastJobPurgeTime()).thenReturn(now);
+    event = createEvent(dataProvider, monitor);
+    stage.process(event);
+    expiredJobsMap = event.getAttribute(AttributeName.TO_BE_PURGED_JOBS_MAP.name());
+    Assert.assertEquals(expiredJobsMap.get(WORKFLOW),
+        ImmutableSet.of(WORKFLOW + "_job2", WORKFLOW + "_job3"));
+    Assert.assertEquals(monitor.getTaskPurgeBacklogGauge(), 1L);
+
+    jobDag.removeNode(WORKFLOW + "_job2", false);
+    jobDag.removeNode(WORKFLOW + "_job3", false);
+    event = createEvent(dataProvider, monitor);
+    stage.process(event);
+    expiredJobsMap = event.getAttribute(AttributeName.TO_BE_PURGED_JOBS_MAP.name());
+    Assert.assertEquals(expiredJobsMap.get(WORKFLOW), ImmutableSet.of(WORKFLOW + "_job4"));
+    Assert.assertEquals(monitor.getTaskPurgeBacklogGauge(), 0L);
+    Assert.assertEquals(monitor.getTaskPurgeLagGauge(), 0L);
+  }
+
+  @Test
+  public void testJobWithoutConfigNotInPurgeLag() throws Exception {
+    long now = System.currentTimeMillis();
+    JobDag jobDag = new JobDag();
+    Map<String, TaskState> jobStates = new HashMap<>();
+    WorkflowControllerDataProvider dataProvider = mock(WorkflowControllerDataProvider.class);
+    for (int i = 0; i < 3; i++) {
+      String job = WORKFLOW + "_job" + i;
+      jobDag.addNode(job);
+      jobStates.put(job, TaskState.COMPLETED);
+      JobConfig jobConfig = mock(JobConfig.class);
+      when(jobConfig.getExpiry()).thenReturn(0L);
+      JobContext jobContext = mock(JobContext.class);
+      when(jobContext.getFinishTime()).thenReturn(now - 1000L + i);
+      when(dataProvider.getJobConfig(job)).thenReturn(jobConfig);
+      when(dataProvider.getJobContext(job)).thenReturn(jobContext);
+    }
+    // A job left in the DAG without config
+    String orphanJob = WORKFLOW + "_orphan";
+    jobDag.addNode(orphanJob);
+
+    WorkflowConfig workflowConfig = mock(WorkflowConfig.class);
+    when(workflowConfig.getWorkflowId()).thenReturn(WORKFLOW);
+    when(workflowConfig.isTerminable()).thenReturn(false);
+    when(workflowConfig.isJobQueue()).thenReturn(true);
+    when(workflowConfig.getJobPurgeInterval()).thenReturn(3600000L);
+    when(workflowConfig.getJobDag()).thenReturn(jobDag);
+    WorkflowContext workflowContext = mock(WorkflowContext.class);
+    when(workflowContext.getLastJobPurgeTime()).thenReturn(0L);
+    when(workflowContext.getJobStates()).thenReturn(jobStates);
+
+    when(dataProvider.getContexts()).thenReturn(
+        Collections.singletonMap(WORKFLOW, new ZNRecord(TaskUtil.WORKFLOW_CONTEXT_KW)));
+    when(dataProvider.getWorkflowConfig(WORKFLOW)).thenReturn(workflowConfig);
+    when(dataProvider.getWorkflowContext(WORKFLOW)).thenReturn(workflowContext);
+
+    ClusterStatusMonitor monitor = new ClusterStatusMonitor("TestCluster");
+    ClusterEvent event = createEvent(dataProvider, monitor);
+    new TaskGarbageCollectionStage(1).process(event);
+
+    // The orphan job is purged on top of the batch, and the lag comes from the jobs left
+    Map<String, Set<String>> expiredJobsMap =
+        event.getAttribute(AttributeName.TO_BE_PURGED_JOBS_MAP.name());
+    Assert.assertEquals(expiredJobsMap.get(WORKFLOW),
+        ImmutableSet.of(orphanJob, WORKFLOW + "_job0"));
+    Assert.assertEquals(monitor.getTaskPurgeBacklogGauge(), 2L);
+    long lag = monitor.getTaskPurgeLagGauge();
+    Assert.assertTrue(lag >= 1000L - 1 && lag < 60000L, "Unexpected purge lag " + lag);
+  }
+
+  private ClusterEvent createEvent(WorkflowControllerDataProvider dataProvider,
+      ClusterStatusMonitor monitor) {
+    ClusterEvent event = new ClusterEvent("TestCluster", ClusterEventType.Unknown);
+    event.addAttribute(AttributeName.helixmanager.name(), mock(HelixManager.class));
+    event.addAttribute(AttributeName.ControllerDataProvider.name(), dataProvider);
+    event.addAttribute(AttributeName.clusterStatusMonitor.name(), monitor);
+    Map<AsyncWorkerType, DedupEventProcessor<String, Runnable>> workerPool = new HashMap<>();
+    workerPool.put(AsyncWorkerType.TaskJobPurgeWorker, mock(DedupEventProcessor.class));
+    event.addAttribute(AttributeName.AsyncFIFOWorkerPool.name(), workerPool);
+    return event;
+  }
+}
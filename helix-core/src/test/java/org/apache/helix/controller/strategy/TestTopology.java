@@ -8,6 +8,7 @@ import java.util.Map;
 import org.apache.helix.controller.rebalancer.TestAutoRebalanceStrategy;
 import org.apache.helix.controller.rebalancer.topology.Node;
 import org.apache.helix.controller.rebalancer.topology.Topology;
+import org.apache.helix.controller.rebalancer.topology.TopologyCache;
 import org.apache.helix.model.ClusterConfig;
 import org.apache.helix.model.InstanceConfig;
 import org.slf4j.Logger;
@@ -170,4 +171,53 @@ public class TestTopology {
       Assert.assertEquals(rack.getWeight(), (long) nodeToWeightMap.get(rack.getName()));
     }
   }
+
+  @Test
+  public void testTopologyCache() {
+    ClusterConfig clusterConfig = new ClusterConfig("Test_Cluster");
+    clusterConfig.setTopology("/Rack/Instance");
+    clusterConfig.setFaultZoneType("Rack");
+    clusterConfig.setTopologyAwareEnabled(true);
+
+    List<String> allNodes = new ArrayList<>();
+    Map<String, InstanceConfig> instanceConfigMap = new HashMap<>();
+    for (int i = 0; i < 20; i++) {
+      String instance = "localhost_" + i;
+      InstanceConfig config = new InstanceConfig(instance);
+      config.setDomain(String.format("Rack=rack_%d, Instance=%s", i % 4, instance));
+      allNodes.add(instance);
+      instanceConfigMap.put(instance, config);
+    }
+    List<String> liveNodes = new ArrayList<>(allNodes.subList(0, 15));
+
+    TopologyCache topologyCache = new TopologyCache(2);
+    Topology topo = topologyCache.getTopology(allNodes, liveNodes, instanceConfigMap, clusterConfig);
+    Assert.assertSame(topologyCache
+        .getTopology(new ArrayList<>(allNodes), new ArrayList<>(liveNodes), instanceConfigMap,
+            clusterConfig), topo);
+    Assert.assertEquals(topologyCache.size(), 1);
+
+    // Changing the node lists or the configs the topology is built from builds a new topology
+    Topology allLiveTopo =
+        topologyCache.getTopology(allNodes, allNodes, instanceConfigMap, clusterConfig);
+    Assert.assertNotSame(allLiveTopo, topo);
+    Assert.assertEquals(Topology.getAllLeafNodes(allLiveTopo.getRootNode()).size(), 20);
+
+    instanceConfigMap.get("localhost_0").setWeight(5000);
+    Topology weightedTopo =
+        topologyCache.getTopology(allNodes, liveNodes, instanceConfigMap, clusterConfig);
+    Assert.assertNotSame(weightedTopo, topo);
+    Assert.assertEquals(weightedTopo.getRootNode().getChild("rack_0").getWeight(),
+        topo.getRootNode().getChild("rack_0").getWeight() + 4000);
+    // The cache is bounded, the least recently used topology has been evicted
+    Assert.assertEquals(topologyCache.size(), 2);
+    instanceConfigMap.get("localhost_0").setWeight(1000);
+    Assert.assertNotSame(
+        topologyCache.getTopology(allNodes, liveNodes, instanceConfigMap, clusterConfig), topo);
+
+    clusterConfig.setFaultZoneType("Instance");
+    Assert.assertEquals(
+        topologyCache.getTopology(allNodes, allNodes, instanceConfigMap, clusterConfig)
+            .getFaultZones().size(), 20);
+  }
 }
@@ -183,6 +183,40 @@ public class TestZkBucketDataAccessor extends ZkTestBase {
     Assert.assertEquals(readRecord, property);
   }
 
+  /**
+   * Write with small buckets, so the data spans several batches of buckets, and read it back with
+   * an accessor that has a different bucket size.
+   */
+  @Test(dependsOnMethods = "testLargeWriteAndRead")
+  public void testReadWithDifferentBucketSize() throws IOException {
+    String name = "smallBucketResourceAssignment";
+    HelixProperty property = createLargeHelixProperty(name, 5000);
+    int bucketSize = 1024;
+    BucketDataAccessor smallBucketDataAccessor =
+        new ZkBucketDataAccessor(ZK_ADDR, bucketSize, VERSION_TTL_MS);
+    try {
+      smallBucketDataAccessor.compressedBucketWrite("/" + name, property);
+    } finally {
+      smallBucketDataAccessor.disconnect();
+    }
+
+    // All the buckets but the last one are full
+    String versionPath = "/" + name + "/"
+        + new String(_zkBaseDataAccessor.get("/" + name + "/" + LAST_SUCCESSFUL_WRITE_KEY, null,
+        AccessOption.PERSISTENT));
+    List<String> buckets = _zkBaseDataAccessor.getChildNames(versionPath, AccessOption.PERSISTENT);
+    buckets.remove("METADATA");
+    Assert.assertTrue(buckets.size() > 64);
+    for (int i = 0; i < buckets.size() - 1; i++) {
+      Assert.assertEquals(
+          _zkBaseDataAccessor.get(versionPath + "/" + i, null, AccessOption.PERSISTENT).length,
+          bucketSize);
+    }
+
+    Assert.assertEquals(_bucketDataAccessor.compressedBucketRead("/" + name, HelixProperty.class),
+        property);
+  }
+
   private HelixProperty createLargeHelixProperty(String name, int numEntries) {
     HelixProperty property = new HelixProperty(name);
     for (int i = 0; i < numEntries; i++) {
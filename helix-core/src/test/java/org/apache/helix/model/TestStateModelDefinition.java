@@ -0,0 +1,130 @@
+package org.apache.helix.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Sets;
+import org.apache.helix.HelixDefinedState;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestStateModelDefinition {
+
+  @Test
+  public void testCompiledTransitionTables() {
+    for (BuiltInStateModelDefinitions builtInDef : BuiltInStateModelDefinitions.values()) {
+      StateModelDefinition stateModelDef = builtInDef.getStateModelDefinition();
+      String name = stateModelDef.getId();
+      List<String> states = new ArrayList<>(stateModelDef.getStatesPriorityList());
+      for (HelixDefinedState state : HelixDefinedState.values()) {
+        if (!states.contains(state.name())) {
+          states.add(state.name());
+        }
+      }
+
+      for (String state : states) {
+        int index = stateModelDef.getStateIndex(state);
+        Assert.assertTrue(index >= 0 && index < stateModelDef.getStateCount(), name + ":" + state);
+      }
+      Assert.assertEquals(stateModelDef.getStateCount(), states.size(), name);
+
+      List<String> transitionPriorityList = stateModelDef.getStateTransitionPriorityList();
+      for (String from : states) {
+        Map<String, String> nextStates = stateModelDef.getRecord().getMapField(from + ".next");
+        for (String to : states) {
+          // The transitions defined in the record, the helix-defined ones are added by default
+          String expectedNext = nextStates == null ? null : nextStates.get(to);
+          if (expectedNext == null) {
+            expectedNext = getDefaultNextState(stateModelDef, from, to);
+          }
+          Assert.assertEquals(stateModelDef.getNextStateForTransition(from, to), expectedNext,
+              name + ":" + from + "-" + to);
+
+          int expectedPriority = transitionPriorityList.lastIndexOf(from + "-" + to);
+          Assert.assertEquals(stateModelDef.getTransitionPriority(from, to),
+              expectedPriority < 0 ? Integer.MAX_VALUE : expectedPriority,
+              name + ":" + from + "-" + to);
+          Assert.assertEquals(stateModelDef.getTransitionPriority(stateModelDef.getStateIndex(from),
+              stateModelDef.getStateIndex(to)), stateModelDef.getTransitionPriority(from, to));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testUnknownStates() {
+    StateModelDefinition stateModelDef =
+        BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition();
+    Assert.assertEquals(stateModelDef.getStateIndex("UNKNOWN"), -1);
+    Assert.assertEquals(stateModelDef.getStateIndex(null), -1);
+    Assert.assertNull(stateModelDef.getNextStateForTransition("UNKNOWN", "MASTER"));
+    Assert.assertNull(stateModelDef.getNextStateForTransition(null, "MASTER"));
+    Assert.assertNull(stateModelDef.getNextStateForTransition("MASTER", null));
+    Assert.assertEquals(stateModelDef.getTransitionPriority(-1, 0), Integer.MAX_VALUE);
+    Assert.assertEquals(stateModelDef.getTransitionPriority("UNKNOWN", "MASTER"),
+        Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testTopStates() {
+    StateModelDefinition masterSlave =
+        BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition();
+    Assert.assertTrue(masterSlave.isSingleTopStateModel());
+    Assert.assertEquals(masterSlave.getSecondTopStates(), Collections.singleton("SLAVE"));
+
+    StateModelDefinition onlineOffline =
+        BuiltInStateModelDefinitions.OnlineOffline.getStateModelDefinition();
+    Assert.assertFalse(onlineOffline.isSingleTopStateModel());
+    Assert.assertEquals(onlineOffline.getSecondTopStates(), Collections.singleton("OFFLINE"));
+
+    StateModelDefinition stateModelDef =
+        new StateModelDefinition.Builder("stateModel").initialState("OFFLINE")
+            .addState("MASTER", 0).addState("SLAVE", 1).addState("OFFLINE", 2)
+            .addState("DROPPED", 3).addTransition("OFFLINE", "SLAVE")
+            .addTransition("SLAVE", "MASTER").addTransition("MASTER", "SLAVE")
+            .addTransition("SLAVE", "OFFLINE").addTransition("OFFLINE", "DROPPED")
+            .addTransition("OFFLINE", "MASTER").upperBound("MASTER", 1)
+            .dynamicUpperBound("SLAVE", "R").build();
+    Assert.assertTrue(stateModelDef.isSingleTopStateModel());
+    // The built transition table maps a state to itself, so the top state is listed as well
+    Assert.assertEquals(stateModelDef.getSecondTopStates(),
+        Sets.newHashSet("MASTER", "SLAVE", "OFFLINE"));
+    Assert.assertEquals(stateModelDef.getNextStateForTransition("ERROR", "OFFLINE"), "OFFLINE");
+    Assert.assertEquals(stateModelDef.getNextStateForTransition("OFFLINE", "DROPPED"), "DROPPED");
+  }
+
+  private static String getDefaultNextState(StateModelDefinition stateModelDef, String from,
+      String to) {
+    String error = HelixDefinedState.ERROR.name();
+    String dropped = HelixDefinedState.DROPPED.name();
+    String initialState = stateModelDef.getInitialState();
+    if (from.equals(error) && (to.equals(dropped) || to.equals(initialState))) {
+      return to;
+    }
+    if (from.equals(initialState) && to.equals(dropped)) {
+      return dropped;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,130 @@
+package org.apache.helix.task;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.helix.TestHelper;
+import org.apache.helix.monitoring.mbeans.TaskTimerWheelMonitor;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestTaskTimerWheel {
+
+  @Test
+  public void testExpiration() throws Exception {
+    TaskTimerWheel wheel = new TaskTimerWheel("TestTaskTimerWheel", 10L, 8);
+    try {
+      CountDownLatch latch = new CountDownLatch(1);
+      long startTime = System.currentTimeMillis();
+      // The delay spans multiple rounds of the wheel
+      TaskTimerWheel.Timeout timeout = wheel.schedule(latch::countDown, 300, TimeUnit.MILLISECONDS);
+      Assert.assertEquals(wheel.getPendingTimeoutCount(), 1L);
+      Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+      Assert.assertTrue(System.currentTimeMillis() - startTime >= 300L);
+      Assert.assertTrue(timeout.isExpired());
+      Assert.assertFalse(timeout.cancel());
+      Assert.assertEquals(wheel.getPendingTimeoutCount(), 0L);
+      Assert.assertEquals(wheel.getExpiredTimeoutCount(), 1L);
+      Assert.assertTrue(wheel.getLastExpirationLagMs() >= 0L);
+    } finally {
+      wheel.shutdown();
+    }
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    TaskTimerWheel wheel = new TaskTimerWheel("TestTaskTimerWheel", 10L, 8);
+    try {
+      AtomicInteger runCount = new AtomicInteger(0);
+      TaskTimerWheel.Timeout cancelled =
+          wheel.schedule(runCount::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+      TaskTimerWheel.Timeout expired =
+          wheel.schedule(runCount::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+      Assert.assertTrue(cancelled.cancel());
+      Assert.assertFalse(cancelled.cancel());
+      Assert.assertTrue(cancelled.isCancelled());
+
+      Assert.assertTrue(TestHelper.verify(expired::isExpired, 5000L));
+      Thread.sleep(100L);
+      Assert.assertEquals(runCount.get(), 1);
+      Assert.assertEquals(wheel.getPendingTimeoutCount(), 0L);
+    } finally {
+      wheel.shutdown();
+    }
+  }
+
+  @Test
+  public void testManyTimeouts() throws Exception {
+    TaskTimerWheel wheel = new TaskTimerWheel("TestTaskTimerWheel", 5L, 16);
+    try {
+      int count = 10000;
+      AtomicInteger runCount = new AtomicInteger(0);
+      for (int i = 0; i < count; i++) {
+        TaskTimerWheel.Timeout timeout =
+            wheel.schedule(runCount::incrementAndGet, i % 200, TimeUnit.MILLISECONDS);
+        if (i % 2 == 0) {
+          timeout.cancel();
+        }
+      }
+      Assert.assertTrue(TestHelper.verify(() -> runCount.get() == count / 2, 5000L));
+      Assert.assertEquals(wheel.getPendingTimeoutCount(), 0L);
+    } finally {
+      wheel.shutdown();
+    }
+  }
+
+  @Test
+  public void testMonitor() throws Exception {
+    TaskTimerWheel wheel = new TaskTimerWheel("TestTaskTimerWheel", 10L, 8);
+    TaskTimerWheelMonitor monitor = new TaskTimerWheelMonitor("TestTaskTimerWheel", wheel);
+    try {
+      MBeanServer beanServer = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = monitor.getObjectName();
+      Assert.assertTrue(beanServer.isRegistered(objectName));
+
+      TaskTimerWheel.Timeout expired = wheel.schedule(() -> { }, 50, TimeUnit.MILLISECONDS);
+      wheel.schedule(() -> { }, 1, TimeUnit.HOURS);
+      Assert.assertTrue(TestHelper.verify(expired::isExpired, 5000L));
+      Assert.assertEquals(beanServer.getAttribute(objectName, "PendingTimeoutGauge"), 1L);
+      Assert.assertEquals(beanServer.getAttribute(objectName, "ExpiredTimeoutCounter"), 1L);
+      Assert.assertTrue((long) beanServer.getAttribute(objectName, "LastExpirationLagGauge") >= 0L);
+      Assert.assertTrue((long) beanServer.getAttribute(objectName, "MaxExpirationLagGauge") >= 0L);
+
+      monitor.unregister();
+      Assert.assertFalse(beanServer.isRegistered(objectName));
+    } finally {
+      monitor.unregister();
+      wheel.shutdown();
+    }
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testScheduleAfterShutdown() {
+    TaskTimerWheel wheel = new TaskTimerWheel("TestTaskTimerWheel");
+    wheel.shutdown();
+    wheel.schedule(() -> { }, 10, TimeUnit.MILLISECONDS);
+  }
+}
@@ -25,10 +25,13 @@ import org.apache.helix.rest.server.HelixRestServer;
 import org.apache.helix.util.HelixUtil;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +46,11 @@ public class CustomRestClientFactory {
   // setConnectionRequestTimeout and setSocketTimeout are getting int as input
   private static final int HTTP_REQUEST_TIMEOUT = HelixUtil.getSystemPropertyAsInt(
       RestSystemPropertyKeys.REST_HTTP_TIMEOUT_MS, HttpConstants.DEFAULT_HTTP_REQUEST_TIMEOUT);
+  private static final int HTTP_MAX_CONNECTIONS = HelixUtil.getSystemPropertyAsInt(
+      RestSystemPropertyKeys.REST_HTTP_MAX_CONNECTIONS, HttpConstants.DEFAULT_HTTP_MAX_CONNECTIONS);
+  private static final int HTTP_MAX_CONNECTIONS_PER_HOST = HelixUtil.getSystemPropertyAsInt(
+      RestSystemPropertyKeys.REST_HTTP_MAX_CONNECTIONS_PER_HOST,
+      HttpConstants.DEFAULT_HTTP_MAX_CONNECTIONS_PER_HOST);
 
   private CustomRestClientFactory() {
   }
@@ -52,19 +60,27 @@ public class CustomRestClientFactory {
       synchronized (CustomRestClientFactory.class) {
         if (INSTANCE == null) {
           try {
-            HttpClient httpClient;
             RequestConfig config = RequestConfig.custom().setConnectTimeout(HTTP_REQUEST_TIMEOUT)
                 .setConnectionRequestTimeout(HTTP_REQUEST_TIMEOUT)
                 .setSocketTimeout(HTTP_REQUEST_TIMEOUT).build();
+            RegistryBuilder<ConnectionSocketFactory> socketFactories =
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory());
             if (HelixRestServer.REST_SERVER_SSL_CONTEXT != null) {
-              httpClient =
-                  HttpClients.custom().setSSLContext(HelixRestServer.REST_SERVER_SSL_CONTEXT)
-                      .setSSLSocketFactory(new SSLConnectionSocketFactory(
-                          HelixRestServer.REST_SERVER_SSL_CONTEXT, new NoopHostnameVerifier()))
-                      .setDefaultRequestConfig(config).build();
+              socketFactories.register("https",
+                  new SSLConnectionSocketFactory(HelixRestServer.REST_SERVER_SSL_CONTEXT,
+                      new NoopHostnameVerifier()));
             } else {
-              httpClient = HttpClientBuilder.create().setDefaultRequestConfig(config).build();
+              socketFactories.register("https", SSLConnectionSocketFactory.getSocketFactory());
             }
+            // The connections are kept alive and reused across the requests. The per host limit
+            // caps the concurrent health checks sent to one participant.
+            PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(socketFactories.build());
+            connectionManager.setMaxTotal(HTTP_MAX_CONNECTIONS);
+            connectionManager.setDefaultMaxPerRoute(HTTP_MAX_CONNECTIONS_PER_HOST);
+            HttpClient httpClient = HttpClients.custom().setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(config).build();
             INSTANCE = new CustomRestClientImpl(httpClient);
             return INSTANCE;
           } catch (Exception e) {
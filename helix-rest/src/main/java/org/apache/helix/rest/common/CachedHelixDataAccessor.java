@@ -0,0 +1,321 @@
+package org.apache.helix.rest.common;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.helix.HelixProperty;
+import org.apache.helix.InstanceType;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.manager.zk.ZKHelixDataAccessor;
+import org.apache.helix.manager.zk.ZkBaseDataAccessor;
+import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.zkclient.IZkChildListener;
+import org.apache.helix.zookeeper.zkclient.IZkDataListener;
+import org.apache.helix.zookeeper.zkclient.annotation.PreFetch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ZKHelixDataAccessor} that serves the cluster config, the resource and instance configs,
+ * the IdealStates, the ExternalViews and the live instances of one cluster from memory. Unlike
+ * {@link HelixDataAccessorWrapper}, the cache is shared by all the REST requests on the cluster.
+ * The first read of a ZNode installs a ZK watch on it, and the cached value is dropped as soon as
+ * the watch fires. Every cached entry is stamped with the invalidation count of its path, so a
+ * read that raced with a change is never cached. All the other reads and all the writes go to ZK.
+ * A path is unwatched and dropped from the cache once its ZNode is deleted, if it does not exist or
+ * cannot be cached when it is read, or when more than the max number of paths are cached.
+ * Note that the usage of this object is only valid for the REST requests that accept stale reads.
+ */
+@PreFetch(enabled = false)
+public class CachedHelixDataAccessor extends ZKHelixDataAccessor
+    implements IZkDataListener, IZkChildListener {
+  private static final Logger LOG = LoggerFactory.getLogger(CachedHelixDataAccessor.class);
+  private static final int DEFAULT_MAX_CACHED_PATHS = 10000;
+
+  private final RealmAwareZkClient _zkClient;
+  private final int _maxCachedPaths;
+  // ZNode path -> record, for the property reads
+  private final ConcurrentMap<String, CacheEntry<ZNRecord>> _recordCache =
+      new ConcurrentHashMap<>();
+  // ZNode path -> child names, for the child name reads
+  private final ConcurrentMap<String, CacheEntry<List<String>>> _childNameCache =
+      new ConcurrentHashMap<>();
+  // The paths subscribed, a path is added once its watch is installed
+  private final ConcurrentMap<String, Boolean> _dataWatchPaths = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Boolean> _childWatchPaths = new ConcurrentHashMap<>();
+  // Number of the evicted paths. A read that raced with an eviction is not cached, since the watch
+  // it relied on may have been removed.
+  private final AtomicLong _evictionCount = new AtomicLong(0L);
+  private volatile boolean _closed = false;
+
+  public CachedHelixDataAccessor(String clusterName, RealmAwareZkClient zkClient) {
+    this(clusterName, zkClient, DEFAULT_MAX_CACHED_PATHS);
+  }
+
+  /**
+   * @param clusterName the cluster name
+   * @param zkClient the ZK client, which is not closed with this accessor
+   * @param maxCachedPaths max number of paths cached and watched for the cluster
+   */
+  public CachedHelixDataAccessor(String clusterName, RealmAwareZkClient zkClient,
+      int maxCachedPaths) {
+    super(clusterName, InstanceType.ADMINISTRATOR,
+        new ZkBaseDataAccessor<ZNRecord>(zkClient));
+    _zkClient = zkClient;
+    _maxCachedPaths = maxCachedPaths;
+  }
+
+  /**
+   * Returns true if the value of the given key is served from the cache.
+   */
+  public static boolean isCacheable(PropertyKey key) {
+    switch (key.getType()) {
+    case IDEALSTATES:
+    case EXTERNALVIEW:
+    case LIVEINSTANCES:
+      return true;
+    case CONFIGS:
+      switch (key.getConfigScope()) {
+      case CLUSTER:
+      case RESOURCE:
+      case PARTICIPANT:
+        return true;
+      default:
+        return false;
+      }
+    default:
+      return false;
+    }
+  }
+
+  @Override
+  public <T extends HelixProperty> T getProperty(PropertyKey key) {
+    if (!isCacheable(key) || _closed) {
+      return super.getProperty(key);
+    }
+    String path = key.getPath();
+    CacheEntry<ZNRecord> entry = _recordCache.get(path);
+    if (entry == null || !entry._valid) {
+      long evictionCount = _evictionCount.get();
+      watchData(path);
+      long version = entry == null ? 0 : entry._version;
+      T property = super.getProperty(key);
+      // A missing ZNode is not watched. The bucketized records are assembled from the child
+      // nodes, which are not watched either.
+      if (property == null || property.getBucketSize() > 0) {
+        evictData(path);
+      } else {
+        install(_recordCache, path, version, evictionCount, copyOf(property.getRecord()));
+        evictIfFull();
+      }
+      return property;
+    }
+    // Every caller gets its own copy, so the cached record is never modified
+    @SuppressWarnings("unchecked")
+    T property =
+        (T) HelixProperty.convertToTypedInstance(key.getTypeClass(), copyOf(entry._value));
+    return property;
+  }
+
+  @Override
+  public List<String> getChildNames(PropertyKey key) {
+    if (!isCacheable(key) || _closed) {
+      return super.getChildNames(key);
+    }
+    String path = key.getPath();
+    CacheEntry<List<String>> entry = _childNameCache.get(path);
+    if (entry == null || !entry._valid) {
+      long evictionCount = _evictionCount.get();
+      watchChildren(path);
+      long version = entry == null ? 0 : entry._version;
+      List<String> childNames = super.getChildNames(key);
+      // The parent may not exist, which cannot be told from having no child, so it is not watched
+      if (childNames.isEmpty()) {
+        evictChildren(path);
+      } else {
+        install(_childNameCache, path, version, evictionCount, new ArrayList<>(childNames));
+        evictIfFull();
+      }
+      return childNames;
+    }
+    return new ArrayList<>(entry._value);
+  }
+
+  /**
+   * Unsubscribes all the ZK watches of this accessor and drops the cached values. Reads after
+   * close go to ZK.
+   */
+  public void close() {
+    _closed = true;
+    for (String path : _dataWatchPaths.keySet()) {
+      _zkClient.unsubscribeDataChanges(path, this);
+    }
+    for (String path : _childWatchPaths.keySet()) {
+      _zkClient.unsubscribeChildChanges(path, this);
+    }
+    _dataWatchPaths.clear();
+    _childWatchPaths.clear();
+    _recordCache.clear();
+    _childNameCache.clear();
+  }
+
+  @Override
+  public void handleDataChange(String dataPath, Object data) {
+    invalidate(_recordCache, dataPath);
+  }
+
+  @Override
+  public void handleDataDeleted(String dataPath) {
+    evictData(dataPath);
+  }
+
+  @Override
+  public void handleChildChange(String parentPath, List<String> currentChilds) {
+    if (currentChilds == null) {
+      // The parent is deleted
+      evictChildren(parentPath);
+    } else {
+      invalidate(_childNameCache, parentPath);
+    }
+  }
+
+  /**
+   * @return number of the paths which have a data or child watch
+   */
+  @VisibleForTesting
+  public int getWatchedPathCount() {
+    return _dataWatchPaths.size() + _childWatchPaths.size();
+  }
+
+  /**
+   * Installs the data watch before the first read of the path. The concurrent readers of the
+   * path wait until the watch is installed, so no change after their read is missed.
+   */
+  private void watchData(String path) {
+    _dataWatchPaths.computeIfAbsent(path, p -> {
+      _zkClient.subscribeDataChanges(p, this);
+      return Boolean.TRUE;
+    });
+    if (_closed) {
+      _zkClient.unsubscribeDataChanges(path, this);
+    }
+  }
+
+  private void watchChildren(String path) {
+    _childWatchPaths.computeIfAbsent(path, p -> {
+      _zkClient.subscribeChildChanges(p, this);
+      return Boolean.TRUE;
+    });
+    if (_closed) {
+      _zkClient.unsubscribeChildChanges(path, this);
+    }
+  }
+
+  /**
+   * Removes the data watch of the path and drops its cached value.
+   */
+  private void evictData(String path) {
+    _dataWatchPaths.computeIfPresent(path, (p, v) -> {
+      _zkClient.unsubscribeDataChanges(p, this);
+      return null;
+    });
+    // Counted before the entry is removed, so a concurrent read cannot cache an unwatched value
+    _evictionCount.incrementAndGet();
+    _recordCache.remove(path);
+  }
+
+  private void evictChildren(String path) {
+    _childWatchPaths.computeIfPresent(path, (p, v) -> {
+      _zkClient.unsubscribeChildChanges(p, this);
+      return null;
+    });
+    _evictionCount.incrementAndGet();
+    _childNameCache.remove(path);
+  }
+
+  /**
+   * Evicts the cached paths, in no particular order, until no more than the max are cached.
+   */
+  private void evictIfFull() {
+    Iterator<String> recordPaths = _recordCache.keySet().iterator();
+    while (_recordCache.size() + _childNameCache.size() > _maxCachedPaths
+        && recordPaths.hasNext()) {
+      evictData(recordPaths.next());
+    }
+    Iterator<String> childNamePaths = _childNameCache.keySet().iterator();
+    while (_recordCache.size() + _childNameCache.size() > _maxCachedPaths
+        && childNamePaths.hasNext()) {
+      evictChildren(childNamePaths.next());
+    }
+  }
+
+  /**
+   * Caches the value read from ZK, unless the path was invalidated or any path was evicted since
+   * the read started.
+   */
+  private <V> void install(ConcurrentMap<String, CacheEntry<V>> cache, String path, long version,
+      long evictionCount, V value) {
+    cache.compute(path, (p, current) -> {
+      long currentVersion = current == null ? 0 : current._version;
+      return currentVersion == version && _evictionCount.get() == evictionCount
+          ? new CacheEntry<>(value, version, true) : current;
+    });
+  }
+
+  private static ZNRecord copyOf(ZNRecord record) {
+    ZNRecord copy = new ZNRecord(record);
+    for (Map.Entry<String, Map<String, String>> mapField : record.getMapFields().entrySet()) {
+      copy.setMapField(mapField.getKey(), new TreeMap<>(mapField.getValue()));
+    }
+    for (Map.Entry<String, List<String>> listField : record.getListFields().entrySet()) {
+      copy.setListField(listField.getKey(), new ArrayList<>(listField.getValue()));
+    }
+    return copy;
+  }
+
+  private static <V> void invalidate(ConcurrentMap<String, CacheEntry<V>> cache, String path) {
+    LOG.debug("Invalidate the cached value of {}", path);
+    cache.compute(path, (p, current) -> new CacheEntry<>(null,
+        current == null ? 1 : current._version + 1, false));
+  }
+
+  private static class CacheEntry<V> {
+    private final V _value;
+    // Number of times the path has been invalidated
+    private final long _version;
+    private final boolean _valid;
+
+    CacheEntry(V value, long version, boolean valid) {
+      _value = value;
+      _version = version;
+      _valid = valid;
+    }
+  }
+}
@@ -26,11 +26,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
+import org.apache.helix.HelixException;
 import org.apache.helix.HelixProperty;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.manager.zk.ZKHelixDataAccessor;
@@ -43,19 +46,23 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This is a wrapper for {@link ZKHelixDataAccessor} that caches the result of the batch reads it
- * performs.
+ * performs. The cache is thread safe, and the concurrent reads of a key wait for the first one, so
+ * every key is read from ZK at most once.
  * Note that the usage of this object is valid for one REST request.
  */
 public class HelixDataAccessorWrapper extends ZKHelixDataAccessor {
   private static final Logger LOG = LoggerFactory.getLogger(HelixDataAccessorWrapper.class);
-  private static final ExecutorService POOL = Executors.newCachedThreadPool();
+  private static final ExecutorService POOL = HelixRestUtils.newBoundedThreadPool(
+      "HelixDataAccessorWrapper", RestSystemPropertyKeys.REST_HEALTH_CHECK_PARALLELISM);
 
   public static final String PARTITION_HEALTH_KEY = "PARTITION_HEALTH";
   public static final String IS_HEALTHY_KEY = "IS_HEALTHY";
   public static final String EXPIRY_KEY = "EXPIRE";
 
-  private final Map<PropertyKey, HelixProperty> _propertyCache = new HashMap<>();
-  private final Map<PropertyKey, List<String>> _batchNameCache = new HashMap<>();
+  private final Map<PropertyKey, FutureTask<HelixProperty>> _propertyCache =
+      new ConcurrentHashMap<>();
+  private final Map<PropertyKey, FutureTask<List<String>>> _batchNameCache =
+      new ConcurrentHashMap<>();
   protected CustomRestClient _restClient;
 
   public HelixDataAccessorWrapper(ZKHelixDataAccessor dataAccessor) {
@@ -176,25 +183,59 @@ public class HelixDataAccessorWrapper extends ZKHelixDataAccessor {
     }
   }
 
+  /**
+   * Reads the IdealStates and ExternalViews of all the resources with one batch read, so the
+   * checks of all the instances in a request are evaluated on the same cached cluster state.
+   */
+  public void prefetchResourceStates() {
+    List<String> resources = getChildNames(keyBuilder().idealStates());
+    List<PropertyKey> keys = new ArrayList<>();
+    for (String resource : resources) {
+      keys.add(keyBuilder().idealStates(resource));
+      keys.add(keyBuilder().externalView(resource));
+    }
+    List<HelixProperty> properties = super.getProperty(keys, false);
+    for (int i = 0; i < keys.size(); i++) {
+      HelixProperty property = properties.get(i);
+      FutureTask<HelixProperty> task = new FutureTask<>(() -> property);
+      task.run();
+      _propertyCache.putIfAbsent(keys.get(i), task);
+    }
+  }
+
   @Override
   public <T extends HelixProperty> T getProperty(PropertyKey key) {
-    if (_propertyCache.containsKey(key)) {
-      return (T) _propertyCache.get(key);
-    }
-    T property = super.getProperty(key);
-    _propertyCache.put(key, property);
-    return property;
+    return (T) getOrRead(_propertyCache, key, () -> super.getProperty(key));
   }
 
   @Override
   public List<String> getChildNames(PropertyKey key) {
-    if (_batchNameCache.containsKey(key)) {
-      return _batchNameCache.get(key);
-    }
-
-    List<String> names = super.getChildNames(key);
-    _batchNameCache.put(key, names);
+    return getOrRead(_batchNameCache, key, () -> super.getChildNames(key));
+  }
 
-    return names;
+  private static <V> V getOrRead(Map<PropertyKey, FutureTask<V>> cache, PropertyKey key,
+      Callable<V> reader) {
+    FutureTask<V> task = cache.get(key);
+    if (task == null) {
+      FutureTask<V> newTask = new FutureTask<>(reader);
+      task = cache.putIfAbsent(key, newTask);
+      if (task == null) {
+        task = newTask;
+        task.run();
+      }
+    }
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HelixException("Interrupted while reading " + key.getPath(), e);
+    } catch (ExecutionException e) {
+      // Do not cache the failed read
+      cache.remove(key, task);
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new HelixException("Failed to read " + key.getPath(), e.getCause());
+    }
   }
 }
@@ -19,7 +19,17 @@ package org.apache.helix.rest.common;
  * under the License.
  */
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.helix.util.HelixUtil;
+
 public class HelixRestUtils {
+  private static final int DEFAULT_HEALTH_CHECK_PARALLELISM = 64;
+
   /**
    * Extract namespace information from servlet path. There are 3 cases:
    *  1. /namespaces/namespaceName  ->  return namespaceName
@@ -46,4 +56,19 @@ public class HelixRestUtils {
     return servletPath == null || servletPath.isEmpty();
   }
 
+  /**
+   * Creates a thread pool of daemon threads sized by the given system property. The idle threads
+   * are released after a minute, and the tasks beyond the pool size wait in the queue.
+   * @param name name prefix of the threads
+   * @param parallelismKey system property key of the number of threads
+   */
+  public static ExecutorService newBoundedThreadPool(String name, String parallelismKey) {
+    int parallelism = Math.max(1,
+        HelixUtil.getSystemPropertyAsInt(parallelismKey, DEFAULT_HEALTH_CHECK_PARALLELISM));
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 60L,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build());
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
 }
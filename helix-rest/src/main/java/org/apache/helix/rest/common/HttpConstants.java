@@ -29,4 +29,6 @@ public class HttpConstants {
 
   public static final String HTTP_PROTOCOL_PREFIX = "http://";
   public static final int DEFAULT_HTTP_REQUEST_TIMEOUT = 60 * 1000;
+  public static final int DEFAULT_HTTP_MAX_CONNECTIONS = 200;
+  public static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_HOST = 4;
 }
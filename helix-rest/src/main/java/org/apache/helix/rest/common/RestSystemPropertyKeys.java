@@ -22,4 +22,20 @@ package org.apache.helix.rest.common;
 public class RestSystemPropertyKeys {
   // System property for REST HTTP request timeout
   public static final String REST_HTTP_TIMEOUT_MS = "rest.http.timeout.ms";
+
+  // Max number of pooled connections to the participants' custom health check endpoints
+  public static final String REST_HTTP_MAX_CONNECTIONS = "rest.http.maxConnections";
+
+  // Max number of pooled connections to the custom health check endpoint of one participant
+  public static final String REST_HTTP_MAX_CONNECTIONS_PER_HOST = "rest.http.maxConnectionsPerHost";
+
+  // Number of threads of each pool evaluating the instance health checks
+  public static final String REST_HEALTH_CHECK_PARALLELISM = "rest.healthCheck.parallelism";
+
+  // Max number of clusters whose configs, IdealStates, ExternalViews and live instances are cached
+  // for the cached reads, the least recently used cluster is evicted first
+  public static final String REST_CLUSTER_CACHE_MAX_CLUSTERS = "rest.cluster.cache.maxClusters";
+
+  // Number of clusters read in parallel by the bulk cluster queries of all the REST requests
+  public static final String REST_BULK_QUERY_PARALLELISM = "rest.bulkQuery.parallelism";
 }
@@ -21,6 +21,7 @@ package org.apache.helix.rest.metadatastore;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,7 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.helix.msdcommon.callback.RoutingDataListener;
 import org.apache.helix.msdcommon.constant.MetadataStoreRoutingConstants;
 import org.apache.helix.msdcommon.datamodel.MetadataStoreRoutingData;
+import org.apache.helix.msdcommon.datamodel.RoutingDataDelta;
 import org.apache.helix.msdcommon.datamodel.TrieRoutingData;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
 import org.apache.helix.rest.metadatastore.accessor.MetadataStoreRoutingDataReader;
@@ -121,14 +123,9 @@ public class ZkMetadataStoreDirectory implements MetadataStoreDirectory, Routing
                 e);
           }
           // Populate realmToShardingKeys with ZkRoutingDataReader
-          Map<String, List<String>> rawRoutingData =
-              _routingDataReaderMap.get(namespace).getRoutingData();
-          _realmToShardingKeysMap.put(namespace, rawRoutingData);
-          try {
-            _routingDataMap.put(namespace, new TrieRoutingData(rawRoutingData));
-          } catch (InvalidRoutingDataException e) {
-            LOG.warn("ZkMetadataStoreDirectory: TrieRoutingData is not created for namespace {}",
-                namespace, e);
+          MetadataStoreRoutingDataReader routingDataReader = _routingDataReaderMap.get(namespace);
+          synchronized (routingDataReader) {
+            applyRoutingDataDelta(namespace, routingDataReader.getRoutingDataDelta());
           }
         }
       }
@@ -321,20 +318,67 @@ public class ZkMetadataStoreDirectory implements MetadataStoreDirectory, Routing
       return;
     }
 
-    Map<String, List<String>> rawRoutingData;
-    try {
-      rawRoutingData = _routingDataReaderMap.get(namespace).getRoutingData();
-    } catch (InvalidRoutingDataException e) {
-      LOG.error("Failed to refresh cached routing data for namespace {}", namespace, e);
-      _realmToShardingKeysMap.put(namespace, Collections.emptyMap());
-      _routingDataMap.remove(namespace);
+    // The reader of the namespace also holds its lock while delivering a delta, so the deltas of
+    // a namespace are applied in the order they are read
+    MetadataStoreRoutingDataReader routingDataReader = _routingDataReaderMap.get(namespace);
+    synchronized (routingDataReader) {
+      RoutingDataDelta delta;
+      try {
+        delta = routingDataReader.getRoutingDataDelta();
+      } catch (InvalidRoutingDataException e) {
+        LOG.error("Failed to refresh cached routing data for namespace {}", namespace, e);
+        _realmToShardingKeysMap.put(namespace, Collections.emptyMap());
+        _routingDataMap.remove(namespace);
+        return;
+      }
+      applyRoutingDataDelta(namespace, delta);
+    }
+  }
+
+  /**
+   * Callback for applying the changes of the routing data read by the reader of the namespace.
+   * @param namespace
+   * @param delta
+   */
+  @Override
+  public void refreshRoutingData(String namespace, RoutingDataDelta delta) {
+    if (!_routingZkAddressMap.containsKey(namespace)) {
+      LOG.error(
+          "Failed to refresh internally-cached routing data! Namespace not found: " + namespace);
+      return;
+    }
+    synchronized (_routingDataReaderMap.get(namespace)) {
+      applyRoutingDataDelta(namespace, delta);
+    }
+  }
+
+  /**
+   * Applies the changes of the routing data to the cached routing data. The trie of the namespace
+   * is updated with the changed sharding keys only; it is rebuilt if the delta contains all the
+   * routing data or if the previous routing data was invalid.
+   */
+  private void applyRoutingDataDelta(String namespace, RoutingDataDelta delta) {
+    if (delta.isEmpty()) {
       return;
     }
+    Map<String, List<String>> previousRoutingData = _realmToShardingKeysMap.get(namespace);
+    Map<String, List<String>> rawRoutingData = new HashMap<>();
+    if (!delta.isSnapshot() && previousRoutingData != null) {
+      rawRoutingData.putAll(previousRoutingData);
+      delta.getRemovedRealms().forEach(rawRoutingData::remove);
+    }
+    rawRoutingData.putAll(delta.getUpdatedRealms());
     _realmToShardingKeysMap.put(namespace, rawRoutingData);
 
+    MetadataStoreRoutingData routingData = _routingDataMap.get(namespace);
     TrieRoutingData trieRoutingData;
     try {
-      trieRoutingData = new TrieRoutingData(rawRoutingData);
+      if (!delta.isSnapshot() && routingData instanceof TrieRoutingData) {
+        trieRoutingData = ((TrieRoutingData) routingData)
+            .update(delta.getAddedShardingKeys(), delta.getRemovedShardingKeys());
+      } else {
+        trieRoutingData = new TrieRoutingData(rawRoutingData);
+      }
     } catch (InvalidRoutingDataException e) {
       LOG.warn("TrieRoutingData is not created for namespace {}", namespace, e);
       _routingDataMap.remove(namespace);
@@ -22,6 +22,7 @@ package org.apache.helix.rest.metadatastore.accessor;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.helix.msdcommon.datamodel.RoutingDataDelta;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
 
 
@@ -43,6 +44,16 @@ public interface MetadataStoreRoutingDataReader {
   Map<String, List<String>> getRoutingData()
       throws InvalidRoutingDataException;
 
+  /**
+   * Fetches the changes of the routing data since the previous call of this method, reading only
+   * the parts of the data source that have changed. The first call returns all the routing data.
+   * @return the changes of the routing data
+   * @throws InvalidRoutingDataException - when the routing data is malformed in any way that
+   *           disallows a meaningful mapping to be returned
+   */
+  RoutingDataDelta getRoutingDataDelta()
+      throws InvalidRoutingDataException;
+
   /**
    * Closes any stateful resources such as connections or threads.
    */
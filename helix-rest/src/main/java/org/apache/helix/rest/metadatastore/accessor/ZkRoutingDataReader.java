@@ -19,13 +19,18 @@ package org.apache.helix.rest.metadatastore.accessor;
  * under the License.
  */
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.helix.msdcommon.callback.RoutingDataListener;
 import org.apache.helix.msdcommon.constant.MetadataStoreRoutingConstants;
+import org.apache.helix.msdcommon.datamodel.RoutingDataDelta;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
 import org.apache.helix.rest.metadatastore.ZkMetadataStoreDirectory;
 import org.apache.helix.zookeeper.api.client.HelixZkClient;
@@ -35,15 +40,24 @@ import org.apache.helix.zookeeper.impl.factory.DedicatedZkClientFactory;
 import org.apache.helix.zookeeper.zkclient.IZkChildListener;
 import org.apache.helix.zookeeper.zkclient.IZkDataListener;
 import org.apache.helix.zookeeper.zkclient.IZkStateListener;
+import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncCallbacks;
 import org.apache.helix.zookeeper.zkclient.exception.ZkNoNodeException;
+import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 public class ZkRoutingDataReader implements MetadataStoreRoutingDataReader, IZkDataListener, IZkChildListener, IZkStateListener {
+  private static final Logger LOG = LoggerFactory.getLogger(ZkRoutingDataReader.class);
+
   private final String _namespace;
   private final String _zkAddress;
   private final HelixZkClient _zkClient;
   private final RoutingDataListener _routingDataListener;
+  // realm -> the realm ZNode at the previous getRoutingDataDelta(), null before the first call
+  private Map<String, RealmRecord> _realmRecords;
 
   public ZkRoutingDataReader(String namespace, String zkAddress,
       RoutingDataListener routingDataListener) {
@@ -98,6 +112,94 @@ public class ZkRoutingDataReader implements MetadataStoreRoutingDataReader, IZkD
     return routingData;
   }
 
+  /**
+   * Returns the changes of the routing data since the previous call. The stats of all the realm
+   * ZNodes are read in a batch of async calls, and only the realm ZNodes modified since the
+   * previous call are read. The mzxid is compared rather than the version, so a realm ZNode
+   * deleted and created again is read as well.
+   * @throws InvalidRoutingDataException - when the node on
+   *           MetadataStoreRoutingConstants.ROUTING_DATA_PATH is missing
+   */
+  @Override
+  public synchronized RoutingDataDelta getRoutingDataDelta() throws InvalidRoutingDataException {
+    boolean isSnapshot = _realmRecords == null;
+    Map<String, RealmRecord> previousRecords =
+        isSnapshot ? Collections.emptyMap() : _realmRecords;
+    List<String> allRealmAddresses;
+    try {
+      allRealmAddresses = _zkClient.getChildren(MetadataStoreRoutingConstants.ROUTING_DATA_PATH);
+    } catch (ZkNoNodeException e) {
+      _realmRecords = null;
+      throw new InvalidRoutingDataException(
+          "Routing data directory ZNode " + MetadataStoreRoutingConstants.ROUTING_DATA_PATH
+              + " does not exist. Routing ZooKeeper address: " + _zkAddress);
+    }
+
+    // Read the stats of all the realm ZNodes at once
+    List<ZkAsyncCallbacks.ExistsCallbackHandler> callbacks =
+        new ArrayList<>(allRealmAddresses.size());
+    for (String realmAddress : allRealmAddresses) {
+      ZkAsyncCallbacks.ExistsCallbackHandler callback =
+          new ZkAsyncCallbacks.ExistsCallbackHandler();
+      _zkClient.asyncExists(getRealmPath(realmAddress), callback);
+      callbacks.add(callback);
+    }
+
+    Map<String, RealmRecord> realmRecords = new HashMap<>();
+    Map<String, List<String>> updatedRealms = new HashMap<>();
+    Map<String, List<String>> addedShardingKeys = new HashMap<>();
+    Set<String> removedShardingKeys = new HashSet<>();
+    for (int i = 0; i < allRealmAddresses.size(); i++) {
+      String realmAddress = allRealmAddresses.get(i);
+      ZkAsyncCallbacks.ExistsCallbackHandler callback = callbacks.get(i);
+      callback.waitForSuccess();
+      if (KeeperException.Code.get(callback.getRc()) != KeeperException.Code.OK) {
+        // The realm is deleted after the children are read
+        continue;
+      }
+      RealmRecord previousRecord = previousRecords.get(realmAddress);
+      if (previousRecord != null && previousRecord._mzxid == callback._stat.getMzxid()) {
+        realmRecords.put(realmAddress, previousRecord);
+        continue;
+      }
+
+      RealmRecord record = readRealmRecord(realmAddress);
+      if (record == null) {
+        continue;
+      }
+      realmRecords.put(realmAddress, record);
+      updatedRealms.put(realmAddress, record._shardingKeys);
+      Set<String> previousKeys = previousRecord == null ? Collections.emptySet()
+          : new HashSet<>(previousRecord._shardingKeys);
+      Set<String> currentKeys = new LinkedHashSet<>(record._shardingKeys);
+      for (String shardingKey : currentKeys) {
+        if (!previousKeys.contains(shardingKey)) {
+          addedShardingKeys.computeIfAbsent(realmAddress, realm -> new ArrayList<>())
+              .add(shardingKey);
+        }
+      }
+      for (String shardingKey : previousKeys) {
+        if (!currentKeys.contains(shardingKey)) {
+          removedShardingKeys.add(shardingKey);
+        }
+      }
+    }
+
+    Set<String> removedRealms = new HashSet<>();
+    for (Map.Entry<String, RealmRecord> entry : previousRecords.entrySet()) {
+      if (!realmRecords.containsKey(entry.getKey())) {
+        removedRealms.add(entry.getKey());
+        removedShardingKeys.addAll(entry.getValue()._shardingKeys);
+      }
+    }
+    _realmRecords = realmRecords;
+    RoutingDataDelta delta =
+        new RoutingDataDelta(isSnapshot, updatedRealms, removedRealms, addedShardingKeys,
+            removedShardingKeys);
+    LOG.debug("Read routing data delta for namespace {}: {}", _namespace, delta);
+    return delta;
+  }
+
   public synchronized void close() {
     _zkClient.unsubscribeAll();
     _zkClient.close();
@@ -108,7 +210,7 @@ public class ZkRoutingDataReader implements MetadataStoreRoutingDataReader, IZkD
     if (_zkClient == null || _zkClient.isClosed()) {
       return;
     }
-    _routingDataListener.refreshRoutingData(_namespace);
+    notifyRoutingDataListener();
   }
 
   @Override
@@ -128,7 +230,7 @@ public class ZkRoutingDataReader implements MetadataStoreRoutingDataReader, IZkD
     if (_zkClient == null || _zkClient.isClosed()) {
       return;
     }
-    _routingDataListener.refreshRoutingData(_namespace);
+    notifyRoutingDataListener();
   }
 
   @Override
@@ -136,7 +238,7 @@ public class ZkRoutingDataReader implements MetadataStoreRoutingDataReader, IZkD
     if (_zkClient == null || _zkClient.isClosed()) {
       return;
     }
-    _routingDataListener.refreshRoutingData(_namespace);
+    notifyRoutingDataListener();
   }
 
   @Override
@@ -144,7 +246,7 @@ public class ZkRoutingDataReader implements MetadataStoreRoutingDataReader, IZkD
     if (_zkClient == null || _zkClient.isClosed()) {
       return;
     }
-    _routingDataListener.refreshRoutingData(_namespace);
+    notifyRoutingDataListener();
   }
 
   private void handleResubscription() {
@@ -154,6 +256,56 @@ public class ZkRoutingDataReader implements MetadataStoreRoutingDataReader, IZkD
     // Renew subscription
     _zkClient.unsubscribeAll();
     _zkClient.subscribeRoutingDataChanges(this, this);
-    _routingDataListener.refreshRoutingData(_namespace);
+    notifyRoutingDataListener();
+  }
+
+  /**
+   * Sends the changes of the routing data to the listener. It is called with the lock of this
+   * reader held, so the deltas are delivered in the order they are read.
+   */
+  private void notifyRoutingDataListener() {
+    RoutingDataDelta delta;
+    try {
+      delta = getRoutingDataDelta();
+    } catch (InvalidRoutingDataException e) {
+      // Let the listener reload and handle the invalid routing data
+      _routingDataListener.refreshRoutingData(_namespace);
+      return;
+    }
+    if (!delta.isEmpty()) {
+      _routingDataListener.refreshRoutingData(_namespace, delta);
+    }
+  }
+
+  private RealmRecord readRealmRecord(String realmAddress) {
+    Stat stat = new Stat();
+    ZNRecord record;
+    try {
+      record = _zkClient.readData(getRealmPath(realmAddress), stat);
+    } catch (ZkNoNodeException e) {
+      return null;
+    }
+    if (record == null) {
+      return null;
+    }
+    List<String> shardingKeys =
+        record.getListField(MetadataStoreRoutingConstants.ZNRECORD_LIST_FIELD_KEY);
+    return new RealmRecord(stat.getMzxid(),
+        shardingKeys != null ? shardingKeys : Collections.emptyList());
+  }
+
+  private static String getRealmPath(String realmAddress) {
+    return MetadataStoreRoutingConstants.ROUTING_DATA_PATH + "/" + realmAddress;
+  }
+
+  private static class RealmRecord {
+    // zxid of the last modification of the realm ZNode
+    private final long _mzxid;
+    private final List<String> _shardingKeys;
+
+    RealmRecord(long mzxid, List<String> shardingKeys) {
+      _mzxid = mzxid;
+      _shardingKeys = shardingKeys;
+    }
   }
 }
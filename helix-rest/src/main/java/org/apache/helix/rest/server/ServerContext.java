@@ -21,6 +21,10 @@ package org.apache.helix.rest.server;
  */
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -37,9 +41,12 @@ import org.apache.helix.manager.zk.ZKHelixAdmin;
 import org.apache.helix.manager.zk.ZKHelixDataAccessor;
 import org.apache.helix.manager.zk.ZkBaseDataAccessor;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
+import org.apache.helix.rest.common.CachedHelixDataAccessor;
+import org.apache.helix.rest.common.RestSystemPropertyKeys;
 import org.apache.helix.rest.metadatastore.ZkMetadataStoreDirectory;
 import org.apache.helix.task.TaskDriver;
 import org.apache.helix.tools.ClusterSetup;
+import org.apache.helix.util.HelixUtil;
 import org.apache.helix.zookeeper.api.client.HelixZkClient;
 import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
@@ -59,6 +66,7 @@ import org.slf4j.LoggerFactory;
 
 public class ServerContext implements IZkDataListener, IZkChildListener, IZkStateListener {
   private static final Logger LOG = LoggerFactory.getLogger(ServerContext.class);
+  private static final int DEFAULT_CLUSTER_CACHE_MAX_CLUSTERS = 100;
 
   private final String _zkAddr;
   private boolean _isMultiZkEnabled;
@@ -75,6 +83,9 @@ public class ServerContext implements IZkDataListener, IZkChildListener, IZkStat
   private final Map<String, HelixDataAccessor> _helixDataAccessorPool;
   // 1 Cluster name will correspond to 1 task driver
   private final Map<String, TaskDriver> _taskDriverPool;
+  // 1 Cluster name will correspond to 1 cached data accessor, in access order for the LRU eviction
+  private final Map<String, CachedHelixDataAccessor> _cachedDataAccessorPool;
+  private final int _maxCachedClusters;
 
   /**
    * Multi-ZK support
@@ -104,6 +115,9 @@ public class ServerContext implements IZkDataListener, IZkChildListener, IZkStat
     // cannot be started correctly.
     _helixDataAccessorPool = new ConcurrentHashMap<>();
     _taskDriverPool = new ConcurrentHashMap<>();
+    _maxCachedClusters = HelixUtil.getSystemPropertyAsInt(
+        RestSystemPropertyKeys.REST_CLUSTER_CACHE_MAX_CLUSTERS, DEFAULT_CLUSTER_CACHE_MAX_CLUSTERS);
+    _cachedDataAccessorPool = new LinkedHashMap<>(16, 0.75f, true);
 
     // Initialize the singleton ZkMetadataStoreDirectory instance to allow it to be closed later
     _zkMetadataStoreDirectory = ZkMetadataStoreDirectory.getInstance();
@@ -223,6 +237,42 @@ public class ServerContext implements IZkDataListener, IZkChildListener, IZkStat
     return dataAccessor;
   }
 
+  /**
+   * Returns the data accessor that serves the configs, IdealStates, ExternalViews and live
+   * instances of the cluster from a cache kept up to date by ZK watches. The caches of the least
+   * recently used clusters are dropped once more than the configured number of clusters are cached.
+   * If the cache is disabled (max clusters <= 0), the regular data accessor is returned.
+   * @param clusterName
+   * @return
+   */
+  public HelixDataAccessor getCachedDataAccessor(String clusterName) {
+    if (_maxCachedClusters <= 0) {
+      return getDataAccessor(clusterName);
+    }
+    List<Map.Entry<String, CachedHelixDataAccessor>> evicted = new ArrayList<>();
+    CachedHelixDataAccessor dataAccessor;
+    synchronized (_cachedDataAccessorPool) {
+      dataAccessor = _cachedDataAccessorPool.get(clusterName);
+      if (dataAccessor == null) {
+        dataAccessor = new CachedHelixDataAccessor(clusterName, getRealmAwareZkClient());
+        _cachedDataAccessorPool.put(clusterName, dataAccessor);
+        while (_cachedDataAccessorPool.size() > _maxCachedClusters) {
+          Iterator<Map.Entry<String, CachedHelixDataAccessor>> iterator =
+              _cachedDataAccessorPool.entrySet().iterator();
+          Map.Entry<String, CachedHelixDataAccessor> eldest = iterator.next();
+          evicted.add(new AbstractMap.SimpleEntry<>(eldest));
+          iterator.remove();
+        }
+      }
+    }
+    // Unsubscribe outside of the lock since it talks to ZK
+    for (Map.Entry<String, CachedHelixDataAccessor> entry : evicted) {
+      LOG.info("ServerContext: Evicting the cached data of cluster {}", entry.getKey());
+      entry.getValue().close();
+    }
+    return dataAccessor;
+  }
+
   /**
    * Returns a lazily-instantiated ZkBaseDataAccessor for the byte array type.
    * @return
@@ -240,6 +290,7 @@ public class ServerContext implements IZkDataListener, IZkChildListener, IZkStat
   }
 
   public void close() {
+    closeCachedDataAccessors();
     if (_zkClient != null) {
       _zkClient.close();
     }
@@ -251,6 +302,17 @@ public class ServerContext implements IZkDataListener, IZkChildListener, IZkStat
     }
   }
 
+  private void closeCachedDataAccessors() {
+    List<CachedHelixDataAccessor> dataAccessors;
+    synchronized (_cachedDataAccessorPool) {
+      dataAccessors = new ArrayList<>(_cachedDataAccessorPool.values());
+      _cachedDataAccessorPool.clear();
+    }
+    for (CachedHelixDataAccessor dataAccessor : dataAccessors) {
+      dataAccessor.close();
+    }
+  }
+
   @Override
   public void handleChildChange(String parentPath, List<String> currentChilds) {
     if (_zkClientForListener == null || _zkClientForListener.isClosed()) {
@@ -325,6 +387,8 @@ public class ServerContext implements IZkDataListener, IZkChildListener, IZkStat
       try {
         // Reset HttpRoutingDataReader's cache
         HttpRoutingDataReader.reset();
+        // The cached data accessors unsubscribe their watches, so they are closed before ZkClient
+        closeCachedDataAccessors();
         // All Helix APIs will be closed implicitly because ZkClient is closed
         if (_zkClient != null && !_zkClient.isClosed()) {
           _zkClient.close();
@@ -20,6 +20,8 @@ package org.apache.helix.rest.server.filters;
  */
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -35,7 +37,10 @@ import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.container.PreMatching;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
 
 import com.google.common.io.CharStreams;
 import org.apache.helix.rest.common.HelixRestUtils;
@@ -46,8 +51,11 @@ import org.slf4j.LoggerFactory;
 
 @Provider
 @PreMatching
-public class AuditLogFilter implements ContainerRequestFilter, ContainerResponseFilter {
+public class AuditLogFilter
+    implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
   private static Logger _logger = LoggerFactory.getLogger(AuditLogFilter.class.getName());
+  // Max bytes of a streamed response entity kept for the audit log, the rest is only counted
+  private static final int MAX_STREAMED_ENTITY_BYTES = 64 * 1024;
 
   @Context
   private HttpServletRequest _servletRequest;
@@ -88,21 +96,81 @@ public class AuditLogFilter implements ContainerRequestFilter, ContainerResponse
       auditLogBuilder = (AuditLog.Builder) request.getProperty(AuditLog.ATTRIBUTE_NAME);
       auditLogBuilder.completeTime(new Date()).responseCode(response.getStatus());
       Object entity = response.getEntity();
+      if (entity instanceof StreamingOutput) {
+        // The entity is only known once it is written, see aroundWriteTo
+        return;
+      }
       if(entity != null && entity instanceof String) {
         auditLogBuilder.responseEntity((String) response.getEntity());
       }
 
-      AuditLog auditLog = auditLogBuilder.build();
-      if (_auditLoggers != null) {
-        for (AuditLogger logger : _auditLoggers) {
-          logger.write(auditLog);
-        }
-      }
+      writeAuditLog(auditLogBuilder);
     } catch (Exception ex) {
       _logger.error("Failed to add audit log " + ex);
     }
   }
 
+  /**
+   * Records the head of the entity of a streamed response while it is written to the client, and
+   * writes the audit log once the response is complete. At most MAX_STREAMED_ENTITY_BYTES are
+   * kept, so a large response is never held in memory.
+   */
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+    Object builder = context.getProperty(AuditLog.ATTRIBUTE_NAME);
+    if (_auditLoggers == null || _auditLoggers.isEmpty()
+        || !(builder instanceof AuditLog.Builder)
+        || !(context.getEntity() instanceof StreamingOutput)) {
+      context.proceed();
+      return;
+    }
+
+    AuditLog.Builder auditLogBuilder = (AuditLog.Builder) builder;
+    ByteArrayOutputStream entity = new ByteArrayOutputStream();
+    long[] entityLength = new long[1];
+    context.setOutputStream(new FilterOutputStream(context.getOutputStream()) {
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        if (entityLength[0]++ < MAX_STREAMED_ENTITY_BYTES) {
+          entity.write(b);
+        }
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        if (entityLength[0] < MAX_STREAMED_ENTITY_BYTES) {
+          entity.write(b, off, (int) Math.min(len, MAX_STREAMED_ENTITY_BYTES - entityLength[0]));
+        }
+        entityLength[0] += len;
+      }
+    });
+    try {
+      context.proceed();
+    } finally {
+      try {
+        String responseEntity = new String(entity.toByteArray(), StandardCharsets.UTF_8);
+        if (entityLength[0] > MAX_STREAMED_ENTITY_BYTES) {
+          responseEntity += String.format("...(truncated, %d bytes in total)", entityLength[0]);
+        }
+        auditLogBuilder.completeTime(new Date()).responseEntity(responseEntity);
+        writeAuditLog(auditLogBuilder);
+      } catch (Exception ex) {
+        _logger.error("Failed to add audit log " + ex);
+      }
+    }
+  }
+
+  private void writeAuditLog(AuditLog.Builder auditLogBuilder) {
+    AuditLog auditLog = auditLogBuilder.build();
+    if (_auditLoggers != null) {
+      for (AuditLogger logger : _auditLoggers) {
+        logger.write(auditLog);
+      }
+    }
+  }
+
   private List<String> getHeaders(MultivaluedMap<String, String> headersMap) {
     List<String> headers = new ArrayList<>();
     for (String key : headersMap.keySet()) {
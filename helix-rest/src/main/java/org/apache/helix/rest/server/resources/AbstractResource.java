@@ -21,8 +21,14 @@ package org.apache.helix.rest.server.resources;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
@@ -30,9 +36,12 @@ import javax.ws.rs.core.Application;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.helix.HelixException;
 import org.apache.helix.rest.server.auditlog.AuditLog;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.SerializationConfig;
 import org.slf4j.Logger;
@@ -48,7 +57,8 @@ public class AbstractResource {
     disabled,
     history,
     count,
-    error
+    error,
+    nextCursor
   }
 
   public enum Command {
@@ -76,7 +86,8 @@ public class AbstractResource {
     enableWagedRebalance,
     enableWagedRebalanceForAllResources,
     getInstance,
-    getAllInstances
+    getAllInstances,
+    bulkQuery
   }
 
   @Context
@@ -154,6 +165,106 @@ public class AbstractResource {
     }
   }
 
+  /**
+   * Writes the body of a streamed JSON response.
+   */
+  protected interface JsonStreamWriter {
+    void write(JsonGenerator generator) throws IOException;
+  }
+
+  /**
+   * Returns a JSON response that serializes the entity straight to the response output stream,
+   * so large entities are never held in memory as a JSON string.
+   */
+  protected Response StreamingJSONRepresentation(Object entity) {
+    return StreamingJSONRepresentation(generator -> OBJECT_MAPPER.writeValue(generator, entity));
+  }
+
+  /**
+   * Returns a JSON response whose body is written by the writer to the response output stream,
+   * so list endpoints can emit their elements one by one instead of building a JSON tree first.
+   */
+  protected Response StreamingJSONRepresentation(JsonStreamWriter writer) {
+    StreamingOutput jsonStream = outputStream -> {
+      try {
+        JsonGenerator generator =
+            OBJECT_MAPPER.getJsonFactory().createJsonGenerator(outputStream, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.useDefaultPrettyPrinter();
+        writer.write(generator);
+        generator.writeRaw('\n');
+        generator.close();
+      } catch (IOException e) {
+        _logger.error("Failed to write JSON response", e);
+        throw e;
+      }
+    };
+    return Response.ok(jsonStream, MediaType.APPLICATION_JSON_TYPE).build();
+  }
+
+  /**
+   * Writes the names as a JSON array field.
+   */
+  protected static void writeStringArrayField(JsonGenerator generator, String fieldName,
+      Collection<String> names) throws IOException {
+    generator.writeArrayFieldStart(fieldName);
+    for (String name : names) {
+      generator.writeString(name);
+    }
+    generator.writeEndArray();
+  }
+
+  /**
+   * A page of names of a list endpoint.
+   */
+  protected static class Page {
+    private final List<String> _names;
+    private final String _nextCursor;
+
+    public Page(List<String> names, String nextCursor) {
+      _names = names;
+      _nextCursor = nextCursor;
+    }
+
+    public List<String> getNames() {
+      return _names;
+    }
+
+    /**
+     * @return the cursor of the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+      return _nextCursor;
+    }
+  }
+
+  /**
+   * Returns the names after the cursor in lexicographical order, at most limit of them. The cursor
+   * of a page is the last name of the previous page, so the pages stay consistent while names are
+   * added or removed. Without a cursor and a positive limit, all the names are returned in their
+   * original order.
+   * @param names all the names
+   * @param cursor the cursor returned with the previous page, or null for the first page
+   * @param limit max number of names of the page, non-positive for no limit
+   */
+  protected static Page getPage(Collection<String> names, String cursor, int limit) {
+    if (cursor == null && limit <= 0) {
+      return new Page(new ArrayList<>(names), null);
+    }
+    NavigableSet<String> sortedNames = new TreeSet<>(names);
+    if (cursor != null) {
+      sortedNames = sortedNames.tailSet(cursor, false);
+    }
+    List<String> pageNames = new ArrayList<>();
+    Iterator<String> iterator = sortedNames.iterator();
+    while (iterator.hasNext() && (limit <= 0 || pageNames.size() < limit)) {
+      pageNames.add(iterator.next());
+    }
+    String nextCursor =
+        iterator.hasNext() && !pageNames.isEmpty() ? pageNames.get(pageNames.size() - 1) : null;
+    return new Page(pageNames, nextCursor);
+  }
+
   protected static ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
   protected static String toJson(Object object)
@@ -26,6 +26,7 @@ import org.apache.helix.ConfigAccessor;
 import org.apache.helix.HelixAdmin;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.rest.common.ContextPropertyKeys;
+import org.apache.helix.rest.common.HttpConstants;
 import org.apache.helix.rest.server.ServerContext;
 import org.apache.helix.rest.server.resources.AbstractResource;
 import org.apache.helix.task.TaskDriver;
@@ -41,6 +42,15 @@ import org.apache.helix.zookeeper.impl.client.ZkClient;
  * metadata store.
  */
 public class AbstractHelixResource extends AbstractResource {
+  // The query parameter for the freshness of the data read by a GET request
+  public static final String FRESHNESS_PARAM = "freshness";
+
+  public enum Freshness {
+    // Read from the metadata store, the default
+    strong,
+    // Read from the cache of the cluster, which may lag behind the metadata store
+    cached
+  }
 
   public RealmAwareZkClient getRealmAwareZkClient() {
     ServerContext serverContext = getServerContext();
@@ -72,11 +82,28 @@ public class AbstractHelixResource extends AbstractResource {
     return serverContext.getConfigAccessor();
   }
 
+  /**
+   * Returns the data accessor of the cluster. The GET requests with "freshness=cached" get the
+   * accessor that serves the configs, IdealStates, ExternalViews and live instances from the cache
+   * of the cluster.
+   */
   public HelixDataAccessor getDataAccssor(String clusterName) {
     ServerContext serverContext = getServerContext();
+    if (isCachedRead()) {
+      return serverContext.getCachedDataAccessor(clusterName);
+    }
     return serverContext.getDataAccessor(clusterName);
   }
 
+  /**
+   * Returns true if the request is a GET that accepts cached data.
+   */
+  protected boolean isCachedRead() {
+    return _servletRequest != null
+        && HttpConstants.RestVerbs.GET.name().equals(_servletRequest.getMethod())
+        && Freshness.cached.name().equalsIgnoreCase(_servletRequest.getParameter(FRESHNESS_PARAM));
+  }
+
   protected BaseDataAccessor<byte[]> getByteArrayDataAccessor() {
     return getServerContext().getByteArrayZkBaseDataAccessor();
   }
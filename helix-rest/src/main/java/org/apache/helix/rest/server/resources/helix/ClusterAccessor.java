@@ -20,10 +20,21 @@ package org.apache.helix.rest.server.resources.helix;
  */
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -38,17 +49,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.helix.AccessOption;
+import org.apache.helix.BaseDataAccessor;
 import org.apache.helix.ConfigAccessor;
 import org.apache.helix.HelixAdmin;
 import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixDefinedState;
 import org.apache.helix.HelixException;
+import org.apache.helix.InstanceType;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.PropertyPathBuilder;
+import org.apache.helix.manager.zk.ZKHelixDataAccessor;
 import org.apache.helix.manager.zk.ZKUtil;
+import org.apache.helix.manager.zk.ZkBaseDataAccessor;
 import org.apache.helix.model.CloudConfig;
 import org.apache.helix.model.ClusterConfig;
 import org.apache.helix.model.ControllerHistory;
 import org.apache.helix.model.CustomizedStateConfig;
+import org.apache.helix.model.ExternalView;
 import org.apache.helix.model.HelixConfigScope;
 import org.apache.helix.model.LiveInstance;
 import org.apache.helix.model.MaintenanceSignal;
@@ -56,6 +73,8 @@ import org.apache.helix.model.Message;
 import org.apache.helix.model.RESTConfig;
 import org.apache.helix.model.StateModelDefinition;
 import org.apache.helix.model.builder.HelixConfigScopeBuilder;
+import org.apache.helix.rest.common.HelixRestUtils;
+import org.apache.helix.rest.common.RestSystemPropertyKeys;
 import org.apache.helix.rest.server.json.cluster.ClusterTopology;
 import org.apache.helix.rest.server.service.ClusterService;
 import org.apache.helix.rest.server.service.ClusterServiceImpl;
@@ -83,9 +102,28 @@ public class ClusterAccessor extends AbstractHelixResource {
     clusters,
     maintenanceSignal,
     maintenanceHistory,
-    clusterName
+    clusterName,
+    fields,
+    instanceCount,
+    liveInstanceCount,
+    resourceCount,
+    errorPartitions
   }
 
+  // The fields that can be projected by a bulk cluster query
+  private static final Set<ClusterProperties> BULK_QUERY_FIELDS = Collections.unmodifiableSet(
+      EnumSet.of(ClusterProperties.controller, ClusterProperties.instances,
+          ClusterProperties.instanceCount, ClusterProperties.liveInstances,
+          ClusterProperties.liveInstanceCount, ClusterProperties.resources,
+          ClusterProperties.resourceCount, ClusterProperties.paused, ClusterProperties.maintenance,
+          ClusterProperties.errorPartitions));
+
+  // Shared by all the bulk cluster queries, so the ZK reads of one query are bounded as well as the
+  // ZK reads of all the concurrent queries
+  private static final ExecutorService BULK_QUERY_POOL = HelixRestUtils
+      .newBoundedThreadPool("ClusterAccessor-bulkQuery",
+          RestSystemPropertyKeys.REST_BULK_QUERY_PARALLELISM);
+
   @GET
   public Response getClusters() {
     HelixAdmin helixAdmin = getHelixAdmin();
@@ -97,6 +135,81 @@ public class ClusterAccessor extends AbstractHelixResource {
     return JSONRepresentation(dataMap);
   }
 
+  /**
+   * Reads the given fields of a list of clusters. The request body is a JSON object such as
+   * {"clusters": ["cluster0", "cluster1"], "fields": ["liveInstanceCount", "errorPartitions"]},
+   * and all the supported fields are read if "fields" is not given. The clusters are read in
+   * parallel, and the fields of each cluster are written to the response, keyed by the cluster
+   * name, as soon as they are read. A cluster that does not exist or fails to be read maps to an
+   * error message.
+   */
+  @POST
+  public Response queryClusters(@QueryParam("command") String commandStr, String content) {
+    Command command;
+    try {
+      command = getCommand(commandStr);
+    } catch (HelixException ex) {
+      return badRequest(ex.getMessage());
+    }
+    if (command != Command.bulkQuery) {
+      return badRequest("Unsupported command " + command + ".");
+    }
+    if (content == null || content.isEmpty()) {
+      return badRequest("Bulk query is missing!");
+    }
+
+    Set<String> clusters;
+    Set<ClusterProperties> fields;
+    try {
+      Map<String, List<String>> query =
+          OBJECT_MAPPER.readValue(content, new TypeReference<HashMap<String, List<String>>>() {
+          });
+      List<String> clusterList = query.get(ClusterProperties.clusters.name());
+      if (clusterList == null || clusterList.isEmpty()) {
+        return badRequest("No cluster to query!");
+      }
+      clusters = new LinkedHashSet<>(clusterList);
+      fields = getBulkQueryFields(query.get(ClusterProperties.fields.name()));
+    } catch (IOException | IllegalArgumentException e) {
+      return badRequest("Invalid bulk query " + content + ": " + e.getMessage());
+    }
+
+    // The request scoped objects are not available to the pool threads, so the accessors of the
+    // clusters share the ZK client resolved here
+    RealmAwareZkClient zkClient = getRealmAwareZkClient();
+    BaseDataAccessor<ZNRecord> baseDataAccessor = new ZkBaseDataAccessor<>(zkClient);
+    CompletionService<Map.Entry<String, Map<String, Object>>> completionService =
+        new ExecutorCompletionService<>(BULK_QUERY_POOL);
+    List<Future<Map.Entry<String, Map<String, Object>>>> futures = new ArrayList<>();
+    for (String cluster : clusters) {
+      futures.add(completionService.submit(() -> new AbstractMap.SimpleImmutableEntry<>(cluster,
+          queryCluster(cluster, fields, zkClient, baseDataAccessor))));
+    }
+
+    return StreamingJSONRepresentation(generator -> {
+      try {
+        generator.writeStartObject();
+        for (int i = 0; i < futures.size(); i++) {
+          Map.Entry<String, Map<String, Object>> clusterResult = completionService.take().get();
+          generator.writeFieldName(clusterResult.getKey());
+          OBJECT_MAPPER.writeValue(generator, clusterResult.getValue());
+          generator.flush();
+        }
+        generator.writeEndObject();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while querying clusters " + clusters, e);
+      } catch (ExecutionException e) {
+        throw new IOException("Failed to query clusters " + clusters, e.getCause());
+      } finally {
+        // Stop reading the clusters if the response is aborted
+        for (Future<Map.Entry<String, Map<String, Object>>> future : futures) {
+          future.cancel(true);
+        }
+      }
+    });
+  }
+
   @GET
   @Path("{clusterId}")
   public Response getClusterInfo(@PathParam("clusterId") String clusterId) {
@@ -763,6 +876,100 @@ public class ClusterAccessor extends AbstractHelixResource {
         .of(ClusterProperties.maintenance.name(), getHelixAdmin().isInMaintenanceMode(clusterId)));
   }
 
+  private static Set<ClusterProperties> getBulkQueryFields(List<String> fieldNames) {
+    if (fieldNames == null) {
+      return BULK_QUERY_FIELDS;
+    }
+    Set<ClusterProperties> fields = EnumSet.noneOf(ClusterProperties.class);
+    for (String fieldName : fieldNames) {
+      ClusterProperties field = ClusterProperties.valueOf(fieldName);
+      if (!BULK_QUERY_FIELDS.contains(field)) {
+        throw new IllegalArgumentException("Unsupported field " + fieldName);
+      }
+      fields.add(field);
+    }
+    return fields;
+  }
+
+  /**
+   * Reads the given fields of one cluster. The ExternalViews of the cluster are read in a batch of
+   * async ZK reads.
+   */
+  private static Map<String, Object> queryCluster(String clusterId,
+      Set<ClusterProperties> fields, RealmAwareZkClient zkClient,
+      BaseDataAccessor<ZNRecord> baseDataAccessor) {
+    Map<String, Object> clusterInfo = new HashMap<>();
+    try {
+      if (!ZKUtil.isClusterSetup(clusterId, zkClient)) {
+        clusterInfo.put(Properties.error.name(), "Cluster " + clusterId + " does not exist!");
+        return clusterInfo;
+      }
+      HelixDataAccessor dataAccessor =
+          new ZKHelixDataAccessor(clusterId, InstanceType.ADMINISTRATOR, baseDataAccessor);
+      PropertyKey.Builder keyBuilder = dataAccessor.keyBuilder();
+
+      if (fields.contains(ClusterProperties.controller)) {
+        LiveInstance controller = dataAccessor.getProperty(keyBuilder.controllerLeader());
+        clusterInfo.put(ClusterProperties.controller.name(),
+            controller != null ? controller.getInstanceName() : "No Lead Controller!");
+      }
+      if (fields.contains(ClusterProperties.paused)) {
+        clusterInfo.put(ClusterProperties.paused.name(),
+            baseDataAccessor.exists(keyBuilder.pause().getPath(), AccessOption.PERSISTENT));
+      }
+      if (fields.contains(ClusterProperties.maintenance)) {
+        clusterInfo.put(ClusterProperties.maintenance.name(),
+            baseDataAccessor.exists(keyBuilder.maintenance().getPath(), AccessOption.PERSISTENT));
+      }
+      putChildNames(clusterInfo, fields, dataAccessor, keyBuilder.instanceConfigs(),
+          ClusterProperties.instances, ClusterProperties.instanceCount);
+      putChildNames(clusterInfo, fields, dataAccessor, keyBuilder.liveInstances(),
+          ClusterProperties.liveInstances, ClusterProperties.liveInstanceCount);
+      putChildNames(clusterInfo, fields, dataAccessor, keyBuilder.idealStates(),
+          ClusterProperties.resources, ClusterProperties.resourceCount);
+
+      if (fields.contains(ClusterProperties.errorPartitions)) {
+        // resource -> partition -> instances in ERROR state
+        Map<String, Map<String, List<String>>> errorPartitions = new TreeMap<>();
+        List<ExternalView> externalViews =
+            dataAccessor.getChildValues(keyBuilder.externalViews(), false);
+        for (ExternalView externalView : externalViews) {
+          for (String partition : externalView.getPartitionSet()) {
+            for (Map.Entry<String, String> instanceState : externalView.getStateMap(partition)
+                .entrySet()) {
+              if (HelixDefinedState.ERROR.name().equals(instanceState.getValue())) {
+                errorPartitions.computeIfAbsent(externalView.getResourceName(), r -> new TreeMap<>())
+                    .computeIfAbsent(partition, p -> new ArrayList<>())
+                    .add(instanceState.getKey());
+              }
+            }
+          }
+        }
+        clusterInfo.put(ClusterProperties.errorPartitions.name(), errorPartitions);
+      }
+    } catch (Exception e) {
+      LOG.error("Failed to query cluster {}.", clusterId, e);
+      clusterInfo.clear();
+      clusterInfo.put(Properties.error.name(), "Failed to query cluster " + clusterId + ": " + e);
+    }
+    return clusterInfo;
+  }
+
+  private static void putChildNames(Map<String, Object> clusterInfo,
+      Set<ClusterProperties> fields, HelixDataAccessor dataAccessor, PropertyKey parentKey,
+      ClusterProperties namesField, ClusterProperties countField) {
+    if (!fields.contains(namesField) && !fields.contains(countField)) {
+      return;
+    }
+    List<String> childNames = dataAccessor.getChildNames(parentKey);
+    if (fields.contains(namesField)) {
+      clusterInfo.put(namesField.name(), childNames);
+    }
+    if (fields.contains(countField)) {
+      clusterInfo.put(countField.name(), childNames.size());
+    }
+  }
+
   private boolean doesClusterExist(String cluster) {
     RealmAwareZkClient zkClient = getRealmAwareZkClient();
     return ZKUtil.isClusterSetup(cluster, zkClient);
@@ -82,7 +82,8 @@ public class InstancesAccessor extends AbstractHelixResource {
 
   @GET
   public Response getAllInstances(@PathParam("clusterId") String clusterId,
-      @DefaultValue("getAllInstances") @QueryParam("command") String command) {
+      @DefaultValue("getAllInstances") @QueryParam("command") String command,
+      @QueryParam("cursor") String cursor, @DefaultValue("-1") @QueryParam("limit") int limit) {
     // Get the command. If not provided, the default would be "getAllInstances"
     Command cmd;
     try {
@@ -99,33 +100,39 @@ public class InstancesAccessor extends AbstractHelixResource {
 
     switch (cmd) {
     case getAllInstances:
-      ObjectNode root = JsonNodeFactory.instance.objectNode();
-      root.put(Properties.id.name(), JsonNodeFactory.instance.textNode(clusterId));
-
-      ArrayNode instancesNode =
-          root.putArray(InstancesAccessor.InstancesProperties.instances.name());
-      instancesNode.addAll((ArrayNode) OBJECT_MAPPER.valueToTree(instances));
-      ArrayNode onlineNode = root.putArray(InstancesAccessor.InstancesProperties.online.name());
-      ArrayNode disabledNode = root.putArray(InstancesAccessor.InstancesProperties.disabled.name());
+      // Only the instance configs of the requested page are read
+      Page page = getPage(instances, cursor, limit);
+      List<String> onlineInstances = new ArrayList<>();
+      List<String> disabledInstances = new ArrayList<>();
 
       List<String> liveInstances = accessor.getChildNames(accessor.keyBuilder().liveInstances());
       ClusterConfig clusterConfig = accessor.getProperty(accessor.keyBuilder().clusterConfig());
 
-      for (String instanceName : instances) {
+      for (String instanceName : page.getNames()) {
         InstanceConfig instanceConfig =
             accessor.getProperty(accessor.keyBuilder().instanceConfig(instanceName));
         if (instanceConfig != null) {
           if (!instanceConfig.getInstanceEnabled() || (clusterConfig.getDisabledInstances() != null
               && clusterConfig.getDisabledInstances().containsKey(instanceName))) {
-            disabledNode.add(JsonNodeFactory.instance.textNode(instanceName));
+            disabledInstances.add(instanceName);
           }
 
           if (liveInstances.contains(instanceName)) {
-            onlineNode.add(JsonNodeFactory.instance.textNode(instanceName));
+            onlineInstances.add(instanceName);
           }
         }
       }
-      return JSONRepresentation(root);
+      return StreamingJSONRepresentation(generator -> {
+        generator.writeStartObject();
+        generator.writeStringField(Properties.id.name(), clusterId);
+        if (page.getNextCursor() != null) {
+          generator.writeStringField(Properties.nextCursor.name(), page.getNextCursor());
+        }
+        writeStringArrayField(generator, InstancesProperties.instances.name(), page.getNames());
+        writeStringArrayField(generator, InstancesProperties.online.name(), onlineInstances);
+        writeStringArrayField(generator, InstancesProperties.disabled.name(), disabledInstances);
+        generator.writeEndObject();
+      });
     case validateWeight:
       // Validate all instances for WAGED rebalance
       HelixAdmin admin = getHelixAdmin();
@@ -42,9 +42,6 @@ import org.apache.helix.task.TaskConfig;
 import org.apache.helix.task.TaskDriver;
 import org.apache.helix.task.WorkflowConfig;
 import org.apache.helix.zookeeper.zkclient.exception.ZkNoNodeException;
-import org.codehaus.jackson.node.ArrayNode;
-import org.codehaus.jackson.node.JsonNodeFactory;
-import org.codehaus.jackson.node.ObjectNode;
 import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,23 +59,26 @@ public class JobAccessor extends AbstractHelixResource {
 
   @GET
   public Response getJobs(@PathParam("clusterId") String clusterId,
-      @PathParam("workflowName") String workflowName) {
+      @PathParam("workflowName") String workflowName, @QueryParam("cursor") String cursor,
+      @DefaultValue("-1") @QueryParam("limit") int limit) {
     TaskDriver driver = getTaskDriver(clusterId);
     WorkflowConfig workflowConfig = driver.getWorkflowConfig(workflowName);
-    ObjectNode root = JsonNodeFactory.instance.objectNode();
 
     if (workflowConfig == null) {
       return badRequest(String.format("Workflow %s is not found!", workflowName));
     }
 
     Set<String> jobs = workflowConfig.getJobDag().getAllNodes();
-    root.put(Properties.id.name(), JobProperties.Jobs.name());
-    ArrayNode jobsNode = root.putArray(JobProperties.Jobs.name());
-
-    if (jobs != null) {
-      jobsNode.addAll((ArrayNode) OBJECT_MAPPER.valueToTree(jobs));
-    }
-    return JSONRepresentation(root);
+    Page page = getPage(jobs == null ? Collections.emptySet() : jobs, cursor, limit);
+    return StreamingJSONRepresentation(generator -> {
+      generator.writeStartObject();
+      generator.writeStringField(Properties.id.name(), JobProperties.Jobs.name());
+      writeStringArrayField(generator, JobProperties.Jobs.name(), page.getNames());
+      if (page.getNextCursor() != null) {
+        generator.writeStringField(Properties.nextCursor.name(), page.getNextCursor());
+      }
+      generator.writeEndObject();
+    });
   }
 
   @GET
@@ -104,7 +104,7 @@ public class JobAccessor extends AbstractHelixResource {
       jobMap.put(JobProperties.JobContext.name(), jobContext.getRecord());
     }
 
-    return JSONRepresentation(jobMap);
+    return StreamingJSONRepresentation(jobMap);
   }
 
   @PUT
@@ -75,9 +75,9 @@ public class PropertyStoreAccessor extends AbstractHelixResource {
       if (znRecord == null) {
         ObjectNode jsonNode = OBJECT_MAPPER.createObjectNode();
         jsonNode.put(CONTENT_KEY, new String(bytes));
-        return JSONRepresentation(jsonNode);
+        return StreamingJSONRepresentation(jsonNode);
       }
-      return JSONRepresentation(znRecord);
+      return StreamingJSONRepresentation(znRecord);
     } else {
       throw new WebApplicationException(Response.status(Response.Status.NOT_FOUND)
           .entity(String.format("The property store path %s doesn't exist", recordPath)).build());
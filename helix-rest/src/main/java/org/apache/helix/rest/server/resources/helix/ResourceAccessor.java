@@ -20,9 +20,11 @@ package org.apache.helix.rest.server.resources.helix;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,7 +41,9 @@ import javax.ws.rs.core.Response;
 
 import org.apache.helix.ConfigAccessor;
 import org.apache.helix.HelixAdmin;
+import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixException;
+import org.apache.helix.PropertyKey;
 import org.apache.helix.PropertyPathBuilder;
 import org.apache.helix.model.ExternalView;
 import org.apache.helix.model.HelixConfigScope;
@@ -47,11 +51,7 @@ import org.apache.helix.model.IdealState;
 import org.apache.helix.model.ResourceConfig;
 import org.apache.helix.model.StateModelDefinition;
 import org.apache.helix.model.builder.HelixConfigScopeBuilder;
-import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
-import org.codehaus.jackson.node.ArrayNode;
-import org.codehaus.jackson.node.JsonNodeFactory;
-import org.codehaus.jackson.node.ObjectNode;
 import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,29 +75,45 @@ public class ResourceAccessor extends AbstractHelixResource {
   }
 
   @GET
-  public Response getResources(@PathParam("clusterId") String clusterId) {
-    ObjectNode root = JsonNodeFactory.instance.objectNode();
-    root.put(Properties.id.name(), JsonNodeFactory.instance.textNode(clusterId));
+  public Response getResources(@PathParam("clusterId") String clusterId,
+      @QueryParam("cursor") String cursor, @DefaultValue("-1") @QueryParam("limit") int limit) {
+    List<String> idealStates = getResourceNames(clusterId, ResourceProperties.idealStates);
+    List<String> externalViews = getResourceNames(clusterId, ResourceProperties.externalViews);
 
-    RealmAwareZkClient zkClient = getRealmAwareZkClient();
-
-    ArrayNode idealStatesNode = root.putArray(ResourceProperties.idealStates.name());
-    ArrayNode externalViewsNode = root.putArray(ResourceProperties.externalViews.name());
-
-    List<String> idealStates = zkClient.getChildren(PropertyPathBuilder.idealState(clusterId));
-    List<String> externalViews = zkClient.getChildren(PropertyPathBuilder.externalView(clusterId));
-
-    if (idealStates != null) {
-      idealStatesNode.addAll((ArrayNode) OBJECT_MAPPER.valueToTree(idealStates));
-    } else {
+    if (idealStates == null) {
       return notFound();
     }
-
-    if (externalViews != null) {
-      externalViewsNode.addAll((ArrayNode) OBJECT_MAPPER.valueToTree(externalViews));
+    if (externalViews == null) {
+      externalViews = Collections.emptyList();
+    }
+    String nextCursor = null;
+    if (cursor != null || limit > 0) {
+      // Page through the resources with an IdealState or an ExternalView
+      Set<String> resources = new HashSet<>(idealStates);
+      resources.addAll(externalViews);
+      Page page = getPage(resources, cursor, limit);
+      Set<String> pageResources = new HashSet<>(page.getNames());
+      idealStates = new ArrayList<>(idealStates);
+      idealStates.retainAll(pageResources);
+      externalViews = new ArrayList<>(externalViews);
+      externalViews.retainAll(pageResources);
+      nextCursor = page.getNextCursor();
     }
 
-    return JSONRepresentation(root);
+    List<String> pageIdealStates = idealStates;
+    List<String> pageExternalViews = externalViews;
+    String pageNextCursor = nextCursor;
+    return StreamingJSONRepresentation(generator -> {
+      generator.writeStartObject();
+      generator.writeStringField(Properties.id.name(), clusterId);
+      writeStringArrayField(generator, ResourceProperties.idealStates.name(), pageIdealStates);
+      writeStringArrayField(generator, ResourceProperties.externalViews.name(),
+          pageExternalViews);
+      if (pageNextCursor != null) {
+        generator.writeStringField(Properties.nextCursor.name(), pageNextCursor);
+      }
+      generator.writeEndObject();
+    });
   }
 
   /**
@@ -108,13 +124,10 @@ public class ResourceAccessor extends AbstractHelixResource {
   @GET
   @Path("health")
   public Response getResourceHealth(@PathParam("clusterId") String clusterId) {
-
-    RealmAwareZkClient zkClient = getRealmAwareZkClient();
-
     List<String> resourcesInIdealState =
-        zkClient.getChildren(PropertyPathBuilder.idealState(clusterId));
+        getResourceNames(clusterId, ResourceProperties.idealStates);
     List<String> resourcesInExternalView =
-        zkClient.getChildren(PropertyPathBuilder.externalView(clusterId));
+        getResourceNames(clusterId, ResourceProperties.externalViews);
 
     Map<String, String> resourceHealthResult = new HashMap<>();
 
@@ -171,14 +184,15 @@ public class ResourceAccessor extends AbstractHelixResource {
     } catch (Exception e) {
       return badRequest("Invalid command : " + command);
     }
-    ConfigAccessor accessor = getConfigAccessor();
     HelixAdmin admin = getHelixAdmin();
 
     switch (cmd) {
     case getResource:
-      ResourceConfig resourceConfig = accessor.getResourceConfig(clusterId, resourceName);
-      IdealState idealState = admin.getResourceIdealState(clusterId, resourceName);
-      ExternalView externalView = admin.getResourceExternalView(clusterId, resourceName);
+      HelixDataAccessor dataAccessor = getDataAccssor(clusterId);
+      PropertyKey.Builder keyBuilder = dataAccessor.keyBuilder();
+      ResourceConfig resourceConfig = getResourceConfig(clusterId, resourceName, dataAccessor);
+      IdealState idealState = dataAccessor.getProperty(keyBuilder.idealStates(resourceName));
+      ExternalView externalView = dataAccessor.getProperty(keyBuilder.externalView(resourceName));
 
       Map<String, ZNRecord> resourceMap = new HashMap<>();
       if (idealState != null) {
@@ -197,7 +211,7 @@ public class ResourceAccessor extends AbstractHelixResource {
       if (externalView != null) {
         resourceMap.put(ResourceProperties.externalView.name(), externalView.getRecord());
       }
-      return JSONRepresentation(resourceMap);
+      return StreamingJSONRepresentation(resourceMap);
     case validateWeight:
       // Validate ResourceConfig for WAGED rebalance
       Map<String, Boolean> validationResultMap;
@@ -368,8 +382,8 @@ public class ResourceAccessor extends AbstractHelixResource {
   @Path("{resourceName}/configs")
   public Response getResourceConfig(@PathParam("clusterId") String clusterId,
       @PathParam("resourceName") String resourceName) {
-    ConfigAccessor accessor = getConfigAccessor();
-    ResourceConfig resourceConfig = accessor.getResourceConfig(clusterId, resourceName);
+    ResourceConfig resourceConfig =
+        getResourceConfig(clusterId, resourceName, getDataAccssor(clusterId));
     if (resourceConfig != null) {
       return JSONRepresentation(resourceConfig.getRecord());
     }
@@ -430,10 +444,11 @@ public class ResourceAccessor extends AbstractHelixResource {
   @Path("{resourceName}/idealState")
   public Response getResourceIdealState(@PathParam("clusterId") String clusterId,
       @PathParam("resourceName") String resourceName) {
-    HelixAdmin admin = getHelixAdmin();
-    IdealState idealState = admin.getResourceIdealState(clusterId, resourceName);
+    HelixDataAccessor dataAccessor = getDataAccssor(clusterId);
+    IdealState idealState =
+        dataAccessor.getProperty(dataAccessor.keyBuilder().idealStates(resourceName));
     if (idealState != null) {
-      return JSONRepresentation(idealState.getRecord());
+      return StreamingJSONRepresentation(idealState.getRecord());
     }
 
     return notFound();
@@ -491,21 +506,23 @@ public class ResourceAccessor extends AbstractHelixResource {
   @Path("{resourceName}/externalView")
   public Response getResourceExternalView(@PathParam("clusterId") String clusterId,
       @PathParam("resourceName") String resourceName) {
-    HelixAdmin admin = getHelixAdmin();
-    ExternalView externalView = admin.getResourceExternalView(clusterId, resourceName);
+    HelixDataAccessor dataAccessor = getDataAccssor(clusterId);
+    ExternalView externalView =
+        dataAccessor.getProperty(dataAccessor.keyBuilder().externalView(resourceName));
     if (externalView != null) {
-      return JSONRepresentation(externalView.getRecord());
+      return StreamingJSONRepresentation(externalView.getRecord());
     }
 
     return notFound();
   }
 
   private Map<String, String> computePartitionHealth(String clusterId, String resourceName) {
-    HelixAdmin admin = getHelixAdmin();
-    IdealState idealState = admin.getResourceIdealState(clusterId, resourceName);
-    ExternalView externalView = admin.getResourceExternalView(clusterId, resourceName);
+    HelixDataAccessor dataAccessor = getDataAccssor(clusterId);
+    PropertyKey.Builder keyBuilder = dataAccessor.keyBuilder();
+    IdealState idealState = dataAccessor.getProperty(keyBuilder.idealStates(resourceName));
+    ExternalView externalView = dataAccessor.getProperty(keyBuilder.externalView(resourceName));
     StateModelDefinition stateModelDef =
-        admin.getStateModelDef(clusterId, idealState.getStateModelDefRef());
+        dataAccessor.getProperty(keyBuilder.stateModelDef(idealState.getStateModelDefRef()));
     String initialState = stateModelDef.getInitialState();
     List<String> statesPriorityList = stateModelDef.getStatesPriorityList();
     statesPriorityList = statesPriorityList.subList(0, statesPriorityList.indexOf(initialState)); // Trim
@@ -564,4 +581,27 @@ public class ResourceAccessor extends AbstractHelixResource {
     }
     return partitionHealthResult;
   }
+
+  /**
+   * Reads the names of the resources with an IdealState or an ExternalView. The cached reads are
+   * served by the cache of the cluster.
+   */
+  private List<String> getResourceNames(String clusterId, ResourceProperties property) {
+    if (isCachedRead()) {
+      HelixDataAccessor dataAccessor = getDataAccssor(clusterId);
+      return dataAccessor.getChildNames(property == ResourceProperties.idealStates
+          ? dataAccessor.keyBuilder().idealStates() : dataAccessor.keyBuilder().externalViews());
+    }
+    String path = property == ResourceProperties.idealStates ? PropertyPathBuilder
+        .idealState(clusterId) : PropertyPathBuilder.externalView(clusterId);
+    return getRealmAwareZkClient().getChildren(path);
+  }
+
+  private ResourceConfig getResourceConfig(String clusterId, String resourceName,
+      HelixDataAccessor dataAccessor) {
+    if (isCachedRead()) {
+      return dataAccessor.getProperty(dataAccessor.keyBuilder().resourceConfig(resourceName));
+    }
+    return getConfigAccessor().getResourceConfig(clusterId, resourceName);
+  }
 }
@@ -26,6 +26,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -36,12 +38,16 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
+import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixException;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.ResourceConfig;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.task.JobConfig;
 import org.apache.helix.task.JobDag;
 import org.apache.helix.task.JobQueue;
 import org.apache.helix.task.TaskDriver;
+import org.apache.helix.task.TaskExecutionInfo;
 import org.apache.helix.task.Workflow;
 import org.apache.helix.task.WorkflowConfig;
 import org.apache.helix.task.WorkflowContext;
@@ -51,7 +57,6 @@ import org.codehaus.jackson.map.type.TypeFactory;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.JsonNodeFactory;
 import org.codehaus.jackson.node.ObjectNode;
-import org.codehaus.jackson.node.TextNode;
 import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,13 +81,23 @@ public class WorkflowAccessor extends AbstractHelixResource {
   }
 
   @GET
-  public Response getWorkflows(@PathParam("clusterId") String clusterId) {
-    TaskDriver taskDriver = getTaskDriver(clusterId);
-    Map<String, WorkflowConfig> workflowConfigMap = taskDriver.getWorkflows();
-    Map<String, List<String>> dataMap = new HashMap<>();
-    dataMap.put(WorkflowProperties.Workflows.name(), new ArrayList<>(workflowConfigMap.keySet()));
+  public Response getWorkflows(@PathParam("clusterId") String clusterId,
+      @QueryParam("cursor") String cursor, @DefaultValue("-1") @QueryParam("limit") int limit) {
+    Page page;
+    if (cursor == null && limit <= 0) {
+      page = getPage(getTaskDriver(clusterId).getWorkflows().keySet(), null, limit);
+    } else {
+      page = getWorkflowPage(clusterId, cursor, limit);
+    }
 
-    return JSONRepresentation(dataMap);
+    return StreamingJSONRepresentation(generator -> {
+      generator.writeStartObject();
+      writeStringArrayField(generator, WorkflowProperties.Workflows.name(), page.getNames());
+      if (page.getNextCursor() != null) {
+        generator.writeStringField(Properties.nextCursor.name(), page.getNextCursor());
+      }
+      generator.writeEndObject();
+    });
   }
 
   @GET
@@ -93,10 +108,6 @@ public class WorkflowAccessor extends AbstractHelixResource {
     WorkflowConfig workflowConfig = taskDriver.getWorkflowConfig(workflowId);
     WorkflowContext workflowContext = taskDriver.getWorkflowContext(workflowId);
 
-    ObjectNode root = JsonNodeFactory.instance.objectNode();
-    TextNode id = JsonNodeFactory.instance.textNode(workflowId);
-    root.put(Properties.id.name(), id);
-
     ObjectNode workflowConfigNode = JsonNodeFactory.instance.objectNode();
     ObjectNode workflowContextNode = JsonNodeFactory.instance.objectNode();
 
@@ -108,16 +119,20 @@ public class WorkflowAccessor extends AbstractHelixResource {
       getWorkflowContextNode(workflowContextNode, workflowContext.getRecord());
     }
 
-    root.put(WorkflowProperties.WorkflowConfig.name(), workflowConfigNode);
-    root.put(WorkflowProperties.WorkflowContext.name(), workflowContextNode);
-
     JobDag jobDag = workflowConfig.getJobDag();
-    ArrayNode jobs = OBJECT_MAPPER.valueToTree(jobDag.getAllNodes());
-    ObjectNode parentJobs = OBJECT_MAPPER.valueToTree(jobDag.getChildrenToParents());
-    root.put(WorkflowProperties.Jobs.name(), jobs);
-    root.put(WorkflowProperties.ParentJobs.name(), parentJobs);
-    root.put(WorkflowProperties.LastScheduledTask.name(), OBJECT_MAPPER.valueToTree(taskDriver.getLastScheduledTaskExecutionInfo(workflowId)));
-    return JSONRepresentation(root);
+    TaskExecutionInfo lastScheduledTask =
+        taskDriver.getLastScheduledTaskExecutionInfo(workflowId);
+    return StreamingJSONRepresentation(generator -> {
+      generator.writeStartObject();
+      generator.writeStringField(Properties.id.name(), workflowId);
+      generator.writeObjectField(WorkflowProperties.WorkflowConfig.name(), workflowConfigNode);
+      generator.writeObjectField(WorkflowProperties.WorkflowContext.name(), workflowContextNode);
+      generator.writeObjectField(WorkflowProperties.Jobs.name(), jobDag.getAllNodes());
+      generator
+          .writeObjectField(WorkflowProperties.ParentJobs.name(), jobDag.getChildrenToParents());
+      generator.writeObjectField(WorkflowProperties.LastScheduledTask.name(), lastScheduledTask);
+      generator.writeEndObject();
+    });
   }
 
   @PUT
@@ -344,6 +359,41 @@ public class WorkflowAccessor extends AbstractHelixResource {
     return JSONRepresentation(workflowContextNode);
   }
 
+  /**
+   * Pages over the resource config names, and only reads the configs of the names that are needed
+   * to fill the page. Resource configs that are not workflow configs, such as the job configs, are
+   * skipped.
+   */
+  private Page getWorkflowPage(String clusterId, String cursor, int limit) {
+    HelixDataAccessor accessor = getDataAccssor(clusterId);
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    List<String> resources = accessor.getChildNames(keyBuilder.resourceConfigs());
+    NavigableSet<String> sortedResources =
+        resources == null ? new TreeSet<>() : new TreeSet<>(resources);
+    if (cursor != null) {
+      sortedResources = sortedResources.tailSet(cursor, false);
+    }
+
+    List<String> workflows = new ArrayList<>();
+    Iterator<String> iterator = sortedResources.iterator();
+    while (iterator.hasNext() && (limit <= 0 || workflows.size() < limit)) {
+      List<PropertyKey> keys = new ArrayList<>();
+      while (iterator.hasNext() && (limit <= 0 || workflows.size() + keys.size() < limit)) {
+        keys.add(keyBuilder.resourceConfig(iterator.next()));
+      }
+      List<ResourceConfig> configs = accessor.getProperty(keys, false);
+      for (ResourceConfig config : configs) {
+        if (config != null && config.getRecord().getSimpleFields()
+            .containsKey(WorkflowConfig.WorkflowConfigProperty.Dag.name())) {
+          workflows.add(config.getId());
+        }
+      }
+    }
+    String nextCursor =
+        iterator.hasNext() && !workflows.isEmpty() ? workflows.get(workflows.size() - 1) : null;
+    return new Page(workflows, nextCursor);
+  }
+
   private void getWorkflowConfigNode(ObjectNode workflowConfigNode, ZNRecord record) {
     for (Map.Entry<String, String> entry : record.getSimpleFields().entrySet()) {
       if (!entry.getKey().equals(WorkflowConfig.WorkflowConfigProperty.Dag)) {
@@ -34,12 +34,16 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import com.google.common.collect.ImmutableMap;
 import org.apache.helix.msdcommon.constant.MetadataStoreRoutingConstants;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
+import org.apache.helix.msdcommon.util.RoutingDataUtil;
 import org.apache.helix.rest.common.ContextPropertyKeys;
 import org.apache.helix.rest.common.HelixRestNamespace;
 import org.apache.helix.rest.common.HelixRestUtils;
@@ -205,10 +209,12 @@ public class MetadataStoreDirectoryAccessor extends AbstractResource {
    *     "shardingKeys" : [ "/sharding/key/1/a", "/sharding/key/1/b", "/sharding/key/1/c" ]
    *   } ]
    * }
+   * The response carries the entity tag of the routing data in the ETag header. A request with
+   * a matching If-None-Match header gets "304 Not Modified" without the routing data.
    */
   @GET
   @Path("/routing-data")
-  public Response getRoutingData() {
+  public Response getRoutingData(@Context Request request) {
     Map<String, List<String>> rawRoutingData;
     try {
       rawRoutingData = _metadataStoreDirectory.getNamespaceRoutingData(_namespace);
@@ -216,6 +222,12 @@ public class MetadataStoreDirectoryAccessor extends AbstractResource {
       return notFound(ex.getMessage());
     }
 
+    EntityTag eTag = new EntityTag(RoutingDataUtil.getETag(rawRoutingData));
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(eTag);
+    if (notModified != null) {
+      return notModified.build();
+    }
+
     List<MetadataStoreShardingKeysByRealm> shardingKeysByRealm = rawRoutingData.entrySet().stream()
         .map(entry -> new MetadataStoreShardingKeysByRealm(entry.getKey(), entry.getValue()))
         .collect(Collectors.toList());
@@ -224,7 +236,7 @@ public class MetadataStoreDirectoryAccessor extends AbstractResource {
         .of(MetadataStoreRoutingConstants.SINGLE_METADATA_STORE_NAMESPACE, _namespace,
             MetadataStoreRoutingConstants.ROUTING_DATA, shardingKeysByRealm);
 
-    return JSONRepresentation(responseMap);
+    return Response.fromResponse(JSONRepresentation(responseMap)).tag(eTag).build();
   }
 
   @PUT
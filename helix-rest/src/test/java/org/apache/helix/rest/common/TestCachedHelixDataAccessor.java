@@ -0,0 +1,100 @@
+package org.apache.helix.rest.common;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.helix.PropertyKey;
+import org.apache.helix.TestHelper;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.rest.server.AbstractTestClass;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestCachedHelixDataAccessor extends AbstractTestClass {
+  private static final String CLUSTER_NAME = "TestCachedHelixDataAccessorCluster";
+  private static final int RESOURCE_COUNT = 4;
+
+  private PropertyKey.Builder _keyBuilder;
+
+  @BeforeClass
+  public void beforeClass() {
+    _gSetupTool.addCluster(CLUSTER_NAME, true);
+    for (int i = 0; i < RESOURCE_COUNT; i++) {
+      _gSetupTool.addResourceToCluster(CLUSTER_NAME, "db_" + i, 4, "MasterSlave");
+    }
+    _keyBuilder = new PropertyKey.Builder(CLUSTER_NAME);
+  }
+
+  @AfterClass
+  public void afterClass() {
+    _gSetupTool.deleteCluster(CLUSTER_NAME);
+  }
+
+  @Test
+  public void testDeletedAndMissingPathsUnwatched() throws Exception {
+    CachedHelixDataAccessor accessor = new CachedHelixDataAccessor(CLUSTER_NAME, _gZkClient);
+    try {
+      Assert.assertNotNull(accessor.getProperty(_keyBuilder.idealStates("db_0")));
+      Assert.assertNotNull(accessor.getProperty(_keyBuilder.idealStates("db_0")));
+      Assert.assertEquals(accessor.getChildNames(_keyBuilder.idealStates()).size(),
+          RESOURCE_COUNT);
+      Assert.assertEquals(accessor.getWatchedPathCount(), 2);
+
+      // A path that does not exist is not watched
+      Assert.assertNull(accessor.getProperty(_keyBuilder.idealStates("missing")));
+      Assert.assertTrue(accessor.getChildNames(_keyBuilder.externalViews()).isEmpty());
+      Assert.assertEquals(accessor.getWatchedPathCount(), 2);
+
+      // Nor is a deleted one
+      IdealState idealState = accessor.getProperty(_keyBuilder.idealStates("db_0"));
+      Assert.assertTrue(accessor.removeProperty(_keyBuilder.idealStates("db_0")));
+      Assert.assertTrue(TestHelper.verify(() -> accessor.getWatchedPathCount() == 1, 5000L));
+      Assert.assertNull(accessor.getProperty(_keyBuilder.idealStates("db_0")));
+      Assert.assertTrue(TestHelper.verify(
+          () -> accessor.getChildNames(_keyBuilder.idealStates()).size() == RESOURCE_COUNT - 1,
+          5000L));
+      Assert.assertEquals(accessor.getWatchedPathCount(), 1);
+
+      Assert.assertTrue(accessor.setProperty(_keyBuilder.idealStates("db_0"), idealState));
+      Assert.assertNotNull(accessor.getProperty(_keyBuilder.idealStates("db_0")));
+      Assert.assertEquals(accessor.getWatchedPathCount(), 2);
+    } finally {
+      accessor.close();
+    }
+    Assert.assertEquals(accessor.getWatchedPathCount(), 0);
+  }
+
+  @Test
+  public void testMaxCachedPaths() {
+    CachedHelixDataAccessor accessor = new CachedHelixDataAccessor(CLUSTER_NAME, _gZkClient, 2);
+    try {
+      for (int round = 0; round < 2; round++) {
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+          IdealState idealState = accessor.getProperty(_keyBuilder.idealStates("db_" + i));
+          Assert.assertEquals(idealState.getResourceName(), "db_" + i);
+          Assert.assertTrue(accessor.getWatchedPathCount() <= 2);
+        }
+      }
+    } finally {
+      accessor.close();
+    }
+  }
+}
@@ -20,30 +20,42 @@ package org.apache.helix.rest.common;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import org.apache.helix.BaseDataAccessor;
+import org.apache.helix.InstanceType;
 import org.apache.helix.PropertyKey;
+import org.apache.helix.manager.zk.ZkBaseDataAccessor;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.manager.zk.ZKHelixDataAccessor;
 import org.apache.helix.model.HealthStat;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.model.InstanceConfig;
 import org.apache.helix.model.RESTConfig;
 import org.apache.helix.rest.client.CustomRestClient;
+import org.apache.zookeeper.data.Stat;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -160,4 +172,55 @@ public class TestHelixDataAccessorWrapper {
     // query once because no partition health record for TEST_INSTANCE1
     verify(_restClient, times(1)).getPartitionStoppableCheck(anyString(), anyList(), anyMap());
   }
+
+  @Test
+  public void testConcurrentReadsShareOneZkRead() throws Exception {
+    BaseDataAccessor<ZNRecord> baseAccessor = mock(ZkBaseDataAccessor.class);
+    ZKHelixDataAccessor zkDataAccessor =
+        new ZKHelixDataAccessor(TEST_CLUSTER, InstanceType.ADMINISTRATOR, baseAccessor);
+    HelixDataAccessorWrapper dataAccessor =
+        new HelixDataAccessorWrapper(zkDataAccessor, _restClient);
+    PropertyKey configKey = dataAccessor.keyBuilder().instanceConfig(TEST_INSTANCE0);
+    when(baseAccessor.get(eq(configKey.getPath()), any(Stat.class), anyInt()))
+        .thenAnswer(invocationOnMock -> {
+          Thread.sleep(100L);
+          return new ZNRecord(TEST_INSTANCE0);
+        });
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<InstanceConfig>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(pool.submit(() -> dataAccessor.<InstanceConfig>getProperty(configKey)));
+      }
+      for (Future<InstanceConfig> future : futures) {
+        Assert.assertEquals(future.get().getInstanceName(), TEST_INSTANCE0);
+      }
+    } finally {
+      pool.shutdown();
+    }
+    verify(baseAccessor, times(1)).get(eq(configKey.getPath()), any(Stat.class), anyInt());
+  }
+
+  @Test
+  public void testPrefetchResourceStates() {
+    BaseDataAccessor<ZNRecord> baseAccessor = mock(ZkBaseDataAccessor.class);
+    ZKHelixDataAccessor zkDataAccessor =
+        new ZKHelixDataAccessor(TEST_CLUSTER, InstanceType.ADMINISTRATOR, baseAccessor);
+    HelixDataAccessorWrapper dataAccessor =
+        new HelixDataAccessorWrapper(zkDataAccessor, _restClient);
+    PropertyKey.Builder keyBuilder = dataAccessor.keyBuilder();
+    when(baseAccessor.getChildNames(eq(keyBuilder.idealStates().getPath()), anyInt()))
+        .thenReturn(ImmutableList.of(TEST_PARTITION));
+    when(baseAccessor.get(anyList(), anyList(), anyInt(), anyBoolean()))
+        .thenReturn(Arrays.asList(new ZNRecord(TEST_PARTITION), null));
+
+    dataAccessor.prefetchResourceStates();
+    IdealState idealState = dataAccessor.getProperty(keyBuilder.idealStates(TEST_PARTITION));
+    Assert.assertEquals(idealState.getResourceName(), TEST_PARTITION);
+    Assert.assertNull(dataAccessor.getProperty(keyBuilder.externalView(TEST_PARTITION)));
+    // Both were read by the batch read
+    verify(baseAccessor, times(1)).get(anyList(), anyList(), anyInt(), anyBoolean());
+    verify(baseAccessor, times(0)).get(anyString(), any(Stat.class), anyInt());
+  }
 }
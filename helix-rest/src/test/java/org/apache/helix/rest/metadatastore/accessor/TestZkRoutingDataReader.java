@@ -21,11 +21,13 @@ package org.apache.helix.rest.metadatastore.accessor;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.helix.TestHelper;
 import org.apache.helix.msdcommon.constant.MetadataStoreRoutingConstants;
+import org.apache.helix.msdcommon.datamodel.RoutingDataDelta;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
 import org.apache.helix.rest.server.AbstractTestClass;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
@@ -119,6 +121,55 @@ public class TestZkRoutingDataReader extends AbstractTestClass {
     }
   }
 
+  @Test(dependsOnMethods = "testGetRoutingData")
+  public void testGetRoutingDataDelta() throws InvalidRoutingDataException {
+    String realmPath1 = MetadataStoreRoutingConstants.ROUTING_DATA_PATH + "/testRealmAddress1";
+    String realmPath2 = MetadataStoreRoutingConstants.ROUTING_DATA_PATH + "/testRealmAddress2";
+    ZNRecord testZnRecord1 = new ZNRecord("testZnRecord1");
+    testZnRecord1.setListField(MetadataStoreRoutingConstants.ZNRECORD_LIST_FIELD_KEY,
+        Arrays.asList("/sharding/key/1/a", "/sharding/key/1/b"));
+    ZNRecord testZnRecord2 = new ZNRecord("testZnRecord2");
+    testZnRecord2.setListField(MetadataStoreRoutingConstants.ZNRECORD_LIST_FIELD_KEY,
+        Collections.singletonList("/sharding/key/2/a"));
+    _gZkClientTestNS.createPersistent(realmPath1, testZnRecord1);
+    _gZkClientTestNS.createPersistent(realmPath2, testZnRecord2);
+
+    ZkRoutingDataReader zkRoutingDataReader =
+        new ZkRoutingDataReader(TEST_NAMESPACE, _zkAddrTestNS, null);
+    try {
+      // The first delta contains all the routing data
+      RoutingDataDelta delta = zkRoutingDataReader.getRoutingDataDelta();
+      Assert.assertTrue(delta.isSnapshot());
+      Assert.assertEquals(delta.getUpdatedRealms().keySet(),
+          new HashSet<>(Arrays.asList("testRealmAddress1", "testRealmAddress2")));
+      Assert.assertTrue(zkRoutingDataReader.getRoutingDataDelta().isEmpty());
+
+      // Only the changed realm is in the delta
+      testZnRecord1.setListField(MetadataStoreRoutingConstants.ZNRECORD_LIST_FIELD_KEY,
+          Arrays.asList("/sharding/key/1/a", "/sharding/key/1/c"));
+      _gZkClientTestNS.writeData(realmPath1, testZnRecord1);
+      delta = zkRoutingDataReader.getRoutingDataDelta();
+      Assert.assertFalse(delta.isSnapshot());
+      Assert.assertEquals(delta.getUpdatedRealms(), Collections.singletonMap("testRealmAddress1",
+          Arrays.asList("/sharding/key/1/a", "/sharding/key/1/c")));
+      Assert.assertEquals(delta.getAddedShardingKeys(), Collections
+          .singletonMap("testRealmAddress1", Collections.singletonList("/sharding/key/1/c")));
+      Assert.assertEquals(delta.getRemovedShardingKeys(),
+          Collections.singleton("/sharding/key/1/b"));
+      Assert.assertTrue(delta.getRemovedRealms().isEmpty());
+
+      // A deleted realm removes all of its sharding keys
+      _gZkClientTestNS.delete(realmPath2);
+      delta = zkRoutingDataReader.getRoutingDataDelta();
+      Assert.assertTrue(delta.getUpdatedRealms().isEmpty());
+      Assert.assertEquals(delta.getRemovedRealms(), Collections.singleton("testRealmAddress2"));
+      Assert.assertEquals(delta.getRemovedShardingKeys(),
+          Collections.singleton("/sharding/key/2/a"));
+    } finally {
+      zkRoutingDataReader.close();
+    }
+  }
+
   private void clearRoutingDataPath() throws Exception {
     Assert.assertTrue(TestHelper.verify(() -> {
       for (String zkRealm : _gZkClientTestNS
@@ -29,9 +29,12 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import org.apache.helix.PropertyKey;
 import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.msdcommon.constant.MetadataStoreRoutingConstants;
+import org.apache.helix.rest.common.CachedHelixDataAccessor;
 import org.apache.helix.rest.server.AbstractTestClass;
+import org.apache.helix.rest.server.ServerContext;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -167,6 +170,38 @@ public class TestRoutingDataUpdate extends AbstractTestClass {
             MediaType.APPLICATION_JSON_TYPE), Response.Status.CREATED.getStatusCode());
   }
 
+  @Test(dependsOnMethods = "testRoutingDataUpdate")
+  public void testServerContextResetWithCachedDataAccessor() throws Exception {
+    String clusterName = CLUSTER_0_SHARDING_KEY.substring(1);
+    _gSetupTool.addCluster(clusterName, true);
+    _routingData.clear();
+    _routingData.put(ZK_ADDR, Collections.singletonList(CLUSTER_0_SHARDING_KEY));
+    put(MetadataStoreRoutingConstants.MSDS_GET_ALL_ROUTING_DATA_ENDPOINT, null,
+        Entity.entity(OBJECT_MAPPER.writeValueAsString(_routingData),
+            MediaType.APPLICATION_JSON_TYPE), Response.Status.CREATED.getStatusCode());
+
+    ServerContext serverContext = new ServerContext(ZK_ADDR);
+    try {
+      CachedHelixDataAccessor dataAccessor =
+          (CachedHelixDataAccessor) serverContext.getCachedDataAccessor(clusterName);
+      Assert.assertNotNull(
+          dataAccessor.getProperty(new PropertyKey.Builder(clusterName).clusterConfig()));
+      Assert.assertEquals(dataAccessor.getWatchedPathCount(), 1);
+
+      // A routing data change closes the cached data accessors before the FederatedZkClient, so
+      // their watches are removed
+      serverContext.handleDataChange(MetadataStoreRoutingConstants.ROUTING_DATA_PATH, null);
+      Assert.assertEquals(dataAccessor.getWatchedPathCount(), 0);
+      Assert.assertNotSame(serverContext.getCachedDataAccessor(clusterName), dataAccessor);
+    } finally {
+      serverContext.close();
+      _gSetupTool.deleteCluster(clusterName);
+      put(MetadataStoreRoutingConstants.MSDS_GET_ALL_ROUTING_DATA_ENDPOINT, null, Entity
+          .entity(OBJECT_MAPPER.writeValueAsString(Collections.emptyMap()),
+              MediaType.APPLICATION_JSON_TYPE), Response.Status.CREATED.getStatusCode());
+    }
+  }
+
   private void restartRestServer() {
     if (_helixRestServer != null) {
       _helixRestServer.shutdown();
@@ -101,6 +101,71 @@ public class TestClusterAccessor extends AbstractTestClass {
     System.out.println("End test :" + TestHelper.getTestMethodName());
   }
 
+  @Test(dependsOnMethods = "testGetClusters")
+  public void testBulkQueryClusters() throws IOException {
+    System.out.println("Start test :" + TestHelper.getTestMethodName());
+    List<String> clusters = new ArrayList<>(_clusters);
+    clusters.add("NonExistentCluster");
+    Map<String, Object> query = ImmutableMap.of(
+        ClusterAccessor.ClusterProperties.clusters.name(), clusters,
+        ClusterAccessor.ClusterProperties.fields.name(), Arrays.asList(
+            ClusterAccessor.ClusterProperties.liveInstanceCount.name(),
+            ClusterAccessor.ClusterProperties.resources.name(),
+            ClusterAccessor.ClusterProperties.errorPartitions.name()));
+    Response response = target("clusters").queryParam("command", Command.bulkQuery.name())
+        .request().post(Entity.entity(OBJECT_MAPPER.writeValueAsString(query),
+            MediaType.APPLICATION_JSON_TYPE));
+    Assert.assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+    JsonNode result = OBJECT_MAPPER.readTree(response.readEntity(String.class));
+    Assert.assertEquals(result.size(), clusters.size());
+
+    for (String cluster : _clusters) {
+      HelixDataAccessor accessor = new ZKHelixDataAccessor(cluster, _baseAccessor);
+      PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+      JsonNode clusterResult = result.get(cluster);
+      Assert.assertEquals(clusterResult.size(), 3, clusterResult.toString());
+      Assert.assertEquals(
+          clusterResult.get(ClusterAccessor.ClusterProperties.liveInstanceCount.name())
+              .getIntValue(), accessor.getChildNames(keyBuilder.liveInstances()).size());
+      List<String> resources = OBJECT_MAPPER.readValue(
+          clusterResult.get(ClusterAccessor.ClusterProperties.resources.name()),
+          new TypeReference<List<String>>() {
+          });
+      Assert.assertEqualsNoOrder(resources.toArray(),
+          accessor.getChildNames(keyBuilder.idealStates()).toArray());
+
+      Map<String, Map<String, List<String>>> errorPartitions = OBJECT_MAPPER.readValue(
+          clusterResult.get(ClusterAccessor.ClusterProperties.errorPartitions.name()),
+          new TypeReference<Map<String, Map<String, List<String>>>>() {
+          });
+      for (ExternalView externalView : accessor.<ExternalView>getChildValues(
+          keyBuilder.externalViews(), true)) {
+        for (String partition : externalView.getPartitionSet()) {
+          for (Map.Entry<String, String> instanceState : externalView.getStateMap(partition)
+              .entrySet()) {
+            List<String> errorInstances =
+                errorPartitions.containsKey(externalView.getResourceName()) && errorPartitions
+                    .get(externalView.getResourceName()).containsKey(partition) ? errorPartitions
+                    .get(externalView.getResourceName()).get(partition) : new ArrayList<>();
+            Assert.assertEquals(errorInstances.contains(instanceState.getKey()),
+                "ERROR".equals(instanceState.getValue()));
+          }
+        }
+      }
+    }
+    Assert.assertNotNull(
+        result.get("NonExistentCluster").get(AbstractResource.Properties.error.name()));
+
+    // Unsupported fields are rejected
+    post("clusters", ImmutableMap.of("command", Command.bulkQuery.name()), Entity.entity(
+        OBJECT_MAPPER.writeValueAsString(ImmutableMap.of(
+            ClusterAccessor.ClusterProperties.clusters.name(), clusters,
+            ClusterAccessor.ClusterProperties.fields.name(),
+            Arrays.asList(ClusterAccessor.ClusterProperties.messages.name()))),
+        MediaType.APPLICATION_JSON_TYPE), Response.Status.BAD_REQUEST.getStatusCode());
+    System.out.println("End test :" + TestHelper.getTestMethodName());
+  }
+
   @Test(dependsOnMethods = "testGetClusters")
   public void testGetClusterTopology() {
     System.out.println("Start test :" + TestHelper.getTestMethodName());
@@ -23,9 +23,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -139,6 +142,38 @@ public class TestInstancesAccessor extends AbstractTestClass {
     System.out.println("End test :" + TestHelper.getTestMethodName());
   }
 
+  @Test(dependsOnMethods = "testGetAllInstances")
+  public void testGetAllInstancesByPage() throws IOException {
+    System.out.println("Start test :" + TestHelper.getTestMethodName());
+
+    List<String> pagedInstances = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      Map<String, String> queryParams = new HashMap<>();
+      queryParams.put("limit", "3");
+      if (cursor != null) {
+        queryParams.put("cursor", cursor);
+      }
+      String body = get("clusters/" + CLUSTER_NAME + "/instances", queryParams,
+          Response.Status.OK.getStatusCode(), true);
+      JsonNode node = OBJECT_MAPPER.readTree(body);
+      List<String> instances = OBJECT_MAPPER.readValue(
+          node.get(InstancesAccessor.InstancesProperties.instances.name()).toString(),
+          OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, String.class));
+      Assert.assertTrue(instances.size() <= 3);
+      pagedInstances.addAll(instances);
+      JsonNode nextCursor = node.get("nextCursor");
+      cursor = nextCursor == null ? null : nextCursor.asText();
+      pages++;
+    } while (cursor != null);
+
+    Set<String> expectedInstances = new TreeSet<>(_instancesMap.get(CLUSTER_NAME));
+    Assert.assertEquals(pagedInstances, new ArrayList<>(expectedInstances));
+    Assert.assertEquals(pages, (expectedInstances.size() + 2) / 3);
+    System.out.println("End test :" + TestHelper.getTestMethodName());
+  }
+
   @Test(enabled = false)
   public void testUpdateInstances() throws IOException {
     // TODO: Reenable the test after storage node fix the problem
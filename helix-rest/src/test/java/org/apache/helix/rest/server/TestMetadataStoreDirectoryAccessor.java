@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -311,6 +313,18 @@ public class TestMetadataStoreDirectoryAccessor extends MetadataStoreDirectoryAc
             MetadataStoreRoutingConstants.SHARDING_KEYS, TEST_SHARDING_KEYS_2));
 
     Assert.assertEquals(queriedShardingKeysSet, expectedShardingKeysSet);
+
+    // The routing data is not sent again if it has not changed
+    Response response = target(TEST_NAMESPACE_URI_PREFIX + "/routing-data").request().get();
+    Assert.assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+    EntityTag eTag = response.getEntityTag();
+    Assert.assertNotNull(eTag);
+    response = target(TEST_NAMESPACE_URI_PREFIX + "/routing-data").request()
+        .header(HttpHeaders.IF_NONE_MATCH, eTag.toString()).get();
+    Assert.assertEquals(response.getStatus(), Response.Status.NOT_MODIFIED.getStatusCode());
+    response = target(TEST_NAMESPACE_URI_PREFIX + "/routing-data").request()
+        .header(HttpHeaders.IF_NONE_MATCH, "\"stale\"").get();
+    Assert.assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
   }
 
   /*
@@ -162,6 +162,42 @@ public class TestResourceAccessor extends AbstractTestClass {
     System.out.println("End test :" + TestHelper.getTestMethodName());
   }
 
+  @Test(dependsOnMethods = "testExternalView")
+  public void testCachedReads() throws Exception {
+    System.out.println("Start test :" + TestHelper.getTestMethodName());
+
+    Map<String, String> cachedRead = ImmutableMap.of("freshness", "cached");
+    String uri = "clusters/" + CLUSTER_NAME + "/resources/" + RESOURCE_NAME;
+    ExternalView externalView =
+        new ExternalView(toZNRecord(get(uri + "/externalView", cachedRead,
+            Response.Status.OK.getStatusCode(), true)));
+    Assert.assertEquals(externalView, _gSetupTool.getClusterManagementTool()
+        .getResourceExternalView(CLUSTER_NAME, RESOURCE_NAME));
+    get(uri + "/idealState", cachedRead, Response.Status.OK.getStatusCode(), true);
+
+    ResourceConfig originalConfig = _configAccessor.getResourceConfig(CLUSTER_NAME, RESOURCE_NAME);
+    Assert.assertEquals(new ResourceConfig(toZNRecord(
+        get(uri + "/configs", cachedRead, Response.Status.OK.getStatusCode(), true))),
+        originalConfig);
+
+    // The cached config is dropped once the watch fires
+    ResourceConfig updatedConfig = new ResourceConfig(originalConfig.getRecord());
+    updatedConfig.getRecord().setSimpleField("CACHED_READ_TEST_FIELD", "value");
+    _configAccessor.setResourceConfig(CLUSTER_NAME, RESOURCE_NAME, updatedConfig);
+    Assert.assertTrue(TestHelper.verify(() -> "value".equals(toZNRecord(
+        get(uri + "/configs", cachedRead, Response.Status.OK.getStatusCode(), true))
+        .getSimpleField("CACHED_READ_TEST_FIELD")), TestHelper.WAIT_DURATION));
+
+    _configAccessor.setResourceConfig(CLUSTER_NAME, RESOURCE_NAME, originalConfig);
+    Assert.assertTrue(TestHelper.verify(() -> toZNRecord(
+        get(uri + "/configs", cachedRead, Response.Status.OK.getStatusCode(), true))
+        .getSimpleField("CACHED_READ_TEST_FIELD") == null, TestHelper.WAIT_DURATION));
+    Assert.assertNull(toZNRecord(
+        get(uri + "/configs", null, Response.Status.OK.getStatusCode(), true))
+        .getSimpleField("CACHED_READ_TEST_FIELD"));
+    System.out.println("End test :" + TestHelper.getTestMethodName());
+  }
+
   @Test(dependsOnMethods = "testExternalView")
   public void testPartitionHealth() throws Exception {
     System.out.println("Start test :" + TestHelper.getTestMethodName());
@@ -20,10 +20,13 @@ package org.apache.helix.rest.server;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -72,6 +75,42 @@ public class TestWorkflowAccessor extends AbstractTestClass {
   }
 
   @Test(dependsOnMethods = "testGetWorkflows")
+  public void testGetWorkflowsByPage() throws IOException {
+    System.out.println("Start test :" + TestHelper.getTestMethodName());
+
+    List<String> pagedWorkflows = new ArrayList<>();
+    String cursor = null;
+    do {
+      Map<String, String> queryParams = new HashMap<>();
+      queryParams.put("limit", "2");
+      if (cursor != null) {
+        queryParams.put("cursor", cursor);
+      }
+      _auditLogger.clearupLogs();
+      String body = get("clusters/" + CLUSTER_NAME + "/workflows", queryParams,
+          Response.Status.OK.getStatusCode(), true);
+      // The streamed response is still recorded in the audit log
+      Assert.assertEquals(_auditLogger.getAuditLogs().size(), 1);
+      Assert.assertEquals(_auditLogger.getAuditLogs().get(0).getResponseEntity(), body);
+
+      JsonNode node = OBJECT_MAPPER.readTree(body);
+      List<String> workflows = OBJECT_MAPPER.readValue(
+          node.get(WorkflowAccessor.WorkflowProperties.Workflows.name()).toString(),
+          OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, String.class));
+      Assert.assertTrue(workflows.size() <= 2);
+      pagedWorkflows.addAll(workflows);
+      JsonNode nextCursor = node.get("nextCursor");
+      cursor = nextCursor == null ? null : nextCursor.getTextValue();
+    } while (cursor != null);
+
+    // The job configs are resource configs as well, but they are not listed
+    Set<String> expectedWorkflows =
+        new TreeSet<>(getTaskDriver(CLUSTER_NAME).getWorkflows().keySet());
+    Assert.assertEquals(pagedWorkflows, new ArrayList<>(expectedWorkflows));
+    System.out.println("End test :" + TestHelper.getTestMethodName());
+  }
+
+  @Test(dependsOnMethods = "testGetWorkflowsByPage")
   public void testGetWorkflow() throws IOException {
     System.out.println("Start test :" + TestHelper.getTestMethodName());
     String body = get("clusters/" + CLUSTER_NAME + "/workflows/" + WORKFLOW_NAME, null,
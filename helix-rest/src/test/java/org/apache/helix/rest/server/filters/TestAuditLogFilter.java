@@ -0,0 +1,98 @@
+package org.apache.helix.rest.server.filters;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.apache.helix.rest.server.auditlog.AuditLog;
+import org.apache.helix.rest.server.auditlog.AuditLogger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestAuditLogFilter {
+  private static final int ENTITY_BYTES = 200 * 1024;
+
+  @Test
+  public void testStreamedEntityIsTruncated() throws Exception {
+    List<AuditLog> auditLogs = new ArrayList<>();
+    AuditLogger auditLogger = auditLogs::add;
+    ByteArrayOutputStream response = new ByteArrayOutputStream();
+    WriterInterceptorContext context = mockContext(response);
+
+    new AuditLogFilter(Collections.singletonList(auditLogger)).aroundWriteTo(context);
+
+    // The client gets the whole response, the audit log only its head
+    Assert.assertEquals(response.size(), ENTITY_BYTES);
+    Assert.assertEquals(auditLogs.size(), 1);
+    String responseEntity = auditLogs.get(0).getResponseEntity();
+    Assert.assertTrue(responseEntity.length() < ENTITY_BYTES);
+    Assert.assertTrue(
+        responseEntity.endsWith("...(truncated, " + ENTITY_BYTES + " bytes in total)"));
+  }
+
+  @Test
+  public void testStreamedEntityNotCapturedWithoutAuditLoggers() throws Exception {
+    ByteArrayOutputStream response = new ByteArrayOutputStream();
+    WriterInterceptorContext context = mockContext(response);
+
+    new AuditLogFilter(Collections.emptyList()).aroundWriteTo(context);
+
+    Assert.assertEquals(response.size(), ENTITY_BYTES);
+    verify(context, never()).setOutputStream(any(OutputStream.class));
+  }
+
+  private WriterInterceptorContext mockContext(OutputStream response) throws Exception {
+    WriterInterceptorContext context = mock(WriterInterceptorContext.class);
+    OutputStream[] outputStream = { response };
+    when(context.getProperty(AuditLog.ATTRIBUTE_NAME)).thenReturn(new AuditLog.Builder());
+    when(context.getEntity()).thenReturn((StreamingOutput) output -> {
+    });
+    when(context.getOutputStream()).thenAnswer(invocation -> outputStream[0]);
+    doAnswer(invocation -> {
+      outputStream[0] = (OutputStream) invocation.getArguments()[0];
+      return null;
+    }).when(context).setOutputStream(any(OutputStream.class));
+    // Writes the entity the way a streamed JSON response does, in small chunks
+    doAnswer(invocation -> {
+      byte[] chunk = new byte[1024];
+      Arrays.fill(chunk, (byte) 'a');
+      for (int i = 0; i < ENTITY_BYTES / chunk.length; i++) {
+        outputStream[0].write(chunk);
+      }
+      return null;
+    }).when(context).proceed();
+    return context;
+  }
+}
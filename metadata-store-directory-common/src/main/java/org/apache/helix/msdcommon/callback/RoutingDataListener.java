@@ -19,9 +19,20 @@ package org.apache.helix.msdcommon.callback;
  * under the License.
  */
 
+import org.apache.helix.msdcommon.datamodel.RoutingDataDelta;
+
+
 public interface RoutingDataListener {
   /**
    * Callback for updating the internally-cached routing data.
    */
   void refreshRoutingData(String namespace);
+
+  /**
+   * Callback for applying the changes of the routing data to the internally-cached routing data.
+   * The deltas of a namespace are delivered in order. By default, the routing data is reloaded.
+   */
+  default void refreshRoutingData(String namespace, RoutingDataDelta delta) {
+    refreshRoutingData(namespace);
+  }
 }
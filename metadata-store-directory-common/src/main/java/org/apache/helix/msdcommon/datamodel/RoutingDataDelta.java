@@ -0,0 +1,89 @@
+package org.apache.helix.msdcommon.datamodel;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * The changes of the routing data of a namespace since it was last read. A sharding key moved to
+ * another realm is both removed and added.
+ */
+public class RoutingDataDelta {
+  private final boolean _isSnapshot;
+  // realm -> all the sharding keys of the realm, for the realms added or changed
+  private final Map<String, List<String>> _updatedRealms;
+  private final Set<String> _removedRealms;
+  // realm -> the sharding keys added to the realm
+  private final Map<String, List<String>> _addedShardingKeys;
+  private final Set<String> _removedShardingKeys;
+
+  /**
+   * @param isSnapshot - true if there was no previous read, so the delta contains all the routing
+   *          data
+   * @param updatedRealms - a mapping from the realms added or changed to all their sharding keys
+   * @param removedRealms - the realms removed
+   * @param addedShardingKeys - a mapping from realms to the sharding keys added to them
+   * @param removedShardingKeys - the sharding keys removed from their realms
+   */
+  public RoutingDataDelta(boolean isSnapshot, Map<String, List<String>> updatedRealms,
+      Set<String> removedRealms, Map<String, List<String>> addedShardingKeys,
+      Set<String> removedShardingKeys) {
+    _isSnapshot = isSnapshot;
+    _updatedRealms = Collections.unmodifiableMap(updatedRealms);
+    _removedRealms = Collections.unmodifiableSet(removedRealms);
+    _addedShardingKeys = Collections.unmodifiableMap(addedShardingKeys);
+    _removedShardingKeys = Collections.unmodifiableSet(removedShardingKeys);
+  }
+
+  public boolean isSnapshot() {
+    return _isSnapshot;
+  }
+
+  public Map<String, List<String>> getUpdatedRealms() {
+    return _updatedRealms;
+  }
+
+  public Set<String> getRemovedRealms() {
+    return _removedRealms;
+  }
+
+  public Map<String, List<String>> getAddedShardingKeys() {
+    return _addedShardingKeys;
+  }
+
+  public Set<String> getRemovedShardingKeys() {
+    return _removedShardingKeys;
+  }
+
+  public boolean isEmpty() {
+    return !_isSnapshot && _updatedRealms.isEmpty() && _removedRealms.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "RoutingDataDelta{updatedRealms=" + _updatedRealms.keySet() + ", removedRealms="
+        + _removedRealms + ", addedShardingKeys=" + _addedShardingKeys + ", removedShardingKeys="
+        + _removedShardingKeys + "}";
+  }
+}
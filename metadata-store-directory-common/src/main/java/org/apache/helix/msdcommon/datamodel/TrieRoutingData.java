@@ -20,6 +20,9 @@ package org.apache.helix.msdcommon.datamodel;
  */
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
@@ -36,11 +39,22 @@ import org.apache.helix.msdcommon.util.ZkValidationUtil;
  * data. It is not exactly a trie because it in essence stores a mapping (from sharding keys to
  * realm addresses) instead of pure text information; also, only the terminal nodes store meaningful
  * information (realm addresses).
+ * <p>
+ * The trie is a radix trie: a chain of path sections without branches is stored as one node, the
+ * nodes refer to the sections of the sharding key strings instead of copying them, and the realm
+ * addresses are interned. The lookups walk the path in place without allocating. The constructor
+ * sorts the sharding keys and builds each node once with all its children, so building the trie
+ * takes O(N log N) time. The trie is immutable, and {@link #update(Map, Collection)} builds a new
+ * one that copies the nodes along the changed sharding keys and shares all the other nodes.
  */
 public class TrieRoutingData implements MetadataStoreRoutingData {
   private static final String DELIMITER = "/";
+  private static final char DELIMITER_CHAR = '/';
+  private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
 
   private final TrieNode _rootNode;
+  // realm address -> the same realm address, shared by all the nodes of the realm
+  private final Map<String, String> _realmAddresses;
 
   public TrieRoutingData(Map<String, List<String>> routingData)
       throws InvalidRoutingDataException {
@@ -52,23 +66,61 @@ public class TrieRoutingData implements MetadataStoreRoutingData {
       throw new InvalidRoutingDataException("routingData needs at least 1 sharding key");
     }
 
+    _realmAddresses = new HashMap<>();
     if (isRootShardingKey(routingData)) {
       Map.Entry<String, List<String>> entry = routingData.entrySet().iterator().next();
-      _rootNode = new TrieNode(Collections.emptyMap(), "/", true, entry.getKey());
+      _rootNode = TrieNode.root(intern(_realmAddresses, entry.getKey()), NO_CHILDREN);
     } else {
-      _rootNode = new TrieNode(new HashMap<>(), "/", false, "");
-      constructTrie(routingData);
+      _rootNode = buildTrie(routingData, _realmAddresses);
     }
   }
 
+  private TrieRoutingData(TrieNode rootNode, Map<String, String> realmAddresses) {
+    _rootNode = rootNode;
+    _realmAddresses = realmAddresses;
+  }
+
+  /**
+   * Returns the routing data with the given sharding keys removed and then the given sharding keys
+   * added; a sharding key moved to another realm is both removed and added. This routing data is
+   * not modified, and the returned one shares the unchanged parts of the trie with it, so the cost
+   * is proportional to the number of changed sharding keys rather than to the size of the trie.
+   * @param addedRoutingData - a mapping from "realm addresses" to the sharding keys to add
+   * @param removedShardingKeys - the sharding keys to remove, the ones not found are ignored
+   * @return the updated routing data
+   * @throws InvalidRoutingDataException - when a sharding key to add is invalid or conflicts with
+   *           another sharding key, or when no sharding key is left
+   */
+  public TrieRoutingData update(Map<String, List<String>> addedRoutingData,
+      Collection<String> removedShardingKeys) throws InvalidRoutingDataException {
+    TrieNode rootNode = _rootNode;
+    for (String shardingKey : removedShardingKeys) {
+      rootNode = removeShardingKey(rootNode, shardingKey);
+    }
+
+    Map<String, String> realmAddresses = new HashMap<>(_realmAddresses);
+    if (!rootNode.isShardingKey() && rootNode.getChildren().length == 0 && isRootShardingKey(
+        addedRoutingData)) {
+      Map.Entry<String, List<String>> entry = addedRoutingData.entrySet().iterator().next();
+      rootNode = TrieNode.root(intern(realmAddresses, entry.getKey()), NO_CHILDREN);
+    } else {
+      rootNode = addShardingKeys(rootNode, addedRoutingData, realmAddresses);
+    }
+
+    if (!rootNode.isShardingKey() && rootNode.getChildren().length == 0) {
+      throw new InvalidRoutingDataException("routingData needs at least 1 sharding key");
+    }
+    return new TrieRoutingData(rootNode, realmAddresses);
+  }
+
   public Map<String, String> getAllMappingUnderPath(String path)
       throws IllegalArgumentException {
     if (!ZkValidationUtil.isPathValid(path)) {
       throw new IllegalArgumentException("Provided path is not a valid Zookeeper path: " + path);
     }
 
-    TrieNode curNode = getLongestPrefixNodeAlongPath(path);
-    if (!curNode.getPath().equals(path)) {
+    TrieNode curNode = getNodeAtOrBelowPath(path);
+    if (curNode == null) {
       return Collections.emptyMap();
     }
 
@@ -80,7 +132,7 @@ public class TrieRoutingData implements MetadataStoreRoutingData {
       if (curNode.isShardingKey()) {
         resultMap.put(curNode.getPath(), curNode.getRealmAddress());
       } else {
-        for (TrieNode child : curNode.getChildren().values()) {
+        for (TrieNode child : curNode.getChildren()) {
           nodeStack.push(child);
         }
       }
@@ -122,8 +174,9 @@ public class TrieRoutingData implements MetadataStoreRoutingData {
           "Provided shardingKey is not a valid Zookeeper path: " + shardingKey);
     }
 
-    TrieNode node = getLongestPrefixNodeAlongPath(shardingKey);
-    return !node.isShardingKey() && !node.getPath().equals(shardingKey);
+    // Invalid if a sharding key is a prefix of the key, or the key is a prefix of a sharding key
+    return !getLongestPrefixNodeAlongPath(shardingKey).isShardingKey()
+        && getNodeAtOrBelowPath(shardingKey) == null;
   }
 
   public boolean containsKeyRealmPair(String shardingKey, String realmAddress) {
@@ -133,50 +186,73 @@ public class TrieRoutingData implements MetadataStoreRoutingData {
     }
 
     TrieNode node = getLongestPrefixNodeAlongPath(shardingKey);
-    return node.getPath().equals(shardingKey) && node.getRealmAddress().equals(realmAddress);
+    return node.isShardingKey() && node.getPath().equals(shardingKey) && node.getRealmAddress()
+        .equals(realmAddress);
   }
 
   /*
    * Given a path, find a trie node that represents the longest prefix of the path. For example,
    * given "/a/b/c", the method starts at "/", and attempts to reach "/a", then attempts to reach
    * "/a/b", then ends on "/a/b/c"; if any of the node doesn't exist, the traversal terminates and
-   * the last seen existing node is returned.
-   * Note:
-   * 1. When the returned TrieNode is a sharding key, it is the only sharding key along the
-   * provided path (the path points to this sharding key);
-   * 2. When the returned TrieNode is not a sharding key but it represents the provided path, the
-   * provided path is a prefix(parent) to a sharding key;
-   * 3. When the returned TrieNode is not a sharding key and it does not represent the provided
-   * path (meaning the traversal ended before the last node of the path is reached), the provided
-   * path is not associated with any sharding key and can be added as a sharding key without
-   * creating ambiguity cases among sharding keys.
+   * the last seen existing node is returned. The path is compared section by section in place, so
+   * nothing is allocated.
+   * Note: when the returned TrieNode is a sharding key, it is the only sharding key along the
+   * provided path (the path points to this sharding key).
    * @param path - the path where the search is conducted
    * @return a TrieNode that represents the longest prefix of the path
    */
   private TrieNode getLongestPrefixNodeAlongPath(String path) {
-    if (path.equals(DELIMITER)) {
-      return _rootNode;
-    }
-
     TrieNode curNode = _rootNode;
-    TrieNode nextNode;
-    for (String pathSection : path.substring(1).split(DELIMITER, 0)) {
-      nextNode = curNode.getChildren().get(pathSection);
-      if (nextNode == null) {
-        return curNode;
+    // path[0, end) is the path of curNode, the root is empty
+    int end = 0;
+    while (!curNode.isShardingKey() && end < path.length()) {
+      TrieNode child = curNode.getChild(path, end + 1);
+      if (child == null || !child.isPrefixOf(path, end + 1)) {
+        break;
       }
-      curNode = nextNode;
+      curNode = child;
+      end += 1 + child.getLabelLength();
     }
     return curNode;
   }
 
+  /*
+   * Given a path, find the trie node whose path is the provided path, or the node whose label
+   * contains the end of the provided path when the path is in the middle of a compressed chain.
+   * All the sharding keys having the provided path as a prefix are under the returned node.
+   * @param path - the path where the search is conducted
+   * @return the node at or below the path, or null if no sharding key has the path as a prefix
+   */
+  private TrieNode getNodeAtOrBelowPath(String path) {
+    if (path.equals(DELIMITER)) {
+      return _rootNode;
+    }
+    TrieNode node = getLongestPrefixNodeAlongPath(path);
+    int end = node.getPathLength();
+    if (end == path.length()) {
+      return node;
+    }
+    if (node.isShardingKey()) {
+      return null;
+    }
+    TrieNode child = node.getChild(path, end + 1);
+    if (child == null) {
+      return null;
+    }
+    // The rest of the path must end at a section boundary of the child label
+    int restLength = path.length() - end - 1;
+    return child.getLabelLength() > restLength && path
+        .regionMatches(end + 1, child._path, child._start, restLength)
+        && child._path.charAt(child._start + restLength) == DELIMITER_CHAR ? child : null;
+  }
+
   /*
    * Checks if there is any sharding key in the routing data
    * @param routingData - a mapping from "sharding keys" to "realm addresses" to be parsed into a
    *          trie
    * @return whether there is any sharding key
    */
-  private boolean containsShardingKey(Map<String, List<String>> routingData) {
+  private static boolean containsShardingKey(Map<String, List<String>> routingData) {
     for (Map.Entry<String, List<String>> entry : routingData.entrySet()) {
       if (entry.getValue().size() > 0) {
         return true;
@@ -193,7 +269,7 @@ public class TrieRoutingData implements MetadataStoreRoutingData {
    *          trie
    * @return whether the edge case is true
    */
-  private boolean isRootShardingKey(Map<String, List<String>> routingData) {
+  private static boolean isRootShardingKey(Map<String, List<String>> routingData) {
     if (routingData.size() == 1) {
       for (List<String> shardingKeys : routingData.values()) {
         return shardingKeys.size() == 1 && shardingKeys.get(0).equals(DELIMITER);
@@ -203,19 +279,178 @@ public class TrieRoutingData implements MetadataStoreRoutingData {
     return false;
   }
 
+  private static String intern(Map<String, String> realmAddresses, String realmAddress) {
+    String interned = realmAddresses.putIfAbsent(realmAddress, realmAddress);
+    return interned == null ? realmAddress : interned;
+  }
+
   /*
-   * Constructs a trie based on the provided routing data. It loops through all sharding keys and
-   * constructs the trie in a top down manner.
-   * @param routingData- a mapping from "sharding keys" to "realm addresses" to be parsed into a
+   * Builds the trie of the provided routing data. The sharding keys are sorted section by section,
+   * so the sharding keys under a node are contiguous, and each node is created once with all its
+   * children instead of being copied for every sharding key added under it.
+   * @param routingData - a mapping from "realm addresses" to "sharding keys" to be parsed into a
    *          trie
+   * @param realmAddresses - the interned realm addresses
+   * @return the root of the trie
+   * @throws InvalidRoutingDataException - for the same reasons as
+   *           {@link #addShardingKeys(TrieNode, Map, Map)}
+   */
+  private static TrieNode buildTrie(Map<String, List<String>> routingData,
+      Map<String, String> realmAddresses) throws InvalidRoutingDataException {
+    List<ShardingKey> shardingKeys = new ArrayList<>();
+    for (Map.Entry<String, List<String>> entry : routingData.entrySet()) {
+      String realmAddress = intern(realmAddresses, entry.getKey());
+      for (String shardingKey : entry.getValue()) {
+        // Missing leading delimiter is invalid
+        if (!ZkValidationUtil.isPathValid(shardingKey)) {
+          throw new InvalidRoutingDataException(
+              "Sharding key is not a valid Zookeeper path: " + shardingKey);
+        }
+
+        // Root can only be a sharding key if it's the only sharding key, which has already been
+        // checked, therefore it's definitely invalid
+        if (shardingKey.equals(DELIMITER)) {
+          throw new InvalidRoutingDataException(
+              "There exist other sharding keys. Root cannot be a sharding key.");
+        }
+        shardingKeys.add(new ShardingKey(shardingKey, realmAddress, shardingKeys.size()));
+      }
+    }
+
+    ShardingKey[] sortedKeys = shardingKeys.toArray(new ShardingKey[0]);
+    Arrays.sort(sortedKeys, (key, other) -> compareSections(key._path, other._path));
+    return TrieNode.root(null, buildChildren(sortedKeys, 0, sortedKeys.length, 0));
+  }
+
+  /*
+   * Builds the children of a node from the sorted sharding keys in [from, to), which all have the
+   * path of the node as a prefix.
+   * @param end - the length of the path of the node
+   */
+  private static TrieNode[] buildChildren(ShardingKey[] keys, int from, int to, int end)
+      throws InvalidRoutingDataException {
+    int start = end + 1;
+    List<TrieNode> children = new ArrayList<>();
+    int groupFrom = from;
+    while (groupFrom < to) {
+      // The sharding keys of a child share their first path section after the node
+      String path = keys[groupFrom]._path;
+      int sectionEnd = path.indexOf(DELIMITER_CHAR, start);
+      if (sectionEnd < 0) {
+        sectionEnd = path.length();
+      }
+      int groupTo = groupFrom + 1;
+      while (groupTo < to && isSectionOf(keys[groupTo]._path, path, start, sectionEnd)) {
+        groupTo++;
+      }
+      children.add(buildNode(keys, groupFrom, groupTo, start));
+      groupFrom = groupTo;
+    }
+    return children.toArray(NO_CHILDREN);
+  }
+
+  /*
+   * Builds the node of the sorted sharding keys in [from, to), whose label starts at the provided
+   * position.
+   */
+  private static TrieNode buildNode(ShardingKey[] keys, int from, int to, int start)
+      throws InvalidRoutingDataException {
+    ShardingKey first = keys[from];
+    if (to - from == 1) {
+      return new TrieNode(first._path, start, first._path.length(), first._realmAddress,
+          NO_CHILDREN);
+    }
+    // The keys are sorted, so the prefix of the first and the last key is common to all of them
+    String last = keys[to - 1]._path;
+    int end =
+        start + getCommonPrefixLength(first._path, start, first._path.length(), last, start);
+    if (end == first._path.length()) {
+      // The first key is the path of the node, so it is a parent of, or equal to, the next key
+      ShardingKey next = keys[from + 1];
+      if (next._order > first._order && !next._path.equals(first._path)) {
+        throw new InvalidRoutingDataException(
+            next._path + " cannot be a sharding key because " + first._path
+                + " is its parent key and is also a sharding key.");
+      }
+      String shardingKey = next._order > first._order ? next._path : first._path;
+      throw new InvalidRoutingDataException(shardingKey
+          + " cannot be a sharding key because it is a parent key to another sharding key.");
+    }
+    return new TrieNode(first._path, start, end, null, buildChildren(keys, from, to, end));
+  }
+
+  /*
+   * Compares the paths section by section: the delimiter sorts before any other character, so a
+   * path section sorts before the longer sections it is a prefix of, as in
+   * {@link TrieNode#getChild(String, int)}.
+   */
+  private static int compareSections(String path, String other) {
+    int length = Math.min(path.length(), other.length());
+    for (int i = 0; i < length; i++) {
+      char c = path.charAt(i);
+      char otherChar = other.charAt(i);
+      if (c != otherChar) {
+        if (c == DELIMITER_CHAR) {
+          return -1;
+        }
+        if (otherChar == DELIMITER_CHAR) {
+          return 1;
+        }
+        return c - otherChar;
+      }
+    }
+    return path.length() - other.length();
+  }
+
+  /*
+   * Checks if the path section of the provided path in [start, sectionEnd) is also the path
+   * section of the other path starting at start.
+   */
+  private static boolean isSectionOf(String other, String path, int start, int sectionEnd) {
+    return other.regionMatches(start, path, start, sectionEnd - start) && (
+        other.length() == sectionEnd || other.charAt(sectionEnd) == DELIMITER_CHAR);
+  }
+
+  /*
+   * Returns the length of the longest common prefix, in whole path sections, of the label
+   * [labelStart, labelEnd) and the provided path starting at the provided position.
+   */
+  private static int getCommonPrefixLength(String label, int labelStart, int labelEnd,
+      String path, int start) {
+    int labelLength = labelEnd - labelStart;
+    int maxLength = Math.min(labelLength, path.length() - start);
+    int length = 0;
+    int common = 0;
+    while (length < maxLength && label.charAt(labelStart + length) == path.charAt(start + length)) {
+      if (label.charAt(labelStart + length) == DELIMITER_CHAR) {
+        common = length;
+      }
+      length++;
+    }
+    boolean labelSectionEnds =
+        length == labelLength || label.charAt(labelStart + length) == DELIMITER_CHAR;
+    boolean pathSectionEnds =
+        start + length == path.length() || path.charAt(start + length) == DELIMITER_CHAR;
+    return labelSectionEnds && pathSectionEnds ? length : common;
+  }
+
+  /*
+   * Adds all the sharding keys of the provided routing data to the trie. Each sharding key copies
+   * the nodes along its path, so this is only used to update a trie, see
+   * {@link #buildTrie(Map, Map)} for building one.
+   * @param rootNode - the root of the trie
+   * @param routingData- a mapping from "sharding keys" to "realm addresses" to be added
+   * @param realmAddresses - the interned realm addresses
+   * @return the root of the trie with the sharding keys added
    * @throws InvalidRoutingDataException - when there is an empty sharding key (edge case that
    *           always renders the routing data invalid); when there is a sharding key which already
    *           contains a sharding key (invalid); when there is a sharding key that is a part of
    *           another sharding key (invalid); when a sharding key doesn't have a leading delimiter
    */
-  private void constructTrie(Map<String, List<String>> routingData)
-      throws InvalidRoutingDataException {
+  private static TrieNode addShardingKeys(TrieNode rootNode, Map<String, List<String>> routingData,
+      Map<String, String> realmAddresses) throws InvalidRoutingDataException {
     for (Map.Entry<String, List<String>> entry : routingData.entrySet()) {
+      String realmAddress = intern(realmAddresses, entry.getKey());
       for (String shardingKey : entry.getValue()) {
         // Missing leading delimiter is invalid
         if (!ZkValidationUtil.isPathValid(shardingKey)) {
@@ -229,99 +464,290 @@ public class TrieRoutingData implements MetadataStoreRoutingData {
           throw new InvalidRoutingDataException(
               "There exist other sharding keys. Root cannot be a sharding key.");
         }
-
-        // Locate the next delimiter
-        int nextDelimiterIndex = shardingKey.indexOf(DELIMITER, 1);
-        int prevDelimiterIndex = 0;
-        String keySection = shardingKey.substring(prevDelimiterIndex + 1,
-            nextDelimiterIndex > 0 ? nextDelimiterIndex : shardingKey.length());
-        TrieNode curNode = _rootNode;
-        TrieNode nextNode = curNode.getChildren().get(keySection);
-
-        // If the key section is not the last section yet, go in the loop; if the key section is the
-        // last section, exit
-        while (nextDelimiterIndex > 0) {
-          // If the node is already a leaf node, the current sharding key is invalid; if the node
-          // doesn't exist, construct a node and continue
-          if (nextNode != null && nextNode.isShardingKey()) {
-            throw new InvalidRoutingDataException(
-                shardingKey + " cannot be a sharding key because " + shardingKey
-                    .substring(0, nextDelimiterIndex)
-                    + " is its parent key and is also a sharding key.");
-          } else if (nextNode == null) {
-            nextNode =
-                new TrieNode(new HashMap<>(), shardingKey.substring(0, nextDelimiterIndex), false,
-                    "");
-            curNode.addChild(keySection, nextNode);
-          }
-          prevDelimiterIndex = nextDelimiterIndex;
-          nextDelimiterIndex = shardingKey.indexOf(DELIMITER, prevDelimiterIndex + 1);
-          keySection = shardingKey.substring(prevDelimiterIndex + 1,
-              nextDelimiterIndex > 0 ? nextDelimiterIndex : shardingKey.length());
-          curNode = nextNode;
-          nextNode = curNode.getChildren().get(keySection);
+        if (rootNode.isShardingKey()) {
+          throw new InvalidRoutingDataException(shardingKey + " cannot be a sharding key because "
+              + DELIMITER + " is its parent key and is also a sharding key.");
         }
 
-        // If the last node already exists, it's a part of another sharding key, making the current
-        // sharding key invalid
-        if (nextNode != null) {
-          throw new InvalidRoutingDataException(shardingKey
-              + " cannot be a sharding key because it is a parent key to another sharding key.");
-        }
-        nextNode = new TrieNode(new HashMap<>(), shardingKey, true, entry.getKey());
-        curNode.addChild(keySection, nextNode);
+        rootNode = addShardingKey(rootNode, 0, shardingKey, realmAddress);
+      }
+    }
+    return rootNode;
+  }
+
+  /*
+   * Adds a sharding key under the provided node, and returns a copy of the node with the sharding
+   * key added. The nodes off the path of the sharding key are shared with the original node.
+   * @param node - a node which is not a sharding key
+   * @param end - the length of the path of the node, which is a prefix of the sharding key
+   */
+  private static TrieNode addShardingKey(TrieNode node, int end, String shardingKey,
+      String realmAddress) throws InvalidRoutingDataException {
+    int start = end + 1;
+    TrieNode child = node.getChild(shardingKey, start);
+    if (child == null) {
+      return node.withChild(
+          new TrieNode(shardingKey, start, shardingKey.length(), realmAddress, NO_CHILDREN));
+    }
+
+    int commonLength = child.getCommonPrefixLength(shardingKey, start);
+    if (start + commonLength == shardingKey.length()) {
+      // The sharding key is the path of the child, or a prefix of it
+      throw new InvalidRoutingDataException(shardingKey
+          + " cannot be a sharding key because it is a parent key to another sharding key.");
+    }
+    if (commonLength == child.getLabelLength()) {
+      if (child.isShardingKey()) {
+        throw new InvalidRoutingDataException(
+            shardingKey + " cannot be a sharding key because " + child.getPath()
+                + " is its parent key and is also a sharding key.");
+      }
+      return node.withChild(
+          addShardingKey(child, start + commonLength, shardingKey, realmAddress));
+    }
+
+    // Split the label of the child where the sharding key branches off
+    int splitEnd = child._start + commonLength;
+    TrieNode lowerChild =
+        new TrieNode(child._path, splitEnd + 1, child._end, child._realmAddress, child._children);
+    TrieNode leaf =
+        new TrieNode(shardingKey, start + commonLength + 1, shardingKey.length(), realmAddress,
+            NO_CHILDREN);
+    TrieNode branch = new TrieNode(child._path, child._start, splitEnd, null, NO_CHILDREN)
+        .withChild(lowerChild).withChild(leaf);
+    return node.withChild(branch);
+  }
+
+  /*
+   * Removes a sharding key from the trie, and returns the new root. A node left with a single
+   * child is merged with the child, so the trie stays compressed.
+   */
+  private static TrieNode removeShardingKey(TrieNode rootNode, String shardingKey) {
+    if (rootNode.isShardingKey()) {
+      return shardingKey.equals(DELIMITER) ? TrieNode.root(null, NO_CHILDREN) : rootNode;
+    }
+    if (!ZkValidationUtil.isPathValid(shardingKey) || shardingKey.equals(DELIMITER)) {
+      return rootNode;
+    }
+    TrieNode newRoot = removeShardingKey(rootNode, 0, shardingKey);
+    return newRoot == null ? TrieNode.root(null, NO_CHILDREN) : newRoot;
+  }
+
+  /*
+   * @return the copy of the node without the sharding key, the node itself if the sharding key is
+   *         not found, or null if the node is left without sharding keys
+   */
+  private static TrieNode removeShardingKey(TrieNode node, int end, String shardingKey) {
+    TrieNode child = node.getChild(shardingKey, end + 1);
+    if (child == null || !child.isPrefixOf(shardingKey, end + 1)) {
+      return node;
+    }
+    int childEnd = end + 1 + child.getLabelLength();
+    TrieNode newChild;
+    if (child.isShardingKey()) {
+      if (childEnd != shardingKey.length()) {
+        return node;
       }
+      newChild = null;
+    } else {
+      newChild = removeShardingKey(child, childEnd, shardingKey);
+      if (newChild == child) {
+        return node;
+      }
+    }
+
+    if (newChild != null) {
+      return node.withChild(newChild);
+    }
+    TrieNode[] children = node.withoutChild(child);
+    if (children.length == 0) {
+      return null;
+    }
+    if (children.length == 1 && !node.isRoot()) {
+      // Merge the node with its only child
+      TrieNode onlyChild = children[0];
+      return new TrieNode(onlyChild._path, node._start, onlyChild._end, onlyChild._realmAddress,
+          onlyChild._children);
+    }
+    return new TrieNode(node._path, node._start, node._end, node._realmAddress, children);
+  }
+
+  /*
+   * A sharding key of the routing data the trie is built from.
+   */
+  private static class ShardingKey {
+    private final String _path;
+    private final String _realmAddress;
+    // The position of the sharding key in the routing data, to report conflicts in that order
+    private final int _order;
+
+    ShardingKey(String path, String realmAddress, int order) {
+      _path = path;
+      _realmAddress = realmAddress;
+      _order = order;
     }
   }
 
   private static class TrieNode {
     /*
-     * This field is a mapping between trie key and children nodes. For example, node "a" has
-     * children "ab" and "ac", therefore the keys are "b" and "c" respectively.
+     * The path of the node is the prefix of this string ending at _end, and the label of the node
+     * is the part of the path after the path of its parent, starting at _start. For example, with
+     * the sharding keys "/a/b/c" and "/a/b/d", node "/a/b" has label "a/b" and children "c" and
+     * "d". A sharding key node refers to its sharding key, and the other nodes refer to the
+     * sharding key of one of their descendants, so the paths are never copied.
      */
-    private Map<String, TrieNode> _children;
-    /*
-     * This field states whether the path represented by the node is a sharding key
-     */
-    private final boolean _isShardingKey;
+    private final String _path;
+    private final int _start;
+    private final int _end;
     /*
-     * This field contains the complete path/prefix leading to the current node. For example, the
-     * name of root node is "/", then the name of its child node
-     * is "/a", and the name of the child's child node is "/a/b".
+     * The end of the first path section of the label, the children are sorted by it.
      */
-    private final String _path;
+    private final int _firstSectionEnd;
     /*
      * This field represents the data contained in a node(which represents a path), and is only
      * available to the terminal nodes.
      */
     private final String _realmAddress;
+    /*
+     * The children nodes, sorted by the first path section of their labels.
+     */
+    private final TrieNode[] _children;
 
-    TrieNode(Map<String, TrieNode> children, String path, boolean isShardingKey,
-        String realmAddress) {
-      _children = children;
-      _isShardingKey = isShardingKey;
+    TrieNode(String path, int start, int end, String realmAddress, TrieNode[] children) {
       _path = path;
+      _start = start;
+      _end = end;
+      int firstSectionEnd = path.indexOf(DELIMITER_CHAR, start);
+      _firstSectionEnd = firstSectionEnd < 0 || firstSectionEnd > end ? end : firstSectionEnd;
       _realmAddress = realmAddress;
+      _children = children;
     }
 
-    public Map<String, TrieNode> getChildren() {
+    static TrieNode root(String realmAddress, TrieNode[] children) {
+      return new TrieNode(DELIMITER, 0, 0, realmAddress, children);
+    }
+
+    boolean isRoot() {
+      return _end == 0;
+    }
+
+    TrieNode[] getChildren() {
       return _children;
     }
 
-    public boolean isShardingKey() {
-      return _isShardingKey;
+    boolean isShardingKey() {
+      return _realmAddress != null;
+    }
+
+    String getPath() {
+      return isRoot() || _end == _path.length() ? _path : _path.substring(0, _end);
     }
 
-    public String getPath() {
-      return _path;
+    int getPathLength() {
+      return isRoot() ? 0 : _end;
     }
 
-    public String getRealmAddress() {
+    String getRealmAddress() {
       return _realmAddress;
     }
 
-    public void addChild(String key, TrieNode node) {
-      _children.put(key, node);
+    int getLabelLength() {
+      return _end - _start;
+    }
+
+    /*
+     * Finds the child whose label starts with the path section of the provided path starting at
+     * sectionStart.
+     */
+    TrieNode getChild(String path, int sectionStart) {
+      int sectionEnd = path.indexOf(DELIMITER_CHAR, sectionStart);
+      if (sectionEnd < 0) {
+        sectionEnd = path.length();
+      }
+      int low = 0;
+      int high = _children.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = _children[mid].compareFirstSection(path, sectionStart, sectionEnd);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return _children[mid];
+        }
+      }
+      return null;
+    }
+
+    /*
+     * Checks if the label of this node is at the provided position of the path, followed by the
+     * end of the path or a delimiter.
+     */
+    boolean isPrefixOf(String path, int start) {
+      int labelLength = getLabelLength();
+      int end = start + labelLength;
+      return end <= path.length() && (end == path.length()
+          || path.charAt(end) == DELIMITER_CHAR) && path
+          .regionMatches(start, _path, _start, labelLength);
+    }
+
+    /*
+     * Returns the length of the longest common prefix, in whole path sections, of the label and
+     * the provided path starting at the provided position.
+     */
+    int getCommonPrefixLength(String path, int start) {
+      return TrieRoutingData.getCommonPrefixLength(_path, _start, _end, path, start);
+    }
+
+    private int compareFirstSection(String path, int sectionStart, int sectionEnd) {
+      int length = _firstSectionEnd - _start;
+      int otherLength = sectionEnd - sectionStart;
+      int minLength = Math.min(length, otherLength);
+      for (int i = 0; i < minLength; i++) {
+        char c = _path.charAt(_start + i);
+        char other = path.charAt(sectionStart + i);
+        if (c != other) {
+          return c - other;
+        }
+      }
+      return length - otherLength;
+    }
+
+    /*
+     * Returns a copy of this node with the provided child added, or replacing the child with the
+     * same first path section.
+     */
+    TrieNode withChild(TrieNode child) {
+      int low = 0;
+      int high = _children.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = _children[mid]
+            .compareFirstSection(child._path, child._start, child._firstSectionEnd);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          TrieNode[] children = _children.clone();
+          children[mid] = child;
+          return new TrieNode(_path, _start, _end, _realmAddress, children);
+        }
+      }
+      TrieNode[] children = new TrieNode[_children.length + 1];
+      System.arraycopy(_children, 0, children, 0, low);
+      children[low] = child;
+      System.arraycopy(_children, low, children, low + 1, _children.length - low);
+      return new TrieNode(_path, _start, _end, _realmAddress, children);
+    }
+
+    TrieNode[] withoutChild(TrieNode child) {
+      int index = Arrays.asList(_children).indexOf(child);
+      TrieNode[] children = new TrieNode[_children.length - 1];
+      System.arraycopy(_children, 0, children, 0, index);
+      System.arraycopy(_children, index + 1, children, index, _children.length - index - 1);
+      return children;
     }
   }
-}
\ No newline at end of file
+}
@@ -34,6 +34,8 @@ import com.google.common.collect.ImmutableMap;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.apache.helix.msdcommon.constant.MetadataStoreRoutingConstants;
+import org.apache.helix.msdcommon.util.RoutingDataUtil;
+import org.apache.http.HttpHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +52,7 @@ public class MockMetadataStoreDirectoryServer {
       MetadataStoreRoutingConstants.MSDS_GET_ALL_REALMS_ENDPOINT;
   protected static final int NOT_IMPLEMENTED = 501;
   protected static final int OK = 200;
+  protected static final int NOT_MODIFIED = 304;
   protected static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
   protected final String _hostname;
@@ -127,7 +130,8 @@ public class MockMetadataStoreDirectoryServer {
         REST_PREFIX + _namespace + MetadataStoreRoutingConstants.MSDS_GET_ALL_ROUTING_DATA_ENDPOINT,
         createHttpHandler(ImmutableMap
             .of(MetadataStoreRoutingConstants.SINGLE_METADATA_STORE_NAMESPACE, _namespace,
-                MetadataStoreRoutingConstants.ROUTING_DATA, result)));
+                MetadataStoreRoutingConstants.ROUTING_DATA, result),
+            RoutingDataUtil.getETag(_routingDataMap)));
 
     // Get all realms endpoint
     _server.createContext(REST_PREFIX + _namespace + ZK_REALM_ENDPOINT, createHttpHandler(
@@ -143,9 +147,29 @@ public class MockMetadataStoreDirectoryServer {
   }
 
   private HttpHandler createHttpHandler(Map<String, Object> keyValuePairs) {
+    return createHttpHandler(keyValuePairs, null);
+  }
+
+  /**
+   * Creates a handler that responds to GET with the given key value pairs. If an entity tag is
+   * given, it is sent in the ETag header, and a GET with a matching If-None-Match header is
+   * responded with 304 Not Modified.
+   */
+  private HttpHandler createHttpHandler(Map<String, Object> keyValuePairs, String eTag) {
+    String quotedETag = eTag == null ? null : "\"" + eTag + "\"";
     return httpExchange -> {
       OutputStream outputStream = httpExchange.getResponseBody();
       String htmlResponse;
+      if (quotedETag != null) {
+        httpExchange.getResponseHeaders().set(HttpHeaders.ETAG, quotedETag);
+      }
+      String ifNoneMatch = httpExchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+      if (SupportedHttpVerbs.GET.name().equals(httpExchange.getRequestMethod())
+          && quotedETag != null && quotedETag.equals(ifNoneMatch)) {
+        httpExchange.sendResponseHeaders(NOT_MODIFIED, -1);
+        outputStream.close();
+        return;
+      }
       if (SupportedHttpVerbs.GET.name().equals(httpExchange.getRequestMethod())) {
         htmlResponse = OBJECT_MAPPER.writeValueAsString(keyValuePairs);
         httpExchange.sendResponseHeaders(OK, htmlResponse.length());
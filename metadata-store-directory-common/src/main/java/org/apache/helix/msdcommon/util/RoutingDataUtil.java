@@ -0,0 +1,76 @@
+package org.apache.helix.msdcommon.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+public class RoutingDataUtil {
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * Returns the entity tag of the routing data, which MSDS sends in the ETag header of the routing
+   * data responses so the clients can fetch the routing data conditionally. The tag only depends
+   * on the content of the routing data, not on the order of the realms or the sharding keys, so
+   * all the MSDS instances serving the same routing data return the same tag.
+   * @param routingData <realm, sharding keys of the realm>
+   * @return the entity tag, without the quotes
+   */
+  public static String getETag(Map<String, ? extends Collection<String>> routingData) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+    for (Map.Entry<String, ? extends Collection<String>> entry : new TreeMap<>(routingData)
+        .entrySet()) {
+      update(digest, entry.getKey());
+      List<String> shardingKeys = new ArrayList<>(entry.getValue());
+      shardingKeys.sort(null);
+      for (String shardingKey : shardingKeys) {
+        update(digest, shardingKey);
+      }
+      // Separates the sharding keys of a realm from the next realm
+      digest.update((byte) 0);
+    }
+    byte[] hash = digest.digest();
+    char[] eTag = new char[hash.length * 2];
+    for (int i = 0; i < hash.length; i++) {
+      eTag[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+      eTag[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xf];
+    }
+    return new String(eTag);
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    // A sharding key or a realm never contains '\n'
+    digest.update((byte) '\n');
+  }
+}
@@ -20,6 +20,24 @@ package org.apache.helix.msdcommon.util;
  */
 
 public class ZkValidationUtil {
+  // The characters allowed in a path section besides the letters, the digits and '_'
+  private static final String SPECIAL_PATH_CHARS = "?$&+,:;=@#|'<>.^*()%!-";
+  private static final boolean[] VALID_PATH_CHARS = new boolean[128];
+
+  static {
+    for (char c = 'a'; c <= 'z'; c++) {
+      VALID_PATH_CHARS[c] = true;
+      VALID_PATH_CHARS[Character.toUpperCase(c)] = true;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      VALID_PATH_CHARS[c] = true;
+    }
+    VALID_PATH_CHARS['_'] = true;
+    for (char c : SPECIAL_PATH_CHARS.toCharArray()) {
+      VALID_PATH_CHARS[c] = true;
+    }
+  }
+
   /**
    * Validates whether a given path string is a valid ZK path.
    *
@@ -35,6 +53,29 @@ public class ZkValidationUtil {
    * /abc/abc/abc/abc/
    **/
   public static boolean isPathValid(String path) {
-    return path.matches("^/|(/[\\w?[$&+,:;=?@#|'<>.^*()%!-]-]+)+$");
+    // Scans the path in place instead of matching a regex, as it is checked on every routing data
+    // lookup
+    int length = path.length();
+    if (length == 0 || path.charAt(0) != '/') {
+      return false;
+    }
+    if (length == 1) {
+      return true;
+    }
+    boolean emptySection = true;
+    for (int i = 1; i < length; i++) {
+      char c = path.charAt(i);
+      if (c == '/') {
+        if (emptySection) {
+          return false;
+        }
+        emptySection = true;
+      } else if (c < VALID_PATH_CHARS.length && VALID_PATH_CHARS[c]) {
+        emptySection = false;
+      } else {
+        return false;
+      }
+    }
+    return !emptySection;
   }
 }
@@ -19,12 +19,16 @@ package org.apache.helix.msdcommon.datamodel;
  * under the License.
  */
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
 
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
 import org.testng.Assert;
@@ -343,4 +347,146 @@ public class TestTrieRoutingData {
   public void testContainsKeyRealmPairNoRealm() {
     Assert.assertFalse(_trie.containsKeyRealmPair("/h/i", "realmAddress0"));
   }
-}
\ No newline at end of file
+
+  /**
+   * The sharding keys sharing a chain of path sections are stored in compressed nodes, and the
+   * paths ending in the middle of a chain are prefixes of the sharding keys below it.
+   */
+  @Test
+  public void testCompressedPaths() throws InvalidRoutingDataException {
+    Map<String, List<String>> routingData = new HashMap<>();
+    routingData.put("realmAddress1", Arrays.asList("/a/b/c/d", "/a/b/c/e"));
+    routingData.put("realmAddress2", Arrays.asList("/a/bc", "/ab/x/y"));
+    TrieRoutingData trie = new TrieRoutingData(routingData);
+
+    Assert.assertEquals(trie.getMetadataStoreRealm("/a/b/c/d/x/y"), "realmAddress1");
+    Assert.assertEquals(trie.getShardingKeyInPath("/a/b/c/e"), "/a/b/c/e");
+    Assert.assertEquals(trie.getMetadataStoreRealm("/a/bc/d"), "realmAddress2");
+    Assert.assertEquals(trie.getMetadataStoreRealm("/ab/x/y"), "realmAddress2");
+    for (String path : Arrays.asList("/a/b", "/a/b/c", "/a/b/cd", "/ab/x", "/ab/xy/z", "/a")) {
+      try {
+        trie.getMetadataStoreRealm(path);
+        Assert.fail("Expecting NoSuchElementException for " + path);
+      } catch (NoSuchElementException e) {
+        Assert.assertTrue(e.getMessage().contains("No sharding key found"));
+      }
+    }
+
+    Assert.assertEquals(trie.getAllMappingUnderPath("/a/b").keySet(),
+        new HashSet<>(Arrays.asList("/a/b/c/d", "/a/b/c/e")));
+    Assert.assertEquals(trie.getAllMappingUnderPath("/ab/x").keySet(),
+        Collections.singleton("/ab/x/y"));
+    Assert.assertTrue(trie.getAllMappingUnderPath("/a/b/c/d/e").isEmpty());
+    Assert.assertTrue(trie.getAllMappingUnderPath("/a/b/x").isEmpty());
+    Assert.assertTrue(trie.getAllMappingUnderPath("/ab/xy").isEmpty());
+
+    Assert.assertFalse(trie.isShardingKeyInsertionValid("/a/b"));
+    Assert.assertFalse(trie.isShardingKeyInsertionValid("/ab/x"));
+    Assert.assertFalse(trie.isShardingKeyInsertionValid("/a/b/c/d/x"));
+    Assert.assertTrue(trie.isShardingKeyInsertionValid("/a/b/cd"));
+    Assert.assertTrue(trie.isShardingKeyInsertionValid("/a/b/x"));
+    Assert.assertTrue(trie.isShardingKeyInsertionValid("/ab/xy"));
+    Assert.assertTrue(trie.containsKeyRealmPair("/a/bc", "realmAddress2"));
+    Assert.assertFalse(trie.containsKeyRealmPair("/a/b", "realmAddress1"));
+  }
+
+  /**
+   * Applies random updates to a trie, and compares it with the routing data after each update.
+   */
+  @Test
+  public void testUpdate() throws InvalidRoutingDataException {
+    Random random = new Random(7);
+    String[] sections = {"a", "ab", "b", "ba", "c"};
+    String[] realms = {"realmAddress1", "realmAddress2", "realmAddress3"};
+    Map<String, String> expected = new HashMap<>();
+    expected.put("/a/a/a", realms[0]);
+    TrieRoutingData trie = new TrieRoutingData(
+        Collections.singletonMap(realms[0], Collections.singletonList("/a/a/a")));
+
+    for (int round = 0; round < 300; round++) {
+      TrieRoutingData previous = trie;
+      Map<String, String> previousExpected = new HashMap<>(expected);
+      Map<String, List<String>> added = new HashMap<>();
+      List<String> removed = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        String shardingKey =
+            "/" + sections[random.nextInt(sections.length)] + "/" + sections[random
+                .nextInt(sections.length)] + "/" + sections[random.nextInt(sections.length)];
+        boolean addedInRound = added.values().stream().anyMatch(keys -> keys.contains(shardingKey));
+        if (random.nextBoolean() && expected.containsKey(shardingKey) && expected.size() > 1
+            && !addedInRound) {
+          expected.remove(shardingKey);
+          removed.add(shardingKey);
+        } else if (!expected.containsKey(shardingKey)) {
+          String realm = realms[random.nextInt(realms.length)];
+          expected.put(shardingKey, realm);
+          added.computeIfAbsent(realm, r -> new ArrayList<>()).add(shardingKey);
+        }
+      }
+      trie = trie.update(added, removed);
+      // The same routing data built from scratch
+      Map<String, List<String>> routingData = new HashMap<>();
+      expected.forEach((shardingKey, realm) -> routingData
+          .computeIfAbsent(realm, r -> new ArrayList<>()).add(shardingKey));
+      TrieRoutingData rebuilt = new TrieRoutingData(routingData);
+
+      Assert.assertEquals(trie.getAllMappingUnderPath("/"), expected);
+      Assert.assertEquals(rebuilt.getAllMappingUnderPath("/"), expected);
+      Assert.assertEquals(previous.getAllMappingUnderPath("/"), previousExpected);
+      for (Map.Entry<String, String> entry : expected.entrySet()) {
+        Assert.assertEquals(trie.getMetadataStoreRealm(entry.getKey() + "/x"), entry.getValue());
+        Assert.assertEquals(rebuilt.getMetadataStoreRealm(entry.getKey() + "/x"), entry.getValue());
+        Assert.assertFalse(trie.isShardingKeyInsertionValid(entry.getKey()));
+        String parent = entry.getKey().substring(0, entry.getKey().lastIndexOf('/'));
+        Assert.assertTrue(trie.getAllMappingUnderPath(parent).containsKey(entry.getKey()));
+      }
+    }
+
+    // A sharding key conflicting with an existing one is rejected
+    String existingKey = expected.keySet().iterator().next();
+    try {
+      trie.update(
+          Collections.singletonMap(realms[0], Collections.singletonList(existingKey + "/x")),
+          Collections.emptyList());
+      Assert.fail("Expecting InvalidRoutingDataException");
+    } catch (InvalidRoutingDataException e) {
+      Assert.assertTrue(e.getMessage().contains("is its parent key and is also a sharding key"));
+    }
+    try {
+      trie.update(Collections.emptyMap(), expected.keySet());
+      Assert.fail("Expecting InvalidRoutingDataException");
+    } catch (InvalidRoutingDataException e) {
+      Assert.assertTrue(e.getMessage().contains("routingData needs at least 1 sharding key"));
+    }
+  }
+
+  /**
+   * Building a trie takes O(N log N) time, as the nodes are not copied for every sharding key
+   * added under them. Copying them made building 200k sharding keys take about 10 seconds.
+   */
+  @Test
+  public void testConstructionLargeRoutingData() throws InvalidRoutingDataException {
+    int shardingKeyCount = 300000;
+    String[] realms = {"realmAddress1", "realmAddress2", "realmAddress3"};
+    Map<String, List<String>> routingData = new HashMap<>();
+    for (int i = 0; i < shardingKeyCount; i++) {
+      String shardingKey = i % 2 == 0 ? "/key-" + i : "/group-" + i % 16 + "/key-" + i;
+      routingData.computeIfAbsent(realms[i % realms.length], realm -> new ArrayList<>())
+          .add(shardingKey);
+    }
+
+    long startTime = System.currentTimeMillis();
+    TrieRoutingData trie = new TrieRoutingData(routingData);
+    long buildTime = System.currentTimeMillis() - startTime;
+    Assert.assertTrue(buildTime < 5000,
+        "Building " + shardingKeyCount + " sharding keys took " + buildTime + " ms");
+
+    Assert.assertEquals(trie.getAllMappingUnderPath("/").size(), shardingKeyCount);
+    Assert.assertEquals(trie.getAllMappingUnderPath("/group-3").size(), shardingKeyCount / 16);
+    for (int i = 0; i < shardingKeyCount; i++) {
+      String shardingKey = i % 2 == 0 ? "/key-" + i : "/group-" + i % 16 + "/key-" + i;
+      Assert
+          .assertEquals(trie.getMetadataStoreRealm(shardingKey + "/x"), realms[i % realms.length]);
+    }
+  }
+}
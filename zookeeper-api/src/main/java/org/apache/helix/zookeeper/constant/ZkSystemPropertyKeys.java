@@ -60,4 +60,25 @@ public class ZkSystemPropertyKeys {
    */
   public static final String ZK_AUTOSYNC_ENABLED =
       "zk.zkclient.autosync.enabled";
+
+  /**
+   * The max number of the failed ZkClient async operations that are pending to be retried. Once it
+   * is reached, the retry of an operation takes the place of a pending retry with a lower priority,
+   * or the operation fails with the error code of its last attempt.
+   *
+   * <p>
+   *   The default value is 10000
+   */
+  public static final String ZK_ASYNC_RETRY_CAPACITY = "zk.zkclient.asyncRetry.capacity";
+
+  /**
+   * The directory where {@link org.apache.helix.zookeeper.util.HttpRoutingDataReader} persists the
+   * routing data read from MSDS. If it is set, a process reads the routing data persisted by a
+   * previous run on its first access and revalidates it with MSDS in the background, so it does
+   * not wait for MSDS on startup. Note that the routing data may be stale until it is revalidated.
+   *
+   * <p>
+   *   The property is not set by default (the routing data is not persisted)
+   */
+  public static final String MSDS_ROUTING_DATA_CACHE_DIR = "zk.msds.routingData.cache.dir";
 }
@@ -20,15 +20,22 @@ package org.apache.helix.zookeeper.impl.client;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.helix.msdcommon.callback.RoutingDataListener;
 import org.apache.helix.msdcommon.datamodel.MetadataStoreRoutingData;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
+import org.apache.helix.msdcommon.util.ZkValidationUtil;
 import org.apache.helix.zookeeper.api.client.ChildrenSubscribeResult;
 import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
 import org.apache.helix.zookeeper.impl.factory.DedicatedZkClientFactory;
@@ -38,11 +45,13 @@ import org.apache.helix.zookeeper.zkclient.IZkChildListener;
 import org.apache.helix.zookeeper.zkclient.IZkDataListener;
 import org.apache.helix.zookeeper.zkclient.IZkStateListener;
 import org.apache.helix.zookeeper.zkclient.ZkConnection;
+import org.apache.helix.zookeeper.zkclient.exception.ZkException;
 import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncCallbacks;
 import org.apache.helix.zookeeper.zkclient.serialize.BasicZkSerializer;
 import org.apache.helix.zookeeper.zkclient.serialize.PathBasedZkSerializer;
 import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.Op;
 import org.apache.zookeeper.OpResult;
 import org.apache.zookeeper.ZooDefs;
@@ -74,7 +83,10 @@ public class FederatedZkClient implements RealmAwareZkClient {
   private static final String DEDICATED_ZK_CLIENT_FACTORY =
       DedicatedZkClientFactory.class.getSimpleName();
 
-  private final MetadataStoreRoutingData _metadataStoreRoutingData;
+  // Replaced as a whole when the routing data is refreshed
+  private volatile RealmResolver _realmResolver;
+  // Rebuilds the RealmResolver when HttpRoutingDataReader reads new routing data from MSDS
+  private final RoutingDataListener _routingDataListener = namespace -> updateRealmResolver();
   private final RealmAwareZkClient.RealmAwareZkConnectionConfig _connectionConfig;
   private final RealmAwareZkClient.RealmAwareZkClientConfig _clientConfig;
 
@@ -96,18 +108,14 @@ public class FederatedZkClient implements RealmAwareZkClient {
     }
 
     // Attempt to get MetadataStoreRoutingData
-    String msdsEndpoint = connectionConfig.getMsdsEndpoint();
-    if (msdsEndpoint == null || msdsEndpoint.isEmpty()) {
-      _metadataStoreRoutingData = HttpRoutingDataReader.getMetadataStoreRoutingData();
-    } else {
-      _metadataStoreRoutingData = HttpRoutingDataReader.getMetadataStoreRoutingData(msdsEndpoint);
-    }
+    _realmResolver = new RealmResolver(readRoutingData(connectionConfig));
 
     _isClosed = false;
     _connectionConfig = connectionConfig;
     _clientConfig = clientConfig;
     _pathBasedZkSerializer = clientConfig.getZkSerializer();
     _zkRealmToZkClientMap = new ConcurrentHashMap<>();
+    addRoutingDataListener();
   }
 
   @Override
@@ -337,6 +345,46 @@ public class FederatedZkClient implements RealmAwareZkClient {
     return getZkClient(path).readData(path, stat, returnNullIfPathNotExists);
   }
 
+  /**
+   * Reads the data of the given paths. The paths are grouped by ZK realm, and the async reads of
+   * all the realms are issued before waiting for any of them, so the realms are read concurrently.
+   * @param paths the paths to read
+   * @return the data of each path in the order of the given paths, null if the path does not
+   *         exist
+   */
+  public <T> List<T> readData(List<String> paths) {
+    // ZkClient -> indexes of its paths
+    Map<ZkClient, List<Integer>> realmPaths = new HashMap<>();
+    for (int i = 0; i < paths.size(); i++) {
+      realmPaths.computeIfAbsent(getZkClient(paths.get(i)), zkClient -> new ArrayList<>()).add(i);
+    }
+
+    ZkAsyncCallbacks.GetDataCallbackHandler[] callbacks =
+        new ZkAsyncCallbacks.GetDataCallbackHandler[paths.size()];
+    for (Map.Entry<ZkClient, List<Integer>> entry : realmPaths.entrySet()) {
+      for (int i : entry.getValue()) {
+        callbacks[i] = new ZkAsyncCallbacks.GetDataCallbackHandler();
+        entry.getKey().asyncGetData(paths.get(i), callbacks[i]);
+      }
+    }
+
+    List<T> dataList = new ArrayList<>(Collections.nCopies(paths.size(), null));
+    for (Map.Entry<ZkClient, List<Integer>> entry : realmPaths.entrySet()) {
+      for (int i : entry.getValue()) {
+        ZkAsyncCallbacks.GetDataCallbackHandler callback = callbacks[i];
+        callback.waitForSuccess();
+        KeeperException.Code rc = KeeperException.Code.get(callback.getRc());
+        if (rc == KeeperException.Code.OK) {
+          dataList.set(i, entry.getKey().deserialize(callback._data, paths.get(i)));
+        } else if (rc != KeeperException.Code.NONODE) {
+          throw new ZkException("Failed to read " + paths.get(i),
+              KeeperException.create(rc, paths.get(i)));
+        }
+      }
+    }
+    return dataList;
+  }
+
   @Override
   public void writeData(String path, Object object) {
     writeData(path, object, -1);
@@ -436,6 +484,7 @@ public class FederatedZkClient implements RealmAwareZkClient {
     }
 
     _isClosed = true;
+    removeRoutingDataListener();
 
     synchronized (_zkRealmToZkClientMap) {
       Iterator<Map.Entry<String, ZkClient>> iterator = _zkRealmToZkClientMap.entrySet().iterator();
@@ -492,6 +541,22 @@ public class FederatedZkClient implements RealmAwareZkClient {
     return _pathBasedZkSerializer;
   }
 
+  /**
+   * Re-reads the routing data from MSDS through {@link HttpRoutingDataReader}, which only
+   * downloads it if it has changed. The client is also refreshed automatically whenever
+   * HttpRoutingDataReader reads new routing data, so this only needs to be called to check MSDS
+   * right away.
+   */
+  public void refreshRoutingData() throws IOException, InvalidRoutingDataException {
+    String msdsEndpoint = _connectionConfig.getMsdsEndpoint();
+    if (msdsEndpoint == null || msdsEndpoint.isEmpty()) {
+      HttpRoutingDataReader.refreshRoutingData();
+    } else {
+      HttpRoutingDataReader.refreshRoutingData(msdsEndpoint);
+    }
+    swapRealmResolver();
+  }
+
   @Override
   public RealmAwareZkConnectionConfig getRealmAwareZkConnectionConfig() {
     return _connectionConfig;
@@ -550,9 +615,15 @@ public class FederatedZkClient implements RealmAwareZkClient {
   }
 
   private String getZkRealm(String path) {
-    String zkRealm;
+    RealmResolver realmResolver = _realmResolver;
+    String zkRealm = realmResolver.getZkRealm(path);
+    if (zkRealm != null) {
+      return zkRealm;
+    }
+
+    // Let the routing data validate the path and report why it has no realm
     try {
-      zkRealm = _metadataStoreRoutingData.getMetadataStoreRealm(path);
+      zkRealm = realmResolver._routingData.getMetadataStoreRealm(path);
     } catch (NoSuchElementException ex) {
       throw new NoSuchElementException("Cannot find ZK realm for the path: " + path);
     }
@@ -564,6 +635,52 @@ public class FederatedZkClient implements RealmAwareZkClient {
     return zkRealm;
   }
 
+  private void updateRealmResolver() {
+    try {
+      swapRealmResolver();
+    } catch (IOException | InvalidRoutingDataException e) {
+      LOG.error("{} failed to refresh the routing data.", FEDERATED_ZK_CLIENT, e);
+    }
+  }
+
+  // Synchronized so that routing data read earlier never replaces newer routing data
+  private synchronized void swapRealmResolver()
+      throws IOException, InvalidRoutingDataException {
+    MetadataStoreRoutingData routingData = readRoutingData(_connectionConfig);
+    if (routingData != _realmResolver._routingData) {
+      _realmResolver = new RealmResolver(routingData);
+      LOG.info("{} refreshed the routing data.", FEDERATED_ZK_CLIENT);
+    }
+  }
+
+  private void addRoutingDataListener() {
+    String msdsEndpoint = _connectionConfig.getMsdsEndpoint();
+    if (msdsEndpoint == null || msdsEndpoint.isEmpty()) {
+      HttpRoutingDataReader.addRoutingDataListener(_routingDataListener);
+    } else {
+      HttpRoutingDataReader.addRoutingDataListener(msdsEndpoint, _routingDataListener);
+    }
+  }
+
+  private void removeRoutingDataListener() {
+    String msdsEndpoint = _connectionConfig.getMsdsEndpoint();
+    if (msdsEndpoint == null || msdsEndpoint.isEmpty()) {
+      HttpRoutingDataReader.removeRoutingDataListener(_routingDataListener);
+    } else {
+      HttpRoutingDataReader.removeRoutingDataListener(msdsEndpoint, _routingDataListener);
+    }
+  }
+
+  private static MetadataStoreRoutingData readRoutingData(
+      RealmAwareZkConnectionConfig connectionConfig)
+      throws IOException, InvalidRoutingDataException {
+    String msdsEndpoint = connectionConfig.getMsdsEndpoint();
+    if (msdsEndpoint == null || msdsEndpoint.isEmpty()) {
+      return HttpRoutingDataReader.getMetadataStoreRoutingData();
+    }
+    return HttpRoutingDataReader.getMetadataStoreRoutingData(msdsEndpoint);
+  }
+
   private ZkClient createZkClient(String zkAddress) {
     LOG.debug("Creating ZkClient for realm: {}.", zkAddress);
     return new ZkClient(new ZkConnection(zkAddress), (int) _clientConfig.getConnectInitTimeout(),
@@ -584,4 +701,84 @@ public class FederatedZkClient implements RealmAwareZkClient {
             + ". Instead, please use " + DEDICATED_ZK_CLIENT_FACTORY
             + " to create a dedicated RealmAwareZkClient for this operation.");
   }
+
+  /**
+   * Resolves the ZK realms of paths from one version of the routing data. The sharding keys are
+   * indexed by their number of path sections, so a path is resolved with a hash lookup of its
+   * prefix at each sharding key depth instead of validating and splitting the whole path on every
+   * ZK operation. The index is immutable, so it is read without locking.
+   */
+  private static final class RealmResolver {
+    private final MetadataStoreRoutingData _routingData;
+    // sharding key -> ZK realm
+    private final Map<String, String> _shardingKeyToRealm;
+    // The distinct numbers of path sections of the sharding keys, in ascending order
+    private final int[] _shardingKeyDepths;
+
+    RealmResolver(MetadataStoreRoutingData routingData) {
+      _routingData = routingData;
+      _shardingKeyToRealm = new HashMap<>(routingData.getAllMappingUnderPath("/"));
+      Set<Integer> depths = new TreeSet<>();
+      for (String shardingKey : _shardingKeyToRealm.keySet()) {
+        depths.add(getDepth(shardingKey));
+      }
+      _shardingKeyDepths = depths.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the ZK realm of the sharding key contained in the path, or null if the path does
+     * not contain a sharding key.
+     */
+    String getZkRealm(String path) {
+      // Invalid paths are left to the routing data, which rejects them
+      if (path == null || !ZkValidationUtil.isPathValid(path)) {
+        return null;
+      }
+      // The sharding keys never contain each other, so at most one prefix matches
+      for (int depth : _shardingKeyDepths) {
+        int prefixEnd = getPrefixEnd(path, depth);
+        if (prefixEnd < 0) {
+          return null;
+        }
+        String zkRealm = _shardingKeyToRealm
+            .get(prefixEnd == path.length() ? path : path.substring(0, prefixEnd));
+        if (zkRealm != null) {
+          return zkRealm;
+        }
+      }
+      return null;
+    }
+
+    private static int getDepth(String shardingKey) {
+      if (shardingKey.equals("/")) {
+        return 0;
+      }
+      int depth = 0;
+      for (int i = 0; i < shardingKey.length(); i++) {
+        if (shardingKey.charAt(i) == '/') {
+          depth++;
+        }
+      }
+      return depth;
+    }
+
+    /**
+     * Returns the end index of the prefix of the path with the given number of path sections, or
+     * -1 if the path has fewer sections.
+     */
+    private static int getPrefixEnd(String path, int depth) {
+      if (depth == 0) {
+        return 1;
+      }
+      int end = 0;
+      for (int i = 0; i < depth; i++) {
+        if (end >= path.length()) {
+          return -1;
+        }
+        int next = path.indexOf('/', end + 1);
+        end = next < 0 ? path.length() : next;
+      }
+      return end;
+    }
+  }
 }
@@ -22,15 +22,21 @@ package org.apache.helix.zookeeper.impl.factory;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
+import org.apache.helix.zookeeper.api.client.ChildrenSubscribeResult;
 import org.apache.helix.zookeeper.api.client.HelixZkClient;
 import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
 import org.apache.helix.zookeeper.exception.ZkClientException;
 import org.apache.helix.zookeeper.impl.client.SharedZkClient;
 import org.apache.helix.zookeeper.impl.client.ZkClient;
+import org.apache.helix.zookeeper.zkclient.IZkChildListener;
 import org.apache.helix.zookeeper.zkclient.IZkConnection;
+import org.apache.helix.zookeeper.zkclient.IZkDataListener;
 import org.apache.helix.zookeeper.zkclient.ZkConnection;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.data.ACL;
@@ -150,10 +156,13 @@ public class SharedZkClientFactory extends HelixZkClientFactory {
    * SharedZkClient intact. (Think of rename the original SharedZkClient as InnerSharedZkClient. This would maintain
    * backward compatibility.
    */
-  public static class InnerSharedZkClient extends ZkClient implements HelixZkClient {
+  public static class InnerSharedZkClient extends ZkClient
+      implements HelixZkClient, ZkConnectionManager.PathWatcher {
 
     private final OnCloseCallback _onCloseCallback;
     private final ZkConnectionManager _connectionManager;
+    // path -> number of the subscriptions or waits in progress on the path
+    private final ConcurrentMap<String, Integer> _pendingWatches = new ConcurrentHashMap<>();
 
     public InnerSharedZkClient(ZkConnectionManager connectionManager, ZkClientConfig clientConfig,
         OnCloseCallback callback) {
@@ -181,6 +190,75 @@ public class SharedZkClientFactory extends HelixZkClientFactory {
       }
     }
 
+    @Override
+    public boolean isWatching(String path) {
+      return _pendingWatches.containsKey(path) || hasListeners(path);
+    }
+
+    @Override
+    public ChildrenSubscribeResult subscribeChildChanges(String path, IZkChildListener listener,
+        boolean skipWatchingNonExistNode) {
+      beginWatch(path);
+      try {
+        return super.subscribeChildChanges(path, listener, skipWatchingNonExistNode);
+      } finally {
+        endWatch(path);
+      }
+    }
+
+    @Override
+    public void unsubscribeChildChanges(String path, IZkChildListener childListener) {
+      super.unsubscribeChildChanges(path, childListener);
+      _connectionManager.refreshPathWatcher(path, this);
+    }
+
+    @Override
+    public boolean subscribeDataChanges(String path, IZkDataListener listener,
+        boolean skipWatchingNonExistNode) {
+      beginWatch(path);
+      try {
+        return super.subscribeDataChanges(path, listener, skipWatchingNonExistNode);
+      } finally {
+        endWatch(path);
+      }
+    }
+
+    @Override
+    public void unsubscribeDataChanges(String path, IZkDataListener dataListener) {
+      super.unsubscribeDataChanges(path, dataListener);
+      _connectionManager.refreshPathWatcher(path, this);
+    }
+
+    @Override
+    public void unsubscribeAll() {
+      super.unsubscribeAll();
+      _connectionManager.refreshPathWatcher(this);
+    }
+
+    @Override
+    public boolean waitUntilExists(String path, TimeUnit timeUnit, long time) {
+      beginWatch(path);
+      try {
+        return super.waitUntilExists(path, timeUnit, time);
+      } finally {
+        endWatch(path);
+      }
+    }
+
+    /**
+     * Registers the path to the connection manager before a ZK watch is installed on it, so the
+     * event of the watch is forwarded to this client.
+     */
+    private void beginWatch(String path) {
+      _pendingWatches.merge(path, 1, Integer::sum);
+      _connectionManager.refreshPathWatcher(path, this);
+    }
+
+    private void endWatch(String path) {
+      _pendingWatches.computeIfPresent(path, (p, count) -> count == 1 ? null : count - 1);
+      _connectionManager.refreshPathWatcher(path, this);
+    }
+
     @Override
     public IZkConnection getConnection() {
       if (isClosed()) {
@@ -19,9 +19,14 @@ package org.apache.helix.zookeeper.impl.factory;
  * under the License.
  */
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.helix.zookeeper.api.client.HelixZkClient;
 import org.apache.helix.zookeeper.impl.client.SharedZkClient;
 import org.apache.helix.zookeeper.impl.client.ZkClient;
@@ -39,7 +44,10 @@ import org.slf4j.LoggerFactory;
  * NOTE: DO NOT USE THIS CLASS DIRECTLY. Use ZkClientFactories instead.
  *
  * A ZkConnection manager that maintain connection status and allows additional watchers to be registered.
- * It will forward events to those watchers.
+ * It will forward events to those watchers. The connection state events are forwarded to all the
+ * watchers, while the ZNode events are only forwarded to the {@link PathWatcher}s watching the
+ * path of the event (and to the watchers that are not PathWatchers). The events are forwarded on
+ * the ZK event thread in the order they are received, so every watcher gets them in order.
  *
  * TODO Separate connection management logic from the raw ZkClient class.
  * So this manager is a peer to the HelixZkClient. Connection Manager for maintaining the connection and
@@ -53,7 +61,24 @@ public class ZkConnectionManager extends ZkClient {
   private final static String MONITOR_TYPE = "ZkConnectionManager";
   private final String _monitorKey;
   // Set of all registered watchers
-  protected final Set<Watcher> _sharedWatchers = new HashSet<>();
+  protected final Set<Watcher> _sharedWatchers = ConcurrentHashMap.newKeySet();
+  // The registered watchers that are not PathWatchers, they get all the ZNode events
+  private final Set<Watcher> _unindexedWatchers = ConcurrentHashMap.newKeySet();
+  // ZNode path -> the PathWatchers watching the path. A value set is never modified, it is
+  // replaced when a watcher starts or stops watching the path
+  private final ConcurrentMap<String, Set<Watcher>> _pathWatchers = new ConcurrentHashMap<>();
+
+  /**
+   * A watcher that only gets the ZNode events of the paths it is watching. The watcher must call
+   * {@link #refreshPathWatcher(String, PathWatcher)} before it installs a ZK watch on a path, and
+   * whenever it stops watching a path.
+   */
+  public interface PathWatcher extends Watcher {
+    /**
+     * @return true if the watcher needs the events of the path
+     */
+    boolean isWatching(String path);
+  }
 
   /**
    * Construct and init a ZkConnection Manager.
@@ -79,7 +104,13 @@ public class ZkConnectionManager extends ZkClient {
     if (isClosed()) {
       throw new ZkClientException("Cannot add watcher to a closed client.");
     }
-    return _sharedWatchers.add(watcher);
+    if (!_sharedWatchers.add(watcher)) {
+      return false;
+    }
+    if (!(watcher instanceof PathWatcher)) {
+      _unindexedWatchers.add(watcher);
+    }
+    return true;
   }
 
   /**
@@ -90,22 +121,85 @@ public class ZkConnectionManager extends ZkClient {
    */
   public synchronized int unregisterWatcher(Watcher watcher) {
     _sharedWatchers.remove(watcher);
+    _unindexedWatchers.remove(watcher);
+    if (watcher instanceof PathWatcher) {
+      refreshPathWatcher((PathWatcher) watcher);
+    }
     return _sharedWatchers.size();
   }
 
+  /**
+   * Adds the watcher to the watchers of the path or removes it, according to
+   * {@link PathWatcher#isWatching(String)}. The check and the update are atomic for the path, so
+   * the latest call always leaves the registry in line with the watcher.
+   *
+   * @param path
+   * @param watcher a registered watcher
+   */
+  public void refreshPathWatcher(String path, PathWatcher watcher) {
+    _pathWatchers.compute(path, (p, watchers) -> {
+      boolean watching = _sharedWatchers.contains(watcher) && watcher.isWatching(p);
+      if (watchers != null && watchers.contains(watcher) == watching) {
+        return watchers;
+      }
+      if (watchers == null) {
+        return watching ? Collections.singleton(watcher) : null;
+      }
+      Set<Watcher> newWatchers = new HashSet<>(watchers);
+      if (watching) {
+        newWatchers.add(watcher);
+      } else {
+        newWatchers.remove(watcher);
+      }
+      return newWatchers.isEmpty() ? null : Collections.unmodifiableSet(newWatchers);
+    });
+  }
+
+  /**
+   * Refreshes all the paths the watcher is registered to, e.g. when it stops watching all of them.
+   *
+   * @param watcher
+   */
+  public void refreshPathWatcher(PathWatcher watcher) {
+    for (Map.Entry<String, Set<Watcher>> entry : _pathWatchers.entrySet()) {
+      if (entry.getValue().contains(watcher)) {
+        refreshPathWatcher(entry.getKey(), watcher);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  boolean isWatchingPath(String path, Watcher watcher) {
+    Set<Watcher> pathWatchers = _pathWatchers.get(path);
+    return pathWatchers != null && pathWatchers.contains(watcher);
+  }
+
   @Override
   public void process(final WatchedEvent event) {
     super.process(event);
     forwardingEvent(event);
   }
 
-  private synchronized void forwardingEvent(final WatchedEvent event) {
+  private void forwardingEvent(final WatchedEvent event) {
     // note that process (then forwardingEvent) could be triggered during construction, when sharedWatchers is still null.
-    if (_sharedWatchers == null || _sharedWatchers.isEmpty()) {
+    if (_sharedWatchers == null || _pathWatchers == null || _sharedWatchers.isEmpty()) {
+      return;
+    }
+    if (event.getPath() == null) {
+      // forward the state event to all the watchers' event queue
+      for (final Watcher watcher : _sharedWatchers) {
+        watcher.process(event);
+      }
       return;
     }
-    // forward event to all the watchers' event queue
-    for (final Watcher watcher : _sharedWatchers) {
+    // forward the ZNode event to the watchers of the path only
+    Set<Watcher> pathWatchers = _pathWatchers.get(event.getPath());
+    if (pathWatchers != null) {
+      for (final Watcher watcher : pathWatchers) {
+        watcher.process(event);
+      }
+    }
+    for (final Watcher watcher : _unindexedWatchers) {
       watcher.process(event);
     }
   }
@@ -128,6 +222,8 @@ public class ZkConnectionManager extends ZkClient {
             "Cannot close the connection when there are still shared watchers listen on the event.");
       }
     }
+    _unindexedWatchers.clear();
+    _pathWatchers.clear();
     super.close();
     LOG.info("ZkConnection {} was closed.", _monitorKey);
   }
@@ -143,6 +239,12 @@ public class ZkConnectionManager extends ZkClient {
         }
       }
       _sharedWatchers.removeAll(closedWatchers);
+      for (Watcher watcher : closedWatchers) {
+        _unindexedWatchers.remove(watcher);
+        if (watcher instanceof PathWatcher) {
+          refreshPathWatcher((PathWatcher) watcher);
+        }
+      }
     }
   }
 }
@@ -19,39 +19,58 @@ package org.apache.helix.zookeeper.util;
  * under the License.
  */
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.helix.msdcommon.callback.RoutingDataListener;
 import org.apache.helix.msdcommon.constant.MetadataStoreRoutingConstants;
 import org.apache.helix.msdcommon.datamodel.MetadataStoreRoutingData;
 import org.apache.helix.msdcommon.datamodel.TrieRoutingData;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
+import org.apache.helix.zookeeper.constant.ZkSystemPropertyKeys;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.DefaultBackoffStrategy;
 import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 public class HttpRoutingDataReader {
-  private static final String SYSTEM_MSDS_ENDPOINT =
-      System.getProperty(MetadataStoreRoutingConstants.MSDS_SERVER_ENDPOINT_KEY);
+  private static final Logger LOG = LoggerFactory.getLogger(HttpRoutingDataReader.class);
+
   private static final int HTTP_TIMEOUT_IN_MS = 5000;
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  // The fields of the routing data persisted on disk
+  private static final String CACHED_ETAG = "eTag";
+  private static final String CACHED_ROUTING_DATA = "routingData";
 
-  /** Double-checked locking requires that the following fields be volatile */
-  // The following map stands for (MSDS endpoint, Raw Routing Data)
-  private static volatile Map<String, Map<String, List<String>>> _rawRoutingDataMap =
+  // The following map stands for (MSDS endpoint, RoutingDataSnapshot). A snapshot is never
+  // modified, it is replaced as a whole when the routing data read from the MSDS changes
+  private static final Map<String, RoutingDataSnapshot> _routingDataSnapshotMap =
       new ConcurrentHashMap<>();
-  // The following map stands for (MSDS endpoint, MetadataStoreRoutingData)
-  private static volatile Map<String, MetadataStoreRoutingData> _metadataStoreRoutingDataMap =
+  // MSDS endpoint -> the listeners notified when the routing data read from it changes
+  private static final Map<String, Set<RoutingDataListener>> _routingDataListenerMap =
       new ConcurrentHashMap<>();
 
   /**
@@ -66,11 +85,7 @@ public class HttpRoutingDataReader {
    * @throws IOException
    */
   public static Map<String, List<String>> getRawRoutingData() throws IOException {
-    if (SYSTEM_MSDS_ENDPOINT == null || SYSTEM_MSDS_ENDPOINT.isEmpty()) {
-      throw new IllegalStateException(
-          "HttpRoutingDataReader was unable to find a valid MSDS endpoint String in System Properties!");
-    }
-    return getRawRoutingData(SYSTEM_MSDS_ENDPOINT);
+    return getRawRoutingData(getSystemMsdsEndpoint());
   }
 
   /**
@@ -82,19 +97,7 @@ public class HttpRoutingDataReader {
    */
   public static Map<String, List<String>> getRawRoutingData(String msdsEndpoint)
       throws IOException {
-    Map<String, List<String>> rawRoutingData = _rawRoutingDataMap.get(msdsEndpoint);
-    if (rawRoutingData == null) {
-      synchronized (HttpRoutingDataReader.class) {
-        rawRoutingData = _rawRoutingDataMap.get(msdsEndpoint);
-        if (rawRoutingData == null) {
-          String routingDataJson = getAllRoutingData(msdsEndpoint);
-          // Update the reference if reading routingData over HTTP is successful
-          rawRoutingData = parseRoutingData(routingDataJson);
-          _rawRoutingDataMap.put(msdsEndpoint, rawRoutingData);
-        }
-      }
-    }
-    return rawRoutingData;
+    return getRoutingDataSnapshot(msdsEndpoint)._rawRoutingData;
   }
 
   /**
@@ -105,15 +108,12 @@ public class HttpRoutingDataReader {
    */
   public static MetadataStoreRoutingData getMetadataStoreRoutingData()
       throws IOException, InvalidRoutingDataException {
-    if (SYSTEM_MSDS_ENDPOINT == null || SYSTEM_MSDS_ENDPOINT.isEmpty()) {
-      throw new IllegalStateException(
-          "HttpRoutingDataReader was unable to find a valid MSDS endpoint String in System Properties!");
-    }
-    return getMetadataStoreRoutingData(SYSTEM_MSDS_ENDPOINT);
+    return getMetadataStoreRoutingData(getSystemMsdsEndpoint());
   }
 
   /**
-   * Returns the routing data read from MSDS in a MetadataStoreRoutingData format.
+   * Returns the routing data read from MSDS in a MetadataStoreRoutingData format. The same
+   * instance is returned until the routing data read from MSDS changes.
    * @param msdsEndpoint Metadata Store Directory Store endpoint to query from
    * @return MetadataStoreRoutingData
    * @throws IOException if there is an issue connecting to MSDS
@@ -121,39 +121,176 @@ public class HttpRoutingDataReader {
    */
   public static MetadataStoreRoutingData getMetadataStoreRoutingData(String msdsEndpoint)
       throws IOException, InvalidRoutingDataException {
-    MetadataStoreRoutingData metadataStoreRoutingData =
-        _metadataStoreRoutingDataMap.get(msdsEndpoint);
-    if (metadataStoreRoutingData == null) {
-      synchronized (HttpRoutingDataReader.class) {
-        metadataStoreRoutingData = _metadataStoreRoutingDataMap.get(msdsEndpoint);
-        if (metadataStoreRoutingData == null) {
-          metadataStoreRoutingData = new TrieRoutingData(getRawRoutingData(msdsEndpoint));
-          _metadataStoreRoutingDataMap.put(msdsEndpoint, metadataStoreRoutingData);
+    return getRoutingDataSnapshot(msdsEndpoint).getMetadataStoreRoutingData();
+  }
+
+  /**
+   * Re-reads the routing data from the MSDS configured in the JVM config.
+   * @return true if the routing data has changed
+   * @throws IOException if there is an issue connecting to MSDS
+   */
+  public static boolean refreshRoutingData() throws IOException {
+    return refreshRoutingData(getSystemMsdsEndpoint());
+  }
+
+  /**
+   * Re-reads the routing data from MSDS. The request carries the entity tag of the routing data
+   * read before, so MSDS only sends the routing data back if it has changed. The routing data
+   * shared by all the callers in the JVM is replaced atomically.
+   * @param msdsEndpoint Metadata Store Directory Store endpoint to query from
+   * @return true if the routing data has changed
+   * @throws IOException if there is an issue connecting to MSDS
+   */
+  public static boolean refreshRoutingData(String msdsEndpoint) throws IOException {
+    synchronized (HttpRoutingDataReader.class) {
+      RoutingDataSnapshot snapshot = _routingDataSnapshotMap.get(msdsEndpoint);
+      RoutingDataSnapshot newSnapshot =
+          readRoutingData(msdsEndpoint, snapshot == null ? null : snapshot._eTag);
+      if (newSnapshot == null) {
+        // Not modified
+        return false;
+      }
+      if (snapshot != null && snapshot._rawRoutingData.equals(newSnapshot._rawRoutingData)) {
+        // Keep the MetadataStoreRoutingData already built
+        if (!Objects.equals(snapshot._eTag, newSnapshot._eTag)) {
+          newSnapshot = new RoutingDataSnapshot(newSnapshot._eTag, snapshot._rawRoutingData,
+              snapshot._metadataStoreRoutingData);
+          _routingDataSnapshotMap.put(msdsEndpoint, newSnapshot);
+          writeCachedRoutingData(msdsEndpoint, newSnapshot);
         }
+        return false;
       }
+      _routingDataSnapshotMap.put(msdsEndpoint, newSnapshot);
+      writeCachedRoutingData(msdsEndpoint, newSnapshot);
+      LOG.info("Refreshed the routing data from MSDS {}.", msdsEndpoint);
+    }
+    notifyRoutingDataListeners(msdsEndpoint);
+    return true;
+  }
+
+  /**
+   * Registers a listener to be notified when the routing data read from the MSDS configured in the
+   * JVM config changes.
+   * @param listener the listener, called with the MSDS endpoint
+   */
+  public static void addRoutingDataListener(RoutingDataListener listener) {
+    addRoutingDataListener(getSystemMsdsEndpoint(), listener);
+  }
+
+  /**
+   * Registers a listener to be notified when the routing data read from the MSDS changes, either
+   * by {@link #refreshRoutingData(String)} or by the revalidation of the routing data cached on
+   * disk. The listener is called with the MSDS endpoint, after the new routing data is returned by
+   * {@link #getMetadataStoreRoutingData(String)}.
+   * @param msdsEndpoint Metadata Store Directory Store endpoint
+   * @param listener the listener
+   */
+  public static void addRoutingDataListener(String msdsEndpoint, RoutingDataListener listener) {
+    _routingDataListenerMap
+        .computeIfAbsent(msdsEndpoint, endpoint -> ConcurrentHashMap.newKeySet()).add(listener);
+  }
+
+  /**
+   * Unregisters a listener added by {@link #addRoutingDataListener(RoutingDataListener)}.
+   */
+  public static void removeRoutingDataListener(RoutingDataListener listener) {
+    removeRoutingDataListener(getSystemMsdsEndpoint(), listener);
+  }
+
+  /**
+   * Unregisters a listener added by {@link #addRoutingDataListener(String, RoutingDataListener)}.
+   */
+  public static void removeRoutingDataListener(String msdsEndpoint,
+      RoutingDataListener listener) {
+    Set<RoutingDataListener> listeners = _routingDataListenerMap.get(msdsEndpoint);
+    if (listeners != null) {
+      listeners.remove(listener);
     }
-    return metadataStoreRoutingData;
   }
 
   /**
    * Clears the statically-cached routing data in HttpRoutingDataReader.
    */
   public static void reset() {
-    _rawRoutingDataMap.clear();
-    _metadataStoreRoutingDataMap.clear();
+    _routingDataSnapshotMap.clear();
+  }
+
+  private static void notifyRoutingDataListeners(String msdsEndpoint) {
+    Set<RoutingDataListener> listeners = _routingDataListenerMap.get(msdsEndpoint);
+    if (listeners == null) {
+      return;
+    }
+    for (RoutingDataListener listener : listeners) {
+      try {
+        listener.refreshRoutingData(msdsEndpoint);
+      } catch (Exception e) {
+        LOG.error("Failed to notify {} of the routing data change of MSDS {}.", listener,
+            msdsEndpoint, e);
+      }
+    }
+  }
+
+  private static String getSystemMsdsEndpoint() {
+    String msdsEndpoint =
+        System.getProperty(MetadataStoreRoutingConstants.MSDS_SERVER_ENDPOINT_KEY);
+    if (msdsEndpoint == null || msdsEndpoint.isEmpty()) {
+      throw new IllegalStateException(
+          "HttpRoutingDataReader was unable to find a valid MSDS endpoint String in System Properties!");
+    }
+    return msdsEndpoint;
+  }
+
+  private static RoutingDataSnapshot getRoutingDataSnapshot(String msdsEndpoint)
+      throws IOException {
+    RoutingDataSnapshot snapshot = _routingDataSnapshotMap.get(msdsEndpoint);
+    if (snapshot == null) {
+      synchronized (HttpRoutingDataReader.class) {
+        snapshot = _routingDataSnapshotMap.get(msdsEndpoint);
+        if (snapshot == null) {
+          snapshot = readCachedRoutingData(msdsEndpoint);
+          if (snapshot != null) {
+            // Start with the routing data persisted on disk, and check it with MSDS later
+            _routingDataSnapshotMap.put(msdsEndpoint, snapshot);
+            revalidateInBackground(msdsEndpoint);
+          } else {
+            snapshot = readRoutingData(msdsEndpoint, null);
+            _routingDataSnapshotMap.put(msdsEndpoint, snapshot);
+            writeCachedRoutingData(msdsEndpoint, snapshot);
+          }
+        }
+      }
+    }
+    return snapshot;
+  }
+
+  private static void revalidateInBackground(String msdsEndpoint) {
+    Thread thread = new Thread(() -> {
+      try {
+        refreshRoutingData(msdsEndpoint);
+      } catch (IOException e) {
+        LOG.warn("Failed to revalidate the cached routing data with MSDS {}.", msdsEndpoint, e);
+      }
+    }, "HttpRoutingDataReader-revalidation");
+    thread.setDaemon(true);
+    thread.start();
   }
 
   /**
    * Makes an HTTP call to fetch all routing data.
-   * @return
+   * @param eTag the entity tag of the routing data read before, null if there is none
+   * @return the routing data, or null if it has not changed since the given entity tag
    * @throws IOException
    */
-  private static String getAllRoutingData(String msdsEndpoint) throws IOException {
+  private static RoutingDataSnapshot readRoutingData(String msdsEndpoint, String eTag)
+      throws IOException {
     // Note that MSDS_ENDPOINT should provide high-availability - it risks becoming a single point
     // of failure if it's backed by a single IP address/host
     // Retry count is 3 by default.
     HttpGet requestAllData = new HttpGet(
         msdsEndpoint + MetadataStoreRoutingConstants.MSDS_GET_ALL_ROUTING_DATA_ENDPOINT);
+    if (eTag != null) {
+      requestAllData.setHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+    }
 
     // Define timeout configs
     RequestConfig config = RequestConfig.custom().setConnectTimeout(HTTP_TIMEOUT_IN_MS)
@@ -162,13 +299,24 @@ public class HttpRoutingDataReader {
 
     try (CloseableHttpClient httpClient = HttpClients.custom().setDefaultRequestConfig(config)
         .setConnectionBackoffStrategy(new DefaultBackoffStrategy())
-        .setRetryHandler(new DefaultHttpRequestRetryHandler()).build()) {
-      // Return the JSON because try-resources clause closes the CloseableHttpResponse
-      HttpEntity entity = httpClient.execute(requestAllData).getEntity();
+        .setRetryHandler(new DefaultHttpRequestRetryHandler()).build();
+        CloseableHttpResponse response = httpClient.execute(requestAllData)) {
+      int statusCode = response.getStatusLine().getStatusCode();
+      if (statusCode == HttpStatus.SC_NOT_MODIFIED) {
+        return null;
+      }
+      if (statusCode != HttpStatus.SC_OK) {
+        throw new IOException(
+            "Failed to read routing data from MSDS " + msdsEndpoint + ": " + response
+                .getStatusLine());
+      }
+      HttpEntity entity = response.getEntity();
       if (entity == null) {
         throw new IOException("Response's entity is null!");
       }
-      return EntityUtils.toString(entity, "UTF-8");
+      Header eTagHeader = response.getFirstHeader(HttpHeaders.ETAG);
+      return new RoutingDataSnapshot(eTagHeader == null ? null : eTagHeader.getValue(),
+          parseRoutingData(EntityUtils.toString(entity, "UTF-8")), null);
     }
   }
 
@@ -181,7 +329,7 @@ public class HttpRoutingDataReader {
       throws IOException {
     if (routingDataJson != null) {
       @SuppressWarnings("unchecked")
-      Map<String, Object> resultMap = new ObjectMapper().readValue(routingDataJson, Map.class);
+      Map<String, Object> resultMap = OBJECT_MAPPER.readValue(routingDataJson, Map.class);
       @SuppressWarnings("unchecked")
       List<Map<String, Object>> routingDataList =
           (List<Map<String, Object>>) resultMap.get(MetadataStoreRoutingConstants.ROUTING_DATA);
@@ -194,4 +342,101 @@ public class HttpRoutingDataReader {
     }
     return Collections.emptyMap();
   }
-}
\ No newline at end of file
+
+  /**
+   * Returns the file the routing data of the MSDS endpoint is persisted in, or null if the routing
+   * data is not persisted.
+   */
+  private static File getCacheFile(String msdsEndpoint) throws IOException {
+    String cacheDir = System.getProperty(ZkSystemPropertyKeys.MSDS_ROUTING_DATA_CACHE_DIR);
+    if (cacheDir == null || cacheDir.isEmpty()) {
+      return null;
+    }
+    return new File(cacheDir, URLEncoder.encode(msdsEndpoint, "UTF-8") + ".json");
+  }
+
+  private static RoutingDataSnapshot readCachedRoutingData(String msdsEndpoint) {
+    try {
+      File cacheFile = getCacheFile(msdsEndpoint);
+      if (cacheFile == null || !cacheFile.exists()) {
+        return null;
+      }
+      @SuppressWarnings("unchecked")
+      Map<String, Object> cachedMap = OBJECT_MAPPER.readValue(cacheFile, Map.class);
+      @SuppressWarnings("unchecked")
+      Map<String, List<String>> routingData =
+          (Map<String, List<String>>) cachedMap.get(CACHED_ROUTING_DATA);
+      if (routingData == null) {
+        return null;
+      }
+      LOG.info("Read the routing data of MSDS {} from {}.", msdsEndpoint, cacheFile);
+      return new RoutingDataSnapshot((String) cachedMap.get(CACHED_ETAG), routingData, null);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to read the cached routing data of MSDS {}.", msdsEndpoint, e);
+      return null;
+    }
+  }
+
+  /**
+   * Persists the routing data, so the next process can start with it. The file is replaced
+   * atomically, so the processes sharing the directory never read a partial file.
+   */
+  private static void writeCachedRoutingData(String msdsEndpoint, RoutingDataSnapshot snapshot) {
+    try {
+      File cacheFile = getCacheFile(msdsEndpoint);
+      if (cacheFile == null) {
+        return;
+      }
+      File cacheDir = cacheFile.getParentFile();
+      if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+        throw new IOException("Failed to create directory " + cacheDir);
+      }
+      Map<String, Object> cachedMap = new HashMap<>();
+      cachedMap.put(CACHED_ETAG, snapshot._eTag);
+      cachedMap.put(CACHED_ROUTING_DATA, snapshot._rawRoutingData);
+      File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheDir);
+      try {
+        OBJECT_MAPPER.writeValue(tempFile, cachedMap);
+        Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempFile.toPath());
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to persist the routing data of MSDS {}.", msdsEndpoint, e);
+    }
+  }
+
+  /**
+   * The routing data read from an MSDS at a time. The MetadataStoreRoutingData is built on its
+   * first use.
+   */
+  private static class RoutingDataSnapshot {
+    // The entity tag sent by MSDS with the routing data, null if MSDS does not send one
+    private final String _eTag;
+    private final Map<String, List<String>> _rawRoutingData;
+    /** Double-checked locking requires that the following field be volatile */
+    private volatile MetadataStoreRoutingData _metadataStoreRoutingData;
+
+    RoutingDataSnapshot(String eTag, Map<String, List<String>> rawRoutingData,
+        MetadataStoreRoutingData metadataStoreRoutingData) {
+      _eTag = eTag;
+      _rawRoutingData = Collections.unmodifiableMap(rawRoutingData);
+      _metadataStoreRoutingData = metadataStoreRoutingData;
+    }
+
+    MetadataStoreRoutingData getMetadataStoreRoutingData() throws InvalidRoutingDataException {
+      MetadataStoreRoutingData metadataStoreRoutingData = _metadataStoreRoutingData;
+      if (metadataStoreRoutingData == null) {
+        synchronized (this) {
+          metadataStoreRoutingData = _metadataStoreRoutingData;
+          if (metadataStoreRoutingData == null) {
+            metadataStoreRoutingData = new TrieRoutingData(_rawRoutingData);
+            _metadataStoreRoutingData = metadataStoreRoutingData;
+          }
+        }
+      }
+      return metadataStoreRoutingData;
+    }
+  }
+}
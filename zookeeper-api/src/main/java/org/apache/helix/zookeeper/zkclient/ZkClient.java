@@ -230,7 +230,7 @@ public class ZkClient implements Watcher {
           .isEmpty()) {
         _monitor =
             new ZkClientMonitor(monitorType, monitorKey, monitorInstanceName, monitorRootPathOnly,
-                _eventThread);
+                _eventThread, _asyncCallRetryThread);
         _monitor.register();
       } else {
         LOG.info("ZkClient monitor key or type is not provided. Skip monitoring.");
@@ -1273,7 +1273,8 @@ public class ZkClient implements Watcher {
   private void doAsyncSync(final ZooKeeper zk, final String path, final long startT,
       final ZkAsyncCallbacks.SyncCallbackHandler cb) {
     zk.sync(path, cb,
-        new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, true) {
+        new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, true, path,
+            ZkAsyncRetryThread.Priority.HIGH, false) {
           @Override
           protected void doRetry() throws Exception {
             doAsyncSync(zk, path, System.currentTimeMillis(), cb);
@@ -1373,7 +1374,7 @@ public class ZkClient implements Watcher {
     }
   }
 
-  private boolean hasListeners(String path) {
+  protected boolean hasListeners(String path) {
     Set<IZkDataListenerEntry> dataListeners = _dataListener.get(path);
     if (dataListeners != null && dataListeners.size() > 0) {
       return true;
@@ -1945,7 +1946,8 @@ public class ZkClient implements Watcher {
     retryUntilConnected(() -> {
       ((ZkConnection) getConnection()).getZookeeper()
           .create(path, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, mode, cb,
-              new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, false) {
+              new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, false,
+                  path, mode.isEphemeral() ? ZkAsyncRetryThread.Priority.HIGH : null, false) {
                 @Override
                 protected void doRetry() {
                   doAsyncCreate(path, data, mode, System.currentTimeMillis(), cb);
@@ -1975,7 +1977,7 @@ public class ZkClient implements Watcher {
     retryUntilConnected(() -> {
       ((ZkConnection) getConnection()).getZookeeper().setData(path, data, version, cb,
           new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT,
-              data == null ? 0 : data.length, false) {
+              data == null ? 0 : data.length, false, path, null, version == -1) {
             @Override
             protected void doRetry() {
               doAsyncSetData(path, data, version, System.currentTimeMillis(), cb);
@@ -1989,7 +1991,8 @@ public class ZkClient implements Watcher {
     final long startT = System.currentTimeMillis();
     retryUntilConnected(() -> {
       ((ZkConnection) getConnection()).getZookeeper().getData(path, null, cb,
-          new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, true) {
+          new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, true, path,
+              null, false) {
             @Override
             protected void doRetry() {
               asyncGetData(path, cb);
@@ -2003,7 +2006,8 @@ public class ZkClient implements Watcher {
     final long startT = System.currentTimeMillis();
     retryUntilConnected(() -> {
       ((ZkConnection) getConnection()).getZookeeper().exists(path, null, cb,
-          new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, true) {
+          new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, true, path,
+              null, false) {
             @Override
             protected void doRetry() {
               asyncExists(path, cb);
@@ -2017,7 +2021,8 @@ public class ZkClient implements Watcher {
     final long startT = System.currentTimeMillis();
     retryUntilConnected(() -> {
       ((ZkConnection) getConnection()).getZookeeper().delete(path, -1, cb,
-          new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, false) {
+          new ZkAsyncRetryCallContext(_asyncCallRetryThread, cb, _monitor, startT, 0, false, path,
+              null, false) {
             @Override
             protected void doRetry() {
               asyncDelete(path, cb);
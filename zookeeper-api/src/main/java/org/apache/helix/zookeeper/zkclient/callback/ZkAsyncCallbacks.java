@@ -185,8 +185,9 @@ public class ZkAsyncCallbacks {
               // caller(s).
               return;
             } else {
-              LOG.warn(
-                  "Cannot request to retry the operation. The retry request thread may have been stopped.");
+              LOG.warn("Cannot request to retry the operation on {}. The retry may have been"
+                  + " superseded or rejected, or the retry request thread may have been stopped.",
+                  path);
             }
           } catch (Throwable t) {
             LOG.error("Failed to request to retry the operation.", t);
@@ -27,6 +27,13 @@ public abstract class ZkAsyncRetryCallContext extends ZkAsyncCallMonitorContext
   private static Logger LOG = LoggerFactory.getLogger(ZkAsyncRetryCallContext.class);
   private final ZkAsyncRetryThread _retryThread;
   private final CancellableZkAsyncCallback _cancellableCallback;
+  private final String _path;
+  private final ZkAsyncRetryThread.Priority _priority;
+  private final boolean _isSupersedable;
+  // Number of times the operation has been retried before this call
+  private final int _attempt;
+  // The order in which the operation was issued, it is kept by all the retries of the operation
+  private final long _sequence;
 
   /**
    * @param retryThread       The thread that executes the retry operation.
@@ -40,9 +47,44 @@ public abstract class ZkAsyncRetryCallContext extends ZkAsyncCallMonitorContext
   public ZkAsyncRetryCallContext(final ZkAsyncRetryThread retryThread,
       final CancellableZkAsyncCallback callback, final ZkClientMonitor monitor,
       long startTimeMilliSec, int bytes, boolean isRead) {
+    this(retryThread, callback, monitor, startTimeMilliSec, bytes, isRead, null,
+        ZkAsyncRetryThread.Priority.NORMAL, false);
+  }
+
+  /**
+   * @param retryThread       The thread that executes the retry operation.
+   *                          Note that retry in the ZkEventThread is not allowed to avoid dead lock.
+   * @param callback          Cancellable asynchronous callback to notify when the retry is cancelled.
+   * @param monitor           ZkClient monitor for update the operation result.
+   * @param startTimeMilliSec Operation initialization time.
+   * @param bytes             The data size in bytes that is involved in the operation.
+   * @param isRead            True if the operation is readonly.
+   * @param path              The path of the operation.
+   * @param priority          The priority of the retry. If it is null, the priority is decided by
+   *                          the path, see {@link ZkAsyncRetryThread.Priority#of(String)}.
+   * @param isSupersedable    True if the operation is an unconditional write, which is superseded
+   *                          by a later unconditional write to the same path.
+   */
+  public ZkAsyncRetryCallContext(final ZkAsyncRetryThread retryThread,
+      final CancellableZkAsyncCallback callback, final ZkClientMonitor monitor,
+      long startTimeMilliSec, int bytes, boolean isRead, String path,
+      ZkAsyncRetryThread.Priority priority, boolean isSupersedable) {
     super(monitor, startTimeMilliSec, bytes, isRead);
     _retryThread = retryThread;
     _cancellableCallback = callback;
+    _path = path;
+    _priority = priority;
+    _isSupersedable = isSupersedable && path != null;
+    // A context created while the retry thread is retrying an operation belongs to the retry
+    ZkAsyncRetryCallContext retrying =
+        retryThread == null ? null : retryThread.getRetryingContext();
+    if (retrying != null) {
+      _attempt = retrying._attempt + 1;
+      _sequence = retrying._sequence;
+    } else {
+      _attempt = 0;
+      _sequence = retryThread == null ? 0 : retryThread.nextSequence();
+    }
   }
 
   /**
@@ -61,6 +103,26 @@ public abstract class ZkAsyncRetryCallContext extends ZkAsyncCallMonitorContext
     _cancellableCallback.notifyCallers();
   }
 
+  String getPath() {
+    return _path;
+  }
+
+  ZkAsyncRetryThread.Priority getPriority() {
+    return _priority == null ? ZkAsyncRetryThread.Priority.of(_path) : _priority;
+  }
+
+  boolean isSupersedable() {
+    return _isSupersedable;
+  }
+
+  int getAttempt() {
+    return _attempt;
+  }
+
+  long getSequence() {
+    return _sequence;
+  }
+
   /**
    * The actual retry operation logic.
    */
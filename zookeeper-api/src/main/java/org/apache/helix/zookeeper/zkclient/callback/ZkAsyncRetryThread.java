@@ -19,19 +19,109 @@ package org.apache.helix.zookeeper.zkclient.callback;
  * under the License.
  */
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
+import org.apache.helix.zookeeper.constant.ZkSystemPropertyKeys;
 import org.apache.helix.zookeeper.zkclient.exception.ZkInterruptedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * The thread that retries the failed ZkClient async operations. The retries are scheduled by
+ * priority, and by the time they are due within a priority. A retry of an operation is due at once
+ * on its first retry, and after an exponential backoff on the following ones. A pending retry of
+ * an unconditional write is dropped when a later unconditional write to the same path fails, since
+ * the later write overwrites it anyway. The number of pending retries is bounded, once the bound
+ * is reached a retry takes the place of a pending retry with a lower priority, or is rejected.
+ * The callers of a dropped or rejected retry are notified with the error code of the last attempt.
+ */
 public class ZkAsyncRetryThread extends Thread {
   private static Logger LOG = LoggerFactory.getLogger(ZkAsyncRetryThread.class);
-  private BlockingQueue<ZkAsyncRetryCallContext> _retryContexts = new LinkedBlockingQueue<>();
+
+  public static final int DEFAULT_CAPACITY = 10000;
+  public static final long DEFAULT_INITIAL_BACKOFF_MS = 100L;
+  public static final long DEFAULT_MAX_BACKOFF_MS = 5000L;
+
+  /**
+   * The retry priorities, in the order they are scheduled.
+   */
+  public enum Priority {
+    // The operations that the liveness and the state of an instance depend on
+    HIGH,
+    NORMAL,
+    // The bulk operations, such as the status updates
+    LOW;
+
+    private static final Pattern HIGH_PRIORITY_PATH =
+        Pattern.compile(".*/(LIVEINSTANCES|CURRENTSTATES)/.*");
+    private static final Pattern LOW_PRIORITY_PATH =
+        Pattern.compile(".*/(STATUSUPDATES|ERRORS)/.*");
+
+    /**
+     * @return the priority of the retry of an operation on the given path.
+     */
+    public static Priority of(String path) {
+      if (path == null) {
+        return NORMAL;
+      }
+      if (HIGH_PRIORITY_PATH.matcher(path).matches()) {
+        return HIGH;
+      }
+      if (LOW_PRIORITY_PATH.matcher(path).matches()) {
+        return LOW;
+      }
+      return NORMAL;
+    }
+  }
+
+  private final int _capacity;
+  private final long _initialBackoffMs;
+  private final long _maxBackoffMs;
+  // Pending retries of each priority, ordered by the time they are due
+  private final Map<Priority, TreeSet<RetryRequest>> _retryRequests = new EnumMap<>(Priority.class);
+  // Path -> the pending retry of the latest unconditional write to the path
+  private final Map<String, RetryRequest> _pendingWrites = new HashMap<>();
+  private final AtomicLong _sequence = new AtomicLong();
+  private long _nextRequestId = 0;
   private volatile boolean _isReady = true;
+  // The context being retried, it is only accessed by this thread
+  private ZkAsyncRetryCallContext _retryingContext;
+
+  private volatile int _pendingRetryCount = 0;
+  private volatile long _totalRetryCount = 0;
+  private volatile long _supersededRetryCount = 0;
+  private volatile long _rejectedRetryCount = 0;
 
   public ZkAsyncRetryThread(String name) {
+    this(name, getCapacityProperty(), DEFAULT_INITIAL_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS);
+  }
+
+  /**
+   * @param name             The name of the ZK servers.
+   * @param capacity         The max number of pending retries.
+   * @param initialBackoffMs The backoff before the second retry of an operation, it is doubled on
+   *                         each of the following retries.
+   * @param maxBackoffMs     The max backoff before a retry.
+   */
+  public ZkAsyncRetryThread(String name, int capacity, long initialBackoffMs, long maxBackoffMs) {
+    if (capacity <= 0 || initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs) {
+      throw new IllegalArgumentException(String.format(
+          "Invalid retry capacity %d or backoff %d-%d ms", capacity, initialBackoffMs,
+          maxBackoffMs));
+    }
+    _capacity = capacity;
+    _initialBackoffMs = initialBackoffMs;
+    _maxBackoffMs = maxBackoffMs;
+    for (Priority priority : Priority.values()) {
+      _retryRequests.put(priority, new TreeSet<>(RetryRequest.COMPARATOR));
+    }
     setDaemon(true);
     setName("ZkClient-AsyncCallback-Retry-" + getId() + "-" + name);
   }
@@ -41,7 +131,8 @@ public class ZkAsyncRetryThread extends Thread {
     LOG.info("Starting ZkClient AsyncCallback retry thread.");
     try {
       while (!isInterrupted()) {
-        ZkAsyncRetryCallContext context = _retryContexts.take();
+        ZkAsyncRetryCallContext context = takeRetryContext();
+        _retryingContext = context;
         try {
           context.doRetry();
         } catch (InterruptedException | ZkInterruptedException e) {
@@ -50,27 +141,202 @@ public class ZkAsyncRetryThread extends Thread {
           interrupt();
         } catch (Throwable e) {
           LOG.error("Error retrying callback " + context, e);
+        } finally {
+          _retryingContext = null;
         }
       }
     } catch (InterruptedException e) {
       LOG.info("ZkClient AsyncCallback retry thread is interrupted.");
-    }
-    synchronized (this) {
-      // Mark ready to be false, so no new requests will be sent.
-      _isReady = false;
-      // Notify to all the callers waiting for the result.
-      for (ZkAsyncRetryCallContext context : _retryContexts) {
-        context.cancel();
+    } finally {
+      // Holds the monitor of sendRetryRequest, so no request is added once the pending ones are
+      // cancelled, even if the thread is terminated by an unexpected error.
+      synchronized (this) {
+        // Mark ready to be false, so no new requests will be sent.
+        _isReady = false;
+        // Notify to all the callers waiting for the result.
+        for (TreeSet<RetryRequest> requests : _retryRequests.values()) {
+          for (RetryRequest request : requests) {
+            request._context.cancel();
+          }
+          requests.clear();
+        }
+        _pendingWrites.clear();
+        _pendingRetryCount = 0;
       }
+      LOG.info("Terminate ZkClient AsyncCallback retry thread.");
     }
-    LOG.info("Terminate ZkClient AsyncCallback retry thread.");
   }
 
   synchronized boolean sendRetryRequest(ZkAsyncRetryCallContext context) {
-    if (_isReady) {
-      _retryContexts.add(context);
-      return true;
+    if (!_isReady) {
+      return false;
+    }
+    Priority priority = context.getPriority();
+    if (context.isSupersedable()) {
+      RetryRequest pendingWrite = _pendingWrites.get(context.getPath());
+      if (pendingWrite != null) {
+        _supersededRetryCount++;
+        if (pendingWrite._context.getSequence() > context.getSequence()) {
+          // A later write to the path is pending already
+          LOG.debug("Skip retrying the write to {}, a later write is pending.",
+              context.getPath());
+          return false;
+        }
+        removeRequest(pendingWrite);
+        pendingWrite._context.cancel();
+      }
+    }
+    if (_pendingRetryCount >= _capacity && !evictRequest(priority)) {
+      _rejectedRetryCount++;
+      LOG.warn("Reject retrying the operation on {}, {} retries are pending.", context.getPath(),
+          _pendingRetryCount);
+      return false;
+    }
+    RetryRequest request = new RetryRequest(context, priority,
+        System.currentTimeMillis() + getBackoffMs(context.getAttempt()), _nextRequestId++);
+    _retryRequests.get(priority).add(request);
+    if (context.isSupersedable()) {
+      _pendingWrites.put(context.getPath(), request);
+    }
+    _pendingRetryCount++;
+    notifyAll();
+    return true;
+  }
+
+  /**
+   * @return the number of retries waiting to be executed.
+   */
+  public int getPendingRetryCount() {
+    return _pendingRetryCount;
+  }
+
+  /**
+   * @return the number of retries executed.
+   */
+  public long getTotalRetryCount() {
+    return _totalRetryCount;
+  }
+
+  /**
+   * @return the number of retries dropped because a later write to the same path failed.
+   */
+  public long getSupersededRetryCount() {
+    return _supersededRetryCount;
+  }
+
+  /**
+   * @return the number of retries rejected or evicted because the max pending retries is reached.
+   */
+  public long getRejectedRetryCount() {
+    return _rejectedRetryCount;
+  }
+
+  /**
+   * @return the context being retried if the caller is this thread, null otherwise.
+   */
+  ZkAsyncRetryCallContext getRetryingContext() {
+    return Thread.currentThread() == this ? _retryingContext : null;
+  }
+
+  long nextSequence() {
+    return _sequence.incrementAndGet();
+  }
+
+  /**
+   * Wait until a retry is due and take the one with the highest priority.
+   */
+  private synchronized ZkAsyncRetryCallContext takeRetryContext() throws InterruptedException {
+    while (true) {
+      long now = System.currentTimeMillis();
+      long nextDueTime = Long.MAX_VALUE;
+      for (TreeSet<RetryRequest> requests : _retryRequests.values()) {
+        if (requests.isEmpty()) {
+          continue;
+        }
+        RetryRequest request = requests.first();
+        if (request._dueTime <= now) {
+          removeRequest(request);
+          _totalRetryCount++;
+          return request._context;
+        }
+        nextDueTime = Math.min(nextDueTime, request._dueTime);
+      }
+      if (nextDueTime == Long.MAX_VALUE) {
+        wait();
+      } else {
+        wait(nextDueTime - now);
+      }
+    }
+  }
+
+  /**
+   * Evict the pending retry that is due last among the ones with the lowest priority, if the
+   * priority is lower than the given one.
+   * @return true if a retry is evicted.
+   */
+  private boolean evictRequest(Priority priority) {
+    Priority[] priorities = Priority.values();
+    for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+      TreeSet<RetryRequest> requests = _retryRequests.get(priorities[i]);
+      if (!requests.isEmpty()) {
+        RetryRequest request = requests.last();
+        removeRequest(request);
+        _rejectedRetryCount++;
+        LOG.warn("Evict the retry of the operation on {}, {} retries are pending.",
+            request._context.getPath(), _pendingRetryCount);
+        request._context.cancel();
+        return true;
+      }
     }
     return false;
   }
+
+  private void removeRequest(RetryRequest request) {
+    ZkAsyncRetryCallContext context = request._context;
+    _retryRequests.get(request._priority).remove(request);
+    if (context.isSupersedable()) {
+      _pendingWrites.remove(context.getPath(), request);
+    }
+    _pendingRetryCount--;
+  }
+
+  /**
+   * @return the backoff before the given attempt of retry, randomized within its upper half so
+   * the operations that fail together are not retried together.
+   */
+  private long getBackoffMs(int attempt) {
+    if (attempt == 0 || _maxBackoffMs == 0) {
+      return 0;
+    }
+    long backoff = _maxBackoffMs;
+    if (attempt < Long.numberOfLeadingZeros(_initialBackoffMs)) {
+      backoff = Math.min(_maxBackoffMs, _initialBackoffMs << (attempt - 1));
+    }
+    return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff - backoff / 2 + 1);
+  }
+
+  private static int getCapacityProperty() {
+    int capacity =
+        Integer.getInteger(ZkSystemPropertyKeys.ZK_ASYNC_RETRY_CAPACITY, DEFAULT_CAPACITY);
+    return capacity > 0 ? capacity : DEFAULT_CAPACITY;
+  }
+
+  private static class RetryRequest {
+    private static final Comparator<RetryRequest> COMPARATOR =
+        Comparator.<RetryRequest>comparingLong(request -> request._dueTime)
+            .thenComparingLong(request -> request._id);
+
+    private final ZkAsyncRetryCallContext _context;
+    private final Priority _priority;
+    private final long _dueTime;
+    // Breaks the ties of the due time in the order the retries are requested
+    private final long _id;
+
+    RetryRequest(ZkAsyncRetryCallContext context, Priority priority, long dueTime, long id) {
+      _context = context;
+      _priority = priority;
+      _dueTime = dueTime;
+      _id = id;
+    }
+  }
 }
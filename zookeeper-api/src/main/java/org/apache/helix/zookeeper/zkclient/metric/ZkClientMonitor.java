@@ -38,6 +38,7 @@ import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.SimpleDynamicMetric;
 import org.apache.helix.monitoring.mbeans.exception.MetricException;
 import org.apache.helix.zookeeper.zkclient.ZkEventThread;
+import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncRetryThread;
 
 
 public class ZkClientMonitor extends DynamicMBeanProvider {
@@ -61,12 +62,19 @@ public class ZkClientMonitor extends DynamicMBeanProvider {
   private SimpleDynamicMetric<Long> _outstandingRequestGauge;
 
   private ZkThreadMetric _zkEventThreadMetric;
+  private ZkAsyncRetryThreadMetric _zkAsyncRetryThreadMetric;
 
   private Map<ZkClientPathMonitor.PredefinedPath, ZkClientPathMonitor> _zkClientPathMonitorMap =
       new ConcurrentHashMap<>();
 
   public ZkClientMonitor(String monitorType, String monitorKey, String monitorInstanceName,
       boolean monitorRootOnly, ZkEventThread zkEventThread) {
+    this(monitorType, monitorKey, monitorInstanceName, monitorRootOnly, zkEventThread, null);
+  }
+
+  public ZkClientMonitor(String monitorType, String monitorKey, String monitorInstanceName,
+      boolean monitorRootOnly, ZkEventThread zkEventThread,
+      ZkAsyncRetryThread zkAsyncRetryThread) {
     if (monitorKey == null || monitorKey.isEmpty() || monitorType == null || monitorType
         .isEmpty()) {
       throw new MetricException("Cannot create ZkClientMonitor without monitor key and type.");
@@ -86,6 +94,9 @@ public class ZkClientMonitor extends DynamicMBeanProvider {
     if (zkEventThread != null) {
       _zkEventThreadMetric = new ZkThreadMetric(zkEventThread);
     }
+    if (zkAsyncRetryThread != null) {
+      _zkAsyncRetryThreadMetric = new ZkAsyncRetryThreadMetric(zkAsyncRetryThread);
+    }
   }
 
   public static ObjectName getObjectName(String monitorType, String monitorKey,
@@ -106,6 +117,9 @@ public class ZkClientMonitor extends DynamicMBeanProvider {
     if (_zkEventThreadMetric != null) {
       attributeList.add(_zkEventThreadMetric);
     }
+    if (_zkAsyncRetryThreadMetric != null) {
+      attributeList.add(_zkAsyncRetryThreadMetric);
+    }
     doRegister(attributeList, MBEAN_DESCRIPTION,
         getObjectName(_monitorType, _monitorKey, _monitorInstanceName));
     for (ZkClientPathMonitor.PredefinedPath path : ZkClientPathMonitor.PredefinedPath.values()) {
@@ -258,4 +272,48 @@ public class ZkClientMonitor extends DynamicMBeanProvider {
       setMetricObject(newEventThread);
     }
   }
+
+  class ZkAsyncRetryThreadMetric extends DynamicMetric<ZkAsyncRetryThread, ZkAsyncRetryThread> {
+    public ZkAsyncRetryThreadMetric(ZkAsyncRetryThread retryThread) {
+      super("ZkAsyncRetryThread", retryThread);
+    }
+
+    @Override
+    protected Set<MBeanAttributeInfo> generateAttributeInfos(String metricName,
+        ZkAsyncRetryThread retryThread) {
+      Set<MBeanAttributeInfo> attributeInfoSet = new HashSet<>();
+      attributeInfoSet.add(new MBeanAttributeInfo("PendingAsyncRetryGauge", Long.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(new MBeanAttributeInfo("TotalAsyncRetryCounter", Long.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(
+          new MBeanAttributeInfo("SupersededAsyncRetryCounter", Long.TYPE.getName(),
+              DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(
+          new MBeanAttributeInfo("RejectedAsyncRetryCounter", Long.TYPE.getName(),
+              DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      return attributeInfoSet;
+    }
+
+    @Override
+    public Object getAttributeValue(String attributeName) {
+      switch (attributeName) {
+      case "PendingAsyncRetryGauge":
+        return (long) getMetricObject().getPendingRetryCount();
+      case "TotalAsyncRetryCounter":
+        return getMetricObject().getTotalRetryCount();
+      case "SupersededAsyncRetryCounter":
+        return getMetricObject().getSupersededRetryCount();
+      case "RejectedAsyncRetryCounter":
+        return getMetricObject().getRejectedRetryCount();
+      default:
+        throw new MetricException("Unknown attribute name: " + attributeName);
+      }
+    }
+
+    @Override
+    public void updateValue(ZkAsyncRetryThread newRetryThread) {
+      setMetricObject(newRetryThread);
+    }
+  }
 }
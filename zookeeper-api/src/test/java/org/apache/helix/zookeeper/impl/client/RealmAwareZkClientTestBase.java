@@ -61,6 +61,8 @@ public abstract class RealmAwareZkClientTestBase extends ZkTestBase {
   public void afterClass() {
     if (_msdsServer != null) {
       _msdsServer.stopServer();
+      // The next test class starts its own Mock MSDS
+      _msdsServer = null;
     }
   }
 }
\ No newline at end of file
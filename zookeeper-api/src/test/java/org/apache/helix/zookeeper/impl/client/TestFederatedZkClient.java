@@ -20,15 +20,22 @@ package org.apache.helix.zookeeper.impl.client;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
+import org.apache.helix.msdcommon.mock.MockMetadataStoreDirectoryServer;
 import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
+import org.apache.helix.zookeeper.constant.TestConstants;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordSerializer;
+import org.apache.helix.zookeeper.util.HttpRoutingDataReader;
 import org.apache.helix.zookeeper.zkclient.IZkStateListener;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.Op;
@@ -47,6 +54,9 @@ public class TestFederatedZkClient extends RealmAwareZkClientTestBase {
   private static final String TEST_INVALID_PATH = TEST_SHARDING_KEY_PREFIX + "invalid/a/b/c";
   private static final String UNSUPPORTED_OPERATION_MESSAGE =
       "Session-aware operation is not supported by FederatedZkClient.";
+  private static final String REFRESH_MSDS_HOSTNAME = "localhost";
+  private static final int REFRESH_MSDS_PORT = 1112;
+  private static final String REFRESH_MSDS_NAMESPACE = "TestFederatedZkClientRefresh";
 
   private RealmAwareZkClient _realmAwareZkClient;
 
@@ -263,7 +273,106 @@ public class TestFederatedZkClient extends RealmAwareZkClientTestBase {
    * TODO: test that all raw zkClients are closed after FederatedZkClient close() is called. This
    *  could help avoid ZkClient leakage.
    */
+  /*
+   * Tests that a batch read resolves the paths of several sharding keys, and that the paths without
+   * a sharding key are still rejected after the routing data is refreshed.
+   */
   @Test(dependsOnMethods = "testMultiRealmCRUD")
+  public void testBatchReadData() throws IOException, InvalidRoutingDataException {
+    FederatedZkClient federatedZkClient = (FederatedZkClient) _realmAwareZkClient;
+    List<String> paths = Arrays.asList("/sharding-key-0/batch/a", "/sharding-key-1/batch/b",
+        "/sharding-key-2/batch/c", "/sharding-key-2/batch/notExist");
+    for (String path : paths.subList(0, 3)) {
+      _realmAwareZkClient.createPersistent(path, true);
+      _realmAwareZkClient.writeData(path, new ZNRecord(path));
+    }
+
+    List<ZNRecord> records = federatedZkClient.readData(paths);
+    Assert.assertEquals(records.size(), paths.size());
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(records.get(i), new ZNRecord(paths.get(i)));
+    }
+    Assert.assertNull(records.get(3));
+
+    federatedZkClient.refreshRoutingData();
+    Assert.assertEquals(_realmAwareZkClient.readData(paths.get(0)), new ZNRecord(paths.get(0)));
+    try {
+      _realmAwareZkClient.exists(TEST_INVALID_PATH);
+      Assert.fail("Should not find a ZK realm for " + TEST_INVALID_PATH);
+    } catch (NoSuchElementException expected) {
+      // Expected
+    }
+    try {
+      federatedZkClient.readData(Arrays.asList(paths.get(0), "/"));
+      Assert.fail("Should not find a ZK realm for the root path");
+    } catch (NoSuchElementException expected) {
+      // Expected
+    }
+
+    for (String path : paths.subList(0, 3)) {
+      _realmAwareZkClient.deleteRecursively(path.substring(0, path.lastIndexOf('/')));
+    }
+  }
+
+  /*
+   * Tests that the paths rejected by the routing data, such as the paths with a trailing slash, are
+   * not resolved to a ZK realm.
+   */
+  @Test(dependsOnMethods = "testBatchReadData")
+  public void testInvalidPaths() {
+    for (String path : Arrays.asList(TEST_REALM_ONE_VALID_PATH + "/", TEST_SHARDING_KEY_PREFIX
+        + "//a", TEST_SHARDING_KEY_PREFIX + "/a b")) {
+      try {
+        _realmAwareZkClient.exists(path);
+        Assert.fail("Should not find a ZK realm for the invalid path " + path);
+      } catch (IllegalArgumentException expected) {
+        // Expected
+      }
+    }
+  }
+
+  /*
+   * Tests that the client picks up the routing data refreshed by HttpRoutingDataReader without
+   * being refreshed itself.
+   */
+  @Test(dependsOnMethods = "testInvalidPaths")
+  public void testRoutingDataRefreshedByReader() throws Exception {
+    String refreshedPath = "/refreshed-key/a";
+    Map<String, Collection<String>> routingData = new HashMap<>(TestConstants.FAKE_ROUTING_DATA);
+    MockMetadataStoreDirectoryServer msdsServer =
+        new MockMetadataStoreDirectoryServer(REFRESH_MSDS_HOSTNAME, REFRESH_MSDS_PORT,
+            REFRESH_MSDS_NAMESPACE, routingData);
+    msdsServer.startServer();
+    String msdsEndpoint = msdsServer.getEndpoint();
+    RealmAwareZkClient zkClient = new FederatedZkClient(
+        new RealmAwareZkClient.RealmAwareZkConnectionConfig.Builder().setMsdsEndpoint(msdsEndpoint)
+            .build(), new RealmAwareZkClient.RealmAwareZkClientConfig());
+    try {
+      try {
+        zkClient.exists(refreshedPath);
+        Assert.fail("Should not find a ZK realm for " + refreshedPath);
+      } catch (NoSuchElementException expected) {
+        // Expected
+      }
+
+      // Restart MSDS with a new sharding key
+      List<String> shardingKeys = new ArrayList<>(routingData.get(ZK_ADDR));
+      shardingKeys.add("/refreshed-key");
+      routingData.put(ZK_ADDR, shardingKeys);
+      msdsServer.stopServer();
+      msdsServer = new MockMetadataStoreDirectoryServer(REFRESH_MSDS_HOSTNAME, REFRESH_MSDS_PORT,
+          REFRESH_MSDS_NAMESPACE, routingData);
+      msdsServer.startServer();
+
+      Assert.assertTrue(HttpRoutingDataReader.refreshRoutingData(msdsEndpoint));
+      Assert.assertFalse(zkClient.exists(refreshedPath));
+    } finally {
+      zkClient.close();
+      msdsServer.stopServer();
+    }
+  }
+
+  @Test(dependsOnMethods = "testRoutingDataRefreshedByReader")
   public void testClose() {
     Assert.assertFalse(_realmAwareZkClient.isClosed());
 
@@ -19,11 +19,19 @@ package org.apache.helix.zookeeper.impl.client;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordSerializer;
+import org.apache.helix.zookeeper.impl.TestHelper;
 import org.apache.helix.zookeeper.impl.ZkTestBase;
+import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncCallMonitorContext;
 import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncCallbacks;
 import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncRetryCallContext;
+import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncRetryThread;
 import org.apache.helix.zookeeper.zkclient.exception.ZkInterruptedException;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
@@ -262,6 +270,140 @@ public class TestZkClientAsyncRetry extends ZkTestBase {
     }
   }
 
+  @Test(dependsOnMethods = "testAsyncRequestCleanup", alwaysRun = true)
+  public void testAsyncRetryScheduling() throws InterruptedException {
+    // The thread is started after all the retries are requested, so none is executed before
+    ZkAsyncRetryThread retryThread = new ZkAsyncRetryThread("test", 3, 0, 0);
+    List<String> retriedPaths = Collections.synchronizedList(new ArrayList<>());
+    String statusUpdatePath = "/cluster/INSTANCES/instance/STATUSUPDATES/session/resource";
+    String idealStatePath = "/cluster/IDEALSTATES/resource";
+    String externalViewPath = "/cluster/EXTERNALVIEW/resource";
+    String currentStatePath = "/cluster/INSTANCES/instance/CURRENTSTATES/session/resource";
+    try {
+      ZkAsyncCallbacks.SetDataCallbackHandler statusUpdateCallback =
+          requestRetry(retryThread, statusUpdatePath, false, retriedPaths);
+      ZkAsyncCallbacks.SetDataCallbackHandler idealStateCallback =
+          requestRetry(retryThread, idealStatePath, false, retriedPaths);
+      ZkAsyncCallbacks.SetDataCallbackHandler supersededCallback =
+          requestRetry(retryThread, externalViewPath, true, retriedPaths);
+      ZkAsyncCallbacks.SetDataCallbackHandler externalViewCallback =
+          requestRetry(retryThread, externalViewPath, true, retriedPaths);
+      // The earlier write to the ExternalView is superseded by the later one
+      Assert.assertTrue(supersededCallback.isOperationDone());
+      Assert.assertFalse(externalViewCallback.isOperationDone());
+      Assert.assertEquals(retryThread.getSupersededRetryCount(), 1);
+      Assert.assertEquals(retryThread.getPendingRetryCount(), 3);
+
+      // The retry of the CurrentState evicts the retry of the status update
+      ZkAsyncCallbacks.SetDataCallbackHandler currentStateCallback =
+          requestRetry(retryThread, currentStatePath, false, retriedPaths);
+      Assert.assertFalse(currentStateCallback.isOperationDone());
+      Assert.assertTrue(statusUpdateCallback.isOperationDone());
+      Assert.assertEquals(statusUpdateCallback.getRc(), CONNECTIONLOSS.intValue());
+      // No retry has a lower priority than the IdealState one, so it is rejected
+      ZkAsyncCallbacks.SetDataCallbackHandler rejectedCallback =
+          requestRetry(retryThread, idealStatePath, false, retriedPaths);
+      Assert.assertTrue(rejectedCallback.isOperationDone());
+      Assert.assertEquals(rejectedCallback.getRc(), CONNECTIONLOSS.intValue());
+      Assert.assertEquals(retryThread.getRejectedRetryCount(), 2);
+      Assert.assertEquals(retryThread.getPendingRetryCount(), 3);
+
+      retryThread.start();
+      Assert.assertTrue(TestHelper.verify(() -> retriedPaths.size() == 3, 1000));
+      Assert.assertEquals(retriedPaths,
+          Arrays.asList(currentStatePath, idealStatePath, externalViewPath));
+      Assert.assertFalse(idealStateCallback.isOperationDone());
+      Assert.assertEquals(retryThread.getTotalRetryCount(), 3);
+      Assert.assertEquals(retryThread.getPendingRetryCount(), 0);
+    } catch (Exception e) {
+      Assert.fail("Failed to verify the retry scheduling.", e);
+    } finally {
+      retryThread.interrupt();
+      retryThread.join(1000);
+    }
+  }
+
+  @Test(dependsOnMethods = "testAsyncRetryScheduling", alwaysRun = true)
+  public void testAsyncRetryBackoff() throws Exception {
+    ZkAsyncRetryThread retryThread = new ZkAsyncRetryThread("test", 10, 100, 200);
+    retryThread.start();
+    List<Long> retryTimes = Collections.synchronizedList(new ArrayList<>());
+    ZkAsyncCallbacks.SetDataCallbackHandler callback =
+        new ZkAsyncCallbacks.SetDataCallbackHandler();
+    try {
+      long startTime = System.currentTimeMillis();
+      callback.processResult(CONNECTIONLOSS.intValue(), NODE_PATH,
+          new RetryFailingContext(retryThread, callback, NODE_PATH, retryTimes, 4), null);
+      Assert.assertTrue(waitAsyncOperation(callback, 5000));
+      Assert.assertEquals(callback.getRc(), CONNECTIONLOSS.intValue());
+      Assert.assertEquals(retryTimes.size(), 4);
+      // The first retry is executed at once, the following ones back off 50-100, 100-200 and
+      // 100-200 ms, since the backoff is randomized within its upper half
+      Assert.assertTrue(retryTimes.get(0) - startTime < 50);
+      for (int i = 1; i < retryTimes.size(); i++) {
+        long expectedMinBackoff = Math.min(100L << (i - 1), 200L) / 2;
+        Assert.assertTrue(retryTimes.get(i) - retryTimes.get(i - 1) >= expectedMinBackoff);
+      }
+      Assert.assertEquals(retryThread.getTotalRetryCount(), 4);
+    } finally {
+      retryThread.interrupt();
+      retryThread.join(1000);
+    }
+  }
+
+  private static ZkAsyncCallbacks.SetDataCallbackHandler requestRetry(
+      ZkAsyncRetryThread retryThread, String path, boolean isSupersedable,
+      List<String> retriedPaths) {
+    ZkAsyncCallbacks.SetDataCallbackHandler callback =
+        new ZkAsyncCallbacks.SetDataCallbackHandler();
+    callback.processResult(CONNECTIONLOSS.intValue(), path,
+        new ZkAsyncRetryCallContext(retryThread, callback, null, 0, 0, false, path, null,
+            isSupersedable) {
+          @Override
+          protected void doRetry() {
+            retriedPaths.add(path);
+          }
+        }, null);
+    return callback;
+  }
+
+  /**
+   * Fails the operation again on each retry, until the given number of retries are executed.
+   */
+  private static class RetryFailingContext extends ZkAsyncRetryCallContext {
+    private final ZkAsyncRetryThread _retryThread;
+    private final ZkAsyncCallbacks.SetDataCallbackHandler _callback;
+    private final String _path;
+    private final List<Long> _retryTimes;
+    private final int _maxRetries;
+
+    RetryFailingContext(ZkAsyncRetryThread retryThread,
+        ZkAsyncCallbacks.SetDataCallbackHandler callback, String path, List<Long> retryTimes,
+        int maxRetries) {
+      super(retryThread, callback, null, 0, 0, false, path, null, false);
+      _retryThread = retryThread;
+      _callback = callback;
+      _path = path;
+      _retryTimes = retryTimes;
+      _maxRetries = maxRetries;
+    }
+
+    @Override
+    protected void doRetry() {
+      _retryTimes.add(System.currentTimeMillis());
+      if (_retryTimes.size() < _maxRetries) {
+        // The context created by the retry carries the attempt count of the operation
+        _callback.processResult(CONNECTIONLOSS.intValue(), _path,
+            new RetryFailingContext(_retryThread, _callback, _path, _retryTimes, _maxRetries),
+            null);
+      } else {
+        // A context that does not allow retrying, so the operation fails
+        _callback.processResult(CONNECTIONLOSS.intValue(), _path,
+            new ZkAsyncCallMonitorContext(null, 0, 0, false), null);
+      }
+    }
+  }
+
   /**
    * Mock client to whitebox test async functionality.
    */
@@ -0,0 +1,133 @@
+package org.apache.helix.zookeeper.impl.factory;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.zookeeper.api.client.HelixZkClient;
+import org.apache.helix.zookeeper.impl.TestHelper;
+import org.apache.helix.zookeeper.impl.ZkTestBase;
+import org.apache.helix.zookeeper.zkclient.IZkDataListener;
+import org.apache.helix.zookeeper.zkclient.ZkConnection;
+import org.apache.zookeeper.WatchedEvent;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestZkConnectionManager extends ZkTestBase {
+  private static final String TEST_ROOT = "/" + TestZkConnectionManager.class.getSimpleName();
+
+  @Test
+  public void testPathIndexedEventForwarding() throws Exception {
+    String pathA = TEST_ROOT + "/a";
+    String pathB = TEST_ROOT + "/b";
+    String pathC = TEST_ROOT + "/c";
+    ZkConnectionManager connectionManager =
+        new ZkConnectionManager(new ZkConnection(ZK_ADDR), HelixZkClient.DEFAULT_CONNECTION_TIMEOUT,
+            null);
+    EventRecordingZkClient client1 = new EventRecordingZkClient(connectionManager);
+    EventRecordingZkClient client2 = new EventRecordingZkClient(connectionManager);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      client1.createPersistent(pathA, true);
+      client1.createPersistent(pathB, true);
+
+      // Every client only gets the events of the paths it subscribes to
+      LatchDataListener listenerA = new LatchDataListener();
+      client1.subscribeDataChanges(pathA, listenerA);
+      LatchDataListener listenerB = new LatchDataListener();
+      client2.subscribeDataChanges(pathB, listenerB);
+      client1.writeData(pathA, "a");
+      client2.writeData(pathB, "b");
+      Assert.assertTrue(listenerA._latch.await(10, TimeUnit.SECONDS));
+      Assert.assertTrue(listenerB._latch.await(10, TimeUnit.SECONDS));
+      Assert.assertTrue(client1._paths.contains(pathA));
+      Assert.assertFalse(client1._paths.contains(pathB));
+      Assert.assertTrue(client2._paths.contains(pathB));
+      Assert.assertFalse(client2._paths.contains(pathA));
+
+      // The events are not forwarded after unsubscribing
+      client1.unsubscribeDataChanges(pathA, listenerA);
+      client1._paths.clear();
+      LatchDataListener listenerA2 = new LatchDataListener();
+      client2.subscribeDataChanges(pathA, listenerA2);
+      client2.writeData(pathA, "a2");
+      Assert.assertTrue(listenerA2._latch.await(10, TimeUnit.SECONDS));
+      // The events are forwarded in order on the ZK event thread, so client1 would have got it
+      Assert.assertTrue(client1._paths.isEmpty());
+
+      // A client waiting for a path gets its events without subscribing
+      Future<Boolean> exists =
+          executor.submit(() -> client1.waitUntilExists(pathC, TimeUnit.SECONDS, 10));
+      Assert.assertTrue(TestHelper.verify(() -> connectionManager.isWatchingPath(pathC, client1),
+          TestHelper.WAIT_DURATION));
+      client2.createPersistent(pathC);
+      Assert.assertTrue(exists.get(10, TimeUnit.SECONDS));
+      Assert.assertFalse(connectionManager.isWatchingPath(pathC, client1));
+
+      // A closed client is removed from the registry
+      client2.close();
+      Assert.assertFalse(connectionManager.isWatchingPath(pathA, client2));
+      Assert.assertFalse(connectionManager.isWatchingPath(pathB, client2));
+    } finally {
+      executor.shutdownNow();
+      client1.deleteRecursively(TEST_ROOT);
+      client1.close();
+      client2.close();
+      connectionManager.close();
+    }
+  }
+
+  private static class EventRecordingZkClient extends SharedZkClientFactory.InnerSharedZkClient {
+    // The paths of the ZNode events forwarded to the client
+    private final List<String> _paths = new CopyOnWriteArrayList<>();
+
+    EventRecordingZkClient(ZkConnectionManager connectionManager) {
+      super(connectionManager, new HelixZkClient.ZkClientConfig(), null);
+    }
+
+    @Override
+    public void process(WatchedEvent event) {
+      if (event.getPath() != null) {
+        _paths.add(event.getPath());
+      }
+      super.process(event);
+    }
+  }
+
+  private static class LatchDataListener implements IZkDataListener {
+    private final CountDownLatch _latch = new CountDownLatch(1);
+
+    @Override
+    public void handleDataChange(String dataPath, Object data) {
+      _latch.countDown();
+    }
+
+    @Override
+    public void handleDataDeleted(String dataPath) {
+    }
+  }
+}
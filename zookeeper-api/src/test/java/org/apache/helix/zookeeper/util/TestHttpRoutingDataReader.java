@@ -19,21 +19,28 @@ package org.apache.helix.zookeeper.util;
  * under the License.
  */
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.apache.helix.msdcommon.callback.RoutingDataListener;
 import org.apache.helix.msdcommon.constant.MetadataStoreRoutingConstants;
 import org.apache.helix.msdcommon.datamodel.MetadataStoreRoutingData;
 import org.apache.helix.msdcommon.exception.InvalidRoutingDataException;
 import org.apache.helix.msdcommon.mock.MockMetadataStoreDirectoryServer;
 import org.apache.helix.zookeeper.constant.TestConstants;
+import org.apache.helix.zookeeper.constant.ZkSystemPropertyKeys;
 import org.apache.helix.zookeeper.impl.ZkTestBase;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -46,6 +53,7 @@ public class TestHttpRoutingDataReader extends ZkTestBase {
   private final String _host = "localhost";
   private final int _port = 1991;
   private final String _namespace = "TestHttpRoutingDataReader";
+  private static final String REFRESHED_REALM = "refreshedRealm";
 
   @BeforeClass
   public void beforeClass() throws IOException {
@@ -117,4 +125,69 @@ public class TestHttpRoutingDataReader extends ZkTestBase {
             Collectors.mapping(Map.Entry::getKey, Collectors.toSet())));
     Assert.assertFalse(groupedMappings.containsKey(newRealm));
   }
+
+  @Test(dependsOnMethods = "testStaticMapping")
+  public void testRefreshRoutingData() throws IOException, InvalidRoutingDataException {
+    String msdsEndpoint = _msdsServer.getEndpoint();
+    // Catch up with the routing data MSDS was restarted with in testStaticMapping
+    HttpRoutingDataReader.refreshRoutingData(msdsEndpoint);
+    MetadataStoreRoutingData data = HttpRoutingDataReader.getMetadataStoreRoutingData(msdsEndpoint);
+    List<String> notifiedEndpoints = new CopyOnWriteArrayList<>();
+    RoutingDataListener listener = notifiedEndpoints::add;
+    HttpRoutingDataReader.addRoutingDataListener(msdsEndpoint, listener);
+
+    // The routing data is not modified, so the same instance is kept
+    Assert.assertFalse(HttpRoutingDataReader.refreshRoutingData(msdsEndpoint));
+    Assert.assertSame(HttpRoutingDataReader.getMetadataStoreRoutingData(msdsEndpoint), data);
+    Assert.assertTrue(notifiedEndpoints.isEmpty());
+
+    // Restart MSDS with a new realm
+    Map<String, Collection<String>> newRoutingData = new HashMap<>(TestConstants.FAKE_ROUTING_DATA);
+    newRoutingData.put(REFRESHED_REALM, ImmutableSet.of("/refreshedKey"));
+    _msdsServer.stopServer();
+    _msdsServer = new MockMetadataStoreDirectoryServer(_host, _port, _namespace, newRoutingData);
+    _msdsServer.startServer();
+
+    Assert.assertTrue(HttpRoutingDataReader.refreshRoutingData(msdsEndpoint));
+    Assert.assertEquals(HttpRoutingDataReader.getRawRoutingData(msdsEndpoint).keySet(),
+        newRoutingData.keySet());
+    MetadataStoreRoutingData refreshedData =
+        HttpRoutingDataReader.getMetadataStoreRoutingData(msdsEndpoint);
+    Assert.assertNotSame(refreshedData, data);
+    Assert.assertEquals(refreshedData.getMetadataStoreRealm("/refreshedKey"), REFRESHED_REALM);
+    // The listener is notified of the change only
+    Assert.assertEquals(notifiedEndpoints, Collections.singletonList(msdsEndpoint));
+    HttpRoutingDataReader.removeRoutingDataListener(msdsEndpoint, listener);
+  }
+
+  @Test(dependsOnMethods = "testRefreshRoutingData")
+  public void testCachedRoutingData() throws Exception {
+    String msdsEndpoint = _msdsServer.getEndpoint();
+    File cacheDir = Files.createTempDirectory(_namespace).toFile();
+    System.setProperty(ZkSystemPropertyKeys.MSDS_ROUTING_DATA_CACHE_DIR, cacheDir.getPath());
+    try {
+      // The routing data read from MSDS is persisted
+      HttpRoutingDataReader.reset();
+      Map<String, List<String>> rawRoutingData =
+          HttpRoutingDataReader.getRawRoutingData(msdsEndpoint);
+      Assert.assertTrue(rawRoutingData.containsKey(REFRESHED_REALM));
+      Assert.assertEquals(cacheDir.list().length, 1);
+
+      // The persisted routing data is read while MSDS is down
+      _msdsServer.stopServer();
+      HttpRoutingDataReader.reset();
+      Assert.assertEquals(HttpRoutingDataReader.getRawRoutingData(msdsEndpoint), rawRoutingData);
+
+      // The routing data is replaced once MSDS is back
+      _msdsServer = new MockMetadataStoreDirectoryServer(_host, _port, _namespace,
+          TestConstants.FAKE_ROUTING_DATA);
+      _msdsServer.startServer();
+      HttpRoutingDataReader.refreshRoutingData(msdsEndpoint);
+      Assert.assertEquals(HttpRoutingDataReader.getRawRoutingData(msdsEndpoint).keySet(),
+          TestConstants.FAKE_ROUTING_DATA.keySet());
+    } finally {
+      System.clearProperty(ZkSystemPropertyKeys.MSDS_ROUTING_DATA_CACHE_DIR);
+      FileUtils.deleteDirectory(cacheDir);
+    }
+  }
 }